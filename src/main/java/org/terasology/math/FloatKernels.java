@@ -0,0 +1,52 @@
+/*
+ * Copyright 2015 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.terasology.math;
+
+/**
+ * Element-wise operations on float arrays that back the bulk methods of {@link TeraMath}.
+ * All methods process the elements [offset..offset+count) and allow the target array to
+ * be the same as one of the input arrays. Implementations must produce exactly the same
+ * results as {@link ScalarFloatKernels}, i.e. evaluate the same operations in the same order.
+ */
+interface FloatKernels {
+
+    /**
+     * target = a + t * (b - a)
+     */
+    void lerp(float[] a, float[] b, float t, float[] target, int offset, int count);
+
+    /**
+     * target = a + t * (b - a), with individual interpolation factors
+     */
+    void lerp(float[] a, float[] b, float[] t, float[] target, int offset, int count);
+
+    /**
+     * target = a + b
+     */
+    void add(float[] a, float[] b, float[] target, int offset, int count);
+
+    /**
+     * target = a * factor
+     */
+    void scale(float[] a, float factor, float[] target, int offset, int count);
+
+    /**
+     * target = ax * bx + ay * by + az * bz
+     */
+    void dot(float[] ax, float[] ay, float[] az, float[] bx, float[] by, float[] bz,
+             float[] target, int offset, int count);
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2015 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.terasology.math;
+
+/**
+ * Plain loops over unit-stride arrays, which HotSpot can unroll and sometimes auto-vectorize.
+ * This implementation is used if the vector API is not available.
+ */
+final class ScalarFloatKernels implements FloatKernels {
+
+    @Override
+    public void lerp(float[] a, float[] b, float t, float[] target, int offset, int count) {
+        int end = offset + count;
+        for (int i = offset; i < end; i++) {
+            target[i] = a[i] + t * (b[i] - a[i]);
+        }
+    }
+
+    @Override
+    public void lerp(float[] a, float[] b, float[] t, float[] target, int offset, int count) {
+        int end = offset + count;
+        for (int i = offset; i < end; i++) {
+            target[i] = a[i] + t[i] * (b[i] - a[i]);
+        }
+    }
+
+    @Override
+    public void add(float[] a, float[] b, float[] target, int offset, int count) {
+        int end = offset + count;
+        for (int i = offset; i < end; i++) {
+            target[i] = a[i] + b[i];
+        }
+    }
+
+    @Override
+    public void scale(float[] a, float factor, float[] target, int offset, int count) {
+        int end = offset + count;
+        for (int i = offset; i < end; i++) {
+            target[i] = a[i] * factor;
+        }
+    }
+
+    @Override
+    public void dot(float[] ax, float[] ay, float[] az, float[] bx, float[] by, float[] bz,
+                    float[] target, int offset, int count) {
+        int end = offset + count;
+        for (int i = offset; i < end; i++) {
+            target[i] = ax[i] * bx[i] + ay[i] * by[i] + az[i] * bz[i];
+        }
+    }
+}
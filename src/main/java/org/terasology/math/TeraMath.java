@@ -416,6 +416,34 @@ public static float remainder(float dividend, float divisor) {
         return dividend % divisor;
     }
 
+    /**
+     * Integer division that rounds towards negative infinity, e.g. floorDiv(-1, 16) == -1.
+     * In contrast, (-1 / 16) == 0.
+     *
+     * @param dividend The value that is divided
+     * @param divisor  The value with which is divided (non-zero)
+     * @return The largest integer that is less than or equal to the exact quotient
+     */
+    public static int floorDiv(int dividend, int divisor) {
+        int q = dividend / divisor;
+        if ((dividend % divisor != 0) && ((dividend ^ divisor) < 0)) {
+            return q - 1;
+        }
+        return q;
+    }
+
+    /**
+     * Integer modulus operation, where the result has the same sign as the divisor.
+     * It holds that floorDiv(a, b) * b + floorMod(a, b) == a.
+     *
+     * @param dividend The value that is divided
+     * @param divisor  The value with which is divided (non-zero)
+     * @return The remainder of (dividend / divisor) as a number in the range [0, divisor) for positive divisors
+     */
+    public static int floorMod(int dividend, int divisor) {
+        return dividend - floorDiv(dividend, divisor) * divisor;
+    }
+
     /**
      * Bilinear interpolation.
      */
@@ -440,6 +468,89 @@ public static float lerp(float a, float b, float t) {
         return a + t * (b - a);
     }
 
+    /**
+     * Linear interpolation of two arrays, element by element. The target array can be the same as one of the input arrays.
+     *
+     * @param a the values at t = 0
+     * @param b the values at t = 1
+     * @param t the interpolation factor
+     * @param target receives the interpolated values
+     * @param offset the index of the first element
+     * @param count the number of elements
+     */
+    public static void lerp(float[] a, float[] b, float t, float[] target, int offset, int count) {
+        KernelHolder.KERNELS.lerp(a, b, t, target, offset, count);
+    }
+
+    /**
+     * Linear interpolation of two arrays, element by element, with individual interpolation factors.
+     * The target array can be the same as one of the input arrays.
+     *
+     * @param a the values at t = 0
+     * @param b the values at t = 1
+     * @param t the interpolation factors
+     * @param target receives the interpolated values
+     * @param offset the index of the first element
+     * @param count the number of elements
+     */
+    public static void lerp(float[] a, float[] b, float[] t, float[] target, int offset, int count) {
+        KernelHolder.KERNELS.lerp(a, b, t, target, offset, count);
+    }
+
+    /**
+     * Element-wise sum of two arrays, e.g. one component of vectors in structure-of-arrays layout.
+     * The target array can be the same as one of the input arrays.
+     *
+     * @param a the first summands
+     * @param b the second summands
+     * @param target receives the sums
+     * @param offset the index of the first element
+     * @param count the number of elements
+     */
+    public static void add(float[] a, float[] b, float[] target, int offset, int count) {
+        KernelHolder.KERNELS.add(a, b, target, offset, count);
+    }
+
+    /**
+     * Element-wise multiplication of an array with a constant factor.
+     * The target array can be the same as the input array.
+     *
+     * @param a the values
+     * @param factor the scale factor
+     * @param target receives the scaled values
+     * @param offset the index of the first element
+     * @param count the number of elements
+     */
+    public static void scale(float[] a, float factor, float[] target, int offset, int count) {
+        KernelHolder.KERNELS.scale(a, factor, target, offset, count);
+    }
+
+    /**
+     * Dot products of 3D vectors in structure-of-arrays layout, i.e. one array per component.
+     * The target array can be the same as one of the input arrays.
+     *
+     * @param ax the x components of the first vectors
+     * @param ay the y components of the first vectors
+     * @param az the z components of the first vectors
+     * @param bx the x components of the second vectors
+     * @param by the y components of the second vectors
+     * @param bz the z components of the second vectors
+     * @param target receives the dot products
+     * @param offset the index of the first element
+     * @param count the number of elements
+     */
+    public static void dot(float[] ax, float[] ay, float[] az, float[] bx, float[] by, float[] bz,
+                           float[] target, int offset, int count) {
+        KernelHolder.KERNELS.dot(ax, ay, az, bx, by, bz, target, offset, count);
+    }
+
+    /**
+     * @return the implementation of the bulk array operations that is used on this JVM
+     */
+    static FloatKernels kernels() {
+        return KernelHolder.KERNELS;
+    }
+
     public static float biLerp(float q00, float q10, float q01, float q11, float tx, float ty) {
         float lerpX1 = lerp(q00, q10, tx);
         float lerpX2 = lerp(q01, q11, tx);
@@ -620,6 +731,109 @@ public static int calculate3DArrayIndex(int x, int y, int z, Vector3i size) {
         return x + size.x * (z + size.z * (y));
     }
 
+    /**
+     * Interleaves the bits of x and y into a Morton (Z-order) code. Bit i of x becomes bit 2i of the result,
+     * bit i of y becomes bit 2i + 1. Negative values are treated as unsigned 32-bit numbers.
+     * @param x the x coordinate
+     * @param y the y coordinate
+     * @return the Morton code
+     */
+    public static long encodeMorton2D(int x, int y) {
+        return spreadBits2(x) | (spreadBits2(y) << 1);
+    }
+
+    /**
+     * @param code a Morton code as created by {@link #encodeMorton2D(int, int)}
+     * @return the x coordinate
+     */
+    public static int decodeMorton2DX(long code) {
+        return compactBits2(code);
+    }
+
+    /**
+     * @param code a Morton code as created by {@link #encodeMorton2D(int, int)}
+     * @return the y coordinate
+     */
+    public static int decodeMorton2DY(long code) {
+        return compactBits2(code >>> 1);
+    }
+
+    /**
+     * Interleaves the lower 21 bits of x, y and z into a Morton (Z-order) code. Bit i of x becomes bit 3i
+     * of the result, bit i of y becomes bit 3i + 1 and bit i of z becomes bit 3i + 2.
+     * @param x the x coordinate
+     * @param y the y coordinate
+     * @param z the z coordinate
+     * @return the Morton code
+     */
+    public static long encodeMorton3D(int x, int y, int z) {
+        return spreadBits3(x) | (spreadBits3(y) << 1) | (spreadBits3(z) << 2);
+    }
+
+    /**
+     * @param code a Morton code as created by {@link #encodeMorton3D(int, int, int)}
+     * @return the x coordinate (lower 21 bits)
+     */
+    public static int decodeMorton3DX(long code) {
+        return compactBits3(code);
+    }
+
+    /**
+     * @param code a Morton code as created by {@link #encodeMorton3D(int, int, int)}
+     * @return the y coordinate (lower 21 bits)
+     */
+    public static int decodeMorton3DY(long code) {
+        return compactBits3(code >>> 1);
+    }
+
+    /**
+     * @param code a Morton code as created by {@link #encodeMorton3D(int, int, int)}
+     * @return the z coordinate (lower 21 bits)
+     */
+    public static int decodeMorton3DZ(long code) {
+        return compactBits3(code >>> 2);
+    }
+
+    private static long spreadBits2(int value) {
+        long v = value & 0xFFFFFFFFL;
+        v = (v | (v << 16)) & 0x0000FFFF0000FFFFL;
+        v = (v | (v << 8)) & 0x00FF00FF00FF00FFL;
+        v = (v | (v << 4)) & 0x0F0F0F0F0F0F0F0FL;
+        v = (v | (v << 2)) & 0x3333333333333333L;
+        v = (v | (v << 1)) & 0x5555555555555555L;
+        return v;
+    }
+
+    private static int compactBits2(long code) {
+        long v = code & 0x5555555555555555L;
+        v = (v | (v >>> 1)) & 0x3333333333333333L;
+        v = (v | (v >>> 2)) & 0x0F0F0F0F0F0F0F0FL;
+        v = (v | (v >>> 4)) & 0x00FF00FF00FF00FFL;
+        v = (v | (v >>> 8)) & 0x0000FFFF0000FFFFL;
+        v = (v | (v >>> 16)) & 0x00000000FFFFFFFFL;
+        return (int) v;
+    }
+
+    private static long spreadBits3(int value) {
+        long v = value & 0x1FFFFFL;
+        v = (v | (v << 32)) & 0x001F00000000FFFFL;
+        v = (v | (v << 16)) & 0x001F0000FF0000FFL;
+        v = (v | (v << 8)) & 0x100F00F00F00F00FL;
+        v = (v | (v << 4)) & 0x10C30C30C30C30C3L;
+        v = (v | (v << 2)) & 0x1249249249249249L;
+        return v;
+    }
+
+    private static int compactBits3(long code) {
+        long v = code & 0x1249249249249249L;
+        v = (v | (v >>> 2)) & 0x10C30C30C30C30C3L;
+        v = (v | (v >>> 4)) & 0x100F00F00F00F00FL;
+        v = (v | (v >>> 8)) & 0x001F0000FF0000FFL;
+        v = (v | (v >>> 16)) & 0x001F00000000FFFFL;
+        v = (v | (v >>> 32)) & 0x00000000001FFFFFL;
+        return (int) v;
+    }
+
     public static float sqrt(float value) {
         return (float) Math.sqrt(value);
     }
@@ -631,4 +845,34 @@ public static float sqr(float f) {
     public static float sqr(int i) {
         return i * i;
     }
+
+    /**
+     * Selects the bulk array operations when they are first used. The vector API implementation
+     * is only available in the multi-release jar on JDK 17+ and only if the JVM was started with
+     * <code>--add-modules jdk.incubator.vector</code>. Otherwise, the scalar loops are used.
+     */
+    private static final class KernelHolder {
+
+        static final FloatKernels KERNELS = load();
+
+        private static final String VECTOR_API_CLASS = "jdk.incubator.vector.FloatVector";
+        private static final String VECTOR_KERNELS_CLASS = "org.terasology.math.VectorFloatKernels";
+
+        private KernelHolder() {
+            // no instances
+        }
+
+        private static FloatKernels load() {
+            try {
+                Class.forName(VECTOR_API_CLASS);
+                return (FloatKernels) Class.forName(VECTOR_KERNELS_CLASS).newInstance();
+            } catch (Exception e) {
+                // the module is not resolved or the class is not part of this jar (version)
+                return new ScalarFloatKernels();
+            } catch (LinkageError e) {
+                // the vector API changed in an incompatible way
+                return new ScalarFloatKernels();
+            }
+        }
+    }
 }
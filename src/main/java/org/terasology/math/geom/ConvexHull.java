@@ -0,0 +1,653 @@
+/*
+ * Copyright 2015 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.terasology.math.geom;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import com.google.common.base.Preconditions;
+import com.google.common.base.Throwables;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+/**
+ * Computes convex hulls of point sets in 2D (Andrew's monotone chain) and 3D (QuickHull).
+ * <br><br>
+ * Points are sorted through primitive keys, not through vector instances. Large inputs
+ * can be processed in parallel: the points are split into chunks, the hull of every chunk
+ * is computed concurrently and the final hull is computed from the chunk hull vertices only.
+ */
+public final class ConvexHull {
+
+    /**
+     * Inputs with fewer points are always processed sequentially
+     */
+    private static final int PARALLEL_THRESHOLD = 1 << 14;
+
+    private ConvexHull() {
+        // no instances
+    }
+
+    /**
+     * @param points the points (not empty)
+     * @return the hull as polygon in counter-clockwise order without collinear vertices
+     */
+    public static Polygon compute(Collection<? extends BaseVector2f> points) {
+        float[] coords = new float[points.size() * 2];
+        int idx = 0;
+        for (BaseVector2f pt : points) {
+            coords[idx++] = pt.getX();
+            coords[idx++] = pt.getY();
+        }
+        return compute(coords, points.size());
+    }
+
+    /**
+     * @param coords the packed coordinates (x, y) of the points
+     * @param count the number of points (positive)
+     * @return the hull as polygon in counter-clockwise order without collinear vertices
+     */
+    public static Polygon compute(float[] coords, int count) {
+        int[] hull = new int[count];
+        int size = hull(coords, count, hull);
+        return toPolygon(coords, hull, size);
+    }
+
+    /**
+     * Computes the hulls of chunks of the input concurrently if the input is large.
+     * @param coords the packed coordinates (x, y) of the points
+     * @param count the number of points (positive)
+     * @param executor the executor that computes the chunk hulls
+     * @return the hull as polygon in counter-clockwise order without collinear vertices
+     * @throws InterruptedException if the calling thread is interrupted while waiting for the executor
+     */
+    public static Polygon compute(final float[] coords, int count, ExecutorService executor) throws InterruptedException {
+        Preconditions.checkArgument(count > 0, "count must be > 0");
+        if (count <= PARALLEL_THRESHOLD) {
+            return compute(coords, count);
+        }
+
+        List<int[]> chunkHulls = invokeChunks(count, executor, new ChunkTask() {
+            @Override
+            public int[] run(int[] indices) {
+                int[] hull = new int[indices.length];
+                int size = monotoneChain(coords, indices, indices.length, hull);
+                return Arrays.copyOf(hull, size);
+            }
+        });
+
+        int[] candidates = concat(chunkHulls);
+        int[] hull = new int[candidates.length];
+        int size = monotoneChain(coords, candidates, candidates.length, hull);
+        return toPolygon(coords, hull, size);
+    }
+
+    /**
+     * Computes the hull without creating any objects except for temporary arrays.
+     * @param coords the packed coordinates (x, y) of the points
+     * @param count the number of points (positive)
+     * @param result receives the indices of the hull vertices in counter-clockwise order, starting with
+     * the point with the smallest x (and y) coordinate. Must have room for <code>count</code> elements.
+     * @return the number of hull vertices
+     */
+    public static int hull(float[] coords, int count, int[] result) {
+        Preconditions.checkArgument(count > 0, "count must be > 0");
+        Preconditions.checkArgument(coords.length >= count * 2, "coords must contain count (x, y) pairs");
+        Preconditions.checkArgument(result.length >= count, "result must have room for count elements");
+
+        int[] indices = new int[count];
+        for (int i = 0; i < count; i++) {
+            indices[i] = i;
+        }
+        return monotoneChain(coords, indices, count, result);
+    }
+
+    /**
+     * @param points the points
+     * @return three indices per triangle of the hull surface, counter-clockwise when seen from outside.
+     * Indices refer to the iteration order of the collection. The array is empty if all points are coplanar.
+     */
+    public static int[] compute3D(Collection<? extends BaseVector3f> points) {
+        float[] coords = new float[points.size() * 3];
+        int idx = 0;
+        for (BaseVector3f pt : points) {
+            coords[idx++] = pt.getX();
+            coords[idx++] = pt.getY();
+            coords[idx++] = pt.getZ();
+        }
+        return compute3D(coords, points.size());
+    }
+
+    /**
+     * @param coords the packed coordinates (x, y, z) of the points
+     * @param count the number of points
+     * @return three indices per triangle of the hull surface, counter-clockwise when seen from outside.
+     * The array is empty if all points are coplanar.
+     */
+    public static int[] compute3D(float[] coords, int count) {
+        Preconditions.checkArgument(coords.length >= count * 3, "coords must contain count (x, y, z) triples");
+
+        int[] indices = new int[count];
+        for (int i = 0; i < count; i++) {
+            indices[i] = i;
+        }
+        return new QuickHull3D(coords, indices).compute();
+    }
+
+    /**
+     * Computes the hulls of chunks of the input concurrently if the input is large.
+     * @param coords the packed coordinates (x, y, z) of the points
+     * @param count the number of points
+     * @param executor the executor that computes the chunk hulls
+     * @return three indices per triangle of the hull surface, counter-clockwise when seen from outside.
+     * The array is empty if all points are coplanar.
+     * @throws InterruptedException if the calling thread is interrupted while waiting for the executor
+     */
+    public static int[] compute3D(final float[] coords, int count, ExecutorService executor) throws InterruptedException {
+        if (count <= PARALLEL_THRESHOLD) {
+            return compute3D(coords, count);
+        }
+
+        List<int[]> chunkHulls = invokeChunks(count, executor, new ChunkTask() {
+            @Override
+            public int[] run(int[] indices) {
+                int[] triangles = new QuickHull3D(coords, indices).compute();
+                if (triangles.length == 0) {
+                    // degenerate chunk - keep all points
+                    return indices;
+                }
+                return distinct(triangles);
+            }
+        });
+
+        int[] candidates = concat(chunkHulls);
+        return new QuickHull3D(coords, candidates).compute();
+    }
+
+    private static List<int[]> invokeChunks(int count, ExecutorService executor, final ChunkTask task) throws InterruptedException {
+        int chunkSize = Math.max(PARALLEL_THRESHOLD, count / 64);
+        List<Callable<int[]>> tasks = Lists.newArrayList();
+        for (int start = 0; start < count; start += chunkSize) {
+            final int from = start;
+            final int to = Math.min(count, start + chunkSize);
+            tasks.add(new Callable<int[]>() {
+                @Override
+                public int[] call() {
+                    int[] indices = new int[to - from];
+                    for (int i = 0; i < indices.length; i++) {
+                        indices[i] = from + i;
+                    }
+                    return task.run(indices);
+                }
+            });
+        }
+
+        List<int[]> results = Lists.newArrayList();
+        for (Future<int[]> future : executor.invokeAll(tasks)) {
+            try {
+                results.add(future.get());
+            } catch (ExecutionException e) {
+                throw Throwables.propagate(e.getCause());
+            }
+        }
+        return results;
+    }
+
+    private static int[] concat(List<int[]> arrays) {
+        int total = 0;
+        for (int[] array : arrays) {
+            total += array.length;
+        }
+        int[] result = new int[total];
+        int pos = 0;
+        for (int[] array : arrays) {
+            System.arraycopy(array, 0, result, pos, array.length);
+            pos += array.length;
+        }
+        return result;
+    }
+
+    private static int[] distinct(int[] values) {
+        int[] sorted = values.clone();
+        Arrays.sort(sorted);
+        int count = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (i == 0 || sorted[i] != sorted[i - 1]) {
+                sorted[count++] = sorted[i];
+            }
+        }
+        return Arrays.copyOf(sorted, count);
+    }
+
+    private static Polygon toPolygon(float[] coords, int[] hull, int size) {
+        float[] vertices = new float[size * 2];
+        for (int i = 0; i < size; i++) {
+            vertices[i * 2] = coords[hull[i] * 2];
+            vertices[i * 2 + 1] = coords[hull[i] * 2 + 1];
+        }
+        return Polygon.createCopy(vertices, size);
+    }
+
+    /**
+     * Andrew's monotone chain algorithm
+     * @param coords the packed (x, y) coordinates
+     * @param indices the indices of the points to consider
+     * @param n the number of indices
+     * @param result receives the hull indices (needs room for n elements)
+     * @return the number of hull vertices
+     */
+    private static int monotoneChain(float[] coords, int[] indices, int n, int[] result) {
+        int[] sorted = sortLexicographically(coords, indices, n);
+
+        // remove duplicates, they are adjacent after sorting
+        int m = 0;
+        for (int i = 0; i < n; i++) {
+            int idx = sorted[i];
+            if (m == 0 || coords[idx * 2] != coords[sorted[m - 1] * 2] || coords[idx * 2 + 1] != coords[sorted[m - 1] * 2 + 1]) {
+                sorted[m++] = idx;
+            }
+        }
+
+        if (m < 3) {
+            System.arraycopy(sorted, 0, result, 0, m);
+            return m;
+        }
+
+        int[] hull = new int[2 * m];
+        int k = 0;
+
+        // lower hull
+        for (int i = 0; i < m; i++) {
+            while (k >= 2 && cross(coords, hull[k - 2], hull[k - 1], sorted[i]) <= 0) {
+                k--;
+            }
+            hull[k++] = sorted[i];
+        }
+
+        // upper hull
+        int lower = k + 1;
+        for (int i = m - 2; i >= 0; i--) {
+            while (k >= lower && cross(coords, hull[k - 2], hull[k - 1], sorted[i]) <= 0) {
+                k--;
+            }
+            hull[k++] = sorted[i];
+        }
+
+        // the last point equals the first one
+        int size = k - 1;
+        System.arraycopy(hull, 0, result, 0, size);
+        return size;
+    }
+
+    /**
+     * Sorts by x, then by y through packed (key, index) longs
+     */
+    private static int[] sortLexicographically(float[] coords, int[] indices, int n) {
+        long[] keys = new long[n];
+        for (int i = 0; i < n; i++) {
+            int idx = indices[i];
+            keys[i] = ((long) sortableBits(coords[idx * 2]) << 32) | idx;
+        }
+        Arrays.sort(keys);
+
+        int[] sorted = new int[n];
+        for (int i = 0; i < n; i++) {
+            sorted[i] = (int) keys[i];
+        }
+
+        // sort runs of equal x by y
+        int start = 0;
+        for (int i = 1; i <= n; i++) {
+            if (i == n || coords[sorted[i] * 2] != coords[sorted[start] * 2]) {
+                if (i - start > 1) {
+                    for (int j = start; j < i; j++) {
+                        keys[j] = ((long) sortableBits(coords[sorted[j] * 2 + 1]) << 32) | sorted[j];
+                    }
+                    Arrays.sort(keys, start, i);
+                    for (int j = start; j < i; j++) {
+                        sorted[j] = (int) keys[j];
+                    }
+                }
+                start = i;
+            }
+        }
+        return sorted;
+    }
+
+    /**
+     * @return the bits of the float value as int so that the int order matches the float order
+     */
+    private static int sortableBits(float value) {
+        int bits = Float.floatToIntBits(value);
+        return bits ^ ((bits >> 31) & 0x7FFFFFFF);
+    }
+
+    private static double cross(float[] coords, int a, int b, int c) {
+        double ax = coords[a * 2];
+        double ay = coords[a * 2 + 1];
+        return (coords[b * 2] - ax) * (coords[c * 2 + 1] - ay) - (coords[b * 2 + 1] - ay) * (coords[c * 2] - ax);
+    }
+
+    private interface ChunkTask {
+        int[] run(int[] indices);
+    }
+
+    /**
+     * QuickHull in 3D. Every face keeps the set of points that lie above it. The furthest
+     * point of such a set is added to the hull by replacing all faces it can see with a
+     * fan of new faces along the horizon.
+     */
+    private static final class QuickHull3D {
+
+        private final float[] coords;
+        private final int[] indices;
+        private final Map<Long, Face> edges = Maps.newHashMap();
+        private final List<Face> faces = Lists.newArrayList();
+        private double eps;
+
+        QuickHull3D(float[] coords, int[] indices) {
+            this.coords = coords;
+            this.indices = indices;
+        }
+
+        int[] compute() {
+            int[] tetra = initialTetrahedron();
+            if (tetra == null) {
+                return new int[0];
+            }
+
+            // assign all other points to the first face they lie above
+            List<Face> initial = Lists.newArrayList(faces);
+            for (int idx : indices) {
+                if (idx != tetra[0] && idx != tetra[1] && idx != tetra[2] && idx != tetra[3]) {
+                    assign(idx, initial);
+                }
+            }
+
+            Deque<Face> pending = new ArrayDeque<Face>(initial);
+            while (!pending.isEmpty()) {
+                Face face = pending.poll();
+                if (!face.alive || face.outside.isEmpty()) {
+                    continue;
+                }
+                for (Face created : addPoint(face)) {
+                    pending.add(created);
+                }
+            }
+
+            int count = 0;
+            for (Face face : faces) {
+                if (face.alive) {
+                    count++;
+                }
+            }
+            int[] result = new int[count * 3];
+            int pos = 0;
+            for (Face face : faces) {
+                if (face.alive) {
+                    result[pos++] = face.a;
+                    result[pos++] = face.b;
+                    result[pos++] = face.c;
+                }
+            }
+            return result;
+        }
+
+        private List<Face> addPoint(Face face) {
+            // the furthest outside point is always on the hull
+            int eye = -1;
+            double maxDist = Double.NEGATIVE_INFINITY;
+            for (int i = 0; i < face.outside.size(); i++) {
+                int idx = face.outside.get(i);
+                double dist = face.distance(idx);
+                if (dist > maxDist) {
+                    maxDist = dist;
+                    eye = idx;
+                }
+            }
+
+            // find all faces that can see the eye point and the horizon edges around them
+            List<Face> visible = Lists.newArrayList();
+            List<int[]> horizon = Lists.newArrayList();
+            face.visited = true;
+            visible.add(face);
+            for (int i = 0; i < visible.size(); i++) {
+                Face vis = visible.get(i);
+                int[] verts = {vis.a, vis.b, vis.c};
+                for (int e = 0; e < 3; e++) {
+                    int from = verts[e];
+                    int to = verts[(e + 1) % 3];
+                    Face neighbour = edges.get(edgeKey(to, from));
+                    if (neighbour == null || neighbour.visited) {
+                        continue;
+                    }
+                    if (neighbour.distance(eye) > eps) {
+                        neighbour.visited = true;
+                        visible.add(neighbour);
+                    } else {
+                        horizon.add(new int[] {from, to});
+                    }
+                }
+            }
+
+            List<Integer> orphans = Lists.newArrayList();
+            for (Face vis : visible) {
+                vis.alive = false;
+                edges.remove(edgeKey(vis.a, vis.b));
+                edges.remove(edgeKey(vis.b, vis.c));
+                edges.remove(edgeKey(vis.c, vis.a));
+                for (Integer idx : vis.outside) {
+                    if (idx != eye) {
+                        orphans.add(idx);
+                    }
+                }
+            }
+
+            List<Face> created = Lists.newArrayList();
+            for (int[] edge : horizon) {
+                created.add(addFace(edge[0], edge[1], eye));
+            }
+
+            for (Integer idx : orphans) {
+                assign(idx, created);
+            }
+            return created;
+        }
+
+        private void assign(int idx, List<Face> candidates) {
+            for (Face face : candidates) {
+                if (face.distance(idx) > eps) {
+                    face.outside.add(idx);
+                    return;
+                }
+            }
+        }
+
+        private Face addFace(int a, int b, int c) {
+            Face face = new Face(a, b, c);
+            faces.add(face);
+            edges.put(edgeKey(a, b), face);
+            edges.put(edgeKey(b, c), face);
+            edges.put(edgeKey(c, a), face);
+            return face;
+        }
+
+        /**
+         * @return the four vertices of the initial tetrahedron or null if the points are coplanar
+         */
+        private int[] initialTetrahedron() {
+            if (indices.length < 4) {
+                return null;
+            }
+
+            int[] minIdx = new int[3];
+            int[] maxIdx = new int[3];
+            Arrays.fill(minIdx, indices[0]);
+            Arrays.fill(maxIdx, indices[0]);
+            double[] maxAbs = new double[3];
+            for (int idx : indices) {
+                for (int axis = 0; axis < 3; axis++) {
+                    float v = coords[idx * 3 + axis];
+                    if (v < coords[minIdx[axis] * 3 + axis]) {
+                        minIdx[axis] = idx;
+                    }
+                    if (v > coords[maxIdx[axis] * 3 + axis]) {
+                        maxIdx[axis] = idx;
+                    }
+                    maxAbs[axis] = Math.max(maxAbs[axis], Math.abs(v));
+                }
+            }
+            eps = 3 * 1.1920929e-7 * (maxAbs[0] + maxAbs[1] + maxAbs[2]);
+
+            // the two extreme points along the axis with the largest extent
+            int v0 = minIdx[0];
+            int v1 = maxIdx[0];
+            double maxExtent = -1;
+            for (int axis = 0; axis < 3; axis++) {
+                double extent = coords[maxIdx[axis] * 3 + axis] - coords[minIdx[axis] * 3 + axis];
+                if (extent > maxExtent) {
+                    maxExtent = extent;
+                    v0 = minIdx[axis];
+                    v1 = maxIdx[axis];
+                }
+            }
+            if (maxExtent <= eps) {
+                return null;
+            }
+
+            // the point furthest from the line v0-v1
+            double ux = x(v1) - x(v0);
+            double uy = y(v1) - y(v0);
+            double uz = z(v1) - z(v0);
+            int v2 = -1;
+            double maxDistSq = eps * eps * (ux * ux + uy * uy + uz * uz);
+            for (int idx : indices) {
+                double wx = x(idx) - x(v0);
+                double wy = y(idx) - y(v0);
+                double wz = z(idx) - z(v0);
+                double cx = uy * wz - uz * wy;
+                double cy = uz * wx - ux * wz;
+                double cz = ux * wy - uy * wx;
+                double distSq = cx * cx + cy * cy + cz * cz;
+                if (distSq > maxDistSq) {
+                    maxDistSq = distSq;
+                    v2 = idx;
+                }
+            }
+            if (v2 < 0) {
+                return null;
+            }
+
+            // the point furthest from the plane v0-v1-v2
+            Face base = new Face(v0, v1, v2);
+            int v3 = -1;
+            double maxDist = eps;
+            for (int idx : indices) {
+                double dist = Math.abs(base.distance(idx));
+                if (dist > maxDist) {
+                    maxDist = dist;
+                    v3 = idx;
+                }
+            }
+            if (v3 < 0) {
+                return null;
+            }
+
+            // orient all faces so that the opposite vertex lies below
+            if (base.distance(v3) > 0) {
+                addFace(v0, v2, v1);
+                addFace(v0, v1, v3);
+                addFace(v1, v2, v3);
+                addFace(v2, v0, v3);
+            } else {
+                addFace(v0, v1, v2);
+                addFace(v1, v0, v3);
+                addFace(v2, v1, v3);
+                addFace(v0, v2, v3);
+            }
+            return new int[] {v0, v1, v2, v3};
+        }
+
+        private double x(int idx) {
+            return coords[idx * 3];
+        }
+
+        private double y(int idx) {
+            return coords[idx * 3 + 1];
+        }
+
+        private double z(int idx) {
+            return coords[idx * 3 + 2];
+        }
+
+        private static long edgeKey(int from, int to) {
+            return ((long) from << 32) | (to & 0xFFFFFFFFL);
+        }
+
+        /**
+         * A triangle (a, b, c) in counter-clockwise order when seen from outside
+         */
+        private final class Face {
+            private final int a;
+            private final int b;
+            private final int c;
+            private final double nx;
+            private final double ny;
+            private final double nz;
+            private final double offset;
+            private final List<Integer> outside = Lists.newArrayList();
+            private boolean alive = true;
+            private boolean visited;
+
+            Face(int a, int b, int c) {
+                this.a = a;
+                this.b = b;
+                this.c = c;
+
+                double ux = x(b) - x(a);
+                double uy = y(b) - y(a);
+                double uz = z(b) - z(a);
+                double vx = x(c) - x(a);
+                double vy = y(c) - y(a);
+                double vz = z(c) - z(a);
+                double px = uy * vz - uz * vy;
+                double py = uz * vx - ux * vz;
+                double pz = ux * vy - uy * vx;
+                double len = Math.sqrt(px * px + py * py + pz * pz);
+                nx = px / len;
+                ny = py / len;
+                nz = pz / len;
+                offset = nx * x(a) + ny * y(a) + nz * z(a);
+            }
+
+            /**
+             * @return the signed distance of the point to the plane of the face, positive above
+             */
+            double distance(int idx) {
+                return nx * x(idx) + ny * y(idx) + nz * z(idx) - offset;
+            }
+        }
+    }
+}
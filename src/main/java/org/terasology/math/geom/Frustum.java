@@ -0,0 +1,382 @@
+/*
+ * Copyright 2015 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.terasology.math.geom;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * A view frustum that is defined by six planes. The planes are extracted from
+ * a combined view-projection matrix (column vector convention, i.e. <code>clip = M * v</code>)
+ * and point inwards.
+ * <br><br>
+ * Bounding volumes can be tested one by one or in batches. The batch methods read
+ * packed float arrays and write one visibility bit per volume, so a complete pass does
+ * not allocate. For hierarchical culling, the <code>classify</code> methods accept
+ * and return a plane mask: planes that a parent volume is completely inside of don't need
+ * to be tested for its children.
+ * <br><br>
+ * Instances are mutable and can be re-used across frames through {@link #set(BaseMatrix4f)}.
+ */
+public final class Frustum {
+
+    public static final int LEFT = 0;
+    public static final int RIGHT = 1;
+    public static final int BOTTOM = 2;
+    public static final int TOP = 3;
+    public static final int NEAR = 4;
+    public static final int FAR = 5;
+
+    /**
+     * The plane mask that contains all six planes
+     */
+    public static final int ALL_PLANES = 0x3F;
+
+    /**
+     * The result of a classification if the volume is completely outside
+     */
+    public static final int OUTSIDE = -1;
+
+    private static final int PLANE_COUNT = 6;
+
+    /**
+     * The planes (a, b, c, d) with ax + by + cz + d &gt;= 0 for all points inside
+     */
+    private final float[] planes = new float[PLANE_COUNT * 4];
+
+    /**
+     * Creates a frustum that contains everything.
+     */
+    public Frustum() {
+        // all planes are (0, 0, 0, 0), so every point lies on (and therefore inside) all of them
+    }
+
+    /**
+     * @param viewProjection the combined view-projection matrix
+     */
+    public Frustum(BaseMatrix4f viewProjection) {
+        set(viewProjection);
+    }
+
+    /**
+     * Extracts the six planes from the given view-projection matrix
+     * (see Gribb &amp; Hartmann, "Fast Extraction of Viewing Frustum Planes").
+     * @param m the combined view-projection matrix
+     */
+    public void set(BaseMatrix4f m) {
+        float m30 = m.getM30();
+        float m31 = m.getM31();
+        float m32 = m.getM32();
+        float m33 = m.getM33();
+
+        setPlane(LEFT, m30 + m.getM00(), m31 + m.getM01(), m32 + m.getM02(), m33 + m.getM03());
+        setPlane(RIGHT, m30 - m.getM00(), m31 - m.getM01(), m32 - m.getM02(), m33 - m.getM03());
+        setPlane(BOTTOM, m30 + m.getM10(), m31 + m.getM11(), m32 + m.getM12(), m33 + m.getM13());
+        setPlane(TOP, m30 - m.getM10(), m31 - m.getM11(), m32 - m.getM12(), m33 - m.getM13());
+        setPlane(NEAR, m30 + m.getM20(), m31 + m.getM21(), m32 + m.getM22(), m33 + m.getM23());
+        setPlane(FAR, m30 - m.getM20(), m31 - m.getM21(), m32 - m.getM22(), m33 - m.getM23());
+    }
+
+    private void setPlane(int plane, float a, float b, float c, float d) {
+        float len = (float) Math.sqrt(a * a + b * b + c * c);
+        float inv = (len > 0) ? 1f / len : 0f;
+        int idx = plane * 4;
+        planes[idx + 0] = a * inv;
+        planes[idx + 1] = b * inv;
+        planes[idx + 2] = c * inv;
+        planes[idx + 3] = d * inv;
+    }
+
+    /**
+     * @param plane the plane index [0..5], e.g. {@link #LEFT}
+     * @param target the target vector that receives (a, b, c, d) of the normalized plane equation
+     * @return the target vector
+     */
+    public Vector4f getPlane(int plane, Vector4f target) {
+        Preconditions.checkElementIndex(plane, PLANE_COUNT, "plane");
+        int idx = plane * 4;
+        target.set(planes[idx + 0], planes[idx + 1], planes[idx + 2], planes[idx + 3]);
+        return target;
+    }
+
+    /**
+     * @param plane the plane index [0..5], e.g. {@link #LEFT}
+     * @param x the x coordinate
+     * @param y the y coordinate
+     * @param z the z coordinate
+     * @return the signed distance of the point to the plane (positive values are on the inside)
+     */
+    public float distance(int plane, float x, float y, float z) {
+        Preconditions.checkElementIndex(plane, PLANE_COUNT, "plane");
+        int idx = plane * 4;
+        return planes[idx + 0] * x + planes[idx + 1] * y + planes[idx + 2] * z + planes[idx + 3];
+    }
+
+    /**
+     * @param x the x coordinate
+     * @param y the y coordinate
+     * @param z the z coordinate
+     * @return true if the point is inside or on the border of the frustum
+     */
+    public boolean contains(float x, float y, float z) {
+        for (int idx = 0; idx < planes.length; idx += 4) {
+            if (planes[idx + 0] * x + planes[idx + 1] * y + planes[idx + 2] * z + planes[idx + 3] < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param p the point
+     * @return true if the point is inside or on the border of the frustum
+     */
+    public boolean contains(BaseVector3f p) {
+        return contains(p.getX(), p.getY(), p.getZ());
+    }
+
+    /**
+     * Tests an axis-aligned bounding box. The test is conservative: boxes that are close
+     * to the frustum corners may be reported as intersecting although they are outside.
+     * @param minX the min. x coordinate
+     * @param minY the min. y coordinate
+     * @param minZ the min. z coordinate
+     * @param maxX the max. x coordinate
+     * @param maxY the max. y coordinate
+     * @param maxZ the max. z coordinate
+     * @return true if the box is (partly) inside the frustum
+     */
+    public boolean intersectsAabb(float minX, float minY, float minZ, float maxX, float maxY, float maxZ) {
+        return rejectingPlaneAabb(minX, minY, minZ, maxX, maxY, maxZ, 0) < 0;
+    }
+
+    /**
+     * @param x the center x coordinate
+     * @param y the center y coordinate
+     * @param z the center z coordinate
+     * @param radius the sphere radius
+     * @return true if the sphere is (partly) inside the frustum
+     */
+    public boolean intersectsSphere(float x, float y, float z, float radius) {
+        return rejectingPlaneSphere(x, y, z, radius, 0) < 0;
+    }
+
+    /**
+     * Classifies an axis-aligned bounding box against the planes of the given mask. This is
+     * intended for hierarchical culling: the returned mask can be passed on to the children of the box.
+     * @param minX the min. x coordinate
+     * @param minY the min. y coordinate
+     * @param minZ the min. z coordinate
+     * @param maxX the max. x coordinate
+     * @param maxY the max. y coordinate
+     * @param maxZ the max. z coordinate
+     * @param planeMask the planes to test (bit <code>i</code> for plane <code>i</code>), e.g. {@link #ALL_PLANES}
+     * @return {@link #OUTSIDE} if the box is outside of one of the planes, or the mask of planes
+     * that intersect the box. A value of zero means that the box is completely inside.
+     */
+    public int classifyAabb(float minX, float minY, float minZ, float maxX, float maxY, float maxZ, int planeMask) {
+        float cx = (minX + maxX) * 0.5f;
+        float cy = (minY + maxY) * 0.5f;
+        float cz = (minZ + maxZ) * 0.5f;
+        float ex = (maxX - minX) * 0.5f;
+        float ey = (maxY - minY) * 0.5f;
+        float ez = (maxZ - minZ) * 0.5f;
+
+        int result = 0;
+        for (int plane = 0; plane < PLANE_COUNT; plane++) {
+            int bit = 1 << plane;
+            if ((planeMask & bit) != 0) {
+                int idx = plane * 4;
+                float a = planes[idx + 0];
+                float b = planes[idx + 1];
+                float c = planes[idx + 2];
+                float dist = a * cx + b * cy + c * cz + planes[idx + 3];
+                float rad = Math.abs(a) * ex + Math.abs(b) * ey + Math.abs(c) * ez;
+                if (dist < -rad) {
+                    return OUTSIDE;
+                }
+                if (dist < rad) {
+                    result |= bit;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Classifies a sphere against the planes of the given mask.
+     * @param x the center x coordinate
+     * @param y the center y coordinate
+     * @param z the center z coordinate
+     * @param radius the sphere radius
+     * @param planeMask the planes to test (bit <code>i</code> for plane <code>i</code>), e.g. {@link #ALL_PLANES}
+     * @return {@link #OUTSIDE} if the sphere is outside of one of the planes, or the mask of planes
+     * that intersect the sphere. A value of zero means that the sphere is completely inside.
+     * @see #classifyAabb(float, float, float, float, float, float, int)
+     */
+    public int classifySphere(float x, float y, float z, float radius, int planeMask) {
+        int result = 0;
+        for (int plane = 0; plane < PLANE_COUNT; plane++) {
+            int bit = 1 << plane;
+            if ((planeMask & bit) != 0) {
+                int idx = plane * 4;
+                float dist = planes[idx + 0] * x + planes[idx + 1] * y + planes[idx + 2] * z + planes[idx + 3];
+                if (dist < -radius) {
+                    return OUTSIDE;
+                }
+                if (dist < radius) {
+                    result |= bit;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Tests a batch of axis-aligned bounding boxes in a single pass.
+     * <br><br>
+     * If a plane cache is provided, it stores the plane that rejected a box in the last call
+     * and tests it first in the next one. Since the camera moves only a little between two
+     * frames, this is usually the plane that rejects the box again.
+     * @param bounds the packed boxes (minX, minY, minZ, maxX, maxY, maxZ) - 6 floats per box
+     * @param count the number of boxes
+     * @param visibility receives one bit per box (bit <code>i % 64</code> in word <code>i / 64</code>);
+     * unused bits of the last word are cleared
+     * @param planeCache one entry per box, initialized with zeros, or <code>null</code>
+     * @return the number of visible boxes
+     */
+    public int cullAabbs(float[] bounds, int count, long[] visibility, byte[] planeCache) {
+        checkBatch(bounds.length, 6, count, visibility, planeCache);
+
+        int visible = 0;
+        long word = 0;
+        for (int i = 0; i < count; i++) {
+            int idx = i * 6;
+            int first = (planeCache != null) ? planeCache[i] : 0;
+            int plane = rejectingPlaneAabb(bounds[idx + 0], bounds[idx + 1], bounds[idx + 2],
+                    bounds[idx + 3], bounds[idx + 4], bounds[idx + 5], first);
+            if (plane < 0) {
+                word |= 1L << i;
+                visible++;
+            } else if (planeCache != null) {
+                planeCache[i] = (byte) plane;
+            }
+            if ((i & 63) == 63) {
+                visibility[i >>> 6] = word;
+                word = 0;
+            }
+        }
+        if ((count & 63) != 0) {
+            visibility[count >>> 6] = word;
+        }
+        return visible;
+    }
+
+    /**
+     * Tests a batch of spheres in a single pass.
+     * @param spheres the packed spheres (x, y, z, radius) - 4 floats per sphere
+     * @param count the number of spheres
+     * @param visibility receives one bit per sphere (bit <code>i % 64</code> in word <code>i / 64</code>);
+     * unused bits of the last word are cleared
+     * @param planeCache one entry per sphere, initialized with zeros, or <code>null</code>
+     * @return the number of visible spheres
+     * @see #cullAabbs(float[], int, long[], byte[])
+     */
+    public int cullSpheres(float[] spheres, int count, long[] visibility, byte[] planeCache) {
+        checkBatch(spheres.length, 4, count, visibility, planeCache);
+
+        int visible = 0;
+        long word = 0;
+        for (int i = 0; i < count; i++) {
+            int idx = i * 4;
+            int first = (planeCache != null) ? planeCache[i] : 0;
+            int plane = rejectingPlaneSphere(spheres[idx + 0], spheres[idx + 1], spheres[idx + 2], spheres[idx + 3], first);
+            if (plane < 0) {
+                word |= 1L << i;
+                visible++;
+            } else if (planeCache != null) {
+                planeCache[i] = (byte) plane;
+            }
+            if ((i & 63) == 63) {
+                visibility[i >>> 6] = word;
+                word = 0;
+            }
+        }
+        if ((count & 63) != 0) {
+            visibility[count >>> 6] = word;
+        }
+        return visible;
+    }
+
+    /**
+     * @param visibility the visibility bit set as written by the batch methods
+     * @param index the index of the volume
+     * @return true if the volume is visible
+     */
+    public static boolean isVisible(long[] visibility, int index) {
+        return (visibility[index >>> 6] & (1L << index)) != 0;
+    }
+
+    private static void checkBatch(int length, int stride, int count, long[] visibility, byte[] planeCache) {
+        Preconditions.checkArgument(count >= 0, "count must be >= 0");
+        Preconditions.checkArgument(length >= count * stride, "input array too small");
+        Preconditions.checkArgument(visibility.length * 64 >= count, "visibility array too small");
+        Preconditions.checkArgument(planeCache == null || planeCache.length >= count, "plane cache too small");
+    }
+
+    /**
+     * @return the index of the first plane that rejects the box, starting with the given plane, or -1
+     */
+    private int rejectingPlaneAabb(float minX, float minY, float minZ, float maxX, float maxY, float maxZ, int firstPlane) {
+        float cx = (minX + maxX) * 0.5f;
+        float cy = (minY + maxY) * 0.5f;
+        float cz = (minZ + maxZ) * 0.5f;
+        float ex = (maxX - minX) * 0.5f;
+        float ey = (maxY - minY) * 0.5f;
+        float ez = (maxZ - minZ) * 0.5f;
+
+        int plane = firstPlane;
+        for (int i = 0; i < PLANE_COUNT; i++) {
+            int idx = plane * 4;
+            float a = planes[idx + 0];
+            float b = planes[idx + 1];
+            float c = planes[idx + 2];
+            float dist = a * cx + b * cy + c * cz + planes[idx + 3];
+            float rad = Math.abs(a) * ex + Math.abs(b) * ey + Math.abs(c) * ez;
+            if (dist < -rad) {
+                return plane;
+            }
+            plane = (plane == PLANE_COUNT - 1) ? 0 : plane + 1;
+        }
+        return -1;
+    }
+
+    /**
+     * @return the index of the first plane that rejects the sphere, starting with the given plane, or -1
+     */
+    private int rejectingPlaneSphere(float x, float y, float z, float radius, int firstPlane) {
+        int plane = firstPlane;
+        for (int i = 0; i < PLANE_COUNT; i++) {
+            int idx = plane * 4;
+            float dist = planes[idx + 0] * x + planes[idx + 1] * y + planes[idx + 2] * z + planes[idx + 3];
+            if (dist < -radius) {
+                return plane;
+            }
+            plane = (plane == PLANE_COUNT - 1) ? 0 : plane + 1;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,306 @@
+/*
+ * Copyright 2015 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.terasology.math.geom;
+
+import org.terasology.math.TeraMath;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Enumerates all integer grid cells that are crossed by a line segment or a ray,
+ * in the order in which they are entered. Cell (x, y) covers [x..x+1) x [y..y+1).
+ * <br><br>
+ * This is an implementation of "A Fast Voxel Traversal Algorithm for Ray Tracing"
+ * by John Amanatides and Andrew Woo (1987). Each step moves into the neighbouring cell
+ * whose boundary is closest along the ray. If the ray passes exactly through a corner,
+ * one of the adjacent cells is visited as well.
+ */
+public final class GridTraversal {
+
+    private GridTraversal() {
+        // no instances
+    }
+
+    /**
+     * Visits all cells that are touched by the line segment, including the ones that contain the end points.
+     * @param segment the line segment
+     * @param visitor the visitor; distances are measured from the start point
+     * @return true if all cells were visited, false if the visitor stopped early
+     */
+    public static boolean traverse(LineSegment segment, Visitor2D visitor) {
+        ImmutableVector2f start = segment.getStart();
+        ImmutableVector2f end = segment.getEnd();
+        float dx = end.getX() - start.getX();
+        float dy = end.getY() - start.getY();
+        float length = (float) Math.sqrt(dx * dx + dy * dy);
+        int endX = TeraMath.floorToInt(end.getX());
+        int endY = TeraMath.floorToInt(end.getY());
+        return traverse(start.getX(), start.getY(), dx, dy, length, true, endX, endY, visitor);
+    }
+
+    /**
+     * @param origin the origin of the ray
+     * @param dir the direction of the ray (does not need to be normalized)
+     * @param maxDistance the maximum (Euclidean) distance from the origin
+     * @param visitor the visitor
+     * @return true if all cells were visited, false if the visitor stopped early
+     */
+    public static boolean traverse(BaseVector2f origin, BaseVector2f dir, float maxDistance, Visitor2D visitor) {
+        return traverse(origin.getX(), origin.getY(), dir.getX(), dir.getY(), maxDistance, visitor);
+    }
+
+    /**
+     * @param ox the x coordinate of the ray origin
+     * @param oy the y coordinate of the ray origin
+     * @param dx the x component of the ray direction (does not need to be normalized)
+     * @param dy the y component of the ray direction (does not need to be normalized)
+     * @param maxDistance the maximum (Euclidean) distance from the origin
+     * @param visitor the visitor
+     * @return true if all cells were visited, false if the visitor stopped early
+     */
+    public static boolean traverse(float ox, float oy, float dx, float dy, float maxDistance, Visitor2D visitor) {
+        Preconditions.checkArgument(maxDistance >= 0, "maxDistance must be >= 0");
+
+        return traverse(ox, oy, dx, dy, maxDistance, false, 0, 0, visitor);
+    }
+
+    /**
+     * Segments do not stop at the distance limit, but after the cell that contains the end point.
+     * The accumulated distance can round to a value slightly above the segment length if the
+     * end point lies exactly on a cell boundary, which must not skip the last cell.
+     * Every step of a segment moves closer to the end cell, so there are exactly
+     * |endX - x| + |endY - y| steps.
+     */
+    private static boolean traverse(float ox, float oy, float dx, float dy, float maxDistance,
+                                    boolean segment, int endX, int endY, Visitor2D visitor) {
+        int x = TeraMath.floorToInt(ox);
+        int y = TeraMath.floorToInt(oy);
+        if (!visitor.visit(x, y, 0, 0, 0)) {
+            return false;
+        }
+
+        int remaining = segment ? Math.abs(endX - x) + Math.abs(endY - y) : -1;
+        if (remaining == 0) {
+            return true;
+        }
+
+        float len = (float) Math.sqrt(dx * dx + dy * dy);
+        if (len == 0) {
+            return true;
+        }
+
+        float ndx = dx / len;
+        float ndy = dy / len;
+        int stepX = (int) Math.signum(ndx);
+        int stepY = (int) Math.signum(ndy);
+        float deltaX = stepX != 0 ? Math.abs(1 / ndx) : Float.POSITIVE_INFINITY;
+        float deltaY = stepY != 0 ? Math.abs(1 / ndy) : Float.POSITIVE_INFINITY;
+        float maxX = stepX != 0 ? (boundary(x, stepX) - ox) / ndx : Float.POSITIVE_INFINITY;
+        float maxY = stepY != 0 ? (boundary(y, stepY) - oy) / ndy : Float.POSITIVE_INFINITY;
+
+        while (remaining != 0) {
+            float t;
+            int nx = 0;
+            int ny = 0;
+            float limitX = (!segment || x != endX) ? maxX : Float.POSITIVE_INFINITY;
+            float limitY = (!segment || y != endY) ? maxY : Float.POSITIVE_INFINITY;
+            if (limitX < limitY) {
+                t = maxX;
+                x += stepX;
+                maxX += deltaX;
+                nx = -stepX;
+            } else {
+                t = maxY;
+                y += stepY;
+                maxY += deltaY;
+                ny = -stepY;
+            }
+
+            if (segment) {
+                t = Math.min(t, maxDistance);
+                remaining--;
+            } else if (t > maxDistance) {
+                return true;
+            }
+            if (!visitor.visit(x, y, t, nx, ny)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Visits all cells that are touched by the line segment, including the ones that contain the end points.
+     * @param start the start point
+     * @param end the end point
+     * @param visitor the visitor; distances are measured from the start point
+     * @return true if all cells were visited, false if the visitor stopped early
+     */
+    public static boolean traverse(BaseVector3f start, BaseVector3f end, Visitor3D visitor) {
+        float dx = end.getX() - start.getX();
+        float dy = end.getY() - start.getY();
+        float dz = end.getZ() - start.getZ();
+        float length = (float) Math.sqrt(dx * dx + dy * dy + dz * dz);
+        int endX = TeraMath.floorToInt(end.getX());
+        int endY = TeraMath.floorToInt(end.getY());
+        int endZ = TeraMath.floorToInt(end.getZ());
+        return traverse(start.getX(), start.getY(), start.getZ(), dx, dy, dz, length, true, endX, endY, endZ, visitor);
+    }
+
+    /**
+     * @param origin the origin of the ray
+     * @param dir the direction of the ray (does not need to be normalized)
+     * @param maxDistance the maximum (Euclidean) distance from the origin
+     * @param visitor the visitor
+     * @return true if all cells were visited, false if the visitor stopped early
+     */
+    public static boolean traverse(BaseVector3f origin, BaseVector3f dir, float maxDistance, Visitor3D visitor) {
+        return traverse(origin.getX(), origin.getY(), origin.getZ(), dir.getX(), dir.getY(), dir.getZ(), maxDistance, visitor);
+    }
+
+    /**
+     * @param ox the x coordinate of the ray origin
+     * @param oy the y coordinate of the ray origin
+     * @param oz the z coordinate of the ray origin
+     * @param dx the x component of the ray direction (does not need to be normalized)
+     * @param dy the y component of the ray direction (does not need to be normalized)
+     * @param dz the z component of the ray direction (does not need to be normalized)
+     * @param maxDistance the maximum (Euclidean) distance from the origin
+     * @param visitor the visitor
+     * @return true if all cells were visited, false if the visitor stopped early
+     */
+    public static boolean traverse(float ox, float oy, float oz, float dx, float dy, float dz, float maxDistance,
+                                   Visitor3D visitor) {
+        Preconditions.checkArgument(maxDistance >= 0, "maxDistance must be >= 0");
+
+        return traverse(ox, oy, oz, dx, dy, dz, maxDistance, false, 0, 0, 0, visitor);
+    }
+
+    /**
+     * Segments stop after the cell that contains the end point, see the 2D variant.
+     */
+    private static boolean traverse(float ox, float oy, float oz, float dx, float dy, float dz, float maxDistance,
+                                    boolean segment, int endX, int endY, int endZ, Visitor3D visitor) {
+        int x = TeraMath.floorToInt(ox);
+        int y = TeraMath.floorToInt(oy);
+        int z = TeraMath.floorToInt(oz);
+        if (!visitor.visit(x, y, z, 0, 0, 0, 0)) {
+            return false;
+        }
+
+        int remaining = segment ? Math.abs(endX - x) + Math.abs(endY - y) + Math.abs(endZ - z) : -1;
+        if (remaining == 0) {
+            return true;
+        }
+
+        float len = (float) Math.sqrt(dx * dx + dy * dy + dz * dz);
+        if (len == 0) {
+            return true;
+        }
+
+        float ndx = dx / len;
+        float ndy = dy / len;
+        float ndz = dz / len;
+        int stepX = (int) Math.signum(ndx);
+        int stepY = (int) Math.signum(ndy);
+        int stepZ = (int) Math.signum(ndz);
+        float deltaX = stepX != 0 ? Math.abs(1 / ndx) : Float.POSITIVE_INFINITY;
+        float deltaY = stepY != 0 ? Math.abs(1 / ndy) : Float.POSITIVE_INFINITY;
+        float deltaZ = stepZ != 0 ? Math.abs(1 / ndz) : Float.POSITIVE_INFINITY;
+        float maxX = stepX != 0 ? (boundary(x, stepX) - ox) / ndx : Float.POSITIVE_INFINITY;
+        float maxY = stepY != 0 ? (boundary(y, stepY) - oy) / ndy : Float.POSITIVE_INFINITY;
+        float maxZ = stepZ != 0 ? (boundary(z, stepZ) - oz) / ndz : Float.POSITIVE_INFINITY;
+
+        while (remaining != 0) {
+            float t;
+            int nx = 0;
+            int ny = 0;
+            int nz = 0;
+            float limitX = (!segment || x != endX) ? maxX : Float.POSITIVE_INFINITY;
+            float limitY = (!segment || y != endY) ? maxY : Float.POSITIVE_INFINITY;
+            float limitZ = (!segment || z != endZ) ? maxZ : Float.POSITIVE_INFINITY;
+            if (limitX < limitY && limitX < limitZ) {
+                t = maxX;
+                x += stepX;
+                maxX += deltaX;
+                nx = -stepX;
+            } else if (limitY < limitZ) {
+                t = maxY;
+                y += stepY;
+                maxY += deltaY;
+                ny = -stepY;
+            } else {
+                t = maxZ;
+                z += stepZ;
+                maxZ += deltaZ;
+                nz = -stepZ;
+            }
+
+            if (segment) {
+                t = Math.min(t, maxDistance);
+                remaining--;
+            } else if (t > maxDistance) {
+                return true;
+            }
+            if (!visitor.visit(x, y, z, t, nx, ny, nz)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the coordinate of the cell boundary that is crossed next in the given direction
+     */
+    private static float boundary(int cell, int step) {
+        return step > 0 ? cell + 1 : cell;
+    }
+
+    /**
+     * Receives 2D grid cells in traversal order.
+     */
+    public interface Visitor2D {
+
+        /**
+         * @param x the cell x coordinate
+         * @param y the cell y coordinate
+         * @param distance the distance from the origin at which the cell is entered (0 for the first cell)
+         * @param normalX the x component of the normal of the entered face, pointing back to the origin
+         * @param normalY the y component of the normal of the entered face, pointing back to the origin
+         * @return true to continue, false to stop
+         */
+        boolean visit(int x, int y, float distance, int normalX, int normalY);
+    }
+
+    /**
+     * Receives 3D grid cells (voxels) in traversal order.
+     */
+    public interface Visitor3D {
+
+        /**
+         * @param x the cell x coordinate
+         * @param y the cell y coordinate
+         * @param z the cell z coordinate
+         * @param distance the distance from the origin at which the cell is entered (0 for the first cell)
+         * @param normalX the x component of the normal of the entered face, pointing back to the origin
+         * @param normalY the y component of the normal of the entered face, pointing back to the origin
+         * @param normalZ the z component of the normal of the entered face, pointing back to the origin
+         * @return true to continue, false to stop
+         */
+        boolean visit(int x, int y, int z, float distance, int normalX, int normalY, int normalZ);
+    }
+}
@@ -0,0 +1,268 @@
+/*
+ * Copyright 2015 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.terasology.math.geom;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.terasology.math.TeraMath;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Conversion between Hilbert curve indices and coordinates on power-of-two grids.
+ * Consecutive indices are always direct neighbours on the grid.
+ * <br><br>
+ * Rectangles can be traversed in Hilbert order relative to their minimum corner.
+ * Every aligned index range of length 4^k covers an aligned square of size 2^k, so the
+ * traversal subdivides index ranges and skips the ones that lie outside of the rectangle.
+ */
+public final class HilbertCurve {
+
+    private HilbertCurve() {
+        // no instances
+    }
+
+    /**
+     * @param side the edge length of the grid, must be a power of two
+     * @param x the x coordinate in [0..side-1]
+     * @param y the y coordinate in [0..side-1]
+     * @return the index on the curve in [0..side*side-1]
+     */
+    public static long toIndex(int side, int x, int y) {
+        checkSide(side);
+        Preconditions.checkArgument(x >= 0 && x < side && y >= 0 && y < side, "coordinates must be in [0..side-1]");
+
+        long d = 0;
+        int px = x;
+        int py = y;
+        for (int s = side >> 1; s > 0; s >>= 1) {
+            int rx = (px & s) != 0 ? 1 : 0;
+            int ry = (py & s) != 0 ? 1 : 0;
+            d += (long) s * s * ((3 * rx) ^ ry);
+
+            // rotate the quadrant
+            if (ry == 0) {
+                if (rx == 1) {
+                    px = side - 1 - px;
+                    py = side - 1 - py;
+                }
+                int tmp = px;
+                px = py;
+                py = tmp;
+            }
+        }
+        return d;
+    }
+
+    /**
+     * @param side the edge length of the grid, must be a power of two
+     * @param index the index on the curve in [0..side*side-1]
+     * @param target receives the coordinates
+     * @return the target vector
+     */
+    public static Vector2i fromIndex(int side, long index, Vector2i target) {
+        checkSide(side);
+        Preconditions.checkArgument(index >= 0 && index < (long) side * side, "index must be in [0..side*side-1]");
+
+        long packed = decode(side, index);
+        target.x = (int) (packed >> 32);
+        target.y = (int) packed;
+        return target;
+    }
+
+    /**
+     * Visits all positions of a rectangle in Hilbert order
+     * @param rect the rectangle
+     * @param visitor the visitor
+     * @return true if all positions were visited, false if the visitor stopped early
+     */
+    public static boolean forEach(Rect2i rect, IntPairVisitor visitor) {
+        if (rect.isEmpty()) {
+            return true;
+        }
+
+        int side = TeraMath.ceilPowerOfTwo(Math.max(rect.width(), rect.height()));
+        return visit(side, 0, side, rect.minX(), rect.minY(), rect.width(), rect.height(), visitor);
+    }
+
+    /**
+     * Do <b>not</b> store the result vectors as they are reused!
+     * @param rect the rectangle
+     * @return all positions in the rectangle in Hilbert order
+     */
+    public static Iterable<BaseVector2i> contents(final Rect2i rect) {
+        return new Iterable<BaseVector2i>() {
+            @Override
+            public Iterator<BaseVector2i> iterator() {
+                return new HilbertIterator(rect);
+            }
+        };
+    }
+
+    private static boolean visit(int side, long start, int size, int originX, int originY, int width, int height,
+                                 IntPairVisitor visitor) {
+        long corner = decode(side, start);
+        int x = (int) (corner >> 32) & ~(size - 1);
+        int y = (int) corner & ~(size - 1);
+        if (x >= width || y >= height) {
+            return true;
+        }
+
+        long count = (long) size * size;
+        if (x + size <= width && y + size <= height) {
+            for (long d = start; d < start + count; d++) {
+                long packed = decode(side, d);
+                if (!visitor.visit(originX + (int) (packed >> 32), originY + (int) packed)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        int half = size >> 1;
+        long quarter = count >> 2;
+        for (int i = 0; i < 4; i++) {
+            if (!visit(side, start + i * quarter, half, originX, originY, width, height, visitor)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the coordinates packed as (x &lt;&lt; 32 | y)
+     */
+    private static long decode(int side, long index) {
+        long t = index;
+        int x = 0;
+        int y = 0;
+        for (int s = 1; s < side; s <<= 1) {
+            int rx = (int) (1 & (t >> 1));
+            int ry = (int) (1 & (t ^ rx));
+
+            // rotate the quadrant
+            if (ry == 0) {
+                if (rx == 1) {
+                    x = s - 1 - x;
+                    y = s - 1 - y;
+                }
+                int tmp = x;
+                x = y;
+                y = tmp;
+            }
+
+            x += s * rx;
+            y += s * ry;
+            t >>= 2;
+        }
+        return ((long) x << 32) | y;
+    }
+
+    private static void checkSide(int side) {
+        Preconditions.checkArgument(side > 0 && (side & (side - 1)) == 0, "side must be a power of two");
+    }
+
+    private static final class HilbertIterator implements Iterator<BaseVector2i> {
+
+        private final int originX;
+        private final int originY;
+        private final int width;
+        private final int height;
+        private final int side;
+
+        /**
+         * Pending index ranges (start, size)
+         */
+        private final long[] stack;
+        private int stackSize;
+
+        private long index;
+        private long blockEnd;
+
+        private final Vector2i pos = new Vector2i();
+
+        HilbertIterator(Rect2i rect) {
+            this.originX = rect.minX();
+            this.originY = rect.minY();
+            this.width = rect.width();
+            this.height = rect.height();
+            this.side = TeraMath.ceilPowerOfTwo(Math.max(Math.max(width, height), 1));
+
+            int depth = TeraMath.sizeOfPower(side);
+            stack = new long[(3 * depth + 1) * 2];
+            if (!rect.isEmpty()) {
+                push(0, side);
+            }
+        }
+
+        private void push(long start, int size) {
+            stack[stackSize++] = start;
+            stack[stackSize++] = size;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (index < blockEnd) {
+                return true;
+            }
+
+            while (stackSize > 0) {
+                int size = (int) stack[--stackSize];
+                long start = stack[--stackSize];
+
+                long corner = decode(side, start);
+                int x = (int) (corner >> 32) & ~(size - 1);
+                int y = (int) corner & ~(size - 1);
+                if (x >= width || y >= height) {
+                    continue;
+                }
+
+                long count = (long) size * size;
+                if (x + size <= width && y + size <= height) {
+                    index = start;
+                    blockEnd = start + count;
+                    return true;
+                }
+
+                // push in reverse order, so that the first quadrant is popped first
+                long quarter = count >> 2;
+                for (int i = 3; i >= 0; i--) {
+                    push(start + i * quarter, size >> 1);
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public BaseVector2i next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            long packed = decode(side, index);
+            pos.x = originX + (int) (packed >> 32);
+            pos.y = originY + (int) packed;
+            index++;
+            return pos;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
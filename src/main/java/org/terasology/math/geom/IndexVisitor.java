@@ -0,0 +1,30 @@
+/*
+ * Copyright 2015 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.terasology.math.geom;
+
+/**
+ * Receives the indices of query results from spatial index structures
+ * that store their entries in arrays.
+ */
+public interface IndexVisitor {
+
+    /**
+     * @param index the index of the entry in the original input
+     * @return true to continue, false to stop the query
+     */
+    boolean visit(int index);
+}
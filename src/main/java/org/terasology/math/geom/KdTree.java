@@ -0,0 +1,478 @@
+/*
+ * Copyright 2015 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.terasology.math.geom;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import com.google.common.base.Preconditions;
+import com.google.common.base.Throwables;
+import com.google.common.collect.Lists;
+
+/**
+ * An immutable, balanced KD-tree over 2D or 3D points.
+ * <br><br>
+ * The tree is implicit: the points are reordered so that the median of every
+ * range [lo, hi) is located at (lo + hi) / 2, with the smaller points on the left.
+ * The split axis alternates with the depth. No node objects are created.
+ * <br><br>
+ * Query results are reported as indices of the input points. Queries write into
+ * caller-supplied buffers, do not allocate and can be run from several threads concurrently.
+ */
+public final class KdTree {
+
+    /**
+     * Ranges smaller than this are not built in parallel
+     */
+    private static final int PARALLEL_THRESHOLD = 1 << 14;
+
+    private final int dims;
+    private final int size;
+
+    /**
+     * The reordered point coordinates (dims per point)
+     */
+    private final float[] coords;
+
+    /**
+     * The original index of every reordered point
+     */
+    private final int[] indices;
+
+    private KdTree(int dims, float[] input, int count) {
+        Preconditions.checkArgument(count >= 0, "count must be >= 0");
+        Preconditions.checkArgument(input.length >= count * dims, "coordinate array too small");
+
+        this.dims = dims;
+        this.size = count;
+        this.coords = new float[count * dims];
+        this.indices = new int[count];
+        System.arraycopy(input, 0, coords, 0, count * dims);
+        for (int i = 0; i < count; i++) {
+            indices[i] = i;
+        }
+    }
+
+    /**
+     * @param coords the packed coordinates (x, y) of the points
+     * @param count the number of points
+     * @return a new tree
+     */
+    public static KdTree create2D(float[] coords, int count) {
+        KdTree tree = new KdTree(2, coords, count);
+        tree.build(0, count, 0);
+        return tree;
+    }
+
+    /**
+     * @param coords the packed coordinates (x, y, z) of the points
+     * @param count the number of points
+     * @return a new tree
+     */
+    public static KdTree create3D(float[] coords, int count) {
+        KdTree tree = new KdTree(3, coords, count);
+        tree.build(0, count, 0);
+        return tree;
+    }
+
+    /**
+     * Builds the tree in parallel if the input is large.
+     * @param coords the packed coordinates (x, y) of the points
+     * @param count the number of points
+     * @param executor the executor that builds the subtrees
+     * @return a new tree
+     * @throws InterruptedException if the calling thread is interrupted while waiting for the executor
+     */
+    public static KdTree create2D(float[] coords, int count, ExecutorService executor) throws InterruptedException {
+        KdTree tree = new KdTree(2, coords, count);
+        tree.buildParallel(executor);
+        return tree;
+    }
+
+    /**
+     * Builds the tree in parallel if the input is large.
+     * @param coords the packed coordinates (x, y, z) of the points
+     * @param count the number of points
+     * @param executor the executor that builds the subtrees
+     * @return a new tree
+     * @throws InterruptedException if the calling thread is interrupted while waiting for the executor
+     */
+    public static KdTree create3D(float[] coords, int count, ExecutorService executor) throws InterruptedException {
+        KdTree tree = new KdTree(3, coords, count);
+        tree.buildParallel(executor);
+        return tree;
+    }
+
+    /**
+     * @param points the points. Indices refer to the iteration order of the collection.
+     * @return a new tree
+     */
+    public static KdTree create2D(Collection<? extends BaseVector2f> points) {
+        float[] coords = new float[points.size() * 2];
+        int idx = 0;
+        for (BaseVector2f pt : points) {
+            coords[idx++] = pt.getX();
+            coords[idx++] = pt.getY();
+        }
+        return create2D(coords, points.size());
+    }
+
+    /**
+     * @param points the points. Indices refer to the iteration order of the collection.
+     * @return a new tree
+     */
+    public static KdTree create3D(Collection<? extends BaseVector3f> points) {
+        float[] coords = new float[points.size() * 3];
+        int idx = 0;
+        for (BaseVector3f pt : points) {
+            coords[idx++] = pt.getX();
+            coords[idx++] = pt.getY();
+            coords[idx++] = pt.getZ();
+        }
+        return create3D(coords, points.size());
+    }
+
+    /**
+     * @return the number of dimensions (2 or 3)
+     */
+    public int getDimensions() {
+        return dims;
+    }
+
+    /**
+     * @return the number of points
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param x the x coordinate
+     * @param y the y coordinate
+     * @return the index of the closest point or -1 if the tree is empty
+     */
+    public int nearest(float x, float y) {
+        checkDims(2);
+        return nearestIndex(x, y, 0);
+    }
+
+    /**
+     * @param x the x coordinate
+     * @param y the y coordinate
+     * @param z the z coordinate
+     * @return the index of the closest point or -1 if the tree is empty
+     */
+    public int nearest(float x, float y, float z) {
+        checkDims(3);
+        return nearestIndex(x, y, z);
+    }
+
+    /**
+     * Finds the k closest points, sorted by increasing distance.
+     * @param x the x coordinate
+     * @param y the y coordinate
+     * @param k the number of points to find
+     * @param result receives the point indices (at least k elements)
+     * @param distancesSq receives the squared distances (at least k elements)
+     * @return the number of points found, min(k, size())
+     */
+    public int kNearest(float x, float y, int k, int[] result, float[] distancesSq) {
+        checkDims(2);
+        return kNearestIndices(x, y, 0, k, result, distancesSq);
+    }
+
+    /**
+     * Finds the k closest points, sorted by increasing distance.
+     * @param x the x coordinate
+     * @param y the y coordinate
+     * @param z the z coordinate
+     * @param k the number of points to find
+     * @param result receives the point indices (at least k elements)
+     * @param distancesSq receives the squared distances (at least k elements)
+     * @return the number of points found, min(k, size())
+     */
+    public int kNearest(float x, float y, float z, int k, int[] result, float[] distancesSq) {
+        checkDims(3);
+        return kNearestIndices(x, y, z, k, result, distancesSq);
+    }
+
+    /**
+     * Finds all points within the given distance (inclusive) in no particular order.
+     * @param x the x coordinate
+     * @param y the y coordinate
+     * @param radius the search radius
+     * @param result receives the point indices. If it is too small, only the first result.length points are stored.
+     * @return the total number of points in range
+     */
+    public int radius(float x, float y, float radius, int[] result) {
+        checkDims(2);
+        return radius(0, size, 0, x, y, 0, radius * radius, result, 0);
+    }
+
+    /**
+     * Finds all points within the given distance (inclusive) in no particular order.
+     * @param x the x coordinate
+     * @param y the y coordinate
+     * @param z the z coordinate
+     * @param radius the search radius
+     * @param result receives the point indices. If it is too small, only the first result.length points are stored.
+     * @return the total number of points in range
+     */
+    public int radius(float x, float y, float z, float radius, int[] result) {
+        checkDims(3);
+        return radius(0, size, 0, x, y, z, radius * radius, result, 0);
+    }
+
+    private void checkDims(int expected) {
+        Preconditions.checkState(dims == expected, "Tree has %s dimensions", dims);
+    }
+
+    private int nearestIndex(float x, float y, float z) {
+        if (size == 0) {
+            return -1;
+        }
+        long best = nearest(0, size, 0, x, y, z, Long.MAX_VALUE);
+        return (int) best;
+    }
+
+    private int kNearestIndices(float x, float y, float z, int k, int[] result, float[] distancesSq) {
+        Preconditions.checkArgument(k >= 0, "k must be >= 0");
+        Preconditions.checkArgument(result.length >= k && distancesSq.length >= k, "result buffers too small");
+        if (k == 0) {
+            return 0;
+        }
+        return kNearest(0, size, 0, x, y, z, k, result, distancesSq, 0);
+    }
+
+    /**
+     * @param best the best candidate so far, packed as (float bits of the squared distance, index)
+     * @return the best candidate in the range or the given one
+     */
+    private long nearest(int lo, int hi, int axis, float x, float y, float z, long best) {
+        if (lo >= hi) {
+            return best;
+        }
+
+        int mid = (lo + hi) >>> 1;
+        long result = best;
+        // the bit pattern of non-negative floats is monotonic
+        long key = (long) Float.floatToIntBits(distanceSquared(mid, x, y, z)) << 32;
+        if (key < (result & 0xFFFFFFFF00000000L)) {
+            result = key | indices[mid];
+        }
+
+        float diff = component(x, y, z, axis) - coords[mid * dims + axis];
+        int next = (axis + 1) % dims;
+        if (diff < 0) {
+            result = nearest(lo, mid, next, x, y, z, result);
+            if (((long) Float.floatToIntBits(diff * diff) << 32) < (result & 0xFFFFFFFF00000000L)) {
+                result = nearest(mid + 1, hi, next, x, y, z, result);
+            }
+        } else {
+            result = nearest(mid + 1, hi, next, x, y, z, result);
+            if (((long) Float.floatToIntBits(diff * diff) << 32) < (result & 0xFFFFFFFF00000000L)) {
+                result = nearest(lo, mid, next, x, y, z, result);
+            }
+        }
+        return result;
+    }
+
+    private int kNearest(int lo, int hi, int axis, float x, float y, float z, int k,
+                         int[] result, float[] distancesSq, int found) {
+        if (lo >= hi) {
+            return found;
+        }
+
+        int mid = (lo + hi) >>> 1;
+        int count = found;
+        float distSq = distanceSquared(mid, x, y, z);
+        if (count < k || distSq < distancesSq[k - 1]) {
+            int pos = Math.min(count, k - 1);
+            while (pos > 0 && distancesSq[pos - 1] > distSq) {
+                result[pos] = result[pos - 1];
+                distancesSq[pos] = distancesSq[pos - 1];
+                pos--;
+            }
+            result[pos] = indices[mid];
+            distancesSq[pos] = distSq;
+            if (count < k) {
+                count++;
+            }
+        }
+
+        float diff = component(x, y, z, axis) - coords[mid * dims + axis];
+        int next = (axis + 1) % dims;
+        int nearLo = diff < 0 ? lo : mid + 1;
+        int nearHi = diff < 0 ? mid : hi;
+        int farLo = diff < 0 ? mid + 1 : lo;
+        int farHi = diff < 0 ? hi : mid;
+
+        count = kNearest(nearLo, nearHi, next, x, y, z, k, result, distancesSq, count);
+        if (count < k || diff * diff < distancesSq[k - 1]) {
+            count = kNearest(farLo, farHi, next, x, y, z, k, result, distancesSq, count);
+        }
+        return count;
+    }
+
+    private int radius(int lo, int hi, int axis, float x, float y, float z, float radiusSq, int[] result, int found) {
+        if (lo >= hi) {
+            return found;
+        }
+
+        int mid = (lo + hi) >>> 1;
+        int count = found;
+        if (distanceSquared(mid, x, y, z) <= radiusSq) {
+            if (count < result.length) {
+                result[count] = indices[mid];
+            }
+            count++;
+        }
+
+        float diff = component(x, y, z, axis) - coords[mid * dims + axis];
+        int next = (axis + 1) % dims;
+        if (diff <= 0 || diff * diff <= radiusSq) {
+            count = radius(lo, mid, next, x, y, z, radiusSq, result, count);
+        }
+        if (diff >= 0 || diff * diff <= radiusSq) {
+            count = radius(mid + 1, hi, next, x, y, z, radiusSq, result, count);
+        }
+        return count;
+    }
+
+    private float distanceSquared(int point, float x, float y, float z) {
+        int idx = point * dims;
+        float dx = coords[idx] - x;
+        float dy = coords[idx + 1] - y;
+        float dz = (dims == 3) ? coords[idx + 2] - z : 0;
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    private static float component(float x, float y, float z, int axis) {
+        switch (axis) {
+            case 0:
+                return x;
+            case 1:
+                return y;
+            default:
+                return z;
+        }
+    }
+
+    private void buildParallel(ExecutorService executor) throws InterruptedException {
+        // split the upper levels on the calling thread, then build the subtrees concurrently
+        final List<int[]> ranges = Lists.newArrayList();
+        collectRanges(0, size, 0, Math.max(PARALLEL_THRESHOLD, size / 64), ranges);
+
+        List<Callable<Object>> tasks = Lists.newArrayList();
+        for (final int[] range : ranges) {
+            tasks.add(new Callable<Object>() {
+                @Override
+                public Object call() {
+                    build(range[0], range[1], range[2]);
+                    return null;
+                }
+            });
+        }
+
+        List<Future<Object>> futures = executor.invokeAll(tasks);
+        for (Future<Object> future : futures) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                throw Throwables.propagate(e.getCause());
+            }
+        }
+    }
+
+    private void collectRanges(int lo, int hi, int axis, int threshold, List<int[]> ranges) {
+        if (hi - lo <= threshold) {
+            ranges.add(new int[] {lo, hi, axis});
+            return;
+        }
+
+        int mid = (lo + hi) >>> 1;
+        select(lo, hi - 1, mid, axis);
+        int next = (axis + 1) % dims;
+        collectRanges(lo, mid, next, threshold, ranges);
+        collectRanges(mid + 1, hi, next, threshold, ranges);
+    }
+
+    private void build(int lo, int hi, int axis) {
+        int from = lo;
+        int to = hi;
+        int dim = axis;
+        // recurse into the left half, iterate over the right half
+        while (to - from > 1) {
+            int mid = (from + to) >>> 1;
+            select(from, to - 1, mid, dim);
+            dim = (dim + 1) % dims;
+            build(from, mid, dim);
+            from = mid + 1;
+        }
+    }
+
+    /**
+     * Partially sorts the points in [left, right] so that the point at index k has
+     * the k-th smallest coordinate along the axis (Hoare's quickselect)
+     */
+    private void select(int left, int right, int k, int axis) {
+        int lo = left;
+        int hi = right;
+        while (hi > lo) {
+            float pivot = coords[((lo + hi) >>> 1) * dims + axis];
+            int i = lo;
+            int j = hi;
+            while (i <= j) {
+                while (coords[i * dims + axis] < pivot) {
+                    i++;
+                }
+                while (coords[j * dims + axis] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    swap(i, j);
+                    i++;
+                    j--;
+                }
+            }
+            if (k <= j) {
+                hi = j;
+            } else if (k >= i) {
+                lo = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private void swap(int a, int b) {
+        int ia = a * dims;
+        int ib = b * dims;
+        for (int d = 0; d < dims; d++) {
+            float tmp = coords[ia + d];
+            coords[ia + d] = coords[ib + d];
+            coords[ib + d] = tmp;
+        }
+        int tmpIdx = indices[a];
+        indices[a] = indices[b];
+        indices[b] = tmpIdx;
+    }
+}
@@ -0,0 +1,322 @@
+/*
+ * Copyright 2015 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.terasology.math.geom;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Rasterizes lines between integer grid points. The thin line variants use integer arithmetic
+ * only. All methods pass raw coordinates to a visitor, create no objects and stop when the
+ * visitor returns false.
+ */
+public final class LineRasterizer {
+
+    private LineRasterizer() {
+        // no instances
+    }
+
+    /**
+     * @param from the start point
+     * @param to the end point
+     * @param visitor the visitor
+     * @return true if all points were visited, false if the visitor stopped early
+     * @see #line(int, int, int, int, IntPairVisitor)
+     */
+    public static boolean line(BaseVector2i from, BaseVector2i to, IntPairVisitor visitor) {
+        return line(from.getX(), from.getY(), to.getX(), to.getY(), visitor);
+    }
+
+    /**
+     * Bresenham's line algorithm. The line is 8-connected, contains both end points and
+     * consists of max(|x1 - x0|, |y1 - y0|) + 1 points.
+     * @param x0 the x coordinate of the start point
+     * @param y0 the y coordinate of the start point
+     * @param x1 the x coordinate of the end point
+     * @param y1 the y coordinate of the end point
+     * @param visitor the visitor
+     * @return true if all points were visited, false if the visitor stopped early
+     */
+    public static boolean line(int x0, int y0, int x1, int y1, IntPairVisitor visitor) {
+        int dx = Math.abs(x1 - x0);
+        int dy = -Math.abs(y1 - y0);
+        int sx = x0 < x1 ? 1 : -1;
+        int sy = y0 < y1 ? 1 : -1;
+        int err = dx + dy;
+        int x = x0;
+        int y = y0;
+
+        while (true) {
+            if (!visitor.visit(x, y)) {
+                return false;
+            }
+            if (x == x1 && y == y1) {
+                return true;
+            }
+            int e2 = 2 * err;
+            if (e2 >= dy) {
+                err += dy;
+                x += sx;
+            }
+            if (e2 <= dx) {
+                err += dx;
+                y += sy;
+            }
+        }
+    }
+
+    /**
+     * @param from the start point
+     * @param to the end point
+     * @param visitor the visitor
+     * @return true if all points were visited, false if the visitor stopped early
+     * @see #supercover(int, int, int, int, IntPairVisitor)
+     */
+    public static boolean supercover(BaseVector2i from, BaseVector2i to, IntPairVisitor visitor) {
+        return supercover(from.getX(), from.getY(), to.getX(), to.getY(), visitor);
+    }
+
+    /**
+     * Visits all cells that are touched by the segment between the cell centers. Cell (x, y) covers
+     * [x - 0.5..x + 0.5] x [y - 0.5..y + 0.5]. The result is 4-connected. If the segment passes exactly
+     * through a cell corner, both adjacent cells are visited.
+     * @param x0 the x coordinate of the start point
+     * @param y0 the y coordinate of the start point
+     * @param x1 the x coordinate of the end point
+     * @param y1 the y coordinate of the end point
+     * @param visitor the visitor
+     * @return true if all points were visited, false if the visitor stopped early
+     */
+    public static boolean supercover(int x0, int y0, int x1, int y1, IntPairVisitor visitor) {
+        int nx = Math.abs(x1 - x0);
+        int ny = Math.abs(y1 - y0);
+        int sx = x0 < x1 ? 1 : -1;
+        int sy = y0 < y1 ? 1 : -1;
+        int x = x0;
+        int y = y0;
+
+        if (!visitor.visit(x, y)) {
+            return false;
+        }
+
+        int ix = 0;
+        int iy = 0;
+        while (ix < nx || iy < ny) {
+            // compares (0.5 + ix) / nx with (0.5 + iy) / ny - the next crossed cell border along x or y
+            long decision = (1 + 2L * ix) * ny - (1 + 2L * iy) * nx;
+            if (decision == 0) {
+                if (!visitor.visit(x + sx, y) || !visitor.visit(x, y + sy)) {
+                    return false;
+                }
+                x += sx;
+                y += sy;
+                ix++;
+                iy++;
+            } else if (decision < 0) {
+                x += sx;
+                ix++;
+            } else {
+                y += sy;
+                iy++;
+            }
+            if (!visitor.visit(x, y)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Visits all points whose distance to the segment between the end points is at most width / 2,
+     * i.e. a line with round caps. Every point is visited exactly once, row by row.
+     * <br><br>
+     * Unlike the thin line variants, the row intervals are computed with double precision and
+     * {@link Math#sqrt(double)}. The results are still deterministic on all platforms, because
+     * the square root is correctly rounded.
+     * @param x0 the x coordinate of the start point
+     * @param y0 the y coordinate of the start point
+     * @param x1 the x coordinate of the end point
+     * @param y1 the y coordinate of the end point
+     * @param width the width of the line (at least 1)
+     * @param visitor the visitor
+     * @return true if all points were visited, false if the visitor stopped early
+     */
+    public static boolean thickLine(int x0, int y0, int x1, int y1, float width, IntPairVisitor visitor) {
+        Preconditions.checkArgument(width >= 1, "width must be >= 1");
+
+        double rad = width * 0.5;
+        double radSq = rad * rad;
+        double dx = x1 - x0;
+        double dy = y1 - y0;
+        double lenSq = dx * dx + dy * dy;
+
+        int minY = (int) Math.ceil(Math.min(y0, y1) - rad);
+        int maxY = (int) Math.floor(Math.max(y0, y1) + rad);
+        for (int y = minY; y <= maxY; y++) {
+            // the shape is convex, so every row is a single interval: the union of both caps and the band between them
+            double lo = Double.POSITIVE_INFINITY;
+            double hi = Double.NEGATIVE_INFINITY;
+
+            double h0 = radSq - (y - y0) * (y - y0);
+            if (h0 >= 0) {
+                lo = Math.min(lo, x0 - Math.sqrt(h0));
+                hi = Math.max(hi, x0 + Math.sqrt(h0));
+            }
+            double h1 = radSq - (y - y1) * (y - y1);
+            if (h1 >= 0) {
+                lo = Math.min(lo, x1 - Math.sqrt(h1));
+                hi = Math.max(hi, x1 + Math.sqrt(h1));
+            }
+
+            if (lenSq > 0) {
+                // projection: 0 <= (x - x0) * dx + (y - y0) * dy <= lenSq
+                // distance:   |(x - x0) * dy - (y - y0) * dx| <= rad * len
+                double bandLo = Double.NEGATIVE_INFINITY;
+                double bandHi = Double.POSITIVE_INFINITY;
+                double ry = y - y0;
+                double limit = rad * Math.sqrt(lenSq);
+                if (dx != 0) {
+                    double a = (0 - ry * dy) / dx;
+                    double b = (lenSq - ry * dy) / dx;
+                    bandLo = Math.max(bandLo, Math.min(a, b));
+                    bandHi = Math.min(bandHi, Math.max(a, b));
+                } else if (ry * dy < 0 || ry * dy > lenSq) {
+                    bandLo = Double.POSITIVE_INFINITY;
+                }
+                if (dy != 0) {
+                    double a = (ry * dx - limit) / dy;
+                    double b = (ry * dx + limit) / dy;
+                    bandLo = Math.max(bandLo, Math.min(a, b));
+                    bandHi = Math.min(bandHi, Math.max(a, b));
+                } else if (Math.abs(ry * dx) > limit) {
+                    bandLo = Double.POSITIVE_INFINITY;
+                }
+                if (bandLo <= bandHi) {
+                    lo = Math.min(lo, bandLo + x0);
+                    hi = Math.max(hi, bandHi + x0);
+                }
+            }
+
+            int xs = (int) Math.ceil(lo);
+            int xe = (int) Math.floor(hi);
+            for (int x = xs; x <= xe; x++) {
+                if (!visitor.visit(x, y)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param from the start point
+     * @param to the end point
+     * @param visitor the visitor
+     * @return true if all points were visited, false if the visitor stopped early
+     * @see #line(int, int, int, int, int, int, IntTripleVisitor)
+     */
+    public static boolean line(BaseVector3i from, BaseVector3i to, IntTripleVisitor visitor) {
+        return line(from.getX(), from.getY(), from.getZ(), to.getX(), to.getY(), to.getZ(), visitor);
+    }
+
+    /**
+     * 3D variant of Bresenham's line algorithm. The line is 26-connected, contains both end points
+     * and consists of max(|x1 - x0|, |y1 - y0|, |z1 - z0|) + 1 points.
+     * @param x0 the x coordinate of the start point
+     * @param y0 the y coordinate of the start point
+     * @param z0 the z coordinate of the start point
+     * @param x1 the x coordinate of the end point
+     * @param y1 the y coordinate of the end point
+     * @param z1 the z coordinate of the end point
+     * @param visitor the visitor
+     * @return true if all points were visited, false if the visitor stopped early
+     */
+    public static boolean line(int x0, int y0, int z0, int x1, int y1, int z1, IntTripleVisitor visitor) {
+        int dx = Math.abs(x1 - x0);
+        int dy = Math.abs(y1 - y0);
+        int dz = Math.abs(z1 - z0);
+        int sx = x0 < x1 ? 1 : -1;
+        int sy = y0 < y1 ? 1 : -1;
+        int sz = z0 < z1 ? 1 : -1;
+        int x = x0;
+        int y = y0;
+        int z = z0;
+
+        if (!visitor.visit(x, y, z)) {
+            return false;
+        }
+
+        if (dx >= dy && dx >= dz) {
+            int errY = 2 * dy - dx;
+            int errZ = 2 * dz - dx;
+            for (int i = 0; i < dx; i++) {
+                x += sx;
+                if (errY > 0) {
+                    y += sy;
+                    errY -= 2 * dx;
+                }
+                if (errZ > 0) {
+                    z += sz;
+                    errZ -= 2 * dx;
+                }
+                errY += 2 * dy;
+                errZ += 2 * dz;
+                if (!visitor.visit(x, y, z)) {
+                    return false;
+                }
+            }
+        } else if (dy >= dz) {
+            int errX = 2 * dx - dy;
+            int errZ = 2 * dz - dy;
+            for (int i = 0; i < dy; i++) {
+                y += sy;
+                if (errX > 0) {
+                    x += sx;
+                    errX -= 2 * dy;
+                }
+                if (errZ > 0) {
+                    z += sz;
+                    errZ -= 2 * dy;
+                }
+                errX += 2 * dx;
+                errZ += 2 * dz;
+                if (!visitor.visit(x, y, z)) {
+                    return false;
+                }
+            }
+        } else {
+            int errX = 2 * dx - dz;
+            int errY = 2 * dy - dz;
+            for (int i = 0; i < dz; i++) {
+                z += sz;
+                if (errX > 0) {
+                    x += sx;
+                    errX -= 2 * dz;
+                }
+                if (errY > 0) {
+                    y += sy;
+                    errY -= 2 * dz;
+                }
+                errX += 2 * dx;
+                errY += 2 * dy;
+                if (!visitor.visit(x, y, z)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+}
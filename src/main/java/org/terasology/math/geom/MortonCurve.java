@@ -0,0 +1,267 @@
+/*
+ * Copyright 2015 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.terasology.math.geom;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.terasology.math.TeraMath;
+
+/**
+ * Iterates over integer rectangles and boxes in Morton (Z-) order. The order is relative
+ * to the minimum corner, which is treated as the origin of the curve.
+ * <br><br>
+ * The power-of-two square (cube) that covers the area is subdivided recursively. Blocks
+ * that are completely inside are enumerated by incrementing the Morton code, blocks that
+ * are completely outside are skipped. Each step takes amortized constant time.
+ * @see TeraMath#encodeMorton2D(int, int)
+ * @see TeraMath#encodeMorton3D(int, int, int)
+ */
+public final class MortonCurve {
+
+    private MortonCurve() {
+        // no instances
+    }
+
+    /**
+     * Do <b>not</b> store the result vectors as they are reused!
+     * @param rect the rectangle
+     * @return all positions in the rectangle in Morton order
+     */
+    public static Iterable<BaseVector2i> contents(final Rect2i rect) {
+        return new Iterable<BaseVector2i>() {
+            @Override
+            public Iterator<BaseVector2i> iterator() {
+                if (rect.isEmpty()) {
+                    return new MortonIterator2D(0, 0, 0, 0);
+                }
+                return new MortonIterator2D(rect.minX(), rect.minY(), rect.width(), rect.height());
+            }
+        };
+    }
+
+    /**
+     * Do <b>not</b> store the result vectors as they are reused!
+     * @param minX the minimum x coordinate (inclusive)
+     * @param minY the minimum y coordinate (inclusive)
+     * @param minZ the minimum z coordinate (inclusive)
+     * @param maxX the maximum x coordinate (inclusive)
+     * @param maxY the maximum y coordinate (inclusive)
+     * @param maxZ the maximum z coordinate (inclusive)
+     * @return all positions in the box in Morton order
+     */
+    public static Iterable<BaseVector3i> contents(final int minX, final int minY, final int minZ,
+                                                  final int maxX, final int maxY, final int maxZ) {
+        return new Iterable<BaseVector3i>() {
+            @Override
+            public Iterator<BaseVector3i> iterator() {
+                if (maxX < minX || maxY < minY || maxZ < minZ) {
+                    return new MortonIterator3D(0, 0, 0, 0, 0, 0);
+                }
+                return new MortonIterator3D(minX, minY, minZ, maxX - minX + 1, maxY - minY + 1, maxZ - minZ + 1);
+            }
+        };
+    }
+
+    private static final class MortonIterator2D implements Iterator<BaseVector2i> {
+
+        private final int originX;
+        private final int originY;
+        private final int width;
+        private final int height;
+
+        /**
+         * Pending blocks (x, y, size)
+         */
+        private final int[] stack;
+        private int stackSize;
+
+        private int blockX;
+        private int blockY;
+        private long code;
+        private long blockEnd;
+
+        private final Vector2i pos = new Vector2i();
+
+        MortonIterator2D(int originX, int originY, int width, int height) {
+            this.originX = originX;
+            this.originY = originY;
+            this.width = width;
+            this.height = height;
+
+            int side = TeraMath.ceilPowerOfTwo(Math.max(width, height));
+            int depth = TeraMath.sizeOfPower(side);
+            stack = new int[(3 * depth + 1) * 3];
+            if (width > 0 && height > 0) {
+                push(0, 0, side);
+            }
+        }
+
+        private void push(int x, int y, int size) {
+            stack[stackSize++] = x;
+            stack[stackSize++] = y;
+            stack[stackSize++] = size;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (code < blockEnd) {
+                return true;
+            }
+
+            while (stackSize > 0) {
+                int size = stack[--stackSize];
+                int y = stack[--stackSize];
+                int x = stack[--stackSize];
+
+                if (x >= width || y >= height) {
+                    continue;
+                }
+
+                if (x + size <= width && y + size <= height) {
+                    blockX = x;
+                    blockY = y;
+                    code = 0;
+                    blockEnd = (long) size * size;
+                    return true;
+                }
+
+                // push in reverse order, so that the first quadrant is popped first
+                int half = size >> 1;
+                push(x + half, y + half, half);
+                push(x, y + half, half);
+                push(x + half, y, half);
+                push(x, y, half);
+            }
+            return false;
+        }
+
+        @Override
+        public BaseVector2i next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            pos.x = originX + blockX + TeraMath.decodeMorton2DX(code);
+            pos.y = originY + blockY + TeraMath.decodeMorton2DY(code);
+            code++;
+            return pos;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private static final class MortonIterator3D implements Iterator<BaseVector3i> {
+
+        private final int originX;
+        private final int originY;
+        private final int originZ;
+        private final int sizeX;
+        private final int sizeY;
+        private final int sizeZ;
+
+        /**
+         * Pending blocks (x, y, z, size)
+         */
+        private final int[] stack;
+        private int stackSize;
+
+        private int blockX;
+        private int blockY;
+        private int blockZ;
+        private long code;
+        private long blockEnd;
+
+        private final Vector3i pos = new Vector3i();
+
+        MortonIterator3D(int originX, int originY, int originZ, int sizeX, int sizeY, int sizeZ) {
+            this.originX = originX;
+            this.originY = originY;
+            this.originZ = originZ;
+            this.sizeX = sizeX;
+            this.sizeY = sizeY;
+            this.sizeZ = sizeZ;
+
+            int side = TeraMath.ceilPowerOfTwo(Math.max(sizeX, Math.max(sizeY, sizeZ)));
+            int depth = TeraMath.sizeOfPower(side);
+            stack = new int[(7 * depth + 1) * 4];
+            if (sizeX > 0 && sizeY > 0 && sizeZ > 0) {
+                push(0, 0, 0, side);
+            }
+        }
+
+        private void push(int x, int y, int z, int size) {
+            stack[stackSize++] = x;
+            stack[stackSize++] = y;
+            stack[stackSize++] = z;
+            stack[stackSize++] = size;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (code < blockEnd) {
+                return true;
+            }
+
+            while (stackSize > 0) {
+                int size = stack[--stackSize];
+                int z = stack[--stackSize];
+                int y = stack[--stackSize];
+                int x = stack[--stackSize];
+
+                if (x >= sizeX || y >= sizeY || z >= sizeZ) {
+                    continue;
+                }
+
+                if (x + size <= sizeX && y + size <= sizeY && z + size <= sizeZ) {
+                    blockX = x;
+                    blockY = y;
+                    blockZ = z;
+                    code = 0;
+                    blockEnd = (long) size * size * size;
+                    return true;
+                }
+
+                // push in reverse order, so that the first octant is popped first
+                int half = size >> 1;
+                for (int i = 7; i >= 0; i--) {
+                    push(x + ((i & 1) != 0 ? half : 0), y + ((i & 2) != 0 ? half : 0), z + ((i & 4) != 0 ? half : 0), half);
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public BaseVector3i next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            pos.x = originX + blockX + TeraMath.decodeMorton3DX(code);
+            pos.y = originY + blockY + TeraMath.decodeMorton3DY(code);
+            pos.z = originZ + blockZ + TeraMath.decodeMorton3DZ(code);
+            code++;
+            return pos;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,491 @@
+/*
+ * Copyright 2015 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.terasology.math.geom;
+
+import org.terasology.math.TeraMath;
+
+import com.google.common.base.Objects;
+import com.google.common.base.Preconditions;
+
+/**
+ * A sparse voxel octree that maps integer positions to values. The root covers
+ * a cube with a power-of-two edge length. Uniform regions are stored as a single
+ * leaf, i.e. subtrees are collapsed as soon as all eight children are leaves with
+ * equal values (see {@link Objects#equal(Object, Object)}).
+ * <br><br>
+ * Queries report uniform cubes (leaves) to a {@link Visitor}. The reported cubes
+ * can extend beyond the query volume.
+ * @param <T> the value type
+ */
+public final class Octree3i<T> {
+
+    private final int minX;
+    private final int minY;
+    private final int minZ;
+    private final int size;
+
+    private final Node<T> root;
+
+    /**
+     * @param min the minimum corner of the covered cube
+     * @param size the edge length of the covered cube, rounded up to the next power of two
+     * @param initial the initial value for all positions
+     */
+    public Octree3i(BaseVector3i min, int size, T initial) {
+        this(min.getX(), min.getY(), min.getZ(), size, initial);
+    }
+
+    /**
+     * @param minX the minimum x coordinate of the covered cube
+     * @param minY the minimum y coordinate of the covered cube
+     * @param minZ the minimum z coordinate of the covered cube
+     * @param size the edge length of the covered cube, rounded up to the next power of two
+     * @param initial the initial value for all positions
+     */
+    public Octree3i(int minX, int minY, int minZ, int size, T initial) {
+        Preconditions.checkArgument(size > 0 && size <= 1 << 30, "size must be in [1..2^30]");
+
+        this.minX = minX;
+        this.minY = minY;
+        this.minZ = minZ;
+        this.size = TeraMath.ceilPowerOfTwo(size);
+        this.root = new Node<T>(initial);
+    }
+
+    /**
+     * @return the edge length of the covered cube
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * @return the depth of the tree if it is completely subdivided
+     */
+    public int getMaxDepth() {
+        return TeraMath.sizeOfPower(size);
+    }
+
+    /**
+     * @return the minimum corner of the covered cube
+     */
+    public Vector3i getMin() {
+        return new Vector3i(minX, minY, minZ);
+    }
+
+    /**
+     * @param x the x coordinate
+     * @param y the y coordinate
+     * @param z the z coordinate
+     * @return true if the position is covered by the tree
+     */
+    public boolean contains(int x, int y, int z) {
+        return x >= minX && y >= minY && z >= minZ && x - minX < size && y - minY < size && z - minZ < size;
+    }
+
+    /**
+     * @param pos the position
+     * @return the value at the given position
+     */
+    public T get(BaseVector3i pos) {
+        return get(pos.getX(), pos.getY(), pos.getZ());
+    }
+
+    /**
+     * @param x the x coordinate
+     * @param y the y coordinate
+     * @param z the z coordinate
+     * @return the value at the given position
+     */
+    public T get(int x, int y, int z) {
+        checkContains(x, y, z);
+
+        int lx = x - minX;
+        int ly = y - minY;
+        int lz = z - minZ;
+        Node<T> node = root;
+        int half = size >> 1;
+        while (node.children != null) {
+            node = node.children[childIndex(lx, ly, lz, half)];
+            half >>= 1;
+        }
+        return node.value;
+    }
+
+    /**
+     * @param pos the position
+     * @param value the new value
+     */
+    public void set(BaseVector3i pos, T value) {
+        set(pos.getX(), pos.getY(), pos.getZ(), value);
+    }
+
+    /**
+     * @param x the x coordinate
+     * @param y the y coordinate
+     * @param z the z coordinate
+     * @param value the new value
+     */
+    public void set(int x, int y, int z, T value) {
+        checkContains(x, y, z);
+        set(root, x - minX, y - minY, z - minZ, size, value);
+    }
+
+    /**
+     * Sets all positions in the given box (inclusive) to the same value.
+     * Nodes that are covered completely are replaced by a single leaf.
+     * @param x0 the minimum x coordinate
+     * @param y0 the minimum y coordinate
+     * @param z0 the minimum z coordinate
+     * @param x1 the maximum x coordinate
+     * @param y1 the maximum y coordinate
+     * @param z1 the maximum z coordinate
+     * @param value the new value
+     */
+    public void fill(int x0, int y0, int z0, int x1, int y1, int z1, T value) {
+        int lx0 = Math.max(x0 - minX, 0);
+        int ly0 = Math.max(y0 - minY, 0);
+        int lz0 = Math.max(z0 - minZ, 0);
+        int lx1 = Math.min(x1 - minX, size - 1);
+        int ly1 = Math.min(y1 - minY, size - 1);
+        int lz1 = Math.min(z1 - minZ, size - 1);
+        if (lx0 <= lx1 && ly0 <= ly1 && lz0 <= lz1) {
+            fill(root, 0, 0, 0, size, lx0, ly0, lz0, lx1, ly1, lz1, value);
+        }
+    }
+
+    /**
+     * @return the number of nodes (inner nodes and leaves)
+     */
+    public int getNodeCount() {
+        return countNodes(root);
+    }
+
+    /**
+     * Visits all leaves that intersect the given box (inclusive)
+     * @param x0 the minimum x coordinate
+     * @param y0 the minimum y coordinate
+     * @param z0 the minimum z coordinate
+     * @param x1 the maximum x coordinate
+     * @param y1 the maximum y coordinate
+     * @param z1 the maximum z coordinate
+     * @param visitor the visitor
+     * @return true if all leaves were visited, false if the visitor stopped early
+     */
+    public boolean queryBox(int x0, int y0, int z0, int x1, int y1, int z1, Visitor<? super T> visitor) {
+        return queryBox(root, minX, minY, minZ, size, x0, y0, z0, x1, y1, z1, visitor);
+    }
+
+    /**
+     * Visits all leaves that contain at least one position within the given distance (inclusive)
+     * @param cx the sphere center x coordinate
+     * @param cy the sphere center y coordinate
+     * @param cz the sphere center z coordinate
+     * @param radius the sphere radius
+     * @param visitor the visitor
+     * @return true if all leaves were visited, false if the visitor stopped early
+     */
+    public boolean querySphere(float cx, float cy, float cz, float radius, Visitor<? super T> visitor) {
+        return querySphere(root, minX, minY, minZ, size, cx, cy, cz, radius * radius, visitor);
+    }
+
+    /**
+     * Visits all leaves that are hit by the given ray in front-to-back order.
+     * Position (x, y, z) covers the unit cube [x..x+1]x[y..y+1]x[z..z+1].
+     * @param origin the ray origin
+     * @param dir the ray direction (not necessarily normalized)
+     * @param maxDistance the maximum ray parameter t (in multiples of dir)
+     * @param visitor the visitor
+     * @return true if all leaves were visited, false if the visitor stopped early
+     */
+    public boolean queryRay(BaseVector3f origin, BaseVector3f dir, float maxDistance, Visitor<? super T> visitor) {
+        float ox = origin.getX() - minX;
+        float oy = origin.getY() - minY;
+        float oz = origin.getZ() - minZ;
+        float dx = dir.getX();
+        float dy = dir.getY();
+        float dz = dir.getZ();
+
+        // mirror the ray so that all direction components are non-negative,
+        // the child order is then restored by xor'ing with the mirror mask
+        int mirror = 0;
+        if (dx < 0) {
+            ox = size - ox;
+            dx = -dx;
+            mirror |= 1;
+        }
+        if (dy < 0) {
+            oy = size - oy;
+            dy = -dy;
+            mirror |= 2;
+        }
+        if (dz < 0) {
+            oz = size - oz;
+            dz = -dz;
+            mirror |= 4;
+        }
+
+        return queryRay(root, 0, 0, 0, size, ox, oy, oz, dx, dy, dz, mirror, maxDistance, visitor);
+    }
+
+    private void checkContains(int x, int y, int z) {
+        if (!contains(x, y, z)) {
+            throw new IllegalArgumentException(String.format("Position (%d, %d, %d) is outside of the tree", x, y, z));
+        }
+    }
+
+    private void set(Node<T> node, int lx, int ly, int lz, int nodeSize, T value) {
+        if (nodeSize == 1) {
+            node.value = value;
+            return;
+        }
+
+        if (node.children == null) {
+            if (Objects.equal(node.value, value)) {
+                return;
+            }
+            node.split();
+        }
+
+        int half = nodeSize >> 1;
+        set(node.children[childIndex(lx, ly, lz, half)], lx & (half - 1), ly & (half - 1), lz & (half - 1), half, value);
+        node.tryCollapse();
+    }
+
+    private void fill(Node<T> node, int nx, int ny, int nz, int nodeSize,
+                      int x0, int y0, int z0, int x1, int y1, int z1, T value) {
+        if (x0 <= nx && y0 <= ny && z0 <= nz && x1 >= nx + nodeSize - 1 && y1 >= ny + nodeSize - 1 && z1 >= nz + nodeSize - 1) {
+            node.children = null;
+            node.value = value;
+            return;
+        }
+
+        if (node.children == null) {
+            if (Objects.equal(node.value, value)) {
+                return;
+            }
+            node.split();
+        }
+
+        int half = nodeSize >> 1;
+        for (int i = 0; i < 8; i++) {
+            int cx = nx + ((i & 1) != 0 ? half : 0);
+            int cy = ny + ((i & 2) != 0 ? half : 0);
+            int cz = nz + ((i & 4) != 0 ? half : 0);
+            if (cx <= x1 && cx + half - 1 >= x0 && cy <= y1 && cy + half - 1 >= y0 && cz <= z1 && cz + half - 1 >= z0) {
+                fill(node.children[i], cx, cy, cz, half, x0, y0, z0, x1, y1, z1, value);
+            }
+        }
+        node.tryCollapse();
+    }
+
+    private boolean queryBox(Node<T> node, int nx, int ny, int nz, int nodeSize,
+                             int x0, int y0, int z0, int x1, int y1, int z1, Visitor<? super T> visitor) {
+        if (nx > x1 || ny > y1 || nz > z1 || nx + nodeSize - 1 < x0 || ny + nodeSize - 1 < y0 || nz + nodeSize - 1 < z0) {
+            return true;
+        }
+
+        if (node.children == null) {
+            return visitor.visit(nx, ny, nz, nodeSize, node.value);
+        }
+
+        int half = nodeSize >> 1;
+        for (int i = 0; i < 8; i++) {
+            int cx = nx + ((i & 1) != 0 ? half : 0);
+            int cy = ny + ((i & 2) != 0 ? half : 0);
+            int cz = nz + ((i & 4) != 0 ? half : 0);
+            if (!queryBox(node.children[i], cx, cy, cz, half, x0, y0, z0, x1, y1, z1, visitor)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean querySphere(Node<T> node, int nx, int ny, int nz, int nodeSize,
+                                float cx, float cy, float cz, float radiusSq, Visitor<? super T> visitor) {
+        float dx = Math.max(Math.max(nx - cx, cx - (nx + nodeSize - 1)), 0);
+        float dy = Math.max(Math.max(ny - cy, cy - (ny + nodeSize - 1)), 0);
+        float dz = Math.max(Math.max(nz - cz, cz - (nz + nodeSize - 1)), 0);
+        if (dx * dx + dy * dy + dz * dz > radiusSq) {
+            return true;
+        }
+
+        if (node.children == null) {
+            return visitor.visit(nx, ny, nz, nodeSize, node.value);
+        }
+
+        int half = nodeSize >> 1;
+        for (int i = 0; i < 8; i++) {
+            int childX = nx + ((i & 1) != 0 ? half : 0);
+            int childY = ny + ((i & 2) != 0 ? half : 0);
+            int childZ = nz + ((i & 4) != 0 ? half : 0);
+            if (!querySphere(node.children[i], childX, childY, childZ, half, cx, cy, cz, radiusSq, visitor)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Parametric ray traversal (Revelles et al.) in the mirrored coordinate system,
+     * where all direction components are non-negative
+     */
+    private boolean queryRay(Node<T> node, int nx, int ny, int nz, int nodeSize,
+                             float ox, float oy, float oz, float dx, float dy, float dz,
+                             int mirror, float maxDistance, Visitor<? super T> visitor) {
+        float tEnter = Math.max(Math.max(enter(nx, ox, dx), enter(ny, oy, dy)), enter(nz, oz, dz));
+        float tExit = Math.min(Math.min(enter(nx + nodeSize, ox, dx), enter(ny + nodeSize, oy, dy)), enter(nz + nodeSize, oz, dz));
+        if (tEnter > tExit || tExit < 0 || tEnter > maxDistance) {
+            return true;
+        }
+
+        if (node.children == null) {
+            int x = (mirror & 1) != 0 ? size - nx - nodeSize : nx;
+            int y = (mirror & 2) != 0 ? size - ny - nodeSize : ny;
+            int z = (mirror & 4) != 0 ? size - nz - nodeSize : nz;
+            return visitor.visit(minX + x, minY + y, minZ + z, nodeSize, node.value);
+        }
+
+        int half = nodeSize >> 1;
+        float txm = enter(nx + half, ox, dx);
+        float tym = enter(ny + half, oy, dy);
+        float tzm = enter(nz + half, oz, dz);
+
+        // the children are visited in the order in which the ray crosses the mid planes
+        int child = 0;
+        if (tEnter >= txm) {
+            child |= 1;
+        }
+        if (tEnter >= tym) {
+            child |= 2;
+        }
+        if (tEnter >= tzm) {
+            child |= 4;
+        }
+
+        while (true) {
+            int cx = nx + ((child & 1) != 0 ? half : 0);
+            int cy = ny + ((child & 2) != 0 ? half : 0);
+            int cz = nz + ((child & 4) != 0 ? half : 0);
+            Node<T> next = node.children[child ^ mirror];
+            if (!queryRay(next, cx, cy, cz, half, ox, oy, oz, dx, dy, dz, mirror, maxDistance, visitor)) {
+                return false;
+            }
+
+            // move on to the neighbour across the closest exit plane
+            float exitX = (child & 1) != 0 ? Float.POSITIVE_INFINITY : txm;
+            float exitY = (child & 2) != 0 ? Float.POSITIVE_INFINITY : tym;
+            float exitZ = (child & 4) != 0 ? Float.POSITIVE_INFINITY : tzm;
+            float exit = Math.min(Math.min(exitX, exitY), exitZ);
+            if (exit == Float.POSITIVE_INFINITY || exit > maxDistance) {
+                return true;
+            }
+            if (exit == exitX) {
+                child |= 1;
+            } else if (exit == exitY) {
+                child |= 2;
+            } else {
+                child |= 4;
+            }
+        }
+    }
+
+    /**
+     * @return the ray parameter t where the ray crosses the plane at the given coordinate.
+     * For rays parallel to the plane this is -inf if the origin is on the upper side, +inf otherwise.
+     */
+    private static float enter(int plane, float origin, float dir) {
+        if (dir == 0) {
+            return origin >= plane ? Float.NEGATIVE_INFINITY : Float.POSITIVE_INFINITY;
+        }
+        return (plane - origin) / dir;
+    }
+
+    private static int childIndex(int lx, int ly, int lz, int half) {
+        int idx = 0;
+        if ((lx & half) != 0) {
+            idx |= 1;
+        }
+        if ((ly & half) != 0) {
+            idx |= 2;
+        }
+        if ((lz & half) != 0) {
+            idx |= 4;
+        }
+        return idx;
+    }
+
+    private static int countNodes(Node<?> node) {
+        int count = 1;
+        if (node.children != null) {
+            for (Node<?> child : node.children) {
+                count += countNodes(child);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Receives uniform cubes of the octree
+     * @param <T> the value type
+     */
+    public interface Visitor<T> {
+
+        /**
+         * @param x the minimum x coordinate of the cube
+         * @param y the minimum y coordinate of the cube
+         * @param z the minimum z coordinate of the cube
+         * @param size the edge length of the cube
+         * @param value the value of all positions in the cube
+         * @return true to continue, false to stop the query
+         */
+        boolean visit(int x, int y, int z, int size, T value);
+    }
+
+    private static final class Node<T> {
+        private T value;
+        private Node<T>[] children;
+
+        Node(T value) {
+            this.value = value;
+        }
+
+        @SuppressWarnings("unchecked")
+        static <T> Node<T>[] newArray(int size) {
+            return (Node<T>[]) new Node<?>[size];
+        }
+
+        void split() {
+            children = newArray(8);
+            for (int i = 0; i < 8; i++) {
+                children[i] = new Node<T>(value);
+            }
+            value = null;
+        }
+
+        void tryCollapse() {
+            T first = children[0].value;
+            for (Node<T> child : children) {
+                if (child.children != null || !Objects.equal(child.value, first)) {
+                    return;
+                }
+            }
+            children = null;
+            value = first;
+        }
+    }
+}
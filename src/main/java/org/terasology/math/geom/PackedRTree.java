@@ -0,0 +1,518 @@
+/*
+ * Copyright 2015 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.terasology.math.geom;
+
+import java.util.Arrays;
+import java.util.List;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * An immutable R-tree over a static set of rectangles. It is bulk-loaded
+ * with the Sort-Tile-Recursive (STR) algorithm and stored in flat primitive arrays.
+ * <br><br>
+ * Entries are numbered level by level: the rectangles come first (sorted in STR order),
+ * followed by the nodes of the next level up to the root, which is the last entry.
+ * Every node references a contiguous range of entries on the level below.
+ * <br><br>
+ * Query results are reported as indices into the list that the tree was built from.
+ * Intersection and containment follow the semantics of {@link Rect2f}.
+ * Queries can be run from several threads concurrently. They do not allocate, except for
+ * a small per-thread buffer that nearest neighbour queries create on their first use.
+ */
+public final class PackedRTree {
+
+    private static final int DEFAULT_NODE_CAPACITY = 16;
+
+    private static final long DISTANCE_MASK = 0xFFFFFFFF00000000L;
+
+    private final int itemCount;
+    private final int root;
+    private final int nodeCapacity;
+
+    /**
+     * The bounds (minX, minY, maxX, maxY) of all entries
+     */
+    private final float[] bounds;
+
+    /**
+     * For rectangles the index in the original list, for nodes the first child entry
+     */
+    private final int[] refs;
+
+    /**
+     * The number of children of every node (0 for rectangles)
+     */
+    private final int[] childCounts;
+
+    /**
+     * Sorted child distances of the nodes on the current search path, nodeCapacity entries per level
+     */
+    private final ThreadLocal<long[]> searchBuffer;
+
+    /**
+     * @param rects the rectangles
+     */
+    public PackedRTree(List<Rect2f> rects) {
+        this(rects, DEFAULT_NODE_CAPACITY);
+    }
+
+    /**
+     * @param rects the rectangles. Empty rectangles are never reported.
+     * @param nodeCapacity the maximum number of children per node
+     */
+    public PackedRTree(List<Rect2f> rects, int nodeCapacity) {
+        Preconditions.checkArgument(nodeCapacity >= 2, "nodeCapacity must be >= 2");
+
+        this.itemCount = rects.size();
+        this.nodeCapacity = nodeCapacity;
+
+        int total = itemCount;
+        int levelSize = itemCount;
+        int levels = 0;
+        do {
+            levelSize = (levelSize + nodeCapacity - 1) / nodeCapacity;
+            total += levelSize;
+            levels++;
+        } while (levelSize > 1);
+
+        final int bufferSize = levels * nodeCapacity;
+        searchBuffer = new ThreadLocal<long[]>() {
+            @Override
+            protected long[] initialValue() {
+                return new long[bufferSize];
+            }
+        };
+
+        bounds = new float[total * 4];
+        refs = new int[total];
+        childCounts = new int[total];
+
+        for (int i = 0; i < itemCount; i++) {
+            Rect2f rc = rects.get(i);
+            int idx = i * 4;
+            if (rc.isEmpty()) {
+                // inverted bounds never intersect anything
+                bounds[idx] = Float.POSITIVE_INFINITY;
+                bounds[idx + 1] = Float.POSITIVE_INFINITY;
+                bounds[idx + 2] = Float.NEGATIVE_INFINITY;
+                bounds[idx + 3] = Float.NEGATIVE_INFINITY;
+            } else {
+                bounds[idx] = rc.minX();
+                bounds[idx + 1] = rc.minY();
+                bounds[idx + 2] = rc.maxX();
+                bounds[idx + 3] = rc.maxY();
+            }
+            refs[i] = i;
+        }
+
+        if (itemCount == 0) {
+            root = -1;
+            return;
+        }
+
+        // the root is always a node, even if there is only one rectangle
+        int start = 0;
+        int end = itemCount;
+        do {
+            int next = buildLevel(start, end, nodeCapacity);
+            start = end;
+            end = next;
+        } while (end - start > 1);
+        root = start;
+    }
+
+    /**
+     * @return the number of rectangles in the tree
+     */
+    public int size() {
+        return itemCount;
+    }
+
+    /**
+     * @return the bounds of all rectangles or {@link Rect2f#EMPTY} if the tree is empty
+     */
+    public Rect2f getBounds() {
+        if (root < 0) {
+            return Rect2f.EMPTY;
+        }
+        int idx = root * 4;
+        return Rect2f.createFromMinAndMax(bounds[idx], bounds[idx + 1], bounds[idx + 2], bounds[idx + 3]);
+    }
+
+    /**
+     * Visits all rectangles that intersect the given rectangle
+     * @param area the query rectangle
+     * @param visitor the visitor
+     * @return true if all items were visited, false if the visitor stopped early
+     */
+    public boolean queryIntersecting(Rect2f area, IndexVisitor visitor) {
+        if (area.isEmpty() || root < 0) {
+            return true;
+        }
+        return queryIntersecting(root, area.minX(), area.minY(), area.maxX(), area.maxY(), visitor);
+    }
+
+    /**
+     * Visits all rectangles that contain the given point
+     * @param x the x coordinate
+     * @param y the y coordinate
+     * @param visitor the visitor
+     * @return true if all items were visited, false if the visitor stopped early
+     */
+    public boolean queryContaining(float x, float y, IndexVisitor visitor) {
+        if (root < 0) {
+            return true;
+        }
+        return queryContaining(root, x, y, visitor);
+    }
+
+    /**
+     * Visits all rectangles that are fully contained in the given rectangle
+     * @param area the query rectangle
+     * @param visitor the visitor
+     * @return true if all items were visited, false if the visitor stopped early
+     */
+    public boolean queryContainedIn(Rect2f area, IndexVisitor visitor) {
+        if (area.isEmpty() || root < 0) {
+            return true;
+        }
+        return queryContainedIn(root, area.minX(), area.minY(), area.maxX(), area.maxY(), visitor);
+    }
+
+    /**
+     * Finds the rectangle that is closest to the given point (see {@link Rect2f#distanceSquared(float, float)}).
+     * @param x the x coordinate
+     * @param y the y coordinate
+     * @return the index of the closest rectangle or -1 if the tree is empty
+     */
+    public int nearest(float x, float y) {
+        if (root < 0) {
+            return -1;
+        }
+        long best = nearest(root, x, y, Long.MAX_VALUE, searchBuffer.get(), 0);
+        return best == Long.MAX_VALUE ? -1 : (int) best;
+    }
+
+    /**
+     * Finds the k rectangles that are closest to the given point, sorted by increasing distance.
+     * @param x the x coordinate
+     * @param y the y coordinate
+     * @param k the number of rectangles to find
+     * @param indices receives the indices of the rectangles (at least k elements)
+     * @param distancesSq receives the squared distances (at least k elements)
+     * @return the number of rectangles found, min(k, size())
+     */
+    public int kNearest(float x, float y, int k, int[] indices, float[] distancesSq) {
+        Preconditions.checkArgument(k >= 0, "k must be >= 0");
+        Preconditions.checkArgument(indices.length >= k && distancesSq.length >= k, "result buffers too small");
+
+        if (root < 0 || k == 0) {
+            return 0;
+        }
+        return kNearest(root, x, y, k, indices, distancesSq, 0, searchBuffer.get(), 0);
+    }
+
+    private boolean queryIntersecting(int node, float minX, float minY, float maxX, float maxY, IndexVisitor visitor) {
+        int first = refs[node];
+        int last = first + childCounts[node];
+        boolean leaf = first < itemCount;
+        for (int c = first; c < last; c++) {
+            int idx = c * 4;
+            if (leaf) {
+                if (bounds[idx] < maxX && bounds[idx + 2] > minX && bounds[idx + 1] < maxY && bounds[idx + 3] > minY) {
+                    if (!visitor.visit(refs[c])) {
+                        return false;
+                    }
+                }
+            } else if (bounds[idx] <= maxX && bounds[idx + 2] >= minX && bounds[idx + 1] <= maxY && bounds[idx + 3] >= minY) {
+                if (!queryIntersecting(c, minX, minY, maxX, maxY, visitor)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private boolean queryContaining(int node, float x, float y, IndexVisitor visitor) {
+        int first = refs[node];
+        int last = first + childCounts[node];
+        boolean leaf = first < itemCount;
+        for (int c = first; c < last; c++) {
+            int idx = c * 4;
+            if (leaf) {
+                if (x >= bounds[idx] && y >= bounds[idx + 1] && x < bounds[idx + 2] && y < bounds[idx + 3]) {
+                    if (!visitor.visit(refs[c])) {
+                        return false;
+                    }
+                }
+            } else if (x >= bounds[idx] && y >= bounds[idx + 1] && x <= bounds[idx + 2] && y <= bounds[idx + 3]) {
+                if (!queryContaining(c, x, y, visitor)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private boolean queryContainedIn(int node, float minX, float minY, float maxX, float maxY, IndexVisitor visitor) {
+        int first = refs[node];
+        int last = first + childCounts[node];
+        boolean leaf = first < itemCount;
+        for (int c = first; c < last; c++) {
+            int idx = c * 4;
+            if (leaf) {
+                if (bounds[idx] >= minX && bounds[idx + 1] >= minY && bounds[idx + 2] <= maxX && bounds[idx + 3] <= maxY) {
+                    if (!visitor.visit(refs[c])) {
+                        return false;
+                    }
+                }
+            } else if (bounds[idx] <= maxX && bounds[idx + 2] >= minX && bounds[idx + 1] <= maxY && bounds[idx + 3] >= minY) {
+                if (!queryContainedIn(c, minX, minY, maxX, maxY, visitor)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Child nodes are visited in the order of increasing distance, so that the search
+     * can stop as soon as the next child is further away than the best candidate.
+     * @param best the best candidate so far, packed as (float bits of the squared distance, index)
+     * @param buffer receives the sorted child distances
+     * @param offset the first buffer index for this level
+     * @return the best candidate in the subtree or the given one
+     */
+    private long nearest(int node, float x, float y, long best, long[] buffer, int offset) {
+        int first = refs[node];
+        int last = first + childCounts[node];
+        boolean leaf = first < itemCount;
+        long result = best;
+        int count = 0;
+        for (int c = first; c < last; c++) {
+            float distSq = distanceSquared(c, x, y);
+            if (distSq == Float.POSITIVE_INFINITY) {
+                continue;
+            }
+            // the bit pattern of non-negative floats is monotonic
+            long key = (long) Float.floatToIntBits(distSq) << 32;
+            if (key < (result & DISTANCE_MASK)) {
+                if (leaf) {
+                    result = key | refs[c];
+                } else {
+                    buffer[offset + count] = key | c;
+                    count++;
+                }
+            }
+        }
+
+        Arrays.sort(buffer, offset, offset + count);
+        for (int i = 0; i < count; i++) {
+            long key = buffer[offset + i];
+            if ((key & DISTANCE_MASK) >= (result & DISTANCE_MASK)) {
+                break;
+            }
+            result = nearest((int) key, x, y, result, buffer, offset + nodeCapacity);
+        }
+        return result;
+    }
+
+    private int kNearest(int node, float x, float y, int k, int[] indices, float[] distancesSq, int found,
+                         long[] buffer, int offset) {
+        int first = refs[node];
+        int last = first + childCounts[node];
+        boolean leaf = first < itemCount;
+        int count = found;
+        int childCount = 0;
+        for (int c = first; c < last; c++) {
+            float distSq = distanceSquared(c, x, y);
+            if (distSq == Float.POSITIVE_INFINITY || (count == k && distSq >= distancesSq[k - 1])) {
+                continue;
+            }
+            if (leaf) {
+                int pos = Math.min(count, k - 1);
+                while (pos > 0 && distancesSq[pos - 1] > distSq) {
+                    indices[pos] = indices[pos - 1];
+                    distancesSq[pos] = distancesSq[pos - 1];
+                    pos--;
+                }
+                indices[pos] = refs[c];
+                distancesSq[pos] = distSq;
+                if (count < k) {
+                    count++;
+                }
+            } else {
+                buffer[offset + childCount] = ((long) Float.floatToIntBits(distSq) << 32) | c;
+                childCount++;
+            }
+        }
+
+        // visit the closest child nodes first, the others can often be skipped
+        Arrays.sort(buffer, offset, offset + childCount);
+        for (int i = 0; i < childCount; i++) {
+            long key = buffer[offset + i];
+            if (count == k && Float.intBitsToFloat((int) (key >>> 32)) >= distancesSq[k - 1]) {
+                break;
+            }
+            count = kNearest((int) key, x, y, k, indices, distancesSq, count, buffer, offset + nodeCapacity);
+        }
+        return count;
+    }
+
+    private float distanceSquared(int entry, float x, float y) {
+        int idx = entry * 4;
+        float minX = bounds[idx];
+        float maxX = bounds[idx + 2];
+        if (minX > maxX) {
+            return Float.POSITIVE_INFINITY;     // empty rectangle
+        }
+        float dx = Math.max(Math.max(minX - x, x - maxX), 0);
+        float dy = Math.max(Math.max(bounds[idx + 1] - y, y - bounds[idx + 3]), 0);
+        return dx * dx + dy * dy;
+    }
+
+    /**
+     * Sorts the entries [start, end) in STR order and creates the parent nodes for them.
+     * @return the end of the new level
+     */
+    private int buildLevel(int start, int end, int nodeCapacity) {
+        int count = end - start;
+        int nodeCount = (count + nodeCapacity - 1) / nodeCapacity;
+        int sliceCount = (int) Math.ceil(Math.sqrt(nodeCount));
+        int sliceSize = sliceCount * nodeCapacity;
+
+        int[] order = new int[count];
+        float[] keys = new float[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = start + i;
+            keys[i] = centerX(start + i);
+        }
+        sort(order, keys, 0, count);
+
+        for (int s = 0; s < count; s += sliceSize) {
+            int sliceEnd = Math.min(s + sliceSize, count);
+            for (int i = s; i < sliceEnd; i++) {
+                keys[i] = centerY(order[i]);
+            }
+            sort(order, keys, s, sliceEnd);
+        }
+
+        permute(start, order);
+
+        int node = end;
+        for (int i = start; i < end; i += nodeCapacity) {
+            int last = Math.min(i + nodeCapacity, end);
+            float minX = Float.POSITIVE_INFINITY;
+            float minY = Float.POSITIVE_INFINITY;
+            float maxX = Float.NEGATIVE_INFINITY;
+            float maxY = Float.NEGATIVE_INFINITY;
+            for (int c = i; c < last; c++) {
+                int idx = c * 4;
+                minX = Math.min(minX, bounds[idx]);
+                minY = Math.min(minY, bounds[idx + 1]);
+                maxX = Math.max(maxX, bounds[idx + 2]);
+                maxY = Math.max(maxY, bounds[idx + 3]);
+            }
+            int idx = node * 4;
+            bounds[idx] = minX;
+            bounds[idx + 1] = minY;
+            bounds[idx + 2] = maxX;
+            bounds[idx + 3] = maxY;
+            refs[node] = i;
+            childCounts[node] = last - i;
+            node++;
+        }
+        return node;
+    }
+
+    private float centerX(int entry) {
+        return bounds[entry * 4] + bounds[entry * 4 + 2];
+    }
+
+    private float centerY(int entry) {
+        return bounds[entry * 4 + 1] + bounds[entry * 4 + 3];
+    }
+
+    /**
+     * Reorders the entries starting at <code>start</code> so that the entry order[i] moves to start + i
+     */
+    private void permute(int start, int[] order) {
+        int count = order.length;
+        float[] tmpBounds = new float[count * 4];
+        int[] tmpRefs = new int[count];
+        int[] tmpCounts = new int[count];
+        for (int i = 0; i < count; i++) {
+            int src = order[i];
+            System.arraycopy(bounds, src * 4, tmpBounds, i * 4, 4);
+            tmpRefs[i] = refs[src];
+            tmpCounts[i] = childCounts[src];
+        }
+        System.arraycopy(tmpBounds, 0, bounds, start * 4, count * 4);
+        System.arraycopy(tmpRefs, 0, refs, start, count);
+        System.arraycopy(tmpCounts, 0, childCounts, start, count);
+    }
+
+    /**
+     * Sorts the range [from, to) of both arrays by the key values
+     */
+    private static void sort(int[] order, float[] keys, int from, int to) {
+        int lo = from;
+        int hi = to - 1;
+        while (hi - lo > 16) {
+            float pivot = keys[(lo + hi) >>> 1];
+            int i = lo;
+            int j = hi;
+            while (i <= j) {
+                while (keys[i] < pivot) {
+                    i++;
+                }
+                while (keys[j] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    swap(order, keys, i, j);
+                    i++;
+                    j--;
+                }
+            }
+            // recurse into the smaller part to limit the stack depth
+            if (j - lo < hi - i) {
+                sort(order, keys, lo, j + 1);
+                lo = i;
+            } else {
+                sort(order, keys, i, hi + 1);
+                hi = j;
+            }
+        }
+
+        for (int i = lo + 1; i <= hi; i++) {
+            for (int j = i; j > lo && keys[j - 1] > keys[j]; j--) {
+                swap(order, keys, j, j - 1);
+            }
+        }
+    }
+
+    private static void swap(int[] order, float[] keys, int i, int j) {
+        int tmpIdx = order[i];
+        order[i] = order[j];
+        order[j] = tmpIdx;
+        float tmpKey = keys[i];
+        keys[i] = keys[j];
+        keys[j] = tmpKey;
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2015 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.terasology.math.geom;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.google.common.base.Preconditions;
+import com.google.common.base.Throwables;
+import com.google.common.collect.Lists;
+
+/**
+ * Visits integer rectangles and regions concurrently. The area is split into bands
+ * of rows (see {@link Rect2i#splitRows(int)} and {@link Region3i#splitY(int)}) that are
+ * processed as separate tasks. Within a band, positions are visited in the usual order.
+ * <br><br>
+ * The visitor is called from several threads at the same time and must be thread-safe.
+ * If it returns false, the remaining tasks stop at the beginning of their next row.
+ */
+public final class ParallelIteration {
+
+    private ParallelIteration() {
+        // no instances
+    }
+
+    /**
+     * @param rect the rectangle
+     * @param parts the maximum number of tasks (positive)
+     * @param executor the executor that runs the tasks
+     * @param visitor the (thread-safe) visitor
+     * @return true if all positions were visited, false if the visitor stopped early
+     * @throws InterruptedException if the calling thread is interrupted while waiting for the executor
+     */
+    public static boolean forEach(Rect2i rect, int parts, ExecutorService executor,
+                                  final IntPairVisitor visitor) throws InterruptedException {
+        Preconditions.checkArgument(parts > 0, "parts must be > 0");
+
+        final AtomicBoolean stopped = new AtomicBoolean();
+        List<Callable<Object>> tasks = Lists.newArrayList();
+        for (final Rect2i band : rect.splitRows(parts)) {
+            tasks.add(new Callable<Object>() {
+                @Override
+                public Object call() {
+                    int minX = band.minX();
+                    int maxX = band.maxX();
+                    int maxY = band.maxY();
+                    for (int y = band.minY(); y <= maxY && !stopped.get(); y++) {
+                        for (int x = minX; x <= maxX; x++) {
+                            if (!visitor.visit(x, y)) {
+                                stopped.set(true);
+                                return null;
+                            }
+                        }
+                    }
+                    return null;
+                }
+            });
+        }
+
+        invokeAll(executor, tasks);
+        return !stopped.get();
+    }
+
+    /**
+     * @param region the region
+     * @param parts the maximum number of tasks (positive)
+     * @param executor the executor that runs the tasks
+     * @param visitor the (thread-safe) visitor
+     * @return true if all positions were visited, false if the visitor stopped early
+     * @throws InterruptedException if the calling thread is interrupted while waiting for the executor
+     */
+    public static boolean forEach(Region3i region, int parts, ExecutorService executor,
+                                  final IntTripleVisitor visitor) throws InterruptedException {
+        Preconditions.checkArgument(parts > 0, "parts must be > 0");
+
+        final AtomicBoolean stopped = new AtomicBoolean();
+        List<Callable<Object>> tasks = Lists.newArrayList();
+        for (final Region3i slab : region.splitY(parts)) {
+            tasks.add(new Callable<Object>() {
+                @Override
+                public Object call() {
+                    int minX = slab.minX();
+                    int minZ = slab.minZ();
+                    int maxX = slab.maxX();
+                    int maxY = slab.maxY();
+                    int maxZ = slab.maxZ();
+                    for (int y = slab.minY(); y <= maxY && !stopped.get(); y++) {
+                        for (int z = minZ; z <= maxZ; z++) {
+                            for (int x = minX; x <= maxX; x++) {
+                                if (!visitor.visit(x, y, z)) {
+                                    stopped.set(true);
+                                    return null;
+                                }
+                            }
+                        }
+                    }
+                    return null;
+                }
+            });
+        }
+
+        invokeAll(executor, tasks);
+        return !stopped.get();
+    }
+
+    private static void invokeAll(ExecutorService executor, List<Callable<Object>> tasks) throws InterruptedException {
+        List<Future<Object>> futures = executor.invokeAll(tasks);
+        for (Future<Object> future : futures) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                throw Throwables.propagate(e.getCause());
+            }
+        }
+    }
+}
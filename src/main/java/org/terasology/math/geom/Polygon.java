@@ -16,43 +16,94 @@
 
 package org.terasology.math.geom;
 
+import java.util.Arrays;
 import java.util.List;
 
 import com.google.common.base.Preconditions;
-import com.google.common.collect.ImmutableList;
-import com.google.common.collect.ImmutableList.Builder;
 
 /**
+ * A polygon that stores its vertices as packed (x, y) coordinates in a single array.
  * @author Martin Steiger
  */
 public final class Polygon implements Shape {
 
-    private final ImmutableList<ImmutableVector2f> vertices;
+    /**
+     * The packed (x, y) coordinates of all vertices
+     */
+    private final float[] coords;
+    private final int npoints;
     private Rect2f bbox;
 
-    private Polygon(ImmutableList<ImmutableVector2f> vertices) {
-        Preconditions.checkArgument(!vertices.isEmpty(), "vertices must not be empty");
+    private Polygon(float[] coords) {
+        Preconditions.checkArgument(coords.length > 0, "vertices must not be empty");
 
-        this.vertices = vertices;
+        this.coords = coords;
+        this.npoints = coords.length / 2;
     }
 
     /**
      * @param vertices a list of vertices (vertices are copied)
      */
-    public static Polygon createCopy(List<Vector2f> vertices) {
-        Builder<ImmutableVector2f> bldr = ImmutableList.builder();
+    public static Polygon createCopy(List<? extends BaseVector2f> vertices) {
+        float[] coords = new float[vertices.size() * 2];
+        int idx = 0;
         for (BaseVector2f v : vertices) {
-            bldr.add(new ImmutableVector2f(v));
+            coords[idx++] = v.getX();
+            coords[idx++] = v.getY();
         }
 
-        return new Polygon(bldr.build());
+        return new Polygon(coords);
     }
 
     /**
-     * @param vertices a list of vertices (vertices are directly used)
+     * @param vertices a list of vertices
      */
     public static Polygon create(List<ImmutableVector2f> vertices) {
-        return new Polygon(ImmutableList.copyOf(vertices));
+        return createCopy(vertices);
+    }
+
+    /**
+     * @param coords the packed (x, y) coordinates of the vertices (values are copied)
+     * @param vertexCount the number of vertices
+     */
+    public static Polygon createCopy(float[] coords, int vertexCount) {
+        Preconditions.checkArgument(coords.length >= vertexCount * 2, "coords must contain vertexCount (x, y) pairs");
+
+        return new Polygon(Arrays.copyOf(coords, vertexCount * 2));
+    }
+
+    /**
+     * @return the number of vertices
+     */
+    public int vertexCount() {
+        return npoints;
+    }
+
+    /**
+     * @param index the vertex index [0..vertexCount()-1]
+     * @return the x coordinate of the vertex
+     */
+    public float getX(int index) {
+        Preconditions.checkElementIndex(index, npoints);
+        return coords[index * 2];
+    }
+
+    /**
+     * @param index the vertex index [0..vertexCount()-1]
+     * @return the y coordinate of the vertex
+     */
+    public float getY(int index) {
+        Preconditions.checkElementIndex(index, npoints);
+        return coords[index * 2 + 1];
+    }
+
+    /**
+     * @param target receives the packed (x, y) coordinates, must have room for 2 * vertexCount() values
+     * @return the target array
+     */
+    public float[] getCoords(float[] target) {
+        System.arraycopy(coords, 0, target, 0, npoints * 2);
+        return target;
     }
 
     /**
@@ -65,7 +116,19 @@ public float area() {
     @Override
     public Rect2f getBounds() {
         if (bbox == null) {
-            bbox = BoundingBox.compute(vertices);
+            float minX = coords[0];
+            float minY = coords[1];
+            float maxX = minX;
+            float maxY = minY;
+            for (int i = 1; i < npoints; i++) {
+                float x = coords[i * 2];
+                float y = coords[i * 2 + 1];
+                minX = Math.min(minX, x);
+                minY = Math.min(minY, y);
+                maxX = Math.max(maxX, x);
+                maxY = Math.max(maxY, y);
+            }
+            bbox = Rect2f.createFromMinAndMax(minX, minY, maxX, maxY);
         }
         return bbox;
     }
@@ -82,17 +145,14 @@ public Winding winding() {
     }
 
     private double signedArea() {
-        int index;
-        int nextIndex;
-        int n = vertices.size();
-        ImmutableVector2f point;
-        ImmutableVector2f next;
         double signedDoubleArea = 0;
-        for (index = 0; index < n; ++index) {
-            nextIndex = (index + 1) % n;
-            point = vertices.get(index);
-            next = vertices.get(nextIndex);
-            signedDoubleArea += point.getX() * next.getY() - next.getX() * point.getY();
+        for (int index = 0; index < npoints; ++index) {
+            int nextIndex = (index + 1) % npoints;
+            float px = coords[index * 2];
+            float py = coords[index * 2 + 1];
+            float nx = coords[nextIndex * 2];
+            float ny = coords[nextIndex * 2 + 1];
+            signedDoubleArea += px * ny - nx * py;
         }
         return signedDoubleArea * 0.5;
     }
@@ -169,72 +229,79 @@ public boolean contains(BaseVector2i v) {
      */
     @Override
     public boolean contains(float x, float y) {
-        int npoints = vertices.size();
-
         if (npoints <= 2) { // || !getBoundingBox().contains(x, y)) {
             return false;
         }
         int hits = 0;
 
-        ImmutableVector2f last = vertices.get(npoints - 1);
-
-        double lastx = last.x();
-        double lasty = last.y();
-        double curx;
-        double cury;
+        double lastx = coords[npoints * 2 - 2];
+        double lasty = coords[npoints * 2 - 1];
 
         // Walk the edges of the polygon
-        for (int i = 0; i < npoints; lastx = curx, lasty = cury, i++) {
-            ImmutableVector2f cur = vertices.get(i);
-            curx = cur.x();
-            cury = cur.y();
-
-            if (cury == lasty) {
-                continue;
+        for (int i = 0; i < npoints; i++) {
+            double curx = coords[i * 2];
+            double cury = coords[i * 2 + 1];
+            if (crossesEdge(lastx, lasty, curx, cury, x, y)) {
+                hits++;
             }
+            lastx = curx;
+            lasty = cury;
+        }
 
-            double leftx;
-            if (curx < lastx) {
-                if (x >= lastx) {
-                    continue;
-                }
-                leftx = curx;
-            } else {
-                if (x >= curx) {
-                    continue;
-                }
-                leftx = lastx;
-            }
+        return ((hits & 1) != 0);
+    }
+
+    /**
+     * The crossing test of {@link #contains(float, float)} for a single edge. All containment
+     * queries that promise identical results to this class must use this method.
+     * @param lastx the x coord of the edge start
+     * @param lasty the y coord of the edge start
+     * @param curx the x coord of the edge end
+     * @param cury the y coord of the edge end
+     * @param x the x coord of the point
+     * @param y the y coord of the point
+     * @return true if the edge is crossed by the ray from the point in the increasing <code>X</code> direction
+     */
+    static boolean crossesEdge(double lastx, double lasty, double curx, double cury, double x, double y) {
+        if (cury == lasty) {
+            return false;
+        }
 
-            double test1;
-            double test2;
-            if (cury < lasty) {
-                if (y < cury || y >= lasty) {
-                    continue;
-                }
-                if (x < leftx) {
-                    hits++;
-                    continue;
-                }
-                test1 = x - curx;
-                test2 = y - cury;
-            } else {
-                if (y < lasty || y >= cury) {
-                    continue;
-                }
-                if (x < leftx) {
-                    hits++;
-                    continue;
-                }
-                test1 = x - lastx;
-                test2 = y - lasty;
+        double leftx;
+        if (curx < lastx) {
+            if (x >= lastx) {
+                return false;
+            }
+            leftx = curx;
+        } else {
+            if (x >= curx) {
+                return false;
             }
+            leftx = lastx;
+        }
 
-            if (test1 < (test2 / (lasty - cury) * (lastx - curx))) {
-                hits++;
+        double test1;
+        double test2;
+        if (cury < lasty) {
+            if (y < cury || y >= lasty) {
+                return false;
+            }
+            if (x < leftx) {
+                return true;
+            }
+            test1 = x - curx;
+            test2 = y - cury;
+        } else {
+            if (y < lasty || y >= cury) {
+                return false;
             }
+            if (x < leftx) {
+                return true;
+            }
+            test1 = x - lastx;
+            test2 = y - lasty;
         }
 
-        return ((hits & 1) != 0);
+        return test1 < (test2 / (lasty - cury) * (lastx - curx));
     }
 }
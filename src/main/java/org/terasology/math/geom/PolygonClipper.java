@@ -0,0 +1,288 @@
+/*
+ * Copyright 2015 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.terasology.math.geom;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Clips polygons against rectangles and convex polygons (Sutherland-Hodgman).
+ * The result is written into vertex buffers that are reused by subsequent calls,
+ * so one instance should be kept per thread.
+ * <br><br>
+ * Clipping concave polygons can produce degenerate edges along the clip boundary
+ * where the result would otherwise split into several parts.
+ */
+public final class PolygonClipper {
+
+    /**
+     * The packed (x, y) coordinates of the result
+     */
+    private float[] result = new float[32];
+
+    /**
+     * The second buffer of the ping-pong scheme
+     */
+    private float[] temp = new float[32];
+
+    private int count;
+
+    /**
+     * @param polygon the polygon to clip
+     * @param rect the clip rectangle
+     * @return the number of vertices of the clipped polygon
+     */
+    public int clip(Polygon polygon, Rect2f rect) {
+        load(polygon);
+        if (rect.isEmpty()) {
+            count = 0;
+            return count;
+        }
+        return clipRect(rect.minX(), rect.minY(), rect.maxX(), rect.maxY());
+    }
+
+    /**
+     * Clips against the area that is covered by the integer rectangle,
+     * i.e. [minX..maxX + 1] x [minY..maxY + 1].
+     * @param polygon the polygon to clip
+     * @param rect the clip rectangle
+     * @return the number of vertices of the clipped polygon
+     */
+    public int clip(Polygon polygon, Rect2i rect) {
+        load(polygon);
+        if (rect.isEmpty()) {
+            count = 0;
+            return count;
+        }
+        return clipRect(rect.minX(), rect.minY(), rect.minX() + rect.width(), rect.minY() + rect.height());
+    }
+
+    /**
+     * @param polygon the polygon to clip
+     * @param convex the convex clip polygon in any winding order
+     * @return the number of vertices of the clipped polygon
+     */
+    public int clip(Polygon polygon, Polygon convex) {
+        load(polygon);
+        int clipCount = convex.vertexCount();
+        float[] clipCoords = convex.getCoords(new float[clipCount * 2]);
+        return clipConvex(clipCoords, clipCount);
+    }
+
+    /**
+     * @param coords the packed (x, y) coordinates of the polygon to clip
+     * @param vertexCount the number of vertices
+     * @param rect the clip rectangle
+     * @return the number of vertices of the clipped polygon
+     */
+    public int clip(float[] coords, int vertexCount, Rect2f rect) {
+        load(coords, vertexCount);
+        if (rect.isEmpty()) {
+            count = 0;
+            return count;
+        }
+        return clipRect(rect.minX(), rect.minY(), rect.maxX(), rect.maxY());
+    }
+
+    /**
+     * @param coords the packed (x, y) coordinates of the polygon to clip
+     * @param vertexCount the number of vertices
+     * @param clipCoords the packed (x, y) coordinates of the convex clip polygon in any winding order
+     * @param clipCount the number of clip polygon vertices
+     * @return the number of vertices of the clipped polygon
+     */
+    public int clip(float[] coords, int vertexCount, float[] clipCoords, int clipCount) {
+        Preconditions.checkArgument(clipCoords.length >= clipCount * 2, "clipCoords must contain clipCount (x, y) pairs");
+        load(coords, vertexCount);
+        return clipConvex(clipCoords, clipCount);
+    }
+
+    /**
+     * @return the number of vertices of the last result, zero if it is empty
+     */
+    public int vertexCount() {
+        return count;
+    }
+
+    /**
+     * @param index the vertex index [0..vertexCount()-1]
+     * @return the x coordinate of the result vertex
+     */
+    public float getX(int index) {
+        Preconditions.checkElementIndex(index, count);
+        return result[index * 2];
+    }
+
+    /**
+     * @param index the vertex index [0..vertexCount()-1]
+     * @return the y coordinate of the result vertex
+     */
+    public float getY(int index) {
+        Preconditions.checkElementIndex(index, count);
+        return result[index * 2 + 1];
+    }
+
+    /**
+     * Do <b>not</b> store the array as it is reused!
+     * @return the packed (x, y) coordinates of the last result. Only the first 2 * vertexCount() values are valid.
+     */
+    public float[] getCoords() {
+        return result;
+    }
+
+    /**
+     * @return the last result as new polygon or <code>null</code> if it has fewer than three vertices
+     */
+    public Polygon toPolygon() {
+        if (count < 3) {
+            return null;
+        }
+        return Polygon.createCopy(result, count);
+    }
+
+    private void load(Polygon polygon) {
+        count = polygon.vertexCount();
+        result = ensureCapacity(result, count);
+        polygon.getCoords(result);
+    }
+
+    private void load(float[] coords, int vertexCount) {
+        Preconditions.checkArgument(vertexCount >= 0, "vertexCount must be >= 0");
+        Preconditions.checkArgument(coords.length >= vertexCount * 2, "coords must contain vertexCount (x, y) pairs");
+        count = vertexCount;
+        result = ensureCapacity(result, count);
+        System.arraycopy(coords, 0, result, 0, count * 2);
+    }
+
+    private int clipRect(float minX, float minY, float maxX, float maxY) {
+        clipAxis(0, minX, true);
+        clipAxis(0, maxX, false);
+        clipAxis(1, minY, true);
+        clipAxis(1, maxY, false);
+        return count;
+    }
+
+    private int clipConvex(float[] clipCoords, int clipCount) {
+        double signedArea = 0;
+        for (int i = 0; i < clipCount; i++) {
+            int j = (i + 1) % clipCount;
+            signedArea += (double) clipCoords[i * 2] * clipCoords[j * 2 + 1] - (double) clipCoords[j * 2] * clipCoords[i * 2 + 1];
+        }
+        if (signedArea == 0) {
+            // the clip polygon has no area
+            count = 0;
+            return count;
+        }
+
+        // the inside is on the left of each edge for counter-clockwise polygons
+        double sign = Math.signum(signedArea);
+        for (int i = 0; i < clipCount && count > 0; i++) {
+            int j = (i + 1) % clipCount;
+            double px = clipCoords[i * 2];
+            double py = clipCoords[i * 2 + 1];
+            double a = -(clipCoords[j * 2 + 1] - py) * sign;
+            double b = (clipCoords[j * 2] - px) * sign;
+            if (a != 0 || b != 0) {
+                clipHalfPlane(a, b, -(a * px + b * py));
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Keeps the part on one side of an axis-aligned line. Intersection points lie exactly on the line.
+     * @param axis 0 for x, 1 for y
+     * @param bound the coordinate of the line
+     * @param keepGreater true to keep the part with coordinates &gt;= bound
+     */
+    private void clipAxis(int axis, float bound, boolean keepGreater) {
+        if (count == 0) {
+            return;
+        }
+
+        temp = ensureCapacity(temp, count * 2);
+        int other = 1 - axis;
+        int out = 0;
+        int prev = count - 1;
+        float prevValue = result[prev * 2 + axis];
+        boolean prevInside = keepGreater ? prevValue >= bound : prevValue <= bound;
+        for (int i = 0; i < count; i++) {
+            float value = result[i * 2 + axis];
+            boolean inside = keepGreater ? value >= bound : value <= bound;
+            if (inside != prevInside) {
+                float t = (bound - prevValue) / (value - prevValue);
+                float prevOther = result[prev * 2 + other];
+                temp[out * 2 + axis] = bound;
+                temp[out * 2 + other] = prevOther + t * (result[i * 2 + other] - prevOther);
+                out++;
+            }
+            if (inside) {
+                temp[out * 2] = result[i * 2];
+                temp[out * 2 + 1] = result[i * 2 + 1];
+                out++;
+            }
+            prev = i;
+            prevValue = value;
+            prevInside = inside;
+        }
+        swap(out);
+    }
+
+    /**
+     * Keeps the part where a * x + b * y + c &gt;= 0
+     */
+    private void clipHalfPlane(double a, double b, double c) {
+        temp = ensureCapacity(temp, count * 2);
+        int out = 0;
+        int prev = count - 1;
+        double prevDist = a * result[prev * 2] + b * result[prev * 2 + 1] + c;
+        for (int i = 0; i < count; i++) {
+            float x = result[i * 2];
+            float y = result[i * 2 + 1];
+            double dist = a * x + b * y + c;
+            if ((dist >= 0) != (prevDist >= 0)) {
+                double t = prevDist / (prevDist - dist);
+                float prevX = result[prev * 2];
+                float prevY = result[prev * 2 + 1];
+                temp[out * 2] = (float) (prevX + t * (x - prevX));
+                temp[out * 2 + 1] = (float) (prevY + t * (y - prevY));
+                out++;
+            }
+            if (dist >= 0) {
+                temp[out * 2] = x;
+                temp[out * 2 + 1] = y;
+                out++;
+            }
+            prev = i;
+            prevDist = dist;
+        }
+        swap(out);
+    }
+
+    private void swap(int newCount) {
+        float[] tmp = result;
+        result = temp;
+        temp = tmp;
+        count = newCount;
+    }
+
+    private static float[] ensureCapacity(float[] buffer, int vertexCount) {
+        if (buffer.length >= vertexCount * 2) {
+            return buffer;
+        }
+        return new float[Math.max(vertexCount * 2, buffer.length * 2)];
+    }
+}
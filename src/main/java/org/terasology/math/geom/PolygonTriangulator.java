@@ -0,0 +1,751 @@
+/*
+ * Copyright 2015 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.terasology.math.geom;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
+
+/**
+ * Triangulates simple polygons, optionally with holes, by ear clipping. Holes are
+ * connected to the outline through bridge edges first, so that a single ring remains.
+ * <br><br>
+ * Testing whether a candidate ear contains another vertex only needs to consider
+ * reflex vertices. These are kept in a uniform grid, so that every test only looks at
+ * the vertices close to the ear. Clipping ears never turns convex vertices into reflex
+ * ones, so the grid only has to be built once per pass.
+ * <br><br>
+ * Degenerate input (self-intersections, touching holes) is handled in additional passes
+ * that filter collinear vertices, cure local intersections and finally split the ring along
+ * a valid diagonal. The approach follows the "earcut" library by Mapbox (ISC license).
+ */
+public final class PolygonTriangulator {
+
+    private PolygonTriangulator() {
+        // no instances
+    }
+
+    /**
+     * @param vertexCount the total number of vertices
+     * @param holeCount the number of holes
+     * @return the size of the index array that is required for the triangulation
+     */
+    public static int maxIndexCount(int vertexCount, int holeCount) {
+        return 3 * Math.max(0, vertexCount + 2 * holeCount - 2);
+    }
+
+    /**
+     * @param polygon the polygon
+     * @param result receives three vertex indices per triangle, must hold at least {@link #maxIndexCount(int, int)} elements
+     * @return the number of indices that were written
+     */
+    public static int triangulate(Polygon polygon, int[] result) {
+        return triangulate(polygon, Collections.<Polygon>emptyList(), result);
+    }
+
+    /**
+     * @param outline the outer polygon
+     * @param holes the holes, which must lie inside the outline
+     * @param result receives three vertex indices per triangle, must hold at least {@link #maxIndexCount(int, int)} elements.
+     * Indices refer to the vertices of the outline followed by the vertices of all holes in the given order.
+     * @return the number of indices that were written
+     */
+    public static int triangulate(Polygon outline, List<Polygon> holes, int[] result) {
+        int count = outline.vertexCount();
+        for (Polygon hole : holes) {
+            count += hole.vertexCount();
+        }
+
+        float[] coords = new float[count * 2];
+        int[] holeStarts = new int[holes.size()];
+        int idx = copyVertices(outline, coords, 0);
+        for (int i = 0; i < holes.size(); i++) {
+            holeStarts[i] = idx;
+            idx = copyVertices(holes.get(i), coords, idx);
+        }
+
+        return triangulate(coords, holeStarts, result);
+    }
+
+    /**
+     * @param coords the packed vertex coordinates (x, y) of the outline, followed by the holes
+     * @param holeStarts the index of the first vertex of every hole in ascending order
+     * @param result receives three vertex indices per triangle, must hold at least {@link #maxIndexCount(int, int)} elements
+     * @return the number of indices that were written
+     */
+    public static int triangulate(float[] coords, int[] holeStarts, int[] result) {
+        Preconditions.checkArgument(coords.length % 2 == 0, "coords must contain (x, y) pairs");
+        int n = coords.length / 2;
+        Preconditions.checkArgument(result.length >= maxIndexCount(n, holeStarts.length), "result array is too small");
+
+        if (n < 3) {
+            return 0;
+        }
+
+        Triangulation tri = new Triangulation(coords, n + 2 * holeStarts.length, result);
+        int outerEnd = holeStarts.length > 0 ? holeStarts[0] : n;
+        int outer = tri.linkedList(0, outerEnd, true);
+        if (outer < 0 || tri.next[outer] == tri.prev[outer]) {
+            return 0;
+        }
+
+        if (holeStarts.length > 0) {
+            outer = tri.eliminateHoles(holeStarts, n, outer);
+        }
+
+        tri.earcutLinked(outer, 0);
+        return tri.indexCount;
+    }
+
+    private static int copyVertices(Polygon polygon, float[] coords, int start) {
+        int idx = start;
+        for (int i = 0; i < polygon.vertexCount(); i++) {
+            coords[idx * 2] = polygon.getX(i);
+            coords[idx * 2 + 1] = polygon.getY(i);
+            idx++;
+        }
+        return idx;
+    }
+
+    /**
+     * A circular doubly-linked list of nodes that is stored in arrays. Several nodes
+     * can refer to the same vertex when holes are bridged or the ring is split.
+     */
+    private static final class Triangulation {
+
+        private final float[] coords;
+        private final int[] result;
+        private int indexCount;
+
+        private int[] vertex;
+        private int[] prev;
+        private int[] next;
+        private boolean[] removed;
+        private boolean[] steiner;
+        private int size;
+
+        // grid of reflex nodes
+        private float gridMinX;
+        private float gridMinY;
+        private float gridCellWidth;
+        private float gridCellHeight;
+        private int gridCols;
+        private int gridRows;
+        private int[] gridStarts;
+        private int[] gridItems;
+
+        Triangulation(float[] coords, int capacity, int[] result) {
+            this.coords = coords;
+            this.result = result;
+            vertex = new int[capacity];
+            prev = new int[capacity];
+            next = new int[capacity];
+            removed = new boolean[capacity];
+            steiner = new boolean[capacity];
+        }
+
+        private double x(int node) {
+            return coords[vertex[node] * 2];
+        }
+
+        private double y(int node) {
+            return coords[vertex[node] * 2 + 1];
+        }
+
+        private int linkedList(int start, int end, boolean counterClockwise) {
+            double sum = 0;
+            for (int i = start, j = end - 1; i < end; j = i++) {
+                sum += (coords[j * 2] - coords[i * 2]) * (coords[i * 2 + 1] + coords[j * 2 + 1]);
+            }
+
+            int last = -1;
+            if (counterClockwise == (sum > 0)) {
+                for (int i = start; i < end; i++) {
+                    last = insertNode(i, last);
+                }
+            } else {
+                for (int i = end - 1; i >= start; i--) {
+                    last = insertNode(i, last);
+                }
+            }
+
+            if (last >= 0 && equals(last, next[last])) {
+                int n = next[last];
+                removeNode(last);
+                last = n;
+            }
+            return last;
+        }
+
+        private int insertNode(int vertexIndex, int last) {
+            int node = newNode(vertexIndex);
+            if (last < 0) {
+                prev[node] = node;
+                next[node] = node;
+            } else {
+                next[node] = next[last];
+                prev[node] = last;
+                prev[next[last]] = node;
+                next[last] = node;
+            }
+            return node;
+        }
+
+        private int newNode(int vertexIndex) {
+            if (size == vertex.length) {
+                int capacity = size * 2;
+                vertex = Arrays.copyOf(vertex, capacity);
+                prev = Arrays.copyOf(prev, capacity);
+                next = Arrays.copyOf(next, capacity);
+                removed = Arrays.copyOf(removed, capacity);
+                steiner = Arrays.copyOf(steiner, capacity);
+            }
+            vertex[size] = vertexIndex;
+            return size++;
+        }
+
+        private void removeNode(int node) {
+            next[prev[node]] = next[node];
+            prev[next[node]] = prev[node];
+            removed[node] = true;
+        }
+
+        private void emit(int a, int b, int c) {
+            result[indexCount++] = vertex[a];
+            result[indexCount++] = vertex[b];
+            result[indexCount++] = vertex[c];
+        }
+
+        private void earcutLinked(int start, int pass) {
+            if (start < 0) {
+                return;
+            }
+
+            buildGrid(start);
+
+            int ear = start;
+            int stop = ear;
+            while (prev[ear] != next[ear]) {
+                int p = prev[ear];
+                int n = next[ear];
+
+                if (isEar(ear)) {
+                    emit(p, ear, n);
+                    removeNode(ear);
+
+                    // skipping the next vertex leads to fewer sliver triangles
+                    ear = next[n];
+                    stop = next[n];
+                    continue;
+                }
+
+                ear = n;
+
+                // no ear found in a full loop - try to recover
+                if (ear == stop) {
+                    if (pass == 0) {
+                        earcutLinked(filterPoints(ear, -1), 1);
+                    } else if (pass == 1) {
+                        int cured = cureLocalIntersections(filterPoints(ear, -1));
+                        earcutLinked(cured, 2);
+                    } else {
+                        splitEarcut(ear);
+                    }
+                    break;
+                }
+            }
+        }
+
+        private boolean isEar(int ear) {
+            int a = prev[ear];
+            int b = ear;
+            int c = next[ear];
+            if (area(a, b, c) >= 0) {
+                return false; // reflex, can't be an ear
+            }
+
+            if (gridItems == null) {
+                return true;
+            }
+
+            double ax = x(a);
+            double ay = y(a);
+            double bx = x(b);
+            double by = y(b);
+            double cx = x(c);
+            double cy = y(c);
+            double minX = Math.min(ax, Math.min(bx, cx));
+            double minY = Math.min(ay, Math.min(by, cy));
+            double maxX = Math.max(ax, Math.max(bx, cx));
+            double maxY = Math.max(ay, Math.max(by, cy));
+
+            int col0 = gridCol(minX);
+            int col1 = gridCol(maxX);
+            int row0 = gridRow(minY);
+            int row1 = gridRow(maxY);
+            for (int row = row0; row <= row1; row++) {
+                for (int col = col0; col <= col1; col++) {
+                    int cell = row * gridCols + col;
+                    for (int i = gridStarts[cell]; i < gridStarts[cell + 1]; i++) {
+                        int p = gridItems[i];
+                        if (removed[p] || p == a || p == b || p == c) {
+                            continue;
+                        }
+                        double px = x(p);
+                        double py = y(p);
+                        if (px < minX || px > maxX || py < minY || py > maxY || (px == ax && py == ay)) {
+                            continue;
+                        }
+                        if (pointInTriangle(ax, ay, bx, by, cx, cy, px, py) && area(prev[p], p, next[p]) >= 0) {
+                            return false;
+                        }
+                    }
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Puts all reflex nodes of the ring into a uniform grid.
+         */
+        private void buildGrid(int start) {
+            int reflexCount = 0;
+            double minX = Double.POSITIVE_INFINITY;
+            double minY = Double.POSITIVE_INFINITY;
+            double maxX = Double.NEGATIVE_INFINITY;
+            double maxY = Double.NEGATIVE_INFINITY;
+            int p = start;
+            do {
+                if (area(prev[p], p, next[p]) >= 0) {
+                    reflexCount++;
+                }
+                minX = Math.min(minX, x(p));
+                minY = Math.min(minY, y(p));
+                maxX = Math.max(maxX, x(p));
+                maxY = Math.max(maxY, y(p));
+                p = next[p];
+            } while (p != start);
+
+            if (reflexCount == 0) {
+                gridItems = null;
+                return;
+            }
+
+            int side = Math.max(1, (int) Math.sqrt(reflexCount));
+            gridCols = side;
+            gridRows = side;
+            gridMinX = (float) minX;
+            gridMinY = (float) minY;
+            gridCellWidth = (float) Math.max((maxX - minX) / side, Float.MIN_NORMAL);
+            gridCellHeight = (float) Math.max((maxY - minY) / side, Float.MIN_NORMAL);
+
+            // counting sort of the reflex nodes into the cells
+            int[] cells = new int[reflexCount];
+            int[] nodes = new int[reflexCount];
+            gridStarts = new int[side * side + 1];
+            int idx = 0;
+            p = start;
+            do {
+                if (area(prev[p], p, next[p]) >= 0) {
+                    int cell = gridRow(y(p)) * gridCols + gridCol(x(p));
+                    cells[idx] = cell;
+                    nodes[idx] = p;
+                    gridStarts[cell + 1]++;
+                    idx++;
+                }
+                p = next[p];
+            } while (p != start);
+
+            for (int i = 0; i < side * side; i++) {
+                gridStarts[i + 1] += gridStarts[i];
+            }
+            gridItems = new int[reflexCount];
+            int[] fill = Arrays.copyOf(gridStarts, side * side);
+            for (int i = 0; i < reflexCount; i++) {
+                gridItems[fill[cells[i]]++] = nodes[i];
+            }
+        }
+
+        private int gridCol(double px) {
+            int col = (int) ((px - gridMinX) / gridCellWidth);
+            return Math.max(0, Math.min(gridCols - 1, col));
+        }
+
+        private int gridRow(double py) {
+            int row = (int) ((py - gridMinY) / gridCellHeight);
+            return Math.max(0, Math.min(gridRows - 1, row));
+        }
+
+        /**
+         * Removes duplicate and collinear nodes
+         */
+        private int filterPoints(int start, int endNode) {
+            if (start < 0) {
+                return start;
+            }
+            int end = endNode < 0 ? start : endNode;
+
+            int p = start;
+            boolean again;
+            do {
+                again = false;
+                if (!steiner[p] && (equals(p, next[p]) || area(prev[p], p, next[p]) == 0)) {
+                    removeNode(p);
+                    p = prev[p];
+                    end = p;
+                    if (p == next[p]) {
+                        break;
+                    }
+                    again = true;
+                } else {
+                    p = next[p];
+                }
+            } while (again || p != end);
+
+            return end;
+        }
+
+        private int cureLocalIntersections(int startNode) {
+            int start = startNode;
+            int p = start;
+            do {
+                int a = prev[p];
+                int b = next[next[p]];
+
+                if (!equals(a, b) && intersects(a, p, next[p], b) && locallyInside(a, b) && locallyInside(b, a)) {
+                    emit(a, p, b);
+
+                    // remove two nodes involved
+                    removeNode(p);
+                    removeNode(next[p]);
+
+                    start = b;
+                    p = b;
+                }
+                p = next[p];
+            } while (p != start);
+
+            return filterPoints(p, -1);
+        }
+
+        private void splitEarcut(int start) {
+            int a = start;
+            do {
+                int b = next[next[a]];
+                while (b != prev[a]) {
+                    if (vertex[a] != vertex[b] && isValidDiagonal(a, b)) {
+                        int c = splitPolygon(a, b);
+
+                        int ringA = filterPoints(a, next[a]);
+                        int ringC = filterPoints(c, next[c]);
+
+                        earcutLinked(ringA, 0);
+                        earcutLinked(ringC, 0);
+                        return;
+                    }
+                    b = next[b];
+                }
+                a = next[a];
+            } while (a != start);
+        }
+
+        private int eliminateHoles(int[] holeStarts, int vertexCount, int outerNode) {
+            List<Integer> queue = Lists.newArrayList();
+            for (int i = 0; i < holeStarts.length; i++) {
+                int start = holeStarts[i];
+                int end = i < holeStarts.length - 1 ? holeStarts[i + 1] : vertexCount;
+                int list = linkedList(start, end, false);
+                if (list < 0) {
+                    continue;
+                }
+                if (list == next[list]) {
+                    steiner[list] = true;
+                }
+                queue.add(getLeftmost(list));
+            }
+
+            Collections.sort(queue, new Comparator<Integer>() {
+                @Override
+                public int compare(Integer a, Integer b) {
+                    int cmp = Double.compare(x(a), x(b));
+                    return cmp != 0 ? cmp : Double.compare(y(a), y(b));
+                }
+            });
+
+            int outer = outerNode;
+            for (Integer hole : queue) {
+                outer = eliminateHole(hole, outer);
+            }
+            return outer;
+        }
+
+        private int eliminateHole(int hole, int outerNode) {
+            int bridge = findHoleBridge(hole, outerNode);
+            if (bridge < 0) {
+                return outerNode;
+            }
+
+            int bridgeReverse = splitPolygon(bridge, hole);
+
+            // filter collinear points around the cuts
+            filterPoints(bridgeReverse, next[bridgeReverse]);
+            return filterPoints(bridge, next[bridge]);
+        }
+
+        /**
+         * David Eberly's algorithm for finding a bridge between hole and outer polygon
+         */
+        private int findHoleBridge(int hole, int outerNode) {
+            int p = outerNode;
+            double hx = x(hole);
+            double hy = y(hole);
+            double qx = Double.NEGATIVE_INFINITY;
+            int m = -1;
+
+            // find a segment intersected by a ray from the hole's leftmost point to the left;
+            // the segment's endpoint with lesser x will be the potential connection point,
+            // unless the ray passes through a vertex, then choose the vertex
+            do {
+                int n = next[p];
+                if (hy <= y(p) && hy >= y(n) && y(n) != y(p)) {
+                    int hit = -1;
+                    if (hy == y(p)) {
+                        hit = p;
+                    } else if (hy == y(n)) {
+                        hit = n;
+                    }
+                    // the interpolation is not exact at the end points
+                    double sx = hit >= 0 ? x(hit) : x(p) + (hy - y(p)) * (x(n) - x(p)) / (y(n) - y(p));
+                    if (sx <= hx && sx > qx) {
+                        qx = sx;
+                        if (hit >= 0) {
+                            m = hit;
+                        } else {
+                            m = x(p) < x(n) ? p : n;
+                        }
+                        if (sx == hx) {
+                            // hole touches the outer segment; pick the leftmost endpoint
+                            return sectorNode(m, hole);
+                        }
+                    }
+                }
+                p = n;
+            } while (p != outerNode);
+
+            if (m < 0) {
+                return -1;
+            }
+
+            // look for points inside the triangle of hole point, segment intersection and endpoint;
+            // if there are no points found, we have a valid connection;
+            // otherwise choose the point of the minimum angle with the ray as connection point
+            int stop = m;
+            double mx = x(m);
+            double my = y(m);
+            double tanMin = Double.POSITIVE_INFINITY;
+
+            p = m;
+            do {
+                double px = x(p);
+                double py = y(p);
+                if (hx >= px && px >= mx && hx != px
+                        && pointInTriangle(hy < my ? hx : qx, hy, mx, my, hy < my ? qx : hx, hy, px, py)) {
+
+                    double tan = Math.abs(hy - py) / (hx - px);
+
+                    if (locallyInside(p, hole)
+                            && (tan < tanMin || (tan == tanMin && (px > x(m) || (px == x(m) && sectorContainsSector(m, p)))))) {
+                        m = p;
+                        tanMin = tan;
+                    }
+                }
+                p = next[p];
+            } while (p != stop);
+
+            return sectorNode(m, hole);
+        }
+
+        /**
+         * Earlier bridges duplicate their end points, so the ray can hit a position that is
+         * shared by several nodes. Only a node whose sector contains the direction to the hole
+         * can be bridged without producing overlapping triangles.
+         * @return the node at the position of m whose sector contains the hole, or m if there is none
+         */
+        private int sectorNode(int m, int hole) {
+            int p = m;
+            do {
+                if (equals(p, m) && locallyInside(p, hole)) {
+                    return p;
+                }
+                p = next[p];
+            } while (p != m);
+            return m;
+        }
+
+        /**
+         * @return true if the sector of node m contains the sector of node p in the touching vertices case
+         */
+        private boolean sectorContainsSector(int m, int p) {
+            return area(prev[m], m, prev[p]) < 0 && area(next[p], m, next[m]) < 0;
+        }
+
+        /**
+         * Links two nodes with a bridge; if the nodes belong to the same ring, the ring is split in two
+         * @return the duplicate of b, which is part of the second ring
+         */
+        private int splitPolygon(int a, int b) {
+            int a2 = newNode(vertex[a]);
+            int b2 = newNode(vertex[b]);
+            int an = next[a];
+            int bp = prev[b];
+
+            next[a] = b;
+            prev[b] = a;
+
+            next[a2] = an;
+            prev[an] = a2;
+
+            next[b2] = a2;
+            prev[a2] = b2;
+
+            next[bp] = b2;
+            prev[b2] = bp;
+
+            return b2;
+        }
+
+        private int getLeftmost(int start) {
+            int p = start;
+            int leftmost = start;
+            do {
+                if (x(p) < x(leftmost) || (x(p) == x(leftmost) && y(p) < y(leftmost))) {
+                    leftmost = p;
+                }
+                p = next[p];
+            } while (p != start);
+            return leftmost;
+        }
+
+        /**
+         * @return true if a diagonal between two nodes is valid (lies in the polygon interior)
+         */
+        private boolean isValidDiagonal(int a, int b) {
+            if (vertex[next[a]] == vertex[b] || vertex[prev[a]] == vertex[b] || intersectsPolygon(a, b)) {
+                return false;
+            }
+            boolean inside = locallyInside(a, b) && locallyInside(b, a) && middleInside(a, b)
+                    && (area(prev[a], a, prev[b]) != 0 || area(a, prev[b], b) != 0);
+            boolean zeroLength = equals(a, b) && area(prev[a], a, next[a]) > 0 && area(prev[b], b, next[b]) > 0;
+            return inside || zeroLength;
+        }
+
+        private boolean intersectsPolygon(int a, int b) {
+            int p = a;
+            do {
+                int n = next[p];
+                if (vertex[p] != vertex[a] && vertex[n] != vertex[a] && vertex[p] != vertex[b] && vertex[n] != vertex[b]
+                        && intersects(p, n, a, b)) {
+                    return true;
+                }
+                p = n;
+            } while (p != a);
+            return false;
+        }
+
+        /**
+         * @return true if the diagonal ab is locally inside the polygon
+         */
+        private boolean locallyInside(int a, int b) {
+            if (area(prev[a], a, next[a]) < 0) {
+                return area(a, b, next[a]) >= 0 && area(a, prev[a], b) >= 0;
+            }
+            return area(a, b, prev[a]) < 0 || area(a, next[a], b) < 0;
+        }
+
+        /**
+         * @return true if the middle point of a polygon diagonal is inside the polygon
+         */
+        private boolean middleInside(int a, int b) {
+            int p = a;
+            boolean inside = false;
+            double px = (x(a) + x(b)) / 2;
+            double py = (y(a) + y(b)) / 2;
+            do {
+                int n = next[p];
+                if (((y(p) > py) != (y(n) > py)) && y(n) != y(p)
+                        && (px < (x(n) - x(p)) * (py - y(p)) / (y(n) - y(p)) + x(p))) {
+                    inside = !inside;
+                }
+                p = n;
+            } while (p != a);
+            return inside;
+        }
+
+        /**
+         * @return true if the segments p1-q1 and p2-q2 intersect
+         */
+        private boolean intersects(int p1, int q1, int p2, int q2) {
+            int o1 = sign(area(p1, q1, p2));
+            int o2 = sign(area(p1, q1, q2));
+            int o3 = sign(area(p2, q2, p1));
+            int o4 = sign(area(p2, q2, q1));
+
+            if (o1 != o2 && o3 != o4) {
+                return true;
+            }
+
+            return (o1 == 0 && onSegment(p1, p2, q1))
+                || (o2 == 0 && onSegment(p1, q2, q1))
+                || (o3 == 0 && onSegment(p2, p1, q2))
+                || (o4 == 0 && onSegment(p2, q1, q2));
+        }
+
+        /**
+         * @return true if q lies on the segment pr, given that p, q and r are collinear
+         */
+        private boolean onSegment(int p, int q, int r) {
+            return x(q) <= Math.max(x(p), x(r)) && x(q) >= Math.min(x(p), x(r))
+                && y(q) <= Math.max(y(p), y(r)) && y(q) >= Math.min(y(p), y(r));
+        }
+
+        private static int sign(double num) {
+            return (int) Math.signum(num);
+        }
+
+        /**
+         * @return the signed area of a triangle; negative for counter-clockwise order
+         */
+        private double area(int p, int q, int r) {
+            return (y(q) - y(p)) * (x(r) - x(q)) - (x(q) - x(p)) * (y(r) - y(q));
+        }
+
+        private boolean equals(int p1, int p2) {
+            return x(p1) == x(p2) && y(p1) == y(p2);
+        }
+
+        private static boolean pointInTriangle(double ax, double ay, double bx, double by, double cx, double cy,
+                                               double px, double py) {
+            return (cx - px) * (ay - py) - (ax - px) * (cy - py) >= 0
+                && (ax - px) * (by - py) - (bx - px) * (ay - py) >= 0
+                && (bx - px) * (cy - py) - (cx - px) * (by - py) >= 0;
+        }
+    }
+}
@@ -0,0 +1,197 @@
+/*
+ * Copyright 2015 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.terasology.math.geom;
+
+/**
+ * An immutable view of a {@link Polygon} that answers repeated containment queries quickly.
+ * The bounding box is split into horizontal slabs and every slab keeps the edges that
+ * overlap it. A query only tests the edges of one slab, which is close to constant time
+ * for polygons whose edges are distributed evenly.
+ * <br><br>
+ * The results are identical to {@link Polygon#contains(float, float)}.
+ */
+public final class PreparedPolygon implements Shape {
+
+    /**
+     * Upper limit for the number of slabs
+     */
+    private static final int MAX_SLABS = 1 << 16;
+
+    /**
+     * Edges are copied into every slab they overlap. The slab count is chosen so that
+     * the number of copies does not exceed this factor times the number of edges.
+     */
+    private static final int MAX_COPIES_PER_EDGE = 4;
+
+    private final Polygon polygon;
+    private final Rect2f bounds;
+
+    private final float minX;
+    private final float minY;
+    private final float maxX;
+    private final float maxY;
+
+    private final int slabCount;
+    private final float slabScale;
+
+    /**
+     * The edges of slab i are in slabEdges[slabStart[i]..slabStart[i + 1]-1]
+     */
+    private final int[] slabStart;
+
+    /**
+     * Indices into the edges array
+     */
+    private final int[] slabEdges;
+
+    /**
+     * The packed (lastX, lastY, curX, curY) coordinates of all non-horizontal edges
+     */
+    private final float[] edges;
+
+    /**
+     * @param polygon the polygon
+     */
+    public PreparedPolygon(Polygon polygon) {
+        this.polygon = polygon;
+        this.bounds = polygon.getBounds();
+        this.minX = bounds.minX();
+        this.minY = bounds.minY();
+        this.maxX = bounds.maxX();
+        this.maxY = bounds.maxY();
+
+        int n = polygon.vertexCount();
+        float[] edgeCoords = new float[n * 4];
+        int edgeCount = 0;
+        if (n > 2) {
+            for (int i = 0; i < n; i++) {
+                int last = (i + n - 1) % n;
+                if (polygon.getY(i) != polygon.getY(last)) {
+                    edgeCoords[edgeCount * 4] = polygon.getX(last);
+                    edgeCoords[edgeCount * 4 + 1] = polygon.getY(last);
+                    edgeCoords[edgeCount * 4 + 2] = polygon.getX(i);
+                    edgeCoords[edgeCount * 4 + 3] = polygon.getY(i);
+                    edgeCount++;
+                }
+            }
+        }
+        this.edges = edgeCoords;
+
+        float height = maxY - minY;
+        this.slabCount = (height > 0) ? chooseSlabCount(edgeCoords, edgeCount, height) : 1;
+        this.slabScale = (height > 0) ? slabCount / height : 0;
+
+        // count the edges per slab, then fill them in (compressed rows)
+        slabStart = new int[slabCount + 1];
+        for (int e = 0; e < edgeCount; e++) {
+            int lo = slabOf(Math.min(edgeCoords[e * 4 + 1], edgeCoords[e * 4 + 3]));
+            int hi = slabOf(Math.max(edgeCoords[e * 4 + 1], edgeCoords[e * 4 + 3]));
+            for (int s = lo; s <= hi; s++) {
+                slabStart[s + 1]++;
+            }
+        }
+        for (int s = 0; s < slabCount; s++) {
+            slabStart[s + 1] += slabStart[s];
+        }
+
+        slabEdges = new int[slabStart[slabCount]];
+        int[] fill = new int[slabCount];
+        for (int e = 0; e < edgeCount; e++) {
+            int lo = slabOf(Math.min(edgeCoords[e * 4 + 1], edgeCoords[e * 4 + 3]));
+            int hi = slabOf(Math.max(edgeCoords[e * 4 + 1], edgeCoords[e * 4 + 3]));
+            for (int s = lo; s <= hi; s++) {
+                slabEdges[slabStart[s] + fill[s]] = e;
+                fill[s]++;
+            }
+        }
+    }
+
+    /**
+     * @return the underlying polygon
+     */
+    public Polygon getPolygon() {
+        return polygon;
+    }
+
+    @Override
+    public Rect2f getBounds() {
+        return bounds;
+    }
+
+    @Override
+    public boolean contains(BaseVector2f v) {
+        return contains(v.x(), v.y());
+    }
+
+    @Override
+    public boolean contains(BaseVector2i v) {
+        return contains(v.x(), v.y());
+    }
+
+    /**
+     * @param x the x coord
+     * @param y the y coord
+     * @return true if the polygon contains the point
+     * @see Polygon#contains(float, float)
+     */
+    @Override
+    public boolean contains(float x, float y) {
+        // the polygon never contains points on its right or bottom bounds
+        if (!(x >= minX && x < maxX && y >= minY && y < maxY)) {
+            return false;
+        }
+
+        int slab = slabOf(y);
+        int hits = 0;
+        for (int i = slabStart[slab]; i < slabStart[slab + 1]; i++) {
+            int e = slabEdges[i] * 4;
+            if (Polygon.crossesEdge(edges[e], edges[e + 1], edges[e + 2], edges[e + 3], x, y)) {
+                hits++;
+            }
+        }
+
+        return ((hits & 1) != 0);
+    }
+
+    /**
+     * @return the number of index entries (package-private for testing)
+     */
+    int indexSize() {
+        return slabEdges.length;
+    }
+
+    /**
+     * An edge that spans the fraction f of the height overlaps at most f * slabCount + 1 slabs.
+     * Long edges (e.g. spikes of star-shaped polygons) therefore reduce the number of slabs.
+     */
+    private static int chooseSlabCount(float[] edgeCoords, int edgeCount, float height) {
+        double spanSum = 0;
+        for (int e = 0; e < edgeCount; e++) {
+            spanSum += Math.abs(edgeCoords[e * 4 + 3] - edgeCoords[e * 4 + 1]) / height;
+        }
+        int slabs = Math.min(edgeCount, MAX_SLABS);
+        if (spanSum * slabs > (MAX_COPIES_PER_EDGE - 1) * (double) edgeCount) {
+            slabs = (int) ((MAX_COPIES_PER_EDGE - 1) * edgeCount / spanSum);
+        }
+        return Math.max(1, slabs);
+    }
+
+    private int slabOf(float y) {
+        int slab = (int) ((y - minY) * slabScale);
+        return Math.max(0, Math.min(slabCount - 1, slab));
+    }
+}
@@ -0,0 +1,585 @@
+/*
+ * Copyright 2015 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.terasology.math.geom;
+
+import java.util.Map;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Maps;
+
+/**
+ * A region quadtree that stores items together with their axis-aligned bounding rectangle.
+ * <br><br>
+ * Every item is stored in the smallest node that fully encloses its bounds. Items that
+ * straddle a split line (or lie outside of the tree's bounds) remain in the parent node.
+ * Bounds are closed intervals, i.e. items that only touch the query area are reported as well.
+ * This also allows for points (zero-sized bounds).
+ * <br><br>
+ * Query results are passed to a {@link Visitor}, so queries don't allocate.
+ * Items are compared by {@link Object#equals(Object)} and must not be inserted twice.
+ * @param <T> the item type
+ */
+public final class QuadTree<T> {
+
+    private static final int DEFAULT_MAX_ITEMS = 8;
+    private static final int DEFAULT_MAX_DEPTH = 8;
+
+    private final Node<T> root;
+    private final int maxItems;
+    private final int maxDepth;
+
+    private final Map<T, Node<T>> owners = Maps.newHashMap();
+
+    /**
+     * @param bounds the area that is covered by the tree
+     */
+    public QuadTree(Rect2f bounds) {
+        this(bounds, DEFAULT_MAX_ITEMS, DEFAULT_MAX_DEPTH);
+    }
+
+    /**
+     * @param bounds the area that is covered by the tree
+     * @param maxItems the number of items per node before it is split
+     * @param maxDepth the maximum depth of the tree (the root has depth 0)
+     */
+    public QuadTree(Rect2f bounds, int maxItems, int maxDepth) {
+        Preconditions.checkArgument(!bounds.isEmpty(), "bounds must not be empty");
+        Preconditions.checkArgument(maxItems > 0, "maxItems must be > 0");
+        Preconditions.checkArgument(maxDepth >= 0, "maxDepth must be >= 0");
+
+        this.maxItems = maxItems;
+        this.maxDepth = maxDepth;
+        this.root = new Node<T>(null, bounds.minX(), bounds.minY(), bounds.maxX(), bounds.maxY(), 0);
+    }
+
+    /**
+     * @return the number of items in the tree
+     */
+    public int size() {
+        return owners.size();
+    }
+
+    /**
+     * @param item the item
+     * @return true if the item is stored in the tree
+     */
+    public boolean contains(T item) {
+        return owners.containsKey(item);
+    }
+
+    /**
+     * Removes all items
+     */
+    public void clear() {
+        root.children = null;
+        root.clearItems();
+        root.total = 0;
+        owners.clear();
+    }
+
+    /**
+     * @param item the item to add
+     * @param bounds the bounds of the item
+     */
+    public void insert(T item, Rect2f bounds) {
+        Preconditions.checkArgument(!bounds.isEmpty(), "bounds must not be empty");
+        insert(item, bounds.minX(), bounds.minY(), bounds.maxX(), bounds.maxY());
+    }
+
+    /**
+     * @param item the item to add
+     * @param minX the minimum x coordinate of the item's bounds
+     * @param minY the minimum y coordinate of the item's bounds
+     * @param maxX the maximum x coordinate of the item's bounds
+     * @param maxY the maximum y coordinate of the item's bounds
+     */
+    public void insert(T item, float minX, float minY, float maxX, float maxY) {
+        Preconditions.checkArgument(item != null, "item must not be null");
+        Preconditions.checkArgument(minX <= maxX && minY <= maxY, "min must not be larger than max");
+        Preconditions.checkArgument(!owners.containsKey(item), "item is already in the tree");
+
+        Node<T> node = root;
+        node.total++;
+        while (node.children != null) {
+            int quad = node.quadrant(minX, minY, maxX, maxY);
+            if (quad < 0) {
+                break;
+            }
+            node = node.children[quad];
+            node.total++;
+        }
+
+        node.add(item, minX, minY, maxX, maxY);
+        owners.put(item, node);
+
+        if (node.children == null && node.count > maxItems && node.depth < maxDepth) {
+            split(node);
+        }
+    }
+
+    /**
+     * @param item the item to remove
+     * @return true if the item was removed, false if it was not in the tree
+     */
+    public boolean remove(T item) {
+        Node<T> node = owners.remove(item);
+        if (node == null) {
+            return false;
+        }
+
+        node.removeAt(node.indexOf(item));
+
+        Node<T> collapse = null;
+        for (Node<T> n = node; n != null; n = n.parent) {
+            n.total--;
+            if (n.children != null && n.total <= maxItems) {
+                collapse = n;
+            }
+        }
+
+        if (collapse != null) {
+            merge(collapse);
+        }
+        return true;
+    }
+
+    /**
+     * Updates the bounds of an item. This is cheaper than removing and re-inserting it,
+     * if the item is still owned by the same node.
+     * @param item the item to move
+     * @param bounds the new bounds
+     * @return true if the item was moved, false if it was not in the tree
+     */
+    public boolean move(T item, Rect2f bounds) {
+        Preconditions.checkArgument(!bounds.isEmpty(), "bounds must not be empty");
+        return move(item, bounds.minX(), bounds.minY(), bounds.maxX(), bounds.maxY());
+    }
+
+    /**
+     * Updates the bounds of an item. This is cheaper than removing and re-inserting it,
+     * if the item is still owned by the same node.
+     * @param item the item to move
+     * @param minX the new minimum x coordinate of the item's bounds
+     * @param minY the new minimum y coordinate of the item's bounds
+     * @param maxX the new maximum x coordinate of the item's bounds
+     * @param maxY the new maximum y coordinate of the item's bounds
+     * @return true if the item was moved, false if it was not in the tree
+     */
+    public boolean move(T item, float minX, float minY, float maxX, float maxY) {
+        Preconditions.checkArgument(minX <= maxX && minY <= maxY, "min must not be larger than max");
+
+        Node<T> node = owners.get(item);
+        if (node == null) {
+            return false;
+        }
+
+        boolean fits = node == root || node.encloses(minX, minY, maxX, maxY);
+        if (fits && (node.children == null || node.quadrant(minX, minY, maxX, maxY) < 0)) {
+            int idx = node.indexOf(item);
+            node.setBounds(idx, minX, minY, maxX, maxY);
+            return true;
+        }
+
+        remove(item);
+        insert(item, minX, minY, maxX, maxY);
+        return true;
+    }
+
+    /**
+     * Visits all items whose bounds intersect the given rectangle
+     * @param area the query rectangle
+     * @param visitor the visitor
+     * @return true if all items were visited, false if the visitor stopped early
+     */
+    public boolean query(Rect2f area, Visitor<? super T> visitor) {
+        if (area.isEmpty()) {
+            return true;
+        }
+        return query(area.minX(), area.minY(), area.maxX(), area.maxY(), visitor);
+    }
+
+    /**
+     * Visits all items whose bounds intersect the given rectangle
+     * @param minX the minimum x coordinate of the query rectangle
+     * @param minY the minimum y coordinate of the query rectangle
+     * @param maxX the maximum x coordinate of the query rectangle
+     * @param maxY the maximum y coordinate of the query rectangle
+     * @param visitor the visitor
+     * @return true if all items were visited, false if the visitor stopped early
+     */
+    public boolean query(float minX, float minY, float maxX, float maxY, Visitor<? super T> visitor) {
+        return queryRect(root, minX, minY, maxX, maxY, visitor);
+    }
+
+    /**
+     * Visits all items whose bounds intersect the bounding box of the given shape.
+     * Circles are tested exactly, all other shapes only through {@link Shape#getBounds()}.
+     * @param shape the query shape
+     * @param visitor the visitor
+     * @return true if all items were visited, false if the visitor stopped early
+     */
+    public boolean query(Shape shape, Visitor<? super T> visitor) {
+        if (shape instanceof Circle) {
+            Circle circle = (Circle) shape;
+            ImmutableVector2f center = circle.getCenter();
+            return queryCircle(center.getX(), center.getY(), circle.getRadius(), visitor);
+        }
+        return query(shape.getBounds(), visitor);
+    }
+
+    /**
+     * Visits all items whose bounds intersect the given circle
+     * @param x the circle center x coordinate
+     * @param y the circle center y coordinate
+     * @param radius the circle radius
+     * @param visitor the visitor
+     * @return true if all items were visited, false if the visitor stopped early
+     */
+    public boolean queryCircle(float x, float y, float radius, Visitor<? super T> visitor) {
+        return queryCircle(root, x, y, radius * radius, visitor);
+    }
+
+    /**
+     * Visits all items whose bounds contain the given point
+     * @param x the x coordinate
+     * @param y the y coordinate
+     * @param visitor the visitor
+     * @return true if all items were visited, false if the visitor stopped early
+     */
+    public boolean queryPoint(float x, float y, Visitor<? super T> visitor) {
+        return queryRect(root, x, y, x, y, visitor);
+    }
+
+    /**
+     * Visits all items whose bounds intersect the given line segment
+     * @param segment the line segment
+     * @param visitor the visitor
+     * @return true if all items were visited, false if the visitor stopped early
+     */
+    public boolean query(LineSegment segment, Visitor<? super T> visitor) {
+        ImmutableVector2f start = segment.getStart();
+        ImmutableVector2f end = segment.getEnd();
+        return querySegment(start.getX(), start.getY(), end.getX(), end.getY(), visitor);
+    }
+
+    /**
+     * Visits all items whose bounds intersect the given line segment
+     * @param x0 the start point x coordinate
+     * @param y0 the start point y coordinate
+     * @param x1 the end point x coordinate
+     * @param y1 the end point y coordinate
+     * @param visitor the visitor
+     * @return true if all items were visited, false if the visitor stopped early
+     */
+    public boolean querySegment(float x0, float y0, float x1, float y1, Visitor<? super T> visitor) {
+        return querySegment(root, x0, y0, x1 - x0, y1 - y0, visitor);
+    }
+
+    private boolean queryRect(Node<T> node, float minX, float minY, float maxX, float maxY, Visitor<? super T> visitor) {
+        float[] b = node.bounds;
+        for (int i = 0; i < node.count; i++) {
+            int idx = i * 4;
+            if (b[idx] <= maxX && b[idx + 2] >= minX && b[idx + 1] <= maxY && b[idx + 3] >= minY) {
+                if (!visitor.visit(node.item(i))) {
+                    return false;
+                }
+            }
+        }
+
+        if (node.children != null) {
+            for (Node<T> child : node.children) {
+                if (child.total > 0 && child.minX <= maxX && child.maxX >= minX && child.minY <= maxY && child.maxY >= minY) {
+                    if (!queryRect(child, minX, minY, maxX, maxY, visitor)) {
+                        return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    private boolean queryCircle(Node<T> node, float x, float y, float radiusSq, Visitor<? super T> visitor) {
+        float[] b = node.bounds;
+        for (int i = 0; i < node.count; i++) {
+            int idx = i * 4;
+            if (distanceSquared(b[idx], b[idx + 1], b[idx + 2], b[idx + 3], x, y) <= radiusSq) {
+                if (!visitor.visit(node.item(i))) {
+                    return false;
+                }
+            }
+        }
+
+        if (node.children != null) {
+            for (Node<T> child : node.children) {
+                if (child.total > 0 && distanceSquared(child.minX, child.minY, child.maxX, child.maxY, x, y) <= radiusSq) {
+                    if (!queryCircle(child, x, y, radiusSq, visitor)) {
+                        return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    private boolean querySegment(Node<T> node, float x0, float y0, float dx, float dy, Visitor<? super T> visitor) {
+        float[] b = node.bounds;
+        for (int i = 0; i < node.count; i++) {
+            int idx = i * 4;
+            if (intersectsSegment(b[idx], b[idx + 1], b[idx + 2], b[idx + 3], x0, y0, dx, dy)) {
+                if (!visitor.visit(node.item(i))) {
+                    return false;
+                }
+            }
+        }
+
+        if (node.children != null) {
+            for (Node<T> child : node.children) {
+                if (child.total > 0 && intersectsSegment(child.minX, child.minY, child.maxX, child.maxY, x0, y0, dx, dy)) {
+                    if (!querySegment(child, x0, y0, dx, dy, visitor)) {
+                        return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    private void split(Node<T> node) {
+        float midX = (node.minX + node.maxX) * 0.5f;
+        float midY = (node.minY + node.maxY) * 0.5f;
+        int depth = node.depth + 1;
+
+        Node<T>[] children = Node.newArray(4);
+        children[0] = new Node<T>(node, node.minX, node.minY, midX, midY, depth);
+        children[1] = new Node<T>(node, midX, node.minY, node.maxX, midY, depth);
+        children[2] = new Node<T>(node, node.minX, midY, midX, node.maxY, depth);
+        children[3] = new Node<T>(node, midX, midY, node.maxX, node.maxY, depth);
+        node.children = children;
+
+        float[] b = node.bounds;
+        int i = 0;
+        while (i < node.count) {
+            int idx = i * 4;
+            int quad = node.quadrant(b[idx], b[idx + 1], b[idx + 2], b[idx + 3]);
+            if (quad >= 0) {
+                Node<T> child = children[quad];
+                T item = node.item(i);
+                child.add(item, b[idx], b[idx + 1], b[idx + 2], b[idx + 3]);
+                child.total++;
+                owners.put(item, child);
+                node.removeAt(i);
+            } else {
+                i++;
+            }
+        }
+
+        for (Node<T> child : children) {
+            if (child.count > maxItems && child.depth < maxDepth) {
+                split(child);
+            }
+        }
+    }
+
+    /**
+     * Moves all items of the subtree into the given node and removes its children
+     */
+    private void merge(Node<T> node) {
+        for (Node<T> child : node.children) {
+            if (child.children != null) {
+                merge(child);
+            }
+            float[] b = child.bounds;
+            for (int i = 0; i < child.count; i++) {
+                int idx = i * 4;
+                T item = child.item(i);
+                node.add(item, b[idx], b[idx + 1], b[idx + 2], b[idx + 3]);
+                owners.put(item, node);
+            }
+        }
+        node.children = null;
+    }
+
+    private static float distanceSquared(float minX, float minY, float maxX, float maxY, float x, float y) {
+        float dx = Math.max(Math.max(minX - x, x - maxX), 0);
+        float dy = Math.max(Math.max(minY - y, y - maxY), 0);
+        return dx * dx + dy * dy;
+    }
+
+    /**
+     * Slab test of the segment (x0, y0) + t * (dx, dy) with t in [0..1]
+     */
+    private static boolean intersectsSegment(float minX, float minY, float maxX, float maxY,
+                                             float x0, float y0, float dx, float dy) {
+        float tmin = 0;
+        float tmax = 1;
+
+        if (dx == 0) {
+            if (x0 < minX || x0 > maxX) {
+                return false;
+            }
+        } else {
+            float inv = 1f / dx;
+            float t0 = (minX - x0) * inv;
+            float t1 = (maxX - x0) * inv;
+            tmin = Math.max(tmin, Math.min(t0, t1));
+            tmax = Math.min(tmax, Math.max(t0, t1));
+        }
+
+        if (dy == 0) {
+            if (y0 < minY || y0 > maxY) {
+                return false;
+            }
+        } else {
+            float inv = 1f / dy;
+            float t0 = (minY - y0) * inv;
+            float t1 = (maxY - y0) * inv;
+            tmin = Math.max(tmin, Math.min(t0, t1));
+            tmax = Math.min(tmax, Math.max(t0, t1));
+        }
+
+        return tmin <= tmax;
+    }
+
+    /**
+     * Receives query results
+     * @param <T> the item type
+     */
+    public interface Visitor<T> {
+
+        /**
+         * @param item the item
+         * @return true to continue, false to stop the query
+         */
+        boolean visit(T item);
+    }
+
+    private static final class Node<T> {
+        private final Node<T> parent;
+        private final float minX;
+        private final float minY;
+        private final float maxX;
+        private final float maxY;
+        private final int depth;
+
+        private Node<T>[] children;
+
+        /**
+         * The number of items in this subtree
+         */
+        private int total;
+
+        private int count;
+        private Object[] items = new Object[4];
+        private float[] bounds = new float[16];
+
+        Node(Node<T> parent, float minX, float minY, float maxX, float maxY, int depth) {
+            this.parent = parent;
+            this.minX = minX;
+            this.minY = minY;
+            this.maxX = maxX;
+            this.maxY = maxY;
+            this.depth = depth;
+        }
+
+        @SuppressWarnings("unchecked")
+        static <T> Node<T>[] newArray(int size) {
+            return (Node<T>[]) new Node<?>[size];
+        }
+
+        @SuppressWarnings("unchecked")
+        T item(int i) {
+            return (T) items[i];
+        }
+
+        boolean encloses(float x0, float y0, float x1, float y1) {
+            return x0 >= minX && y0 >= minY && x1 <= maxX && y1 <= maxY;
+        }
+
+        /**
+         * @return the index of the child quadrant that fully encloses the given bounds or -1
+         */
+        int quadrant(float x0, float y0, float x1, float y1) {
+            if (!encloses(x0, y0, x1, y1)) {
+                return -1;
+            }
+
+            float midX = (minX + maxX) * 0.5f;
+            float midY = (minY + maxY) * 0.5f;
+
+            int quad;
+            if (x1 < midX) {
+                quad = 0;
+            } else if (x0 >= midX) {
+                quad = 1;
+            } else {
+                return -1;
+            }
+
+            if (y0 >= midY) {
+                quad += 2;
+            } else if (y1 >= midY) {
+                return -1;
+            }
+            return quad;
+        }
+
+        void add(T item, float x0, float y0, float x1, float y1) {
+            if (count == items.length) {
+                Object[] newItems = new Object[count * 2];
+                System.arraycopy(items, 0, newItems, 0, count);
+                items = newItems;
+                float[] newBounds = new float[count * 8];
+                System.arraycopy(bounds, 0, newBounds, 0, count * 4);
+                bounds = newBounds;
+            }
+            items[count] = item;
+            setBounds(count, x0, y0, x1, y1);
+            count++;
+        }
+
+        void setBounds(int i, float x0, float y0, float x1, float y1) {
+            int idx = i * 4;
+            bounds[idx] = x0;
+            bounds[idx + 1] = y0;
+            bounds[idx + 2] = x1;
+            bounds[idx + 3] = y1;
+        }
+
+        int indexOf(Object item) {
+            for (int i = 0; i < count; i++) {
+                if (items[i].equals(item)) {
+                    return i;
+                }
+            }
+            throw new IllegalStateException("item not found in its owning node");
+        }
+
+        void removeAt(int i) {
+            count--;
+            items[i] = items[count];
+            items[count] = null;
+            System.arraycopy(bounds, count * 4, bounds, i * 4, 4);
+        }
+
+        void clearItems() {
+            for (int i = 0; i < count; i++) {
+                items[i] = null;
+            }
+            count = 0;
+        }
+    }
+}
@@ -15,6 +15,9 @@
  */
 package org.terasology.math.geom;
 
+import org.terasology.math.TeraMath;
+
+import com.google.common.base.Preconditions;
 import com.google.common.collect.Lists;
 
 import java.util.Iterator;
@@ -269,6 +272,81 @@ public static List<Rect2i> difference(Rect2i a, Rect2i b) {
     }
 
 
+    /**
+     * Partitions the rectangle into horizontal bands of full rows. The heights of
+     * the bands differ by at most one, so that work can be distributed evenly.
+     * @param parts the maximum number of bands (positive)
+     * @return min(parts, height) bands in ascending y order that exactly cover the rectangle
+     */
+    public List<Rect2i> splitRows(int parts) {
+        Preconditions.checkArgument(parts > 0, "parts must be > 0");
+
+        List<Rect2i> result = Lists.newArrayList();
+        int count = Math.min(parts, h);
+        int y = posY;
+        for (int i = 0; i < count; i++) {
+            int rows = h / count + (i < h % count ? 1 : 0);
+            result.add(new Rect2i(posX, y, w, rows));
+            y += rows;
+        }
+        return result;
+    }
+
+    /**
+     * Decomposes the rectangle along an aligned grid of tiles. Tile borders are at multiples
+     * of the tile size, also for negative coordinates.
+     * @param tileWidth the width of a tile (positive)
+     * @param tileHeight the height of a tile (positive)
+     * @return the covered parts of all touched tiles in ascending y, then x order
+     */
+    public List<Tile2i> tiles(int tileWidth, int tileHeight) {
+        final List<Tile2i> result = Lists.newArrayList();
+        forEachTile(tileWidth, tileHeight, new Tile2i.Visitor() {
+            @Override
+            public boolean visit(int tileX, int tileY, int minX, int minY, int maxX, int maxY) {
+                result.add(new Tile2i(tileX, tileY, new Rect2i(minX, minY, maxX - minX + 1, maxY - minY + 1)));
+                return true;
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Visits the same tiles as {@link #tiles(int, int)} in the same order, but without creating any objects.
+     * @param tileWidth the width of a tile (positive)
+     * @param tileHeight the height of a tile (positive)
+     * @param visitor the visitor
+     * @return true if all tiles were visited, false if the visitor stopped early
+     */
+    public boolean forEachTile(int tileWidth, int tileHeight, Tile2i.Visitor visitor) {
+        Preconditions.checkArgument(tileWidth > 0, "tileWidth must be > 0");
+        Preconditions.checkArgument(tileHeight > 0, "tileHeight must be > 0");
+
+        if (isEmpty()) {
+            return true;
+        }
+
+        int maxX = maxX();
+        int maxY = maxY();
+        int minTileX = TeraMath.floorDiv(posX, tileWidth);
+        int maxTileX = TeraMath.floorDiv(maxX, tileWidth);
+        int minTileY = TeraMath.floorDiv(posY, tileHeight);
+        int maxTileY = TeraMath.floorDiv(maxY, tileHeight);
+
+        for (int ty = minTileY; ty <= maxTileY; ty++) {
+            int y0 = Math.max(ty * tileHeight, posY);
+            int y1 = Math.min(ty * tileHeight + tileHeight - 1, maxY);
+            for (int tx = minTileX; tx <= maxTileX; tx++) {
+                int x0 = Math.max(tx * tileWidth, posX);
+                int x1 = Math.min(tx * tileWidth + tileWidth - 1, maxX);
+                if (!visitor.visit(tx, ty, x0, y0, x1, y1)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
     public Rect2i expand(Vector2i amount) {
         return expand(amount.getX(), amount.getY());
     }
@@ -352,4 +430,51 @@ public void remove() {
             }
         };
     }
+
+    /**
+     * Visits all positions in the Rect2i without creating any objects. The order is
+     * the same as for {@link #contents()}.
+     * @param visitor the visitor
+     * @return true if all positions were visited, false if the visitor stopped early
+     */
+    public boolean forEach(IntPairVisitor visitor) {
+        int maxX = posX + w;
+        int maxY = posY + h;
+        for (int y = posY; y < maxY; y++) {
+            for (int x = posX; x < maxX; x++) {
+                if (!visitor.visit(x, y)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Provides a read-only iterator over the positions in the Rect2i in Morton (Z-) order,
+     * relative to the minimum corner. Neighbouring positions are close to each other
+     * in the sequence, which improves memory locality of data stored in the same order.
+     * <br/><br/>
+     * Do <b>not</b> store the result vectors as they are reused!
+     *
+     * @return An iterator over all positions in the Rect2i.
+     * @see MortonCurve
+     */
+    public Iterable<BaseVector2i> contentsMorton() {
+        return MortonCurve.contents(this);
+    }
+
+    /**
+     * Provides a read-only iterator over the positions in the Rect2i along a Hilbert curve,
+     * relative to the minimum corner. Consecutive positions are always direct neighbours
+     * if the rectangle is a power-of-two square.
+     * <br/><br/>
+     * Do <b>not</b> store the result vectors as they are reused!
+     *
+     * @return An iterator over all positions in the Rect2i.
+     * @see HilbertCurve
+     */
+    public Iterable<BaseVector2i> contentsHilbert() {
+        return HilbertCurve.contents(this);
+    }
 }
@@ -0,0 +1,458 @@
+/*
+ * Copyright 2015 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.terasology.math.geom;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+import org.terasology.math.TeraMath;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
+
+/**
+ * 3D axis-aligned integer box. The maximum is inclusive, so a region with min = max contains exactly one position.
+ * <br><br>
+ * Positions are iterated in the order used by {@link org.terasology.math.TeraMath#calculate3DArrayIndex}:
+ * x changes fastest, then z, then y.
+ */
+public final class Region3i implements Iterable<BaseVector3i> {
+    public static final Region3i EMPTY = new Region3i();
+
+    // position
+    private final int posX;
+    private final int posY;
+    private final int posZ;
+
+    // size
+    private final int sizeX;
+    private final int sizeY;
+    private final int sizeZ;
+
+    private Region3i() {
+        this(0, 0, 0, 0, 0, 0);
+    }
+
+    private Region3i(int x, int y, int z, int sizeX, int sizeY, int sizeZ) {
+        this.posX = x;
+        this.posY = y;
+        this.posZ = z;
+
+        this.sizeX = sizeX;
+        this.sizeY = sizeY;
+        this.sizeZ = sizeZ;
+    }
+
+    public static Region3i createFromMinAndSize(int x, int y, int z, int sizeX, int sizeY, int sizeZ) {
+        if (sizeX <= 0 || sizeY <= 0 || sizeZ <= 0) {
+            return EMPTY;
+        }
+        return new Region3i(x, y, z, sizeX, sizeY, sizeZ);
+    }
+
+    public static Region3i createFromMinAndMax(int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+        if (maxX < minX || maxY < minY || maxZ < minZ) {
+            return EMPTY;
+        }
+        return new Region3i(minX, minY, minZ, maxX - minX + 1, maxY - minY + 1, maxZ - minZ + 1);
+    }
+
+    public static Region3i createFromMinAndSize(BaseVector3i min, BaseVector3i size) {
+        return createFromMinAndSize(min.getX(), min.getY(), min.getZ(), size.getX(), size.getY(), size.getZ());
+    }
+
+    public static Region3i createFromMinAndMax(BaseVector3i min, BaseVector3i max) {
+        return createFromMinAndMax(min.getX(), min.getY(), min.getZ(), max.getX(), max.getY(), max.getZ());
+    }
+
+    public static Region3i createEncompassing(BaseVector3i a, BaseVector3i b) {
+        return createFromMinAndMax(
+                Math.min(a.getX(), b.getX()), Math.min(a.getY(), b.getY()), Math.min(a.getZ(), b.getZ()),
+                Math.max(a.getX(), b.getX()), Math.max(a.getY(), b.getY()), Math.max(a.getZ(), b.getZ()));
+    }
+
+    public boolean isEmpty() {
+        return sizeX == 0 || sizeY == 0 || sizeZ == 0;
+    }
+
+    /**
+     * @return The smallest vector in the region
+     */
+    public Vector3i min() {
+        return new Vector3i(posX, posY, posZ);
+    }
+
+    /**
+     * @return The largest vector in the region
+     */
+    public Vector3i max() {
+        return new Vector3i(maxX(), maxY(), maxZ());
+    }
+
+    /**
+     * @return The size of the region
+     */
+    public Vector3i size() {
+        return new Vector3i(sizeX, sizeY, sizeZ);
+    }
+
+    public int minX() {
+        return posX;
+    }
+
+    public int minY() {
+        return posY;
+    }
+
+    public int minZ() {
+        return posZ;
+    }
+
+    public int maxX() {
+        return posX + sizeX - 1;
+    }
+
+    public int maxY() {
+        return posY + sizeY - 1;
+    }
+
+    public int maxZ() {
+        return posZ + sizeZ - 1;
+    }
+
+    public int sizeX() {
+        return sizeX;
+    }
+
+    public int sizeY() {
+        return sizeY;
+    }
+
+    public int sizeZ() {
+        return sizeZ;
+    }
+
+    /**
+     * @return The volume of the Region3i - sizeX * sizeY * sizeZ
+     */
+    public int volume() {
+        return sizeX * sizeY * sizeZ;
+    }
+
+    /**
+     * @param other
+     * @return The Region3i that is encompassed by both this and other. If they
+     * do not overlap then the Region3i.EMPTY is returned
+     */
+    public Region3i intersect(Region3i other) {
+        int minX = Math.max(posX, other.posX);
+        int maxX = Math.min(maxX(), other.maxX());
+        int minY = Math.max(posY, other.posY);
+        int maxY = Math.min(maxY(), other.maxY());
+        int minZ = Math.max(posZ, other.posZ);
+        int maxZ = Math.min(maxZ(), other.maxZ());
+        return createFromMinAndMax(minX, minY, minZ, maxX, maxY, maxZ);
+    }
+
+    public Region3i expand(BaseVector3i amount) {
+        return expand(amount.getX(), amount.getY(), amount.getZ());
+    }
+
+    /**
+     * @param dx the amount to grow in both x directions (may be negative)
+     * @param dy the amount to grow in both y directions (may be negative)
+     * @param dz the amount to grow in both z directions (may be negative)
+     * @return the expanded region or EMPTY if nothing is left
+     */
+    public Region3i expand(int dx, int dy, int dz) {
+        if (isEmpty()) {
+            return EMPTY;
+        }
+        return createFromMinAndMax(posX - dx, posY - dy, posZ - dz, maxX() + dx, maxY() + dy, maxZ() + dz);
+    }
+
+    /**
+     * @param x the x coordinate
+     * @param y the y coordinate
+     * @param z the z coordinate
+     * @return true if min <= (x, y, z) <= max
+     */
+    public boolean contains(int x, int y, int z) {
+        return !isEmpty()
+            && x >= posX && x < posX + sizeX
+            && y >= posY && y < posY + sizeY
+            && z >= posZ && z < posZ + sizeZ;
+    }
+
+    public boolean contains(BaseVector3i pos) {
+        return contains(pos.getX(), pos.getY(), pos.getZ());
+    }
+
+    public boolean contains(Region3i other) {
+        return !isEmpty() && !other.isEmpty()
+            && other.posX >= posX && other.maxX() <= maxX()
+            && other.posY >= posY && other.maxY() <= maxY()
+            && other.posZ >= posZ && other.maxZ() <= maxZ();
+    }
+
+    public boolean overlaps(Region3i other) {
+        if (isEmpty() || other.isEmpty()) {
+            return false;
+        }
+        return Math.max(posX, other.posX) <= Math.min(maxX(), other.maxX())
+            && Math.max(posY, other.posY) <= Math.min(maxY(), other.maxY())
+            && Math.max(posZ, other.posZ) <= Math.min(maxZ(), other.maxZ());
+    }
+
+    /**
+     * Returns the difference between a and b - that is all parts of a that are not contained by b.
+     * The result consists of up to six disjoint regions: first the slabs below and above b along y,
+     * then along z within the y range of b, then along x within the y and z range of b.
+     *
+     * @param a the region to subtract from
+     * @param b the region to subtract
+     * @return A list of disjoint regions that cover a - b. May be empty if a is completely encompassed by b.
+     */
+    public static List<Region3i> difference(Region3i a, Region3i b) {
+        List<Region3i> result = Lists.newArrayList();
+        if (b.contains(a) || a.isEmpty()) {
+            return result;
+        }
+        if (!a.overlaps(b)) {
+            result.add(a);
+            return result;
+        }
+
+        int minY = Math.max(a.posY, b.posY);
+        int maxY = Math.min(a.maxY(), b.maxY());
+        int minZ = Math.max(a.posZ, b.posZ);
+        int maxZ = Math.min(a.maxZ(), b.maxZ());
+
+        if (a.posY < b.posY) {
+            result.add(createFromMinAndMax(a.posX, a.posY, a.posZ, a.maxX(), b.posY - 1, a.maxZ()));
+        }
+        if (a.maxY() > b.maxY()) {
+            result.add(createFromMinAndMax(a.posX, b.maxY() + 1, a.posZ, a.maxX(), a.maxY(), a.maxZ()));
+        }
+        if (a.posZ < b.posZ) {
+            result.add(createFromMinAndMax(a.posX, minY, a.posZ, a.maxX(), maxY, b.posZ - 1));
+        }
+        if (a.maxZ() > b.maxZ()) {
+            result.add(createFromMinAndMax(a.posX, minY, b.maxZ() + 1, a.maxX(), maxY, a.maxZ()));
+        }
+        if (a.posX < b.posX) {
+            result.add(createFromMinAndMax(a.posX, minY, minZ, b.posX - 1, maxY, maxZ));
+        }
+        if (a.maxX() > b.maxX()) {
+            result.add(createFromMinAndMax(b.maxX() + 1, minY, minZ, a.maxX(), maxY, maxZ));
+        }
+
+        return result;
+    }
+
+    /**
+     * Decomposes the region along an aligned grid of tiles (e.g. chunks). Tile borders are at
+     * multiples of the tile size, also for negative coordinates.
+     * @param tileSizeX the size of a tile along x (positive)
+     * @param tileSizeY the size of a tile along y (positive)
+     * @param tileSizeZ the size of a tile along z (positive)
+     * @return the covered parts of all touched tiles in ascending y, then z, then x order
+     */
+    public List<Tile3i> tiles(int tileSizeX, int tileSizeY, int tileSizeZ) {
+        final List<Tile3i> result = Lists.newArrayList();
+        forEachTile(tileSizeX, tileSizeY, tileSizeZ, new Tile3i.Visitor() {
+            @Override
+            public boolean visit(int tileX, int tileY, int tileZ, int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+                Region3i part = new Region3i(minX, minY, minZ, maxX - minX + 1, maxY - minY + 1, maxZ - minZ + 1);
+                result.add(new Tile3i(tileX, tileY, tileZ, part));
+                return true;
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Visits the same tiles as {@link #tiles(int, int, int)} in the same order, but without creating any objects.
+     * @param tileSizeX the size of a tile along x (positive)
+     * @param tileSizeY the size of a tile along y (positive)
+     * @param tileSizeZ the size of a tile along z (positive)
+     * @param visitor the visitor
+     * @return true if all tiles were visited, false if the visitor stopped early
+     */
+    public boolean forEachTile(int tileSizeX, int tileSizeY, int tileSizeZ, Tile3i.Visitor visitor) {
+        Preconditions.checkArgument(tileSizeX > 0, "tileSizeX must be > 0");
+        Preconditions.checkArgument(tileSizeY > 0, "tileSizeY must be > 0");
+        Preconditions.checkArgument(tileSizeZ > 0, "tileSizeZ must be > 0");
+
+        if (isEmpty()) {
+            return true;
+        }
+
+        int maxX = maxX();
+        int maxY = maxY();
+        int maxZ = maxZ();
+        int minTileX = TeraMath.floorDiv(posX, tileSizeX);
+        int maxTileX = TeraMath.floorDiv(maxX, tileSizeX);
+        int minTileY = TeraMath.floorDiv(posY, tileSizeY);
+        int maxTileY = TeraMath.floorDiv(maxY, tileSizeY);
+        int minTileZ = TeraMath.floorDiv(posZ, tileSizeZ);
+        int maxTileZ = TeraMath.floorDiv(maxZ, tileSizeZ);
+
+        for (int ty = minTileY; ty <= maxTileY; ty++) {
+            int y0 = Math.max(ty * tileSizeY, posY);
+            int y1 = Math.min(ty * tileSizeY + tileSizeY - 1, maxY);
+            for (int tz = minTileZ; tz <= maxTileZ; tz++) {
+                int z0 = Math.max(tz * tileSizeZ, posZ);
+                int z1 = Math.min(tz * tileSizeZ + tileSizeZ - 1, maxZ);
+                for (int tx = minTileX; tx <= maxTileX; tx++) {
+                    int x0 = Math.max(tx * tileSizeX, posX);
+                    int x1 = Math.min(tx * tileSizeX + tileSizeX - 1, maxX);
+                    if (!visitor.visit(tx, ty, tz, x0, y0, z0, x1, y1, z1)) {
+                        return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Partitions the region into slabs along the y axis. Since y is the outermost
+     * iteration axis, every slab is a contiguous range in iteration order. The
+     * heights of the slabs differ by at most one.
+     * @param parts the maximum number of slabs (positive)
+     * @return min(parts, sizeY) slabs in ascending y order that exactly cover the region
+     */
+    public List<Region3i> splitY(int parts) {
+        Preconditions.checkArgument(parts > 0, "parts must be > 0");
+
+        List<Region3i> result = Lists.newArrayList();
+        int count = Math.min(parts, sizeY);
+        int y = posY;
+        for (int i = 0; i < count; i++) {
+            int rows = sizeY / count + (i < sizeY % count ? 1 : 0);
+            result.add(new Region3i(posX, y, posZ, sizeX, rows, sizeZ));
+            y += rows;
+        }
+        return result;
+    }
+
+    /**
+     * Visits all positions in the region without creating any objects. The order is
+     * the same as for {@link #iterator()}.
+     * @param visitor the visitor
+     * @return true if all positions were visited, false if the visitor stopped early
+     */
+    public boolean forEach(IntTripleVisitor visitor) {
+        int maxX = maxX();
+        int maxY = maxY();
+        int maxZ = maxZ();
+        for (int y = posY; y <= maxY; y++) {
+            for (int z = posZ; z <= maxZ; z++) {
+                for (int x = posX; x <= maxX; x++) {
+                    if (!visitor.visit(x, y, z)) {
+                        return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Provides a read-only iterator over the positions in the Region3i. They are iterated
+     * from min to max, x before z before y.
+     * <br/><br/>
+     * Do <b>not</b> store the result vectors as they are reused!
+     *
+     * @return An iterator over all positions in the Region3i.
+     */
+    @Override
+    public Iterator<BaseVector3i> iterator() {
+        return new Iterator<BaseVector3i>() {
+
+            private final Vector3i pos = new Vector3i(posX - 1, posY, posZ);
+            private int remaining = volume();
+
+            @Override
+            public boolean hasNext() {
+                return remaining > 0;
+            }
+
+            @Override
+            public BaseVector3i next() {
+                if (remaining == 0) {
+                    throw new NoSuchElementException();
+                }
+                remaining--;
+                pos.x++;
+                if (pos.x > maxX()) {
+                    pos.x = posX;
+                    pos.z++;
+                    if (pos.z > maxZ()) {
+                        pos.z = posZ;
+                        pos.y++;
+                    }
+                }
+                return pos;
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    /**
+     * Provides a read-only iterator over the positions in the Region3i in Morton (Z-) order,
+     * relative to the minimum corner.
+     * <br/><br/>
+     * Do <b>not</b> store the result vectors as they are reused!
+     *
+     * @return An iterator over all positions in the Region3i.
+     * @see MortonCurve
+     */
+    public Iterable<BaseVector3i> contentsMorton() {
+        return MortonCurve.contents(posX, posY, posZ, maxX(), maxY(), maxZ());
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj instanceof Region3i) {
+            Region3i other = (Region3i) obj;
+            return other.posX == posX && other.posY == posY && other.posZ == posZ
+                && other.sizeX == sizeX && other.sizeY == sizeY && other.sizeZ == sizeZ;
+        }
+        return false;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(posX, posY, posZ, sizeX, sizeY, sizeZ);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("(x=%d y=%d z=%d sx=%d sy=%d sz=%d)", posX, posY, posZ, sizeX, sizeY, sizeZ);
+    }
+}
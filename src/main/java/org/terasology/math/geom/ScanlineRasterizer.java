@@ -0,0 +1,223 @@
+/*
+ * Copyright 2015 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.terasology.math.geom;
+
+import java.util.Arrays;
+
+/**
+ * Enumerates the integer grid points covered by shapes as horizontal spans, row by row
+ * in ascending y order. A point (x, y) is part of a span if and only if the shape's
+ * <code>contains(x, y)</code> method returns true, so a fill costs one span computation per row
+ * instead of one containment test per point.
+ */
+public final class ScanlineRasterizer {
+
+    private ScanlineRasterizer() {
+        // no instances
+    }
+
+    /**
+     * @param rect the rectangle
+     * @param visitor the visitor
+     * @return true if all spans were visited, false if the visitor stopped early
+     */
+    public static boolean rasterize(Rect2i rect, SpanVisitor visitor) {
+        if (rect.isEmpty()) {
+            return true;
+        }
+        for (int y = rect.minY(); y <= rect.maxY(); y++) {
+            if (!visitor.visit(y, rect.minX(), rect.maxX())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Produces one span per row.
+     * @param circle the circle
+     * @param visitor the visitor
+     * @return true if all spans were visited, false if the visitor stopped early
+     */
+    public static boolean rasterize(Circle circle, SpanVisitor visitor) {
+        float cx = circle.getCenter().getX();
+        float cy = circle.getCenter().getY();
+        float rad = circle.getRadius();
+
+        int minY = (int) Math.ceil(cy - rad);
+        int maxY = (int) Math.floor(cy + rad);
+        for (int y = minY; y <= maxY; y++) {
+            float dy = y - cy;
+            double half = Math.sqrt(Math.max(0, rad * rad - dy * dy));
+            int x0 = (int) Math.ceil(cx - half);
+            int x1 = (int) Math.floor(cx + half);
+
+            // the estimate can be off by one due to rounding - fix it so that it matches contains()
+            while (circle.contains(x0 - 1, y)) {
+                x0--;
+            }
+            while (x0 <= x1 && !circle.contains(x0, y)) {
+                x0++;
+            }
+            while (circle.contains(x1 + 1, y)) {
+                x1++;
+            }
+            while (x1 >= x0 && !circle.contains(x1, y)) {
+                x1--;
+            }
+
+            if (x0 <= x1 && !visitor.visit(y, x0, x1)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Uses the even-odd rule of {@link Polygon#contains(float, float)}. Rows can contain
+     * several disjoint spans, which are visited in ascending x order. Non-horizontal edges are kept
+     * in an active edge table, so every row only looks at the edges that cross it.
+     * @param polygon the polygon
+     * @param visitor the visitor
+     * @return true if all spans were visited, false if the visitor stopped early
+     */
+    public static boolean rasterize(Polygon polygon, SpanVisitor visitor) {
+        int n = polygon.vertexCount();
+        if (n <= 2) {
+            return true;
+        }
+
+        // (lowX, lowY, highX, highY) for every non-horizontal edge
+        double[] edges = new double[n * 4];
+        int edgeCount = 0;
+        for (int i = 0; i < n; i++) {
+            int prev = (i + n - 1) % n;
+            double curx = polygon.getX(i);
+            double cury = polygon.getY(i);
+            double lastx = polygon.getX(prev);
+            double lasty = polygon.getY(prev);
+            if (cury == lasty) {
+                continue;
+            }
+            int off = edgeCount * 4;
+            if (cury < lasty) {
+                edges[off] = curx;
+                edges[off + 1] = cury;
+                edges[off + 2] = lastx;
+                edges[off + 3] = lasty;
+            } else {
+                edges[off] = lastx;
+                edges[off + 1] = lasty;
+                edges[off + 2] = curx;
+                edges[off + 3] = cury;
+            }
+            edgeCount++;
+        }
+
+        if (edgeCount == 0) {
+            return true;
+        }
+
+        // sort edges by their first row - pack (row, index) so that a primitive sort can be used
+        long[] order = new long[edgeCount];
+        for (int i = 0; i < edgeCount; i++) {
+            long firstRow = (long) Math.ceil(edges[i * 4 + 1]);
+            order[i] = (firstRow << 32) | i;
+        }
+        Arrays.sort(order);
+
+        int[] active = new int[edgeCount];
+        int activeCount = 0;
+        int[] crossings = new int[edgeCount];
+        int next = 0;
+
+        int y = (int) (order[0] >> 32);
+        while (next < edgeCount || activeCount > 0) {
+            if (activeCount == 0) {
+                // skip empty rows
+                y = Math.max(y, (int) (order[next] >> 32));
+            }
+
+            while (next < edgeCount && (int) (order[next] >> 32) <= y) {
+                active[activeCount++] = (int) order[next];
+                next++;
+            }
+
+            // remove all edges that end above this row (y >= highY)
+            int kept = 0;
+            for (int i = 0; i < activeCount; i++) {
+                int e = active[i];
+                if (y < edges[e * 4 + 3]) {
+                    active[kept++] = e;
+                }
+            }
+            activeCount = kept;
+
+            for (int i = 0; i < activeCount; i++) {
+                crossings[i] = crossing(edges, active[i] * 4, y);
+            }
+            Arrays.sort(crossings, 0, activeCount);
+
+            // merge adjacent spans, e.g. where self-intersecting edges cross each other
+            int spanStart = 0;
+            int spanEnd = -1;
+            boolean pending = false;
+            for (int i = 0; i + 1 < activeCount; i += 2) {
+                int x0 = crossings[i];
+                int x1 = crossings[i + 1] - 1;
+                if (x0 > x1) {
+                    continue;
+                }
+                if (pending && x0 <= spanEnd + 1) {
+                    spanEnd = x1;
+                } else {
+                    if (pending && !visitor.visit(y, spanStart, spanEnd)) {
+                        return false;
+                    }
+                    spanStart = x0;
+                    spanEnd = x1;
+                    pending = true;
+                }
+            }
+            if (pending && !visitor.visit(y, spanStart, spanEnd)) {
+                return false;
+            }
+            y++;
+        }
+        return true;
+    }
+
+    /**
+     * @return the smallest integer x for which the edge is no longer counted as a crossing by Polygon.contains()
+     */
+    private static int crossing(double[] edges, int off, int y) {
+        double lx = edges[off];
+        double ly = edges[off + 1];
+        double hx = edges[off + 2];
+        double hy = edges[off + 3];
+
+        double xc = lx + (y - ly) / (hy - ly) * (hx - lx);
+        int x = (int) Math.ceil(xc);
+        while (Polygon.crossesEdge(lx, ly, hx, hy, x, y)) {
+            x++;
+        }
+        while (!Polygon.crossesEdge(lx, ly, hx, hy, x - 1, y)) {
+            x--;
+        }
+        return x;
+    }
+}
@@ -0,0 +1,384 @@
+/*
+ * Copyright 2015 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.terasology.math.geom;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * An {@link Iterable} that iterates over 3D positions in shells of increasing distance
+ * around the central point (inclusive). Shells are either cubes (Chebyshev distance) or
+ * spheres (Euclidean distance, rounded up to the next integer).
+ * <br><br>
+ * The sorted offsets are computed once per distance metric and shared by all instances,
+ * so creating or re-centering an iterable does not sort anything. Shells do not depend on
+ * the maximum radius, so smaller radii use a prefix of the table, which is only re-created
+ * if a larger radius is requested. Within a shell, closer positions come first.
+ * <br><br>
+ * The iterating vector is reused. <b>Do not attempt to store the instance</b> e.g. in a collection.
+ */
+public final class ShellIterable implements Iterable<BaseVector3i> {
+
+    /**
+     * Offsets are packed into 8 bits per axis
+     */
+    private static final int MAX_RADIUS = 127;
+
+    private static final int BIAS = 128;
+
+    /**
+     * Lazily created offset tables for the largest radius requested so far
+     */
+    private static ShellTable chebyshevTable;
+    private static ShellTable euclideanTable;
+
+    private final ImmutableVector3i center;
+    private final int scale;
+    private final int maxRadius;
+    private final ShellTable table;
+
+    /**
+     * Packed offsets (x, y, z), 8 bits each with a bias of 128 (shared, do not modify)
+     */
+    private final int[] offsets;
+
+    /**
+     * The index of the first offset of every shell plus the total size (shared, do not modify)
+     */
+    private final int[] shellStarts;
+
+    /**
+     * The end of the used prefix of the offsets
+     */
+    private final int size;
+
+    private ShellIterable(BaseVector3i center, int scale, int maxRadius, ShellTable table) {
+        this.center = ImmutableVector3i.createOrUse(center);
+        this.scale = scale;
+        this.maxRadius = maxRadius;
+        this.table = table;
+        this.offsets = table.offsets;
+        this.shellStarts = table.shellStarts;
+        this.size = shellStarts[maxRadius + 1];
+    }
+
+    /**
+     * Iterates in cube-shaped shells (Chebyshev distance) around the given point.
+     * The point will be the first iterated point.
+     * @param center the center
+     */
+    public static Builder chebyshev(BaseVector3i center) {
+        return new Builder(center, false);
+    }
+
+    /**
+     * Iterates in spherical shells (Euclidean distance) around the given point.
+     * Shell k contains all positions with a distance in (k-1, k].
+     * The point will be the first iterated point.
+     * @param center the center
+     */
+    public static Builder euclidean(BaseVector3i center) {
+        return new Builder(center, true);
+    }
+
+    /**
+     * Creates an iterable with the same shells around a different center. The offset table is shared.
+     * @param newCenter the new center
+     * @return a new instance
+     */
+    public ShellIterable withCenter(BaseVector3i newCenter) {
+        return new ShellIterable(newCenter, scale, maxRadius, table);
+    }
+
+    /**
+     * @return the total number of iterated positions
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the number of shells (maxRadius + 1)
+     */
+    public int shellCount() {
+        return maxRadius + 1;
+    }
+
+    /**
+     * @param shell the shell [0..shellCount()]
+     * @return the index of the first position in the shell, or size() for shellCount()
+     */
+    public int shellStart(int shell) {
+        Preconditions.checkElementIndex(shell, maxRadius + 2, "shell");
+        return shellStarts[shell];
+    }
+
+    /**
+     * @param index the index in the sequence [0..size()-1]
+     * @param target receives the position
+     * @return the target vector
+     */
+    public Vector3i positionAt(int index, Vector3i target) {
+        Preconditions.checkElementIndex(index, size, "index");
+        int packed = offsets[index];
+        target.set(worldX(packed), worldY(packed), worldZ(packed));
+        return target;
+    }
+
+    /**
+     * Visits the same positions as {@link #iterator()} in the same order, but without creating any objects.
+     * @param visitor the visitor
+     * @return true if all positions were visited, false if the visitor stopped early
+     */
+    public boolean forEach(IntTripleVisitor visitor) {
+        return visitRange(0, size, visitor);
+    }
+
+    /**
+     * Visits all positions of a single shell without creating any objects.
+     * @param shell the shell [0..shellCount()-1]
+     * @param visitor the visitor
+     * @return true if all positions were visited, false if the visitor stopped early
+     */
+    public boolean forEachInShell(int shell, IntTripleVisitor visitor) {
+        Preconditions.checkElementIndex(shell, shellCount(), "shell");
+        return visitRange(shellStarts[shell], shellStarts[shell + 1], visitor);
+    }
+
+    @Override
+    public Iterator<BaseVector3i> iterator() {
+        return iterator(0);
+    }
+
+    /**
+     * @param startIndex the index of the first iterated position [0..size()], e.g. a {@link #shellStart(int)}
+     * @return an iterator over the positions with index startIndex and above
+     */
+    public Iterator<BaseVector3i> iterator(final int startIndex) {
+        Preconditions.checkPositionIndex(startIndex, size, "startIndex");
+
+        return new Iterator<BaseVector3i>() {
+            private int index = startIndex;
+            private final Vector3i pos = new Vector3i();
+
+            @Override
+            public boolean hasNext() {
+                return index < size;
+            }
+
+            @Override
+            public BaseVector3i next() {
+                if (index >= size) {
+                    throw new NoSuchElementException("radius has been reached");
+                }
+                int packed = offsets[index++];
+                pos.set(worldX(packed), worldY(packed), worldZ(packed));
+                return pos;
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException("remove");
+            }
+        };
+    }
+
+    private boolean visitRange(int from, int to, IntTripleVisitor visitor) {
+        for (int i = from; i < to; i++) {
+            int packed = offsets[i];
+            if (!visitor.visit(worldX(packed), worldY(packed), worldZ(packed))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int worldX(int packed) {
+        return center.getX() + ((packed & 0xFF) - BIAS) * scale;
+    }
+
+    private int worldY(int packed) {
+        return center.getY() + (((packed >> 16) & 0xFF) - BIAS) * scale;
+    }
+
+    private int worldZ(int packed) {
+        return center.getZ() + (((packed >> 8) & 0xFF) - BIAS) * scale;
+    }
+
+    /**
+     * @param euclidean true for spherical shells, false for cube shells
+     * @param maxRadius the maximum radius [0..127] (inclusive)
+     * @return the shared offset table that covers at least the given radius
+     */
+    private static synchronized ShellTable getTable(boolean euclidean, int maxRadius) {
+        ShellTable table = euclidean ? euclideanTable : chebyshevTable;
+        if (table == null || table.maxRadius < maxRadius) {
+            // the previous table is only referenced by existing instances and released with them
+            table = createTable(euclidean, maxRadius);
+            if (euclidean) {
+                euclideanTable = table;
+            } else {
+                chebyshevTable = table;
+            }
+        }
+        return table;
+    }
+
+    private static ShellTable createTable(boolean euclidean, int maxRadius) {
+        int maxDistSq = maxRadius * maxRadius;
+
+        // count the positions per shell
+        int[] shellStarts = new int[maxRadius + 2];
+        for (int y = -maxRadius; y <= maxRadius; y++) {
+            for (int z = -maxRadius; z <= maxRadius; z++) {
+                for (int x = -maxRadius; x <= maxRadius; x++) {
+                    int shell = shellOf(x, y, z, euclidean, maxDistSq);
+                    if (shell >= 0) {
+                        shellStarts[shell + 1]++;
+                    }
+                }
+            }
+        }
+        int maxShellSize = 0;
+        for (int shell = 0; shell <= maxRadius; shell++) {
+            maxShellSize = Math.max(maxShellSize, shellStarts[shell + 1]);
+            shellStarts[shell + 1] += shellStarts[shell];
+        }
+
+        // distribute the offsets into their shells
+        int[] offsets = new int[shellStarts[maxRadius + 1]];
+        int[] fill = Arrays.copyOf(shellStarts, maxRadius + 1);
+        for (int y = -maxRadius; y <= maxRadius; y++) {
+            for (int z = -maxRadius; z <= maxRadius; z++) {
+                for (int x = -maxRadius; x <= maxRadius; x++) {
+                    int shell = shellOf(x, y, z, euclidean, maxDistSq);
+                    if (shell >= 0) {
+                        offsets[fill[shell]++] = pack(x, y, z);
+                    }
+                }
+            }
+        }
+
+        // sort every shell by distance, then by y, z, x
+        long[] keys = new long[maxShellSize];
+        for (int shell = 0; shell <= maxRadius; shell++) {
+            int from = shellStarts[shell];
+            int count = shellStarts[shell + 1] - from;
+            for (int i = 0; i < count; i++) {
+                int packed = offsets[from + i];
+                int x = (packed & 0xFF) - BIAS;
+                int y = ((packed >> 16) & 0xFF) - BIAS;
+                int z = ((packed >> 8) & 0xFF) - BIAS;
+                keys[i] = ((long) (x * x + y * y + z * z) << 24) | packed;
+            }
+            Arrays.sort(keys, 0, count);
+            for (int i = 0; i < count; i++) {
+                offsets[from + i] = (int) (keys[i] & 0xFFFFFF);
+            }
+        }
+
+        return new ShellTable(maxRadius, offsets, shellStarts);
+    }
+
+    /**
+     * @return the shell of the offset or -1 if it is outside of the maximum radius
+     */
+    private static int shellOf(int x, int y, int z, boolean euclidean, int maxDistSq) {
+        if (euclidean) {
+            int distSq = x * x + y * y + z * z;
+            return (distSq > maxDistSq) ? -1 : ceilSqrt(distSq);
+        }
+        return Math.max(Math.abs(x), Math.max(Math.abs(y), Math.abs(z)));
+    }
+
+    /**
+     * Packs the offset so that the natural order of the packed values is y, then z, then x
+     */
+    private static int pack(int x, int y, int z) {
+        return ((y + BIAS) << 16) | ((z + BIAS) << 8) | (x + BIAS);
+    }
+
+    private static int ceilSqrt(int value) {
+        int root = (int) Math.sqrt(value);
+        while (root * root > value) {
+            root--;
+        }
+        while (root * root < value) {
+            root++;
+        }
+        return root;
+    }
+
+    public static final class Builder {
+
+        private final BaseVector3i center;
+        private final boolean euclidean;
+        private int maxRadius = 16;
+        private int scale = 1;
+
+        private Builder(BaseVector3i center, boolean euclidean) {
+            this.center = center;
+            this.euclidean = euclidean;
+        }
+
+        /**
+         * Default value is 16.
+         * @param newRadius the maximum radius [0..127] (inclusive)
+         * @return this
+         */
+        public Builder maxRadius(int newRadius) {
+            this.maxRadius = newRadius;
+            return this;
+        }
+
+        /**
+         * Default value is 1.
+         * @param newScale the scale of the iteration (positive integer)
+         * @return this
+         */
+        public Builder scale(int newScale) {
+            this.scale = newScale;
+            return this;
+        }
+
+        public ShellIterable build() {
+            Preconditions.checkArgument(scale > 0, "scale must be > 0");
+            Preconditions.checkArgument(maxRadius >= 0, "maxRadius must be >= 0");
+            Preconditions.checkArgument(maxRadius <= MAX_RADIUS, "maxRadius must be <= " + MAX_RADIUS);
+
+            return new ShellIterable(center, scale, maxRadius, getTable(euclidean, maxRadius));
+        }
+    }
+
+    /**
+     * The sorted offsets of one distance metric up to a maximum radius
+     */
+    private static final class ShellTable {
+        private final int maxRadius;
+        private final int[] offsets;
+        private final int[] shellStarts;
+
+        ShellTable(int maxRadius, int[] offsets, int[] shellStarts) {
+            this.maxRadius = maxRadius;
+            this.offsets = offsets;
+            this.shellStarts = shellStarts;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+/*
+ * Copyright 2015 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.terasology.math.geom;
+
+/**
+ * Receives horizontal runs of integer grid cells, e.g. from scanline rasterization.
+ * The return value allows for stopping early.
+ */
+public interface SpanVisitor {
+
+    /**
+     * @param y the row
+     * @param xStart the first x coordinate of the span (inclusive)
+     * @param xEnd the last x coordinate of the span (inclusive)
+     * @return true to continue, false to stop
+     */
+    boolean visit(int y, int xStart, int xEnd);
+}
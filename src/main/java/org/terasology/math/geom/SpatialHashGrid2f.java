@@ -0,0 +1,307 @@
+/*
+ * Copyright 2015 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.terasology.math.geom;
+
+import org.terasology.math.TeraMath;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * A uniform grid of square cells that is stored as a spatial hash. It is meant to be
+ * rebuilt from scratch whenever the positions change (e.g. once per tick), which is done
+ * in linear time with a counting sort. Arrays are only re-allocated if the number of entries grows.
+ * <br><br>
+ * Cells are identified by their packed integer coordinates. Several cells can share a hash
+ * bucket, so every entry stores the key of its cell and entries of other cells are skipped.
+ * <br><br>
+ * Only points are stored. Objects with an extent can be inserted with their center
+ * position, if the query area is expanded by the largest extent.
+ */
+public final class SpatialHashGrid2f {
+
+    private static final long GOLDEN_RATIO = 0x9E3779B97F4A7C15L;
+
+    private final float cellSize;
+    private final float invCellSize;
+
+    private int count;
+    private int hashBits;
+
+    /**
+     * The first slot of every bucket, followed by the total entry count
+     */
+    private int[] bucketStart = new int[1];
+    private long[] keys = new long[0];
+    private int[] indices = new int[0];
+    private float[] xs = new float[0];
+    private float[] ys = new float[0];
+
+    /**
+     * @param cellSize the edge length of the grid cells
+     */
+    public SpatialHashGrid2f(float cellSize) {
+        Preconditions.checkArgument(cellSize > 0, "cellSize must be > 0");
+        this.cellSize = cellSize;
+        this.invCellSize = 1f / cellSize;
+    }
+
+    /**
+     * @return the edge length of the grid cells
+     */
+    public float getCellSize() {
+        return cellSize;
+    }
+
+    /**
+     * @return the number of entries
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * @param x the x coordinate
+     * @return the x coordinate of the cell that contains the position, saturated at the int range
+     */
+    public int cellX(float x) {
+        return (int) Math.floor(x * invCellSize);
+    }
+
+    /**
+     * @param y the y coordinate
+     * @return the y coordinate of the cell that contains the position, saturated at the int range
+     */
+    public int cellY(float y) {
+        return (int) Math.floor(y * invCellSize);
+    }
+
+    /**
+     * Replaces all entries. Entry i has the position (positions[2i], positions[2i + 1]).
+     * @param positions the packed positions
+     * @param newCount the number of entries
+     */
+    public void rebuild(float[] positions, int newCount) {
+        Preconditions.checkArgument(newCount >= 0, "count must be >= 0");
+        Preconditions.checkArgument(positions.length >= newCount * 2, "positions array too small");
+
+        ensureCapacity(newCount);
+        count = newCount;
+
+        int bucketCount = 1 << hashBits;
+        int[] starts = bucketStart;
+        for (int b = 0; b <= bucketCount; b++) {
+            starts[b] = 0;
+        }
+
+        // store the keys temporarily in their input order
+        long[] tmpKeys = keys;
+        for (int i = 0; i < newCount; i++) {
+            long key = key(cellX(positions[i * 2]), cellY(positions[i * 2 + 1]));
+            tmpKeys[i] = key;
+            starts[bucket(key) + 1]++;
+        }
+
+        for (int b = 0; b < bucketCount; b++) {
+            starts[b + 1] += starts[b];
+        }
+
+        // sort the entries by bucket, this moves the bucket starts by one bucket
+        for (int i = 0; i < newCount; i++) {
+            int b = bucket(tmpKeys[i]);
+            int slot = starts[b]++;
+            indices[slot] = i;
+        }
+
+        // restore the bucket starts
+        for (int b = bucketCount; b > 0; b--) {
+            starts[b] = starts[b - 1];
+        }
+        starts[0] = 0;
+
+        for (int slot = 0; slot < newCount; slot++) {
+            int i = indices[slot];
+            xs[slot] = positions[i * 2];
+            ys[slot] = positions[i * 2 + 1];
+        }
+        for (int slot = 0; slot < newCount; slot++) {
+            keys[slot] = key(cellX(xs[slot]), cellY(ys[slot]));
+        }
+    }
+
+    /**
+     * Visits all entries within the given distance (inclusive)
+     * @param x the center x coordinate
+     * @param y the center y coordinate
+     * @param radius the radius
+     * @param visitor the visitor
+     * @return true if all entries were visited, false if the visitor stopped early
+     */
+    public boolean queryRadius(float x, float y, float radius, IndexVisitor visitor) {
+        int minCX = cellX(x - radius);
+        int minCY = cellY(y - radius);
+        int maxCX = cellX(x + radius);
+        int maxCY = cellY(y + radius);
+        float radiusSq = radius * radius;
+
+        if (cellCount(minCX, minCY, maxCX, maxCY) > count) {
+            // the query area is large compared to the number of entries
+            for (int slot = 0; slot < count; slot++) {
+                float dx = xs[slot] - x;
+                float dy = ys[slot] - y;
+                if (dx * dx + dy * dy <= radiusSq && !visitor.visit(indices[slot])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        for (long cy = minCY; cy <= maxCY; cy++) {
+            for (long cx = minCX; cx <= maxCX; cx++) {
+                long key = key((int) cx, (int) cy);
+                int b = bucket(key);
+                for (int slot = bucketStart[b]; slot < bucketStart[b + 1]; slot++) {
+                    if (keys[slot] == key) {
+                        float dx = xs[slot] - x;
+                        float dy = ys[slot] - y;
+                        if (dx * dx + dy * dy <= radiusSq && !visitor.visit(indices[slot])) {
+                            return false;
+                        }
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Visits all entries inside the given rectangle (see {@link Rect2f#contains(float, float)})
+     * @param area the query rectangle
+     * @param visitor the visitor
+     * @return true if all entries were visited, false if the visitor stopped early
+     */
+    public boolean queryRect(Rect2f area, IndexVisitor visitor) {
+        if (area.isEmpty()) {
+            return true;
+        }
+
+        float minX = area.minX();
+        float minY = area.minY();
+        float maxX = area.maxX();
+        float maxY = area.maxY();
+        int minCX = cellX(minX);
+        int minCY = cellY(minY);
+        int maxCX = cellX(maxX);
+        int maxCY = cellY(maxY);
+
+        if (cellCount(minCX, minCY, maxCX, maxCY) > count) {
+            for (int slot = 0; slot < count; slot++) {
+                if (area.contains(xs[slot], ys[slot]) && !visitor.visit(indices[slot])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        for (long cy = minCY; cy <= maxCY; cy++) {
+            for (long cx = minCX; cx <= maxCX; cx++) {
+                long key = key((int) cx, (int) cy);
+                int b = bucket(key);
+                for (int slot = bucketStart[b]; slot < bucketStart[b + 1]; slot++) {
+                    if (keys[slot] == key) {
+                        float px = xs[slot];
+                        float py = ys[slot];
+                        if (px >= minX && py >= minY && px < maxX && py < maxY && !visitor.visit(indices[slot])) {
+                            return false;
+                        }
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Visits all entries in the given cell
+     * @param cx the cell x coordinate
+     * @param cy the cell y coordinate
+     * @param visitor the visitor
+     * @return true if all entries were visited, false if the visitor stopped early
+     */
+    public boolean forEachInCell(int cx, int cy, IndexVisitor visitor) {
+        long key = key(cx, cy);
+        int b = bucket(key);
+        for (int slot = bucketStart[b]; slot < bucketStart[b + 1]; slot++) {
+            if (keys[slot] == key && !visitor.visit(indices[slot])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Visits all entries in the cell that contains the given position and its eight neighbours.
+     * If the cell size is not smaller than the interaction distance, these are all candidates.
+     * @param x the x coordinate
+     * @param y the y coordinate
+     * @param visitor the visitor
+     * @return true if all entries were visited, false if the visitor stopped early
+     */
+    public boolean forEachInNeighbourhood(float x, float y, IndexVisitor visitor) {
+        int cx = cellX(x);
+        int cy = cellY(y);
+        for (int ny = cy - 1; ny <= cy + 1; ny++) {
+            for (int nx = cx - 1; nx <= cx + 1; nx++) {
+                if (!forEachInCell(nx, ny, visitor)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private void ensureCapacity(int newCount) {
+        int bits = Math.max(TeraMath.sizeOfPower(TeraMath.ceilPowerOfTwo(Math.max(newCount, 1))) + 1, 4);
+        hashBits = bits;
+        // only grow, a larger table is reused with a smaller mask
+        if (bucketStart.length < (1 << bits) + 1) {
+            bucketStart = new int[(1 << bits) + 1];
+        }
+        if (keys.length < newCount) {
+            keys = new long[newCount];
+            indices = new int[newCount];
+            xs = new float[newCount];
+            ys = new float[newCount];
+        }
+    }
+
+    /**
+     * Cell bounds saturate at the int range for huge query areas, so the count is computed
+     * as double, which cannot overflow.
+     * @return the number of cells in the given cell range
+     */
+    private static double cellCount(int minCX, int minCY, int maxCX, int maxCY) {
+        return ((double) maxCX - minCX + 1) * ((double) maxCY - minCY + 1);
+    }
+
+    private int bucket(long key) {
+        return (int) ((key * GOLDEN_RATIO) >>> (64 - hashBits));
+    }
+
+    private static long key(int cx, int cy) {
+        return ((long) cx << 32) | (cy & 0xFFFFFFFFL);
+    }
+}
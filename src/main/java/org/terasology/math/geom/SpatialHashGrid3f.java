@@ -0,0 +1,270 @@
+/*
+ * Copyright 2015 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.terasology.math.geom;
+
+import org.terasology.math.TeraMath;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * A uniform grid of cubic cells that is stored as a spatial hash. It is meant to be
+ * rebuilt from scratch whenever the positions change (e.g. once per tick), which is done
+ * in linear time with a counting sort. Arrays are only re-allocated if the number of entries grows.
+ * <br><br>
+ * Cells are identified by their packed integer coordinates (21 bits per axis, i.e. positions
+ * must be within +/- 2^20 cells). Several cells can share a hash bucket, so every entry stores
+ * the key of its cell and entries of other cells are skipped.
+ * <br><br>
+ * Only points are stored. Objects with an extent can be inserted with their center
+ * position, if the query radius is expanded by the largest extent.
+ * @see SpatialHashGrid2f
+ */
+public final class SpatialHashGrid3f {
+
+    private static final long GOLDEN_RATIO = 0x9E3779B97F4A7C15L;
+    private static final long KEY_MASK = 0x1FFFFFL;
+
+    private final float cellSize;
+    private final float invCellSize;
+
+    private int count;
+    private int hashBits;
+
+    /**
+     * The first slot of every bucket, followed by the total entry count
+     */
+    private int[] bucketStart = new int[1];
+    private long[] keys = new long[0];
+    private int[] indices = new int[0];
+    private float[] xs = new float[0];
+    private float[] ys = new float[0];
+    private float[] zs = new float[0];
+
+    /**
+     * @param cellSize the edge length of the grid cells
+     */
+    public SpatialHashGrid3f(float cellSize) {
+        Preconditions.checkArgument(cellSize > 0, "cellSize must be > 0");
+        this.cellSize = cellSize;
+        this.invCellSize = 1f / cellSize;
+    }
+
+    /**
+     * @return the edge length of the grid cells
+     */
+    public float getCellSize() {
+        return cellSize;
+    }
+
+    /**
+     * @return the number of entries
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * @param v a coordinate along any axis
+     * @return the cell coordinate along the same axis, saturated at the int range
+     */
+    public int cell(float v) {
+        return (int) Math.floor(v * invCellSize);
+    }
+
+    /**
+     * Replaces all entries. Entry i has the position (positions[3i], positions[3i + 1], positions[3i + 2]).
+     * @param positions the packed positions
+     * @param newCount the number of entries
+     */
+    public void rebuild(float[] positions, int newCount) {
+        Preconditions.checkArgument(newCount >= 0, "count must be >= 0");
+        Preconditions.checkArgument(positions.length >= newCount * 3, "positions array too small");
+
+        ensureCapacity(newCount);
+        count = newCount;
+
+        int bucketCount = 1 << hashBits;
+        int[] starts = bucketStart;
+        for (int b = 0; b <= bucketCount; b++) {
+            starts[b] = 0;
+        }
+
+        // store the keys temporarily in their input order
+        long[] tmpKeys = keys;
+        for (int i = 0; i < newCount; i++) {
+            int idx = i * 3;
+            long key = key(cell(positions[idx]), cell(positions[idx + 1]), cell(positions[idx + 2]));
+            tmpKeys[i] = key;
+            starts[bucket(key) + 1]++;
+        }
+
+        for (int b = 0; b < bucketCount; b++) {
+            starts[b + 1] += starts[b];
+        }
+
+        // sort the entries by bucket, this moves the bucket starts by one bucket
+        for (int i = 0; i < newCount; i++) {
+            int b = bucket(tmpKeys[i]);
+            int slot = starts[b]++;
+            indices[slot] = i;
+        }
+
+        // restore the bucket starts
+        for (int b = bucketCount; b > 0; b--) {
+            starts[b] = starts[b - 1];
+        }
+        starts[0] = 0;
+
+        for (int slot = 0; slot < newCount; slot++) {
+            int idx = indices[slot] * 3;
+            xs[slot] = positions[idx];
+            ys[slot] = positions[idx + 1];
+            zs[slot] = positions[idx + 2];
+        }
+        for (int slot = 0; slot < newCount; slot++) {
+            keys[slot] = key(cell(xs[slot]), cell(ys[slot]), cell(zs[slot]));
+        }
+    }
+
+    /**
+     * Visits all entries within the given distance (inclusive)
+     * @param x the center x coordinate
+     * @param y the center y coordinate
+     * @param z the center z coordinate
+     * @param radius the radius
+     * @param visitor the visitor
+     * @return true if all entries were visited, false if the visitor stopped early
+     */
+    public boolean queryRadius(float x, float y, float z, float radius, IndexVisitor visitor) {
+        int minCX = cell(x - radius);
+        int minCY = cell(y - radius);
+        int minCZ = cell(z - radius);
+        int maxCX = cell(x + radius);
+        int maxCY = cell(y + radius);
+        int maxCZ = cell(z + radius);
+        float radiusSq = radius * radius;
+
+        if (cellCount(minCX, minCY, minCZ, maxCX, maxCY, maxCZ) > count) {
+            // the query volume is large compared to the number of entries
+            for (int slot = 0; slot < count; slot++) {
+                if (distanceSquared(slot, x, y, z) <= radiusSq && !visitor.visit(indices[slot])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        for (long cz = minCZ; cz <= maxCZ; cz++) {
+            for (long cy = minCY; cy <= maxCY; cy++) {
+                for (long cx = minCX; cx <= maxCX; cx++) {
+                    long key = key((int) cx, (int) cy, (int) cz);
+                    int b = bucket(key);
+                    for (int slot = bucketStart[b]; slot < bucketStart[b + 1]; slot++) {
+                        if (keys[slot] == key && distanceSquared(slot, x, y, z) <= radiusSq && !visitor.visit(indices[slot])) {
+                            return false;
+                        }
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Visits all entries in the given cell
+     * @param cx the cell x coordinate
+     * @param cy the cell y coordinate
+     * @param cz the cell z coordinate
+     * @param visitor the visitor
+     * @return true if all entries were visited, false if the visitor stopped early
+     */
+    public boolean forEachInCell(int cx, int cy, int cz, IndexVisitor visitor) {
+        long key = key(cx, cy, cz);
+        int b = bucket(key);
+        for (int slot = bucketStart[b]; slot < bucketStart[b + 1]; slot++) {
+            if (keys[slot] == key && !visitor.visit(indices[slot])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Visits all entries in the cell that contains the given position and its 26 neighbours.
+     * If the cell size is not smaller than the interaction distance, these are all candidates.
+     * @param x the x coordinate
+     * @param y the y coordinate
+     * @param z the z coordinate
+     * @param visitor the visitor
+     * @return true if all entries were visited, false if the visitor stopped early
+     */
+    public boolean forEachInNeighbourhood(float x, float y, float z, IndexVisitor visitor) {
+        int cx = cell(x);
+        int cy = cell(y);
+        int cz = cell(z);
+        for (int nz = cz - 1; nz <= cz + 1; nz++) {
+            for (int ny = cy - 1; ny <= cy + 1; ny++) {
+                for (int nx = cx - 1; nx <= cx + 1; nx++) {
+                    if (!forEachInCell(nx, ny, nz, visitor)) {
+                        return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    private float distanceSquared(int slot, float x, float y, float z) {
+        float dx = xs[slot] - x;
+        float dy = ys[slot] - y;
+        float dz = zs[slot] - z;
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    private void ensureCapacity(int newCount) {
+        int bits = Math.max(TeraMath.sizeOfPower(TeraMath.ceilPowerOfTwo(Math.max(newCount, 1))) + 1, 4);
+        hashBits = bits;
+        // only grow, a larger table is reused with a smaller mask
+        if (bucketStart.length < (1 << bits) + 1) {
+            bucketStart = new int[(1 << bits) + 1];
+        }
+        if (keys.length < newCount) {
+            keys = new long[newCount];
+            indices = new int[newCount];
+            xs = new float[newCount];
+            ys = new float[newCount];
+            zs = new float[newCount];
+        }
+    }
+
+    /**
+     * Cell bounds saturate at the int range for huge query areas, so the count is computed
+     * as double, which cannot overflow.
+     * @return the number of cells in the given cell range
+     */
+    private static double cellCount(int minCX, int minCY, int minCZ, int maxCX, int maxCY, int maxCZ) {
+        return ((double) maxCX - minCX + 1) * ((double) maxCY - minCY + 1) * ((double) maxCZ - minCZ + 1);
+    }
+
+    private int bucket(long key) {
+        return (int) ((key * GOLDEN_RATIO) >>> (64 - hashBits));
+    }
+
+    private static long key(int cx, int cy, int cz) {
+        return ((cx & KEY_MASK) << 42) | ((cy & KEY_MASK) << 21) | (cz & KEY_MASK);
+    }
+}
@@ -27,6 +27,9 @@
  * <br><br>
  * The iteration starts in positive x direction.
  * <br><br>
+ * Positions can also be accessed randomly through {@link #positionAt(int, Vector2i)} and
+ * {@link #indexOf(int, int)} and the iteration can be resumed at any index.
+ * <br><br>
  * The iterating vector is reused. <b>Do not attempt to store the instance</b> e.g. in a collection.
  * @author Martin Steiger
  */
@@ -81,67 +84,258 @@ public static Builder counterClockwise(BaseVector2i center) {
 
     @Override
     public Iterator<BaseVector2i> iterator() {
+        return new SpiralIterator(0);
+    }
+
+    /**
+     * Resumes the iteration at a given position in the sequence. Several iterators that
+     * start at different indices can be used to process parts of the spiral concurrently.
+     * @param startIndex the index of the first iterated position [0..size()]
+     * @return an iterator over the positions with index startIndex and above
+     */
+    public Iterator<BaseVector2i> iterator(int startIndex) {
+        Preconditions.checkArgument(startIndex >= 0 && startIndex <= maxArea, "startIndex must be in [0..size()]");
+        return new SpiralIterator(startIndex);
+    }
+
+    /**
+     * @return the total number of iterated positions
+     */
+    public int size() {
+        return maxArea;
+    }
+
+    /**
+     * Computes the position at a given index in constant time.
+     * @param index the index in the sequence [0..size()-1]
+     * @param target receives the position
+     * @return the target vector
+     */
+    public Vector2i positionAt(int index, Vector2i target) {
+        Preconditions.checkArgument(index >= 0 && index < maxArea, "index must be in [0..size()-1]");
+
+        int ring = ringOf(index);
+        if (ring == 0) {
+            target.set(center.getX(), center.getY());
+            return target;
+        }
+
+        int offset = index - ringStart(ring);
+        setWorld(ring, offset / (2 * ring), offset % (2 * ring), target);
+        return target;
+    }
+
+    /**
+     * Computes the index of a given position in constant time. This is the inverse of {@link #positionAt(int, Vector2i)}.
+     * @param x the x coordinate
+     * @param y the y coordinate
+     * @return the index of the position in the sequence or -1 if the position is not iterated at all
+     */
+    public int indexOf(int x, int y) {
+        long dx = (long) x - center.getX();
+        long dy = (long) y - center.getY();
+        if (dx % scale != 0 || dy % scale != 0) {
+            return -1;
+        }
 
-        return new Iterator<BaseVector2i>() {
-            private int radius = 1;
-            private int leg;
-            private int x = -1;
-            private int y;
-            private int index;
+        long lx = dx / scale;
+        long ly = clockwise ? dy / scale : -dy / scale;
+        long ring = Math.max(Math.abs(lx), Math.abs(ly));
+        if (ring == 0) {
+            return 0;
+        }
+        if ((2 * ring + 1) * (2 * ring + 1) > maxArea) {
+            return -1;
+        }
+
+        int r = (int) ring;
+        int base = ringStart(r);
+        if (lx == r && ly > -r) {
+            return base + (int) (ly + r - 1);
+        }
+        if (ly == r) {
+            return base + 2 * r + (int) (r - 1 - lx);
+        }
+        if (lx == -r) {
+            return base + 4 * r + (int) (r - 1 - ly);
+        }
+        return base + 6 * r + (int) (lx + r - 1);
+    }
 
-            private Vector2i pos = new Vector2i();
+    /**
+     * @param pos the position
+     * @return the index of the position in the sequence or -1 if the position is not iterated at all
+     */
+    public int indexOf(BaseVector2i pos) {
+        return indexOf(pos.getX(), pos.getY());
+    }
 
-            @Override
-            public BaseVector2i next() {
-                if (index >= maxArea) {
-                    throw new NoSuchElementException("radius has been reached");
+    /**
+     * @param index a positive index
+     * @return the ring (Chebyshev distance from the center) that contains the index
+     */
+    private static int ringOf(int index) {
+        int root = (int) Math.sqrt(index);
+        while ((long) root * root > index) {
+            root--;
+        }
+        while ((long) (root + 1) * (root + 1) <= index) {
+            root++;
+        }
+        return (root + 1) / 2;
+    }
+
+    /**
+     * @param ring the ring (positive)
+     * @return the index of the first position in the ring
+     */
+    private static int ringStart(int ring) {
+        return (2 * ring - 1) * (2 * ring - 1);
+    }
+
+    /**
+     * Every ring consists of four segments with 2 * ring positions each. The ring starts
+     * right above its bottom-right corner and ends in the bottom-right corner.
+     * @param ring the ring (positive)
+     * @param segment the segment in the ring [0..3]
+     * @param step the step in the segment [0..2*ring-1]
+     * @param target receives the position in world coordinates
+     */
+    private void setWorld(int ring, int segment, int step, Vector2i target) {
+        int x;
+        int y;
+        switch (segment) {
+            case 0:
+                x = ring;
+                y = -ring + 1 + step;
+                break;
+            case 1:
+                x = ring - 1 - step;
+                y = ring;
+                break;
+            case 2:
+                x = -ring;
+                y = ring - 1 - step;
+                break;
+            default:
+                x = -ring + 1 + step;
+                y = -ring;
+                break;
+        }
+        target.set(center.getX() + x * scale, center.getY() + (clockwise ? y : -y) * scale);
+    }
+
+    /**
+     * Visits the same positions as {@link #iterator()} in the same order, but without
+     * creating any objects. The spiral is traversed leg by leg.
+     * @param visitor the visitor
+     * @return true if all positions were visited, false if the visitor stopped early
+     */
+    public boolean forEach(IntPairVisitor visitor) {
+        int cx = center.getX();
+        int cy = center.getY();
+        int scaleY = clockwise ? scale : -scale;
+
+        if (!visitor.visit(cx, cy)) {
+            return false;
+        }
+
+        int left = maxArea - 1;
+        int x = 0;
+        int y = 0;
+        for (int radius = 1; left > 0; radius++) {
+            int steps = Math.min(radius - x, left);
+            for (int i = 0; i < steps; i++) {
+                x++;
+                if (!visitor.visit(cx + x * scale, cy + y * scaleY)) {
+                    return false;
                 }
+            }
+            left -= steps;
 
-                switch (leg) {
-                    case 0:
-                        ++x;
-                        if (x == radius) {
-                            ++leg;
-                        }
-                        break;
-                    case 1:
-                        ++y;
-                        if (y == radius) {
-                            ++leg;
-                        }
-                        break;
-                    case 2:
-                        --x;
-                        if (-x == radius) {
-                            ++leg;
-                        }
-                        break;
-                    case 3:
-                        --y;
-                        if (-y == radius) {
-                            leg = 0;
-                            ++radius;
-                        }
-                        break;
+            steps = Math.min(radius - y, left);
+            for (int i = 0; i < steps; i++) {
+                y++;
+                if (!visitor.visit(cx + x * scale, cy + y * scaleY)) {
+                    return false;
                 }
+            }
+            left -= steps;
 
-                index++;
-                int finalX = center.getX() + x * scale;
-                int finalY = center.getY() + (clockwise ? y : -y) * scale;
-                pos.set(finalX, finalY);
-                return pos;
+            steps = Math.min(x + radius, left);
+            for (int i = 0; i < steps; i++) {
+                x--;
+                if (!visitor.visit(cx + x * scale, cy + y * scaleY)) {
+                    return false;
+                }
             }
+            left -= steps;
 
-            @Override
-            public boolean hasNext() {
-                return index < maxArea;
+            steps = Math.min(y + radius, left);
+            for (int i = 0; i < steps; i++) {
+                y--;
+                if (!visitor.visit(cx + x * scale, cy + y * scaleY)) {
+                    return false;
+                }
             }
+            left -= steps;
+        }
+        return true;
+    }
+
+    private final class SpiralIterator implements Iterator<BaseVector2i> {
+        private int index;
+        private int ring;
+        private int segment;
+        private int step;
+
+        private final Vector2i pos = new Vector2i();
 
-            @Override
-            public void remove() {
-                throw new UnsupportedOperationException("remove");
+        SpiralIterator(int startIndex) {
+            this.index = startIndex;
+            if (startIndex > 0) {
+                ring = ringOf(startIndex);
+                int offset = startIndex - ringStart(ring);
+                segment = offset / (2 * ring);
+                step = offset % (2 * ring);
             }
-        };
+        }
+
+        @Override
+        public BaseVector2i next() {
+            if (index >= maxArea) {
+                throw new NoSuchElementException("radius has been reached");
+            }
+
+            if (ring == 0) {
+                pos.set(center.getX(), center.getY());
+                ring = 1;
+            } else {
+                setWorld(ring, segment, step, pos);
+                step++;
+                if (step == 2 * ring) {
+                    step = 0;
+                    segment++;
+                    if (segment == 4) {
+                        segment = 0;
+                        ring++;
+                    }
+                }
+            }
+
+            index++;
+            return pos;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return index < maxArea;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("remove");
+        }
     }
 
     public static final class Builder {
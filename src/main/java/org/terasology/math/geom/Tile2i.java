@@ -0,0 +1,102 @@
+/*
+ * Copyright 2015 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.terasology.math.geom;
+
+import java.util.Objects;
+
+/**
+ * A part of a {@link Rect2i} that falls into a single tile of an aligned tile grid.
+ * Tile (tx, ty) covers [tx * tileWidth .. (tx + 1) * tileWidth - 1] along x and analogously along y.
+ * @see Rect2i#tiles(int, int)
+ */
+public final class Tile2i {
+
+    private final int tileX;
+    private final int tileY;
+    private final Rect2i region;
+
+    /**
+     * @param tileX the tile x coordinate
+     * @param tileY the tile y coordinate
+     * @param region the part of the tile that is covered
+     */
+    public Tile2i(int tileX, int tileY, Rect2i region) {
+        this.tileX = tileX;
+        this.tileY = tileY;
+        this.region = region;
+    }
+
+    /**
+     * @return the tile x coordinate
+     */
+    public int getTileX() {
+        return tileX;
+    }
+
+    /**
+     * @return the tile y coordinate
+     */
+    public int getTileY() {
+        return tileY;
+    }
+
+    /**
+     * @return the part of the tile that is covered, i.e. the intersection of the tile with the decomposed rectangle
+     */
+    public Rect2i getRegion() {
+        return region;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj instanceof Tile2i) {
+            Tile2i other = (Tile2i) obj;
+            return other.tileX == tileX && other.tileY == tileY && other.region.equals(region);
+        }
+        return false;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(tileX, tileY, region);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Tile2i [tile=(%d, %d), region=%s]", tileX, tileY, region);
+    }
+
+    /**
+     * Receives tiles without creating any objects.
+     */
+    public interface Visitor {
+
+        /**
+         * @param tileX the tile x coordinate
+         * @param tileY the tile y coordinate
+         * @param minX the minimum covered x coordinate (inclusive)
+         * @param minY the minimum covered y coordinate (inclusive)
+         * @param maxX the maximum covered x coordinate (inclusive)
+         * @param maxY the maximum covered y coordinate (inclusive)
+         * @return true to continue, false to stop
+         */
+        boolean visit(int tileX, int tileY, int minX, int minY, int maxX, int maxY);
+    }
+}
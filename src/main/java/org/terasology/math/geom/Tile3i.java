@@ -0,0 +1,115 @@
+/*
+ * Copyright 2015 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.terasology.math.geom;
+
+import java.util.Objects;
+
+/**
+ * A part of a {@link Region3i} that falls into a single tile (e.g. a chunk) of an aligned tile grid.
+ * Tile (tx, ty, tz) covers [tx * tileSizeX .. (tx + 1) * tileSizeX - 1] along x and analogously along y and z.
+ * @see Region3i#tiles(int, int, int)
+ */
+public final class Tile3i {
+
+    private final int tileX;
+    private final int tileY;
+    private final int tileZ;
+    private final Region3i region;
+
+    /**
+     * @param tileX the tile x coordinate
+     * @param tileY the tile y coordinate
+     * @param tileZ the tile z coordinate
+     * @param region the part of the tile that is covered
+     */
+    public Tile3i(int tileX, int tileY, int tileZ, Region3i region) {
+        this.tileX = tileX;
+        this.tileY = tileY;
+        this.tileZ = tileZ;
+        this.region = region;
+    }
+
+    /**
+     * @return the tile x coordinate
+     */
+    public int getTileX() {
+        return tileX;
+    }
+
+    /**
+     * @return the tile y coordinate
+     */
+    public int getTileY() {
+        return tileY;
+    }
+
+    /**
+     * @return the tile z coordinate
+     */
+    public int getTileZ() {
+        return tileZ;
+    }
+
+    /**
+     * @return the part of the tile that is covered, i.e. the intersection of the tile with the decomposed region
+     */
+    public Region3i getRegion() {
+        return region;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj instanceof Tile3i) {
+            Tile3i other = (Tile3i) obj;
+            return other.tileX == tileX && other.tileY == tileY && other.tileZ == tileZ && other.region.equals(region);
+        }
+        return false;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(tileX, tileY, tileZ, region);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Tile3i [tile=(%d, %d, %d), region=%s]", tileX, tileY, tileZ, region);
+    }
+
+    /**
+     * Receives tiles without creating any objects.
+     */
+    public interface Visitor {
+
+        /**
+         * @param tileX the tile x coordinate
+         * @param tileY the tile y coordinate
+         * @param tileZ the tile z coordinate
+         * @param minX the minimum covered x coordinate (inclusive)
+         * @param minY the minimum covered y coordinate (inclusive)
+         * @param minZ the minimum covered z coordinate (inclusive)
+         * @param maxX the maximum covered x coordinate (inclusive)
+         * @param maxY the maximum covered y coordinate (inclusive)
+         * @param maxZ the maximum covered z coordinate (inclusive)
+         * @return true to continue, false to stop
+         */
+        boolean visit(int tileX, int tileY, int tileZ, int minX, int minY, int minZ, int maxX, int maxY, int maxZ);
+    }
+}
@@ -0,0 +1,598 @@
+/*
+ * Copyright 2015 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.terasology.math.geom;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * A bounding volume hierarchy over a static triangle mesh. It is built with
+ * binned surface area heuristic (SAH) splits and stored in flat arrays.
+ * The children of an inner node are stored next to each other.
+ * <br><br>
+ * The mesh is given as packed vertex coordinates (x, y, z) and three vertex
+ * indices per triangle. The arrays are referenced, not copied, and must not
+ * be modified afterwards. Triangles are two-sided.
+ * <br><br>
+ * Queries do not allocate and can be run from several threads concurrently.
+ */
+public final class TriangleBvh {
+
+    private static final int BIN_COUNT = 12;
+    private static final int MAX_LEAF_SIZE = 4;
+
+    /**
+     * The cost of a ray-box test relative to a ray-triangle test
+     */
+    private static final float TRAVERSAL_COST = 1f;
+
+    private static final float EPSILON = 1e-7f;
+
+    private final float[] vertices;
+    private final int[] indices;
+
+    /**
+     * The triangle indices in leaf order
+     */
+    private final int[] triOrder;
+
+    /**
+     * The bounds (minX, minY, minZ, maxX, maxY, maxZ) of all nodes
+     */
+    private final float[] nodeBounds;
+
+    /**
+     * The first triangle (in triOrder) of a leaf or the first child of an inner node
+     */
+    private final int[] nodeStart;
+
+    /**
+     * The number of triangles of a leaf or 0 for inner nodes
+     */
+    private final int[] nodeCount;
+
+    private int nodesUsed;
+
+    /**
+     * @param vertices the packed vertex coordinates (x, y, z)
+     * @param indices three vertex indices per triangle
+     */
+    public TriangleBvh(float[] vertices, int[] indices) {
+        Preconditions.checkArgument(indices.length % 3 == 0, "index count must be a multiple of 3");
+
+        this.vertices = vertices;
+        this.indices = indices;
+
+        int triCount = indices.length / 3;
+        int maxNodes = Math.max(2 * triCount - 1, 1);
+        this.triOrder = new int[triCount];
+        this.nodeBounds = new float[maxNodes * 6];
+        this.nodeStart = new int[maxNodes];
+        this.nodeCount = new int[maxNodes];
+
+        float[] triBounds = new float[triCount * 6];
+        float[] centroids = new float[triCount * 3];
+        for (int t = 0; t < triCount; t++) {
+            triOrder[t] = t;
+            for (int a = 0; a < 3; a++) {
+                float v0 = vertex(t, 0, a);
+                float v1 = vertex(t, 1, a);
+                float v2 = vertex(t, 2, a);
+                float min = Math.min(v0, Math.min(v1, v2));
+                float max = Math.max(v0, Math.max(v1, v2));
+                triBounds[t * 6 + a] = min;
+                triBounds[t * 6 + 3 + a] = max;
+                centroids[t * 3 + a] = (min + max) * 0.5f;
+            }
+        }
+
+        nodesUsed = 1;
+        nodeStart[0] = 0;
+        nodeCount[0] = triCount;
+        updateBounds(0, triBounds);
+        if (triCount > 0) {
+            subdivide(0, triBounds, centroids, new float[BIN_COUNT * 7], new float[BIN_COUNT * 2], new float[7]);
+        }
+    }
+
+    /**
+     * @return the number of triangles
+     */
+    public int getTriangleCount() {
+        return triOrder.length;
+    }
+
+    /**
+     * @return the number of nodes in the hierarchy
+     */
+    public int getNodeCount() {
+        return nodesUsed;
+    }
+
+    /**
+     * Finds the closest intersection of a ray with the mesh
+     * @param origin the ray origin
+     * @param dir the ray direction (not necessarily normalized)
+     * @param maxDistance the maximum ray parameter t (in multiples of dir)
+     * @param hit receives the intersection data, if there is one
+     * @return true if the ray hits the mesh
+     */
+    public boolean raycast(BaseVector3f origin, BaseVector3f dir, float maxDistance, Hit hit) {
+        return raycast(origin.getX(), origin.getY(), origin.getZ(), dir.getX(), dir.getY(), dir.getZ(), maxDistance, hit);
+    }
+
+    /**
+     * Finds the closest intersection of a ray with the mesh
+     * @param ox the ray origin x coordinate
+     * @param oy the ray origin y coordinate
+     * @param oz the ray origin z coordinate
+     * @param dx the ray direction x component
+     * @param dy the ray direction y component
+     * @param dz the ray direction z component
+     * @param maxDistance the maximum ray parameter t (in multiples of dir)
+     * @param hit receives the intersection data, if there is one
+     * @return true if the ray hits the mesh
+     */
+    public boolean raycast(float ox, float oy, float oz, float dx, float dy, float dz, float maxDistance, Hit hit) {
+        hit.triangle = -1;
+        hit.distance = maxDistance;
+        if (triOrder.length > 0) {
+            closestHit(0, ox, oy, oz, dx, dy, dz, 1f / dx, 1f / dy, 1f / dz, hit);
+        }
+        return hit.triangle >= 0;
+    }
+
+    /**
+     * Tests if a ray hits the mesh at all, e.g. for line-of-sight tests.
+     * This is faster than {@link #raycast(BaseVector3f, BaseVector3f, float, Hit)}.
+     * @param origin the ray origin
+     * @param dir the ray direction (not necessarily normalized)
+     * @param maxDistance the maximum ray parameter t (in multiples of dir)
+     * @return true if the ray hits any triangle
+     */
+    public boolean raycastAny(BaseVector3f origin, BaseVector3f dir, float maxDistance) {
+        if (triOrder.length == 0) {
+            return false;
+        }
+        float dx = dir.getX();
+        float dy = dir.getY();
+        float dz = dir.getZ();
+        return anyHit(0, origin.getX(), origin.getY(), origin.getZ(), dx, dy, dz, 1f / dx, 1f / dy, 1f / dz, maxDistance);
+    }
+
+    /**
+     * Casts a batch of rays. Ray i starts at (origins[3i], origins[3i + 1], origins[3i + 2])
+     * and has the direction (dirs[3i], dirs[3i + 1], dirs[3i + 2]).
+     * @param origins the packed ray origins
+     * @param dirs the packed ray directions
+     * @param count the number of rays
+     * @param maxDistance the maximum ray parameter t for all rays
+     * @param hits receives the intersection data of every ray (at least count elements)
+     * @return the number of rays that hit the mesh
+     */
+    public int raycast(float[] origins, float[] dirs, int count, float maxDistance, Hit[] hits) {
+        Preconditions.checkArgument(count >= 0, "count must be >= 0");
+        Preconditions.checkArgument(origins.length >= count * 3 && dirs.length >= count * 3, "ray arrays too small");
+        Preconditions.checkArgument(hits.length >= count, "hit array too small");
+
+        int hitCount = 0;
+        for (int i = 0; i < count; i++) {
+            int idx = i * 3;
+            if (raycast(origins[idx], origins[idx + 1], origins[idx + 2], dirs[idx], dirs[idx + 1], dirs[idx + 2], maxDistance, hits[i])) {
+                hitCount++;
+            }
+        }
+        return hitCount;
+    }
+
+    /**
+     * Visits all triangles whose bounding box overlaps the given box (inclusive)
+     * @param minX the minimum x coordinate
+     * @param minY the minimum y coordinate
+     * @param minZ the minimum z coordinate
+     * @param maxX the maximum x coordinate
+     * @param maxY the maximum y coordinate
+     * @param maxZ the maximum z coordinate
+     * @param visitor receives the triangle indices
+     * @return true if all triangles were visited, false if the visitor stopped early
+     */
+    public boolean queryBox(float minX, float minY, float minZ, float maxX, float maxY, float maxZ, IndexVisitor visitor) {
+        if (triOrder.length == 0) {
+            return true;
+        }
+        return queryBox(0, minX, minY, minZ, maxX, maxY, maxZ, visitor);
+    }
+
+    private void closestHit(int node, float ox, float oy, float oz, float dx, float dy, float dz,
+                            float invX, float invY, float invZ, Hit hit) {
+        int count = nodeCount[node];
+        if (count > 0) {
+            int start = nodeStart[node];
+            for (int i = start; i < start + count; i++) {
+                intersect(triOrder[i], ox, oy, oz, dx, dy, dz, hit.distance, hit);
+            }
+            return;
+        }
+
+        int left = nodeStart[node];
+        int right = left + 1;
+        float tLeft = intersectBounds(left, ox, oy, oz, invX, invY, invZ, hit.distance);
+        float tRight = intersectBounds(right, ox, oy, oz, invX, invY, invZ, hit.distance);
+
+        // visit the closer child first, the other one can often be skipped afterwards
+        if (tRight < tLeft) {
+            int tmp = left;
+            left = right;
+            right = tmp;
+            float tmpT = tLeft;
+            tLeft = tRight;
+            tRight = tmpT;
+        }
+
+        if (tLeft != Float.POSITIVE_INFINITY) {
+            closestHit(left, ox, oy, oz, dx, dy, dz, invX, invY, invZ, hit);
+        }
+        if (tRight != Float.POSITIVE_INFINITY && tRight <= hit.distance) {
+            closestHit(right, ox, oy, oz, dx, dy, dz, invX, invY, invZ, hit);
+        }
+    }
+
+    private boolean anyHit(int node, float ox, float oy, float oz, float dx, float dy, float dz,
+                           float invX, float invY, float invZ, float maxDistance) {
+        if (intersectBounds(node, ox, oy, oz, invX, invY, invZ, maxDistance) == Float.POSITIVE_INFINITY) {
+            return false;
+        }
+
+        int count = nodeCount[node];
+        if (count > 0) {
+            int start = nodeStart[node];
+            for (int i = start; i < start + count; i++) {
+                if (intersect(triOrder[i], ox, oy, oz, dx, dy, dz, maxDistance, null) < maxDistance) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        int left = nodeStart[node];
+        return anyHit(left, ox, oy, oz, dx, dy, dz, invX, invY, invZ, maxDistance)
+            || anyHit(left + 1, ox, oy, oz, dx, dy, dz, invX, invY, invZ, maxDistance);
+    }
+
+    private boolean queryBox(int node, float minX, float minY, float minZ, float maxX, float maxY, float maxZ, IndexVisitor visitor) {
+        int b = node * 6;
+        if (nodeBounds[b] > maxX || nodeBounds[b + 1] > maxY || nodeBounds[b + 2] > maxZ
+                || nodeBounds[b + 3] < minX || nodeBounds[b + 4] < minY || nodeBounds[b + 5] < minZ) {
+            return true;
+        }
+
+        int count = nodeCount[node];
+        if (count > 0) {
+            int start = nodeStart[node];
+            for (int i = start; i < start + count; i++) {
+                int tri = triOrder[i];
+                if (overlapsTriangle(tri, 0, minX, maxX) && overlapsTriangle(tri, 1, minY, maxY) && overlapsTriangle(tri, 2, minZ, maxZ)) {
+                    if (!visitor.visit(tri)) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+
+        int left = nodeStart[node];
+        return queryBox(left, minX, minY, minZ, maxX, maxY, maxZ, visitor)
+            && queryBox(left + 1, minX, minY, minZ, maxX, maxY, maxZ, visitor);
+    }
+
+    private boolean overlapsTriangle(int tri, int axis, float min, float max) {
+        float v0 = vertex(tri, 0, axis);
+        float v1 = vertex(tri, 1, axis);
+        float v2 = vertex(tri, 2, axis);
+        return Math.min(v0, Math.min(v1, v2)) <= max && Math.max(v0, Math.max(v1, v2)) >= min;
+    }
+
+    /**
+     * @return the entry distance or +inf if the ray misses the node bounds (within maxDistance)
+     */
+    private float intersectBounds(int node, float ox, float oy, float oz, float invX, float invY, float invZ, float maxDistance) {
+        int b = node * 6;
+        float tx0 = (nodeBounds[b] - ox) * invX;
+        float tx1 = (nodeBounds[b + 3] - ox) * invX;
+        float ty0 = (nodeBounds[b + 1] - oy) * invY;
+        float ty1 = (nodeBounds[b + 4] - oy) * invY;
+        float tz0 = (nodeBounds[b + 2] - oz) * invZ;
+        float tz1 = (nodeBounds[b + 5] - oz) * invZ;
+
+        float tmin = Math.max(Math.max(Math.min(tx0, tx1), Math.min(ty0, ty1)), Math.max(Math.min(tz0, tz1), 0));
+        float tmax = Math.min(Math.min(Math.max(tx0, tx1), Math.max(ty0, ty1)), Math.min(Math.max(tz0, tz1), maxDistance));
+
+        if (tmin > tmax) {
+            return Float.POSITIVE_INFINITY;
+        }
+        // NaN (0 * inf for rays that lie in a slab plane) is treated as a hit
+        return (tmin == tmin) ? tmin : 0;
+    }
+
+    /**
+     * Intersects the ray with a triangle (Moeller-Trumbore)
+     * @param hit receives the intersection if it is closer than maxDistance, can be null
+     * @return the ray parameter of the intersection or maxDistance if there is none
+     */
+    private float intersect(int tri, float ox, float oy, float oz, float dx, float dy, float dz, float maxDistance, Hit hit) {
+        int i0 = indices[tri * 3] * 3;
+        int i1 = indices[tri * 3 + 1] * 3;
+        int i2 = indices[tri * 3 + 2] * 3;
+
+        float e1x = vertices[i1] - vertices[i0];
+        float e1y = vertices[i1 + 1] - vertices[i0 + 1];
+        float e1z = vertices[i1 + 2] - vertices[i0 + 2];
+        float e2x = vertices[i2] - vertices[i0];
+        float e2y = vertices[i2 + 1] - vertices[i0 + 1];
+        float e2z = vertices[i2 + 2] - vertices[i0 + 2];
+
+        float px = dy * e2z - dz * e2y;
+        float py = dz * e2x - dx * e2z;
+        float pz = dx * e2y - dy * e2x;
+        float det = e1x * px + e1y * py + e1z * pz;
+        if (Math.abs(det) < EPSILON) {
+            return maxDistance;
+        }
+
+        float invDet = 1f / det;
+        float sx = ox - vertices[i0];
+        float sy = oy - vertices[i0 + 1];
+        float sz = oz - vertices[i0 + 2];
+        float u = (sx * px + sy * py + sz * pz) * invDet;
+        if (u < 0 || u > 1) {
+            return maxDistance;
+        }
+
+        float qx = sy * e1z - sz * e1y;
+        float qy = sz * e1x - sx * e1z;
+        float qz = sx * e1y - sy * e1x;
+        float v = (dx * qx + dy * qy + dz * qz) * invDet;
+        if (v < 0 || u + v > 1) {
+            return maxDistance;
+        }
+
+        float t = (e2x * qx + e2y * qy + e2z * qz) * invDet;
+        if (t < 0 || t >= maxDistance) {
+            return maxDistance;
+        }
+        if (hit != null) {
+            hit.distance = t;
+            hit.triangle = tri;
+            hit.u = u;
+            hit.v = v;
+        }
+        return t;
+    }
+
+    private float vertex(int tri, int corner, int axis) {
+        return vertices[indices[tri * 3 + corner] * 3 + axis];
+    }
+
+    private void updateBounds(int node, float[] triBounds) {
+        int b = node * 6;
+        for (int a = 0; a < 3; a++) {
+            nodeBounds[b + a] = Float.POSITIVE_INFINITY;
+            nodeBounds[b + 3 + a] = Float.NEGATIVE_INFINITY;
+        }
+        int start = nodeStart[node];
+        for (int i = start; i < start + nodeCount[node]; i++) {
+            int t = triOrder[i] * 6;
+            for (int a = 0; a < 3; a++) {
+                nodeBounds[b + a] = Math.min(nodeBounds[b + a], triBounds[t + a]);
+                nodeBounds[b + 3 + a] = Math.max(nodeBounds[b + 3 + a], triBounds[t + 3 + a]);
+            }
+        }
+    }
+
+    /**
+     * @param bins per bin: triangle count and bounds (7 values)
+     * @param costs per split plane: left and right cost
+     * @param acc a temporary bin that accumulates the bins during the sweep
+     */
+    private void subdivide(int node, float[] triBounds, float[] centroids, float[] bins, float[] costs, float[] acc) {
+        int start = nodeStart[node];
+        int count = nodeCount[node];
+        if (count <= MAX_LEAF_SIZE) {
+            return;
+        }
+
+        // find the centroid bounds and the longest axis
+        float[] cMin = {Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY};
+        float[] cMax = {Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY};
+        for (int i = start; i < start + count; i++) {
+            int c = triOrder[i] * 3;
+            for (int a = 0; a < 3; a++) {
+                cMin[a] = Math.min(cMin[a], centroids[c + a]);
+                cMax[a] = Math.max(cMax[a], centroids[c + a]);
+            }
+        }
+
+        int bestAxis = -1;
+        int bestSplit = -1;
+        float bestCost = count;     // the cost of not splitting at all (relative to the node area)
+        float parentArea = area(nodeBounds, node * 6);
+
+        for (int axis = 0; axis < 3; axis++) {
+            float extent = cMax[axis] - cMin[axis];
+            if (extent <= 0) {
+                continue;
+            }
+
+            for (int i = 0; i < BIN_COUNT; i++) {
+                resetBin(bins, i * 7);
+            }
+
+            float scale = BIN_COUNT / extent;
+            for (int i = start; i < start + count; i++) {
+                int t = triOrder[i];
+                int bin = Math.min(BIN_COUNT - 1, (int) ((centroids[t * 3 + axis] - cMin[axis]) * scale));
+                addToBin(bins, bin * 7, triBounds, t * 6);
+            }
+
+            // sweep from the left and from the right to get the area and count of both sides
+            resetBin(acc, 0);
+            for (int i = 0; i < BIN_COUNT - 1; i++) {
+                mergeBin(acc, bins, i * 7);
+                costs[i * 2] = acc[0] * area(acc, 1);
+            }
+            resetBin(acc, 0);
+            for (int i = BIN_COUNT - 1; i > 0; i--) {
+                mergeBin(acc, bins, i * 7);
+                costs[(i - 1) * 2 + 1] = acc[0] * area(acc, 1);
+            }
+
+            for (int i = 0; i < BIN_COUNT - 1; i++) {
+                float cost = TRAVERSAL_COST + (costs[i * 2] + costs[i * 2 + 1]) / parentArea;
+                if (cost < bestCost) {
+                    bestCost = cost;
+                    bestAxis = axis;
+                    bestSplit = i;
+                }
+            }
+        }
+
+        if (bestAxis < 0) {
+            return;
+        }
+
+        // partition the triangles
+        float scale = BIN_COUNT / (cMax[bestAxis] - cMin[bestAxis]);
+        int i = start;
+        int j = start + count - 1;
+        while (i <= j) {
+            int t = triOrder[i];
+            int bin = Math.min(BIN_COUNT - 1, (int) ((centroids[t * 3 + bestAxis] - cMin[bestAxis]) * scale));
+            if (bin <= bestSplit) {
+                i++;
+            } else {
+                triOrder[i] = triOrder[j];
+                triOrder[j] = t;
+                j--;
+            }
+        }
+
+        int leftCount = i - start;
+        if (leftCount == 0 || leftCount == count) {
+            return;
+        }
+
+        int left = nodesUsed;
+        nodesUsed += 2;
+        nodeStart[left] = start;
+        nodeCount[left] = leftCount;
+        nodeStart[left + 1] = i;
+        nodeCount[left + 1] = count - leftCount;
+        nodeStart[node] = left;
+        nodeCount[node] = 0;
+
+        updateBounds(left, triBounds);
+        updateBounds(left + 1, triBounds);
+        subdivide(left, triBounds, centroids, bins, costs, acc);
+        subdivide(left + 1, triBounds, centroids, bins, costs, acc);
+    }
+
+    private static void resetBin(float[] bins, int b) {
+        bins[b] = 0;
+        for (int a = 0; a < 3; a++) {
+            bins[b + 1 + a] = Float.POSITIVE_INFINITY;
+            bins[b + 4 + a] = Float.NEGATIVE_INFINITY;
+        }
+    }
+
+    private static void addToBin(float[] bins, int b, float[] triBounds, int t) {
+        bins[b]++;
+        for (int a = 0; a < 3; a++) {
+            bins[b + 1 + a] = Math.min(bins[b + 1 + a], triBounds[t + a]);
+            bins[b + 4 + a] = Math.max(bins[b + 4 + a], triBounds[t + 3 + a]);
+        }
+    }
+
+    private static void mergeBin(float[] acc, float[] bins, int b) {
+        acc[0] += bins[b];
+        for (int a = 0; a < 3; a++) {
+            acc[1 + a] = Math.min(acc[1 + a], bins[b + 1 + a]);
+            acc[4 + a] = Math.max(acc[4 + a], bins[b + 4 + a]);
+        }
+    }
+
+    /**
+     * @return the surface area of the box (min, max) starting at the given offset, or 0 if it is empty
+     */
+    private static float area(float[] box, int offset) {
+        float ex = box[offset + 3] - box[offset];
+        float ey = box[offset + 4] - box[offset + 1];
+        float ez = box[offset + 5] - box[offset + 2];
+        if (ex < 0 || ey < 0 || ez < 0) {
+            return 0;
+        }
+        return 2 * (ex * ey + ey * ez + ez * ex);
+    }
+
+    /**
+     * The result of a ray cast. Instances are mutable and can be re-used.
+     */
+    public static final class Hit {
+        private float distance;
+        private int triangle = -1;
+        private float u;
+        private float v;
+
+        /**
+         * @return true if the last ray cast hit a triangle
+         */
+        public boolean isHit() {
+            return triangle >= 0;
+        }
+
+        /**
+         * @return the ray parameter t of the intersection point (origin + t * dir)
+         */
+        public float getDistance() {
+            return distance;
+        }
+
+        /**
+         * @return the index of the triangle that was hit or -1
+         */
+        public int getTriangle() {
+            return triangle;
+        }
+
+        /**
+         * @return the barycentric coordinate of the intersection point w.r.t. the second vertex
+         */
+        public float getU() {
+            return u;
+        }
+
+        /**
+         * @return the barycentric coordinate of the intersection point w.r.t. the third vertex
+         */
+        public float getV() {
+            return v;
+        }
+
+        @Override
+        public String toString() {
+            return isHit() ? String.format("Hit(triangle=%d, t=%f, u=%f, v=%f)", triangle, distance, u, v) : "Miss";
+        }
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2015 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.terasology.math;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Explicit SIMD loops based on the incubating vector API of JDK 17. The class is only part of
+ * the multi-release jar (META-INF/versions/17) and is loaded reflectively by {@link TeraMath}
+ * if the JVM was started with <code>--add-modules jdk.incubator.vector</code>.
+ * <br><br>
+ * Every loop processes full vectors and finishes the remaining elements with scalar code.
+ * No fused multiply-add is used, so the results are identical to {@link ScalarFloatKernels}.
+ */
+final class VectorFloatKernels implements FloatKernels {
+
+    private static final VectorSpecies<Float> SPECIES = FloatVector.SPECIES_PREFERRED;
+
+    @Override
+    public void lerp(float[] a, float[] b, float t, float[] target, int offset, int count) {
+        int end = offset + count;
+        int bound = offset + SPECIES.loopBound(count);
+        int i = offset;
+        for (; i < bound; i += SPECIES.length()) {
+            FloatVector va = FloatVector.fromArray(SPECIES, a, i);
+            FloatVector vb = FloatVector.fromArray(SPECIES, b, i);
+            va.add(vb.sub(va).mul(t)).intoArray(target, i);
+        }
+        for (; i < end; i++) {
+            target[i] = a[i] + t * (b[i] - a[i]);
+        }
+    }
+
+    @Override
+    public void lerp(float[] a, float[] b, float[] t, float[] target, int offset, int count) {
+        int end = offset + count;
+        int bound = offset + SPECIES.loopBound(count);
+        int i = offset;
+        for (; i < bound; i += SPECIES.length()) {
+            FloatVector va = FloatVector.fromArray(SPECIES, a, i);
+            FloatVector vb = FloatVector.fromArray(SPECIES, b, i);
+            FloatVector vt = FloatVector.fromArray(SPECIES, t, i);
+            va.add(vb.sub(va).mul(vt)).intoArray(target, i);
+        }
+        for (; i < end; i++) {
+            target[i] = a[i] + t[i] * (b[i] - a[i]);
+        }
+    }
+
+    @Override
+    public void add(float[] a, float[] b, float[] target, int offset, int count) {
+        int end = offset + count;
+        int bound = offset + SPECIES.loopBound(count);
+        int i = offset;
+        for (; i < bound; i += SPECIES.length()) {
+            FloatVector va = FloatVector.fromArray(SPECIES, a, i);
+            FloatVector vb = FloatVector.fromArray(SPECIES, b, i);
+            va.add(vb).intoArray(target, i);
+        }
+        for (; i < end; i++) {
+            target[i] = a[i] + b[i];
+        }
+    }
+
+    @Override
+    public void scale(float[] a, float factor, float[] target, int offset, int count) {
+        int end = offset + count;
+        int bound = offset + SPECIES.loopBound(count);
+        int i = offset;
+        for (; i < bound; i += SPECIES.length()) {
+            FloatVector.fromArray(SPECIES, a, i).mul(factor).intoArray(target, i);
+        }
+        for (; i < end; i++) {
+            target[i] = a[i] * factor;
+        }
+    }
+
+    @Override
+    public void dot(float[] ax, float[] ay, float[] az, float[] bx, float[] by, float[] bz,
+                    float[] target, int offset, int count) {
+        int end = offset + count;
+        int bound = offset + SPECIES.loopBound(count);
+        int i = offset;
+        for (; i < bound; i += SPECIES.length()) {
+            FloatVector x = FloatVector.fromArray(SPECIES, ax, i).mul(FloatVector.fromArray(SPECIES, bx, i));
+            FloatVector y = FloatVector.fromArray(SPECIES, ay, i).mul(FloatVector.fromArray(SPECIES, by, i));
+            FloatVector z = FloatVector.fromArray(SPECIES, az, i).mul(FloatVector.fromArray(SPECIES, bz, i));
+            x.add(y).add(z).intoArray(target, i);
+        }
+        for (; i < end; i++) {
+            target[i] = ax[i] * bx[i] + ay[i] * by[i] + az[i] * bz[i];
+        }
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright 2015 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.terasology.math;
+
+import java.util.Locale;
+import java.util.Random;
+
+import org.terasology.math.geom.BaseVector3f;
+import org.terasology.math.geom.Vector3f;
+
+/**
+ * Compares the bulk array operations of {@link TeraMath} in structure-of-arrays layout with
+ * loops over individual {@link Vector3f} instances. The active implementation uses the
+ * vector API if the multi-release jar runs on JDK 17+ with <code>--add-modules jdk.incubator.vector</code>.
+ * Use the main method to start.
+ */
+public final class BulkKernelBenchmark {
+
+    private static final int SIZE = 4096;
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int ROUNDS = 10;
+    private static final int REPEATS = 200;
+
+    private static final Random RNG = new Random(1234);
+
+    private static final Vector3f[] VEC_A = createVectors();
+    private static final Vector3f[] VEC_B = createVectors();
+    private static final Vector3f[] VEC_OUT = createVectors();
+    private static final float[] DOTS = new float[SIZE];
+
+    private static final float[][] SOA_A = toArrays(VEC_A);
+    private static final float[][] SOA_B = toArrays(VEC_B);
+    private static final float[][] SOA_OUT = toArrays(VEC_OUT);
+
+    private static final FloatKernels SCALAR = new ScalarFloatKernels();
+    private static final FloatKernels ACTIVE = TeraMath.kernels();
+
+    private BulkKernelBenchmark() {
+        // no instances
+    }
+
+    /**
+     * @param args (ignored)
+     */
+    public static void main(String[] args) {
+        System.out.println("Active implementation: " + ACTIVE.getClass().getSimpleName());
+        System.out.println(String.format(Locale.ROOT, "%-8s %12s %12s %12s   (ns per vector)", "", "Vector3f", "scalar", "active"));
+
+        for (String name : new String[] {"add", "scale", "lerp", "dot"}) {
+            for (int round = 0; round < WARMUP_ROUNDS; round++) {
+                time(name, null);
+                time(name, SCALAR);
+                time(name, ACTIVE);
+            }
+
+            // only the best time of the measured rounds counts
+            double objects = Double.MAX_VALUE;
+            double scalar = Double.MAX_VALUE;
+            double active = Double.MAX_VALUE;
+            for (int round = 0; round < ROUNDS; round++) {
+                objects = Math.min(objects, time(name, null));
+                scalar = Math.min(scalar, time(name, SCALAR));
+                active = Math.min(active, time(name, ACTIVE));
+            }
+            System.out.println(String.format(Locale.ROOT, "%-8s %12.3f %12.3f %12.3f   (%.1fx, %.1fx)",
+                    name, objects, scalar, active, objects / scalar, objects / active));
+        }
+    }
+
+    /**
+     * @param name the name of the operation
+     * @param kernels the array implementation or null for the loop over Vector3f instances
+     * @return the time per vector in nanoseconds
+     */
+    private static double time(String name, FloatKernels kernels) {
+        long start = System.nanoTime();
+        for (int r = 0; r < REPEATS; r++) {
+            if (kernels == null) {
+                runObjects(name);
+            } else {
+                runArrays(name, kernels);
+            }
+        }
+        long duration = System.nanoTime() - start;
+        return (double) duration / REPEATS / SIZE;
+    }
+
+    private static void runObjects(String name) {
+        if (name.equals("add")) {
+            for (int i = 0; i < SIZE; i++) {
+                VEC_OUT[i].set(VEC_A[i]).add(VEC_B[i]);
+            }
+        } else if (name.equals("scale")) {
+            for (int i = 0; i < SIZE; i++) {
+                VEC_OUT[i].set(VEC_A[i]).scale(0.5f);
+            }
+        } else if (name.equals("lerp")) {
+            for (int i = 0; i < SIZE; i++) {
+                VEC_OUT[i] = BaseVector3f.lerp(VEC_A[i], VEC_B[i], 0.25f);
+            }
+        } else {
+            for (int i = 0; i < SIZE; i++) {
+                DOTS[i] = VEC_A[i].dot(VEC_B[i]);
+            }
+        }
+    }
+
+    private static void runArrays(String name, FloatKernels kernels) {
+        if (name.equals("dot")) {
+            kernels.dot(SOA_A[0], SOA_A[1], SOA_A[2], SOA_B[0], SOA_B[1], SOA_B[2], DOTS, 0, SIZE);
+            return;
+        }
+        for (int c = 0; c < 3; c++) {
+            if (name.equals("add")) {
+                kernels.add(SOA_A[c], SOA_B[c], SOA_OUT[c], 0, SIZE);
+            } else if (name.equals("scale")) {
+                kernels.scale(SOA_A[c], 0.5f, SOA_OUT[c], 0, SIZE);
+            } else {
+                kernels.lerp(SOA_A[c], SOA_B[c], 0.25f, SOA_OUT[c], 0, SIZE);
+            }
+        }
+    }
+
+    private static Vector3f[] createVectors() {
+        Vector3f[] vectors = new Vector3f[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            vectors[i] = new Vector3f(RNG.nextFloat(), RNG.nextFloat(), RNG.nextFloat());
+        }
+        return vectors;
+    }
+
+    private static float[][] toArrays(Vector3f[] vectors) {
+        float[][] arrays = new float[3][vectors.length];
+        for (int i = 0; i < vectors.length; i++) {
+            arrays[0][i] = vectors[i].getX();
+            arrays[1][i] = vectors[i].getY();
+            arrays[2][i] = vectors[i].getZ();
+        }
+        return arrays;
+    }
+}
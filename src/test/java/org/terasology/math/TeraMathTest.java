@@ -15,8 +15,11 @@
  */
 package org.terasology.math;
 
+import java.util.Random;
+
 import org.junit.Test;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
@@ -80,6 +83,126 @@ public void powInt() {
         }
     }
 
+    @Test
+    public void lerpArrays() {
+        float[] a = {0, 1, 2, -4};
+        float[] b = {10, 1, 0, 4};
+        float[] out = new float[4];
+
+        TeraMath.lerp(a, b, 0.25f, out, 1, 3);
+        assertEquals(0, out[0], MAX_DOUBLE_ERROR);
+        assertEquals(1, out[1], MAX_DOUBLE_ERROR);
+        assertEquals(1.5, out[2], MAX_DOUBLE_ERROR);
+        assertEquals(-2, out[3], MAX_DOUBLE_ERROR);
+
+        TeraMath.lerp(a, b, new float[] {0.5f, 0, 1, 0.75f}, a, 0, 4);
+        assertEquals(5, a[0], MAX_DOUBLE_ERROR);
+        assertEquals(1, a[1], MAX_DOUBLE_ERROR);
+        assertEquals(0, a[2], MAX_DOUBLE_ERROR);
+        assertEquals(2, a[3], MAX_DOUBLE_ERROR);
+    }
+
+    @Test
+    public void structureOfArrays() {
+        float[] x = {1, 2, 3};
+        float[] y = {0, 1, -1};
+        float[] z = {2, 0, 1};
+        float[] out = new float[3];
+
+        TeraMath.dot(x, y, z, x, y, z, out, 0, 3);
+        assertEquals(5, out[0], MAX_DOUBLE_ERROR);
+        assertEquals(5, out[1], MAX_DOUBLE_ERROR);
+        assertEquals(11, out[2], MAX_DOUBLE_ERROR);
+
+        TeraMath.add(x, y, out, 1, 2);
+        assertEquals(5, out[0], MAX_DOUBLE_ERROR);
+        assertEquals(3, out[1], MAX_DOUBLE_ERROR);
+        assertEquals(2, out[2], MAX_DOUBLE_ERROR);
+
+        TeraMath.scale(x, -2, x, 0, 3);
+        assertEquals(-2, x[0], MAX_DOUBLE_ERROR);
+        assertEquals(-4, x[1], MAX_DOUBLE_ERROR);
+        assertEquals(-6, x[2], MAX_DOUBLE_ERROR);
+    }
+
+    @Test
+    public void bulkKernelsMatchScalar() {
+        // the active implementation (e.g. the vector API) must produce exactly the same results
+        FloatKernels scalar = new ScalarFloatKernels();
+        Random rng = new Random(1234);
+        int size = 100;
+        float[][] in = new float[6][size];
+        for (float[] values : in) {
+            for (int i = 0; i < size; i++) {
+                values[i] = rng.nextFloat() * 200 - 100;
+            }
+        }
+
+        float[] expected = new float[size];
+        float[] actual = new float[size];
+        for (int offset = 0; offset < 9; offset++) {
+            for (int count = 0; count <= size - offset; count += 7) {
+                scalar.lerp(in[0], in[1], 0.3f, expected, offset, count);
+                TeraMath.lerp(in[0], in[1], 0.3f, actual, offset, count);
+                assertArrayEquals(expected, actual, 0f);
+
+                scalar.lerp(in[0], in[1], in[2], expected, offset, count);
+                TeraMath.lerp(in[0], in[1], in[2], actual, offset, count);
+                assertArrayEquals(expected, actual, 0f);
+
+                scalar.add(in[0], in[1], expected, offset, count);
+                TeraMath.add(in[0], in[1], actual, offset, count);
+                assertArrayEquals(expected, actual, 0f);
+
+                scalar.scale(in[0], -1.5f, expected, offset, count);
+                TeraMath.scale(in[0], -1.5f, actual, offset, count);
+                assertArrayEquals(expected, actual, 0f);
+
+                scalar.dot(in[0], in[1], in[2], in[3], in[4], in[5], expected, offset, count);
+                TeraMath.dot(in[0], in[1], in[2], in[3], in[4], in[5], actual, offset, count);
+                assertArrayEquals(expected, actual, 0f);
+            }
+        }
+    }
+
+    @Test
+    public void morton2D() {
+        assertEquals(0L, TeraMath.encodeMorton2D(0, 0));
+        assertEquals(1L, TeraMath.encodeMorton2D(1, 0));
+        assertEquals(2L, TeraMath.encodeMorton2D(0, 1));
+        assertEquals(0xFL, TeraMath.encodeMorton2D(3, 3));
+        assertEquals(-1L, TeraMath.encodeMorton2D(-1, -1));
+
+        int[] values = {0, 1, 7, 12345, 65535, 1 << 20, Integer.MAX_VALUE, -1, -98765};
+        for (int x : values) {
+            for (int y : values) {
+                long code = TeraMath.encodeMorton2D(x, y);
+                assertEquals(x, TeraMath.decodeMorton2DX(code));
+                assertEquals(y, TeraMath.decodeMorton2DY(code));
+            }
+        }
+    }
+
+    @Test
+    public void morton3D() {
+        assertEquals(1L, TeraMath.encodeMorton3D(1, 0, 0));
+        assertEquals(2L, TeraMath.encodeMorton3D(0, 1, 0));
+        assertEquals(4L, TeraMath.encodeMorton3D(0, 0, 1));
+        assertEquals(0x38L, TeraMath.encodeMorton3D(2, 2, 2));
+
+        int[] values = {0, 1, 5, 1000, 65535, (1 << 21) - 1};
+        for (int x : values) {
+            for (int y : values) {
+                for (int z : values) {
+                    long code = TeraMath.encodeMorton3D(x, y, z);
+                    assertEquals(x, TeraMath.decodeMorton3DX(code));
+                    assertEquals(y, TeraMath.decodeMorton3DY(code));
+                    assertEquals(z, TeraMath.decodeMorton3DZ(code));
+                }
+            }
+        }
+    }
+
     // JUnit's assertEquals(expected, value, delta) uses delta as the maximum difference from expected and value
     // This approach is not acceptable for large doubles whose precision decreases as numbers grows
     // Therefore this function uses delta as the maximum deviation of the actual from the expected value
@@ -99,4 +222,20 @@ private void assertEqualsRatio(String msg, double expected, double actual, doubl
             fail(msg);
         }
     }
+
+    @Test
+    public void floorDivMod() {
+        for (int a = -50; a <= 50; a++) {
+            for (int b = -7; b <= 7; b++) {
+                if (b != 0) {
+                    int div = TeraMath.floorDiv(a, b);
+                    assertEquals(a + "/" + b, (int) Math.floor((double) a / b), div);
+                    assertEquals(a, div * b + TeraMath.floorMod(a, b));
+                }
+            }
+        }
+        assertEquals(-1, TeraMath.floorDiv(-1, 16));
+        assertEquals(15, TeraMath.floorMod(-1, 16));
+        assertEquals(Integer.MIN_VALUE, TeraMath.floorDiv(Integer.MIN_VALUE, 1));
+    }
 }
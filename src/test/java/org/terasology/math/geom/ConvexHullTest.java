@@ -0,0 +1,209 @@
+/*
+ * Copyright 2015 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.terasology.math.geom;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+/**
+ * Tests the {@link ConvexHull} class.
+ */
+public class ConvexHullTest {
+
+    @Test
+    public void testSquare() {
+        List<Vector2f> points = Arrays.asList(
+                new Vector2f(0.5f, 0.5f), new Vector2f(1, 1), new Vector2f(0, 1), new Vector2f(0.5f, 0),
+                new Vector2f(0, 0), new Vector2f(1, 0), new Vector2f(0.2f, 0.7f), new Vector2f(0, 0.5f));
+        Polygon hull = ConvexHull.compute(points);
+
+        // collinear points on the edges are removed, the order is counter-clockwise
+        assertEquals(4, hull.vertexCount());
+        assertEquals(1, hull.area(), 0.0001);
+        assertEquals(new Vector2f(0, 0), new Vector2f(hull.getX(0), hull.getY(0)));
+        assertEquals(new Vector2f(1, 0), new Vector2f(hull.getX(1), hull.getY(1)));
+        assertEquals(new Vector2f(1, 1), new Vector2f(hull.getX(2), hull.getY(2)));
+        assertEquals(new Vector2f(0, 1), new Vector2f(hull.getX(3), hull.getY(3)));
+    }
+
+    @Test
+    public void testDegenerate() {
+        assertEquals(1, ConvexHull.compute(new float[] {2, 3, 2, 3, 2, 3}, 3).vertexCount());
+        assertEquals(2, ConvexHull.compute(new float[] {0, 0, 1, 1, 2, 2, 3, 3}, 4).vertexCount());
+        assertEquals(2, ConvexHull.compute(new float[] {-1, 5, -1, -2, -1, 0}, 3).vertexCount());
+    }
+
+    @Test
+    public void testRandom() {
+        Random rng = new Random(4321);
+        for (int run = 0; run < 20; run++) {
+            int count = 1 + rng.nextInt(500);
+            float[] coords = randomCoords(rng, count * 2);
+            int[] hull = new int[count];
+            int size = ConvexHull.hull(coords, count, hull);
+            checkHull2D(coords, count, hull, size);
+        }
+    }
+
+    @Test
+    public void testParallel() throws InterruptedException {
+        Random rng = new Random(1234);
+        int count = 100000;
+        float[] coords = randomCoords(rng, count * 2);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Polygon parallel = ConvexHull.compute(coords, count, executor);
+            Polygon sequential = ConvexHull.compute(coords, count);
+            assertEquals(sequential.vertexCount(), parallel.vertexCount());
+            for (int i = 0; i < sequential.vertexCount(); i++) {
+                assertEquals(sequential.getX(i), parallel.getX(i), 0);
+                assertEquals(sequential.getY(i), parallel.getY(i), 0);
+            }
+
+            int[] triangles = ConvexHull.compute3D(randomCoords(rng, count * 3), count, executor);
+            assertTrue(triangles.length > 0);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testCube() {
+        List<Vector3f> points = Lists.newArrayList();
+        Random rng = new Random(99);
+        for (int i = 0; i < 100; i++) {
+            points.add(new Vector3f(rng.nextFloat(), rng.nextFloat(), rng.nextFloat()));
+        }
+        for (int i = 0; i < 8; i++) {
+            points.add(new Vector3f(i & 1, (i >> 1) & 1, (i >> 2) & 1));
+        }
+
+        int[] triangles = ConvexHull.compute3D(points);
+        assertEquals(12 * 3, triangles.length);
+        for (int idx : triangles) {
+            assertTrue(idx >= 100);
+        }
+    }
+
+    @Test
+    public void testCoplanar() {
+        float[] coords = {0, 0, 0, 1, 0, 0, 0, 1, 0, 1, 1, 0, 0.5f, 0.5f, 0};
+        assertEquals(0, ConvexHull.compute3D(coords, 5).length);
+        assertEquals(0, ConvexHull.compute3D(coords, 3).length);
+    }
+
+    @Test
+    public void testRandom3D() {
+        Random rng = new Random(5678);
+        for (int run = 0; run < 10; run++) {
+            int count = 4 + rng.nextInt(1000);
+            float[] coords = randomCoords(rng, count * 3);
+            int[] triangles = ConvexHull.compute3D(coords, count);
+            checkHull3D(coords, count, triangles);
+        }
+    }
+
+    @Test
+    public void testSphere() {
+        Random rng = new Random(42);
+        int count = 2000;
+        float[] coords = new float[count * 3];
+        for (int i = 0; i < count; i++) {
+            Vector3f dir = new Vector3f((float) rng.nextGaussian(), (float) rng.nextGaussian(), (float) rng.nextGaussian());
+            dir.normalize();
+            coords[i * 3] = dir.x;
+            coords[i * 3 + 1] = dir.y;
+            coords[i * 3 + 2] = dir.z;
+        }
+        int[] triangles = ConvexHull.compute3D(coords, count);
+        checkHull3D(coords, count, triangles);
+    }
+
+    private static float[] randomCoords(Random rng, int length) {
+        float[] coords = new float[length];
+        for (int i = 0; i < length; i++) {
+            coords[i] = rng.nextFloat() * 200 - 100;
+        }
+        return coords;
+    }
+
+    private static void checkHull2D(float[] coords, int count, int[] hull, int size) {
+        for (int i = 0; i < size; i++) {
+            int a = hull[i];
+            int b = hull[(i + 1) % size];
+            float ax = coords[a * 2];
+            float ay = coords[a * 2 + 1];
+            float ex = coords[b * 2] - ax;
+            float ey = coords[b * 2 + 1] - ay;
+            for (int p = 0; p < count; p++) {
+                float cross = ex * (coords[p * 2 + 1] - ay) - ey * (coords[p * 2] - ax);
+                assertTrue("point outside of hull", cross >= -0.001f);
+            }
+        }
+    }
+
+    private static void checkHull3D(float[] coords, int count, int[] triangles) {
+        assertTrue(triangles.length > 0);
+
+        // the surface must be closed - every directed edge has exactly one opposite edge
+        Set<Long> edges = Sets.newHashSet();
+        for (int t = 0; t < triangles.length; t += 3) {
+            for (int e = 0; e < 3; e++) {
+                long edge = ((long) triangles[t + e] << 32) | triangles[t + (e + 1) % 3];
+                assertTrue("duplicate edge", edges.add(edge));
+            }
+        }
+        for (Long edge : edges) {
+            long twin = (edge << 32) | (edge >>> 32);
+            assertTrue("open edge", edges.contains(twin));
+        }
+
+        // all points must lie below all faces
+        for (int t = 0; t < triangles.length; t += 3) {
+            Vector3f a = vertex(coords, triangles[t]);
+            Vector3f u = vertex(coords, triangles[t + 1]);
+            Vector3f v = vertex(coords, triangles[t + 2]);
+            u.sub(a);
+            v.sub(a);
+            Vector3f normal = new Vector3f();
+            normal.cross(u, v);
+            normal.normalize();
+            for (int p = 0; p < count; p++) {
+                Vector3f pt = vertex(coords, p);
+                pt.sub(a);
+                assertTrue("point outside of hull", normal.dot(pt) <= 0.001f);
+            }
+        }
+    }
+
+    private static Vector3f vertex(float[] coords, int idx) {
+        return new Vector3f(coords[idx * 3], coords[idx * 3 + 1], coords[idx * 3 + 2]);
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2015 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.terasology.math.geom;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests the {@link Frustum} class.
+ */
+public class FrustumTest {
+
+    /**
+     * The identity matrix results in the unit cube [-1..1]
+     */
+    private final Frustum cube = new Frustum(BaseMatrix4f.IDENTITY);
+
+    @Test
+    public void testContains() {
+        assertTrue(cube.contains(0, 0, 0));
+        assertTrue(cube.contains(1, -1, 1));
+        assertFalse(cube.contains(1.1f, 0, 0));
+        assertFalse(cube.contains(0, 0, -1.1f));
+    }
+
+    @Test
+    public void testAabb() {
+        assertTrue(cube.intersectsAabb(-0.5f, -0.5f, -0.5f, 0.5f, 0.5f, 0.5f));
+        assertTrue(cube.intersectsAabb(0.5f, 0.5f, 0.5f, 2f, 2f, 2f));
+        assertFalse(cube.intersectsAabb(1.5f, 0, 0, 2f, 0.5f, 0.5f));
+        assertFalse(cube.intersectsAabb(0, -3f, 0, 0.5f, -2f, 0.5f));
+    }
+
+    @Test
+    public void testClassifyMask() {
+        assertEquals(0, cube.classifyAabb(-0.5f, -0.5f, -0.5f, 0.5f, 0.5f, 0.5f, Frustum.ALL_PLANES));
+        assertEquals(Frustum.OUTSIDE, cube.classifyAabb(2, 2, 2, 3, 3, 3, Frustum.ALL_PLANES));
+
+        int mask = cube.classifyAabb(0.5f, -0.5f, -0.5f, 1.5f, 0.5f, 0.5f, Frustum.ALL_PLANES);
+        assertEquals(1 << Frustum.RIGHT, mask);
+
+        // a child that is outside of the right plane is not rejected if that plane is masked out
+        assertEquals(0, cube.classifyAabb(1.2f, -0.5f, -0.5f, 1.4f, 0.5f, 0.5f, Frustum.ALL_PLANES & ~mask));
+        assertEquals(Frustum.OUTSIDE, cube.classifyAabb(1.2f, -0.5f, -0.5f, 1.4f, 0.5f, 0.5f, mask));
+    }
+
+    @Test
+    public void testSphere() {
+        assertTrue(cube.intersectsSphere(0, 0, 0, 0.1f));
+        assertTrue(cube.intersectsSphere(1.5f, 0, 0, 0.6f));
+        assertFalse(cube.intersectsSphere(1.5f, 0, 0, 0.4f));
+        assertEquals(1 << Frustum.TOP, cube.classifySphere(0, 1, 0, 0.5f, Frustum.ALL_PLANES));
+    }
+
+    @Test
+    public void testPerspective() {
+        // OpenGL-style perspective projection with 90 deg. fov, aspect 1, near 1, far 100
+        float near = 1;
+        float far = 100;
+        Matrix4f proj = new Matrix4f(
+                1, 0, 0, 0,
+                0, 1, 0, 0,
+                0, 0, -(far + near) / (far - near), -2 * far * near / (far - near),
+                0, 0, -1, 0);
+        Frustum frustum = new Frustum(proj);
+
+        assertTrue(frustum.contains(0, 0, -10));
+        assertTrue(frustum.contains(9, 9, -10));
+        assertFalse(frustum.contains(11, 0, -10));
+        assertFalse(frustum.contains(0, 0, 10));
+        assertFalse(frustum.contains(0, 0, -0.5f));
+        assertFalse(frustum.contains(0, 0, -101f));
+
+        assertEquals(-1, frustum.distance(Frustum.NEAR, 0, 0, 0), 0.001f);
+        assertEquals(1, frustum.distance(Frustum.FAR, 0, 0, -99), 0.001f);
+    }
+
+    @Test
+    public void testBatchMatchesSingle() {
+        Random rng = new Random(42);
+        int count = 150;
+        float[] boxes = new float[count * 6];
+        float[] spheres = new float[count * 4];
+        for (int i = 0; i < count; i++) {
+            float x = rng.nextFloat() * 6 - 3;
+            float y = rng.nextFloat() * 6 - 3;
+            float z = rng.nextFloat() * 6 - 3;
+            float size = rng.nextFloat();
+            boxes[i * 6 + 0] = x;
+            boxes[i * 6 + 1] = y;
+            boxes[i * 6 + 2] = z;
+            boxes[i * 6 + 3] = x + size;
+            boxes[i * 6 + 4] = y + size;
+            boxes[i * 6 + 5] = z + size;
+            spheres[i * 4 + 0] = x;
+            spheres[i * 4 + 1] = y;
+            spheres[i * 4 + 2] = z;
+            spheres[i * 4 + 3] = size;
+        }
+
+        long[] visibility = new long[3];
+        byte[] cache = new byte[count];
+
+        // run twice to make sure the plane cache does not change the result
+        for (int pass = 0; pass < 2; pass++) {
+            int visible = cube.cullAabbs(boxes, count, visibility, cache);
+            int expected = 0;
+            for (int i = 0; i < count; i++) {
+                int idx = i * 6;
+                boolean single = cube.intersectsAabb(boxes[idx], boxes[idx + 1], boxes[idx + 2], boxes[idx + 3], boxes[idx + 4], boxes[idx + 5]);
+                assertEquals(single, Frustum.isVisible(visibility, i));
+                expected += single ? 1 : 0;
+            }
+            assertEquals(expected, visible);
+        }
+
+        cube.cullSpheres(spheres, count, visibility, null);
+        for (int i = 0; i < count; i++) {
+            int idx = i * 4;
+            boolean single = cube.intersectsSphere(spheres[idx], spheres[idx + 1], spheres[idx + 2], spheres[idx + 3]);
+            assertEquals(single, Frustum.isVisible(visibility, i));
+        }
+    }
+}
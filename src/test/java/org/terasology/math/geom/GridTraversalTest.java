@@ -0,0 +1,203 @@
+/*
+ * Copyright 2015 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.terasology.math.geom;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+import org.terasology.math.TeraMath;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Tests the {@link GridTraversal} class.
+ */
+public class GridTraversalTest {
+
+    @Test
+    public void testSegment2D() {
+        Random rng = new Random(1234);
+        for (int i = 0; i < 200; i++) {
+            final LineSegment segment = new LineSegment(
+                    rng.nextFloat() * 40 - 20, rng.nextFloat() * 40 - 20,
+                    rng.nextFloat() * 40 - 20, rng.nextFloat() * 40 - 20);
+
+            final List<Vector2i> cells = Lists.newArrayList();
+            final float[] last = new float[1];
+            assertTrue(GridTraversal.traverse(segment, new GridTraversal.Visitor2D() {
+                @Override
+                public boolean visit(int x, int y, float distance, int normalX, int normalY) {
+                    assertTrue(distance >= last[0]);
+                    last[0] = distance;
+                    if (!cells.isEmpty()) {
+                        Vector2i prev = cells.get(cells.size() - 1);
+                        // the normal points back into the previous cell
+                        assertEquals(prev, new Vector2i(x + normalX, y + normalY));
+                        Vector2f entry = segment.lerp(distance / segment.getDir().length());
+                        assertEquals(normalX != 0 ? x + (normalX < 0 ? 0 : 1) : entry.getX(), entry.getX(), 0.001f);
+                        assertEquals(normalY != 0 ? y + (normalY < 0 ? 0 : 1) : entry.getY(), entry.getY(), 0.001f);
+                    }
+                    cells.add(new Vector2i(x, y));
+                    return true;
+                }
+            }));
+
+            // every sampled point must lie in a visited cell
+            for (int s = 0; s <= 1000; s++) {
+                Vector2f p = segment.lerp(s / 1000f);
+                Vector2i cell = new Vector2i(TeraMath.floorToInt(p.getX()), TeraMath.floorToInt(p.getY()));
+                assertTrue(cells.contains(cell));
+            }
+            Vector2i first = cells.get(0);
+            assertEquals(TeraMath.floorToInt(segment.getStart().getX()), first.x);
+            assertEquals(TeraMath.floorToInt(segment.getStart().getY()), first.y);
+        }
+    }
+
+    @Test
+    public void testAlignedSegment2D() {
+        // end points on integer and half-integer coordinates lie on or between cell boundaries
+        Random rng = new Random(42);
+        for (int i = 0; i < 5000; i++) {
+            LineSegment segment = new LineSegment(
+                    rng.nextInt(40) * 0.5f - 10, rng.nextInt(40) * 0.5f - 10,
+                    rng.nextInt(40) * 0.5f - 10, rng.nextInt(40) * 0.5f - 10);
+
+            final List<Vector2i> cells = Lists.newArrayList();
+            assertTrue(GridTraversal.traverse(segment, new GridTraversal.Visitor2D() {
+                @Override
+                public boolean visit(int x, int y, float distance, int normalX, int normalY) {
+                    cells.add(new Vector2i(x, y));
+                    return true;
+                }
+            }));
+
+            Vector2i first = cells.get(0);
+            Vector2i last = cells.get(cells.size() - 1);
+            Vector2i start = new Vector2i(TeraMath.floorToInt(segment.getStart().getX()), TeraMath.floorToInt(segment.getStart().getY()));
+            Vector2i end = new Vector2i(TeraMath.floorToInt(segment.getEnd().getX()), TeraMath.floorToInt(segment.getEnd().getY()));
+            assertEquals(start, first);
+            assertEquals(end, last);
+            assertEquals(Math.abs(end.x - start.x) + Math.abs(end.y - start.y) + 1, cells.size());
+        }
+    }
+
+    @Test
+    public void testAlignedSegment3D() {
+        Random rng = new Random(43);
+        for (int i = 0; i < 5000; i++) {
+            Vector3f start = new Vector3f(rng.nextInt(40) * 0.5f - 10, rng.nextInt(40) * 0.5f - 10, rng.nextInt(40) * 0.5f - 10);
+            Vector3f end = new Vector3f(rng.nextInt(40) * 0.5f - 10, rng.nextInt(40) * 0.5f - 10, rng.nextInt(40) * 0.5f - 10);
+
+            final List<Vector3i> cells = Lists.newArrayList();
+            assertTrue(GridTraversal.traverse(start, end, new GridTraversal.Visitor3D() {
+                @Override
+                public boolean visit(int x, int y, int z, float distance, int normalX, int normalY, int normalZ) {
+                    cells.add(new Vector3i(x, y, z));
+                    return true;
+                }
+            }));
+
+            Vector3i startCell = new Vector3i(TeraMath.floorToInt(start.x), TeraMath.floorToInt(start.y), TeraMath.floorToInt(start.z));
+            Vector3i endCell = new Vector3i(TeraMath.floorToInt(end.x), TeraMath.floorToInt(end.y), TeraMath.floorToInt(end.z));
+            assertEquals(startCell, cells.get(0));
+            assertEquals(endCell, cells.get(cells.size() - 1));
+            assertEquals(startCell.gridDistance(endCell) + 1, cells.size());
+        }
+    }
+
+    @Test
+    public void testRay3D() {
+        final List<Vector3i> cells = Lists.newArrayList();
+        final List<Vector3i> normals = Lists.newArrayList();
+        final List<Float> distances = Lists.newArrayList();
+        assertTrue(GridTraversal.traverse(new Vector3f(0.5f, 0.5f, -0.5f), new Vector3f(0, 0, -2), 2.7f, new GridTraversal.Visitor3D() {
+            @Override
+            public boolean visit(int x, int y, int z, float distance, int normalX, int normalY, int normalZ) {
+                cells.add(new Vector3i(x, y, z));
+                normals.add(new Vector3i(normalX, normalY, normalZ));
+                distances.add(distance);
+                return true;
+            }
+        }));
+
+        assertEquals(Lists.newArrayList(new Vector3i(0, 0, -1), new Vector3i(0, 0, -2), new Vector3i(0, 0, -3), new Vector3i(0, 0, -4)), cells);
+        assertEquals(new Vector3i(0, 0, 0), normals.get(0));
+        assertEquals(new Vector3i(0, 0, 1), normals.get(1));
+        assertEquals(0.5f, distances.get(1), 0.0001f);
+        assertEquals(2.5f, distances.get(3), 0.0001f);
+    }
+
+    @Test
+    public void testSegment3D() {
+        Random rng = new Random(4321);
+        for (int i = 0; i < 100; i++) {
+            final Vector3f start = new Vector3f(rng.nextFloat() * 20 - 10, rng.nextFloat() * 20 - 10, rng.nextFloat() * 20 - 10);
+            final Vector3f end = new Vector3f(rng.nextFloat() * 20 - 10, rng.nextFloat() * 20 - 10, rng.nextFloat() * 20 - 10);
+
+            final List<Vector3i> cells = Lists.newArrayList();
+            assertTrue(GridTraversal.traverse(start, end, new GridTraversal.Visitor3D() {
+                @Override
+                public boolean visit(int x, int y, int z, float distance, int normalX, int normalY, int normalZ) {
+                    if (!cells.isEmpty()) {
+                        assertEquals(cells.get(cells.size() - 1), new Vector3i(x + normalX, y + normalY, z + normalZ));
+                    }
+                    cells.add(new Vector3i(x, y, z));
+                    return true;
+                }
+            }));
+
+            Vector3f p = new Vector3f();
+            for (int s = 0; s <= 1000; s++) {
+                p.set(start).scale(1 - s / 1000f).add(end.getX() * s / 1000f, end.getY() * s / 1000f, end.getZ() * s / 1000f);
+                Vector3i cell = new Vector3i(TeraMath.floorToInt(p.getX()), TeraMath.floorToInt(p.getY()), TeraMath.floorToInt(p.getZ()));
+                assertTrue(cells.contains(cell));
+            }
+        }
+    }
+
+    @Test
+    public void testEarlyExit() {
+        final int[] count = new int[1];
+        assertFalse(GridTraversal.traverse(0.5f, 0.5f, 1, 0.3f, 100, new GridTraversal.Visitor2D() {
+            @Override
+            public boolean visit(int x, int y, float distance, int normalX, int normalY) {
+                return ++count[0] < 5;
+            }
+        }));
+        assertEquals(5, count[0]);
+    }
+
+    @Test
+    public void testZeroDirection() {
+        final int[] count = new int[1];
+        assertTrue(GridTraversal.traverse(new Vector3f(-0.5f, 1, 2), new Vector3f(), 10, new GridTraversal.Visitor3D() {
+            @Override
+            public boolean visit(int x, int y, int z, float distance, int normalX, int normalY, int normalZ) {
+                assertEquals(new Vector3i(-1, 1, 2), new Vector3i(x, y, z));
+                count[0]++;
+                return true;
+            }
+        }));
+        assertEquals(1, count[0]);
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2015 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.terasology.math.geom;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+/**
+ * Tests the {@link HilbertCurve} class.
+ */
+public class HilbertCurveTest {
+
+    @Test
+    public void testRoundTrip() {
+        Vector2i pos = new Vector2i();
+        for (int side = 1; side <= 64; side *= 2) {
+            Vector2i prev = null;
+            for (long d = 0; d < side * side; d++) {
+                HilbertCurve.fromIndex(side, d, pos);
+                assertEquals(d, HilbertCurve.toIndex(side, pos.getX(), pos.getY()));
+                if (prev != null) {
+                    assertEquals(1, Math.abs(prev.getX() - pos.getX()) + Math.abs(prev.getY() - pos.getY()));
+                }
+                prev = new Vector2i(pos);
+            }
+        }
+    }
+
+    @Test
+    public void testKnownOrder() {
+        // the first order curve: (0,0) -> (0,1) -> (1,1) -> (1,0)
+        assertEquals(0, HilbertCurve.toIndex(2, 0, 0));
+        assertEquals(1, HilbertCurve.toIndex(2, 0, 1));
+        assertEquals(2, HilbertCurve.toIndex(2, 1, 1));
+        assertEquals(3, HilbertCurve.toIndex(2, 1, 0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidSide() {
+        HilbertCurve.toIndex(6, 0, 0);
+    }
+
+    @Test
+    public void testRect() {
+        final Rect2i rect = Rect2i.createFromMinAndSize(-5, 3, 13, 6);
+        int side = 16;
+
+        Set<Vector2i> visited = Sets.newHashSet();
+        final List<Vector2i> fromIterator = Lists.newArrayList();
+        long last = -1;
+        for (BaseVector2i pos : rect.contentsHilbert()) {
+            assertTrue(rect.contains(pos));
+            assertTrue("visited twice", visited.add(new Vector2i(pos)));
+            long d = HilbertCurve.toIndex(side, pos.getX() - rect.minX(), pos.getY() - rect.minY());
+            assertTrue("not in Hilbert order", d > last);
+            last = d;
+            fromIterator.add(new Vector2i(pos));
+        }
+        assertEquals(rect.area(), visited.size());
+
+        final List<Vector2i> fromVisitor = Lists.newArrayList();
+        assertTrue(HilbertCurve.forEach(rect, new IntPairVisitor() {
+            @Override
+            public boolean visit(int x, int y) {
+                fromVisitor.add(new Vector2i(x, y));
+                return true;
+            }
+        }));
+        assertEquals(fromIterator, fromVisitor);
+
+        final int[] count = new int[1];
+        assertFalse(HilbertCurve.forEach(rect, new IntPairVisitor() {
+            @Override
+            public boolean visit(int x, int y) {
+                return ++count[0] < 10;
+            }
+        }));
+        assertEquals(10, count[0]);
+
+        assertFalse(Rect2i.EMPTY.contentsHilbert().iterator().hasNext());
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2015 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.terasology.math.geom;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Tests the {@link KdTree} class against a brute-force search.
+ */
+public class KdTreeTest {
+
+    private final Random rng = new Random(31337);
+
+    private float[] randomCoords(int length) {
+        float[] coords = new float[length];
+        for (int i = 0; i < length; i++) {
+            coords[i] = rng.nextFloat() * 100;
+        }
+        return coords;
+    }
+
+    private static float[] sortedDistances(float[] coords, int dims, float x, float y, float z) {
+        int count = coords.length / dims;
+        float[] dist = new float[count];
+        for (int i = 0; i < count; i++) {
+            float dx = coords[i * dims] - x;
+            float dy = coords[i * dims + 1] - y;
+            float dz = dims == 3 ? coords[i * dims + 2] - z : 0;
+            dist[i] = dx * dx + dy * dy + dz * dz;
+        }
+        Arrays.sort(dist);
+        return dist;
+    }
+
+    private void checkQueries(KdTree tree, float[] coords, int dims) {
+        int k = 7;
+        int[] result = new int[k];
+        float[] distances = new float[k];
+        int[] inRange = new int[coords.length / dims];
+
+        for (int q = 0; q < 100; q++) {
+            float x = rng.nextFloat() * 120 - 10;
+            float y = rng.nextFloat() * 120 - 10;
+            float z = rng.nextFloat() * 120 - 10;
+            float[] expected = sortedDistances(coords, dims, x, y, z);
+
+            int nearest = (dims == 2) ? tree.nearest(x, y) : tree.nearest(x, y, z);
+            assertEquals(expected[0], distance(coords, dims, nearest, x, y, z), 0f);
+
+            int found = (dims == 2)
+                    ? tree.kNearest(x, y, k, result, distances)
+                    : tree.kNearest(x, y, z, k, result, distances);
+            assertEquals(k, found);
+            for (int i = 0; i < k; i++) {
+                assertEquals(expected[i], distances[i], 0f);
+                assertEquals(distances[i], distance(coords, dims, result[i], x, y, z), 0f);
+            }
+
+            float radius = rng.nextFloat() * 15;
+            int expectedCount = 0;
+            while (expectedCount < expected.length && expected[expectedCount] <= radius * radius) {
+                expectedCount++;
+            }
+            int count = (dims == 2)
+                    ? tree.radius(x, y, radius, inRange)
+                    : tree.radius(x, y, z, radius, inRange);
+            assertEquals(expectedCount, count);
+            for (int i = 0; i < count; i++) {
+                assertEquals(true, distance(coords, dims, inRange[i], x, y, z) <= radius * radius);
+            }
+        }
+    }
+
+    private static float distance(float[] coords, int dims, int idx, float x, float y, float z) {
+        float dx = coords[idx * dims] - x;
+        float dy = coords[idx * dims + 1] - y;
+        float dz = dims == 3 ? coords[idx * dims + 2] - z : 0;
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    @Test
+    public void test2D() {
+        float[] coords = randomCoords(2 * 3000);
+        checkQueries(KdTree.create2D(coords, 3000), coords, 2);
+    }
+
+    @Test
+    public void test3D() {
+        float[] coords = randomCoords(3 * 3000);
+        checkQueries(KdTree.create3D(coords, 3000), coords, 3);
+    }
+
+    @Test
+    public void testParallelBuild() throws InterruptedException {
+        int count = 100000;
+        float[] coords = randomCoords(3 * count);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            checkQueries(KdTree.create3D(coords, count, executor), coords, 3);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testCollections() {
+        List<Vector2f> points = Lists.newArrayList(new Vector2f(0, 0), new Vector2f(5, 5), new Vector2f(5, 5), new Vector2f(9, 1));
+        KdTree tree = KdTree.create2D(points);
+        assertEquals(2, tree.getDimensions());
+        assertEquals(3, tree.nearest(10, 0));
+
+        int[] result = new int[1];
+        assertEquals(2, tree.radius(5, 5, 0, result));
+
+        List<Vector3f> points3d = Lists.newArrayList(new Vector3f(0, 0, 0), new Vector3f(1, 2, 3));
+        assertEquals(1, KdTree.create3D(points3d).nearest(1, 2, 2));
+        assertEquals(-1, KdTree.create3D(new float[0], 0).nearest(1, 1, 1));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testWrongDimensions() {
+        KdTree.create2D(new float[] {1, 2}, 1).nearest(1, 2, 3);
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright 2015 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.terasology.math.geom;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+/**
+ * Tests the {@link LineRasterizer} class.
+ */
+public class LineRasterizerTest {
+
+    private final Random rng = new Random(1234);
+
+    @Test
+    public void testLine() {
+        List<Vector2i> points = collect2D(0, 0, 5, 2, false);
+        assertEquals(Lists.newArrayList(new Vector2i(0, 0), new Vector2i(1, 0), new Vector2i(2, 1),
+                new Vector2i(3, 1), new Vector2i(4, 2), new Vector2i(5, 2)), points);
+
+        for (int i = 0; i < 200; i++) {
+            int x0 = rng.nextInt(41) - 20;
+            int y0 = rng.nextInt(41) - 20;
+            int x1 = rng.nextInt(41) - 20;
+            int y1 = rng.nextInt(41) - 20;
+            points = collect2D(x0, y0, x1, y1, false);
+            assertEquals(Math.max(Math.abs(x1 - x0), Math.abs(y1 - y0)) + 1, points.size());
+            assertEquals(new Vector2i(x0, y0), points.get(0));
+            assertEquals(new Vector2i(x1, y1), points.get(points.size() - 1));
+            for (int k = 1; k < points.size(); k++) {
+                Vector2i a = points.get(k - 1);
+                Vector2i b = points.get(k);
+                assertEquals(1, Math.max(Math.abs(a.x - b.x), Math.abs(a.y - b.y)));
+            }
+        }
+    }
+
+    @Test
+    public void testSupercover() {
+        List<Vector2i> diagonal = collect2D(0, 0, 2, 2, true);
+        assertEquals(7, diagonal.size());
+        assertTrue(diagonal.contains(new Vector2i(1, 0)));
+        assertTrue(diagonal.contains(new Vector2i(0, 1)));
+
+        for (int i = 0; i < 200; i++) {
+            int x0 = rng.nextInt(41) - 20;
+            int y0 = rng.nextInt(41) - 20;
+            int x1 = rng.nextInt(41) - 20;
+            int y1 = rng.nextInt(41) - 20;
+            List<Vector2i> points = collect2D(x0, y0, x1, y1, true);
+            assertEquals(new Vector2i(x0, y0), points.get(0));
+            assertEquals(new Vector2i(x1, y1), points.get(points.size() - 1));
+            assertEquals(points.size(), Sets.newHashSet(points).size());
+
+            // every sample along the segment must lie in a visited cell
+            for (int s = 0; s <= 500; s++) {
+                float t = s / 500f;
+                float px = x0 + (x1 - x0) * t;
+                float py = y0 + (y1 - y0) * t;
+                Vector2i cell = new Vector2i(Math.round(px), Math.round(py));
+                if (Math.abs(Math.abs(px - cell.x) - 0.5f) > 0.001f && Math.abs(Math.abs(py - cell.y) - 0.5f) > 0.001f) {
+                    assertTrue(points.contains(cell));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testThickLine() {
+        for (int i = 0; i < 100; i++) {
+            final int x0 = rng.nextInt(21) - 10;
+            final int y0 = rng.nextInt(21) - 10;
+            final int x1 = rng.nextInt(21) - 10;
+            final int y1 = rng.nextInt(21) - 10;
+            float width = 1 + rng.nextFloat() * 6;
+            final double rad = width * 0.5;
+
+            final Set<Vector2i> points = Sets.newHashSet();
+            assertTrue(LineRasterizer.thickLine(x0, y0, x1, y1, width, new IntPairVisitor() {
+                @Override
+                public boolean visit(int x, int y) {
+                    assertTrue(points.add(new Vector2i(x, y)));
+                    return true;
+                }
+            }));
+
+            for (int y = -20; y <= 20; y++) {
+                for (int x = -20; x <= 20; x++) {
+                    double dist = LineSegment.distanceToPoint(x0, y0, x1, y1, x, y);
+                    if (dist < rad - 0.001) {
+                        assertTrue(points.contains(new Vector2i(x, y)));
+                    }
+                    if (dist > rad + 0.001) {
+                        assertFalse(points.contains(new Vector2i(x, y)));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testLine3D() {
+        for (int i = 0; i < 200; i++) {
+            Vector3i from = new Vector3i(rng.nextInt(41) - 20, rng.nextInt(41) - 20, rng.nextInt(41) - 20);
+            Vector3i to = new Vector3i(rng.nextInt(41) - 20, rng.nextInt(41) - 20, rng.nextInt(41) - 20);
+            final List<Vector3i> points = Lists.newArrayList();
+            assertTrue(LineRasterizer.line(from, to, new IntTripleVisitor() {
+                @Override
+                public boolean visit(int x, int y, int z) {
+                    points.add(new Vector3i(x, y, z));
+                    return true;
+                }
+            }));
+
+            int steps = Math.max(Math.abs(to.x - from.x), Math.max(Math.abs(to.y - from.y), Math.abs(to.z - from.z)));
+            assertEquals(steps + 1, points.size());
+            assertEquals(from, points.get(0));
+            assertEquals(to, points.get(points.size() - 1));
+            for (int k = 1; k < points.size(); k++) {
+                Vector3i a = points.get(k - 1);
+                Vector3i b = points.get(k);
+                assertEquals(1, Math.max(Math.abs(a.x - b.x), Math.max(Math.abs(a.y - b.y), Math.abs(a.z - b.z))));
+            }
+        }
+    }
+
+    @Test
+    public void testEarlyExit() {
+        final int[] count = new int[1];
+        IntPairVisitor stopAt3 = new IntPairVisitor() {
+            @Override
+            public boolean visit(int x, int y) {
+                return ++count[0] < 3;
+            }
+        };
+        assertFalse(LineRasterizer.line(0, 0, 10, 3, stopAt3));
+        assertEquals(3, count[0]);
+        count[0] = 0;
+        assertFalse(LineRasterizer.supercover(0, 0, 10, 3, stopAt3));
+        assertEquals(3, count[0]);
+        count[0] = 0;
+        assertFalse(LineRasterizer.thickLine(0, 0, 10, 3, 3, stopAt3));
+        assertEquals(3, count[0]);
+    }
+
+    private static List<Vector2i> collect2D(int x0, int y0, int x1, int y1, boolean supercover) {
+        final List<Vector2i> points = Lists.newArrayList();
+        IntPairVisitor visitor = new IntPairVisitor() {
+            @Override
+            public boolean visit(int x, int y) {
+                points.add(new Vector2i(x, y));
+                return true;
+            }
+        };
+        if (supercover) {
+            assertTrue(LineRasterizer.supercover(new Vector2i(x0, y0), new Vector2i(x1, y1), visitor));
+        } else {
+            assertTrue(LineRasterizer.line(new Vector2i(x0, y0), new Vector2i(x1, y1), visitor));
+        }
+        return points;
+    }
+}
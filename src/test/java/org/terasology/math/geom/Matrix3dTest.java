@@ -220,6 +220,40 @@ public void testSet() {
         assertArrayEquals(data, data2, EPSILON);
     }
 
+    @Test
+    public void testInPlaceComposites() {
+        Matrix3d m = createRandomly(new Random(4321));
+        Matrix3d r = new Matrix3d();
+
+        Matrix3d actual = new Matrix3d(m);
+        Matrix3d expected = new Matrix3d(m);
+        actual.rotateX(0.7);
+        r.setRotX(0.7);
+        expected.mul(r);
+        assertTrue(expected.epsilonEquals(actual, 1e-8));
+
+        actual.rotateY(-1.3);
+        r.setRotY(-1.3);
+        expected.mul(r);
+        assertTrue(expected.epsilonEquals(actual, 1e-8));
+
+        actual.rotateZ(2.1);
+        r.rotZ(2.1);
+        expected.mul(r);
+        assertTrue(expected.epsilonEquals(actual, 1e-8));
+
+        actual.scale(2, -3, 0.5);
+        expected.mul(new Matrix3d(2, 0, 0, 0, -3, 0, 0, 0, 0.5));
+        assertTrue(expected.epsilonEquals(actual, 1e-8));
+
+        Quat4d q = new Quat4d(0.3, 0.4, 0.5);
+        q.normalize();
+        actual.rotate(q);
+        r.set(q);
+        expected.mul(r);
+        assertTrue(expected.epsilonEquals(actual, 1e-8));
+    }
+
     private Matrix3d createRandomly(Random r) {
         double[] data = new double[9];
         for (int k = 0; k < data.length; k++) {
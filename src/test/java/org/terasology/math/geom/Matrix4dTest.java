@@ -18,6 +18,7 @@
 
 import static org.junit.Assert.*;
 
+import java.util.Arrays;
 import java.util.Random;
 
 import org.junit.Test;
@@ -255,6 +256,117 @@ public void testSet() {
         assertArrayEquals(data, data2, EPSILON);
     }
 
+    @Test
+    public void testTransformPointsBatch() {
+        Matrix4d m = new Matrix4d(new Quat4d(0.3, 0.4, 0.5), new Vector3d(1, 2, 3), 2.0);
+        double[] data = new double[] {0, 0, 0, 1, 2, 3, -4, 5, -6, 7, 8, 9};
+
+        double[] points = new double[data.length + 1];
+        double[] vectors = new double[data.length];
+        m.transformPoints(data, 0, points, 1, 4);
+        m.transformVectors(data, 0, vectors, 0, 4);
+
+        for (int i = 0; i < 4; i++) {
+            Vector3d p = new Vector3d(data[i * 3], data[i * 3 + 1], data[i * 3 + 2]);
+            Vector3d v = new Vector3d(p);
+            m.transformPoint(p);
+            m.transformVector(v);
+            assertEquals(p, new Vector3d(points[i * 3 + 1], points[i * 3 + 2], points[i * 3 + 3]));
+            assertEquals(v, new Vector3d(vectors[i * 3], vectors[i * 3 + 1], vectors[i * 3 + 2]));
+        }
+
+        // in-place
+        m.transformPoints(data, 0, data, 0, 4);
+        assertArrayEquals(data, Arrays.copyOfRange(points, 1, points.length), EPSILON);
+    }
+
+    @Test
+    public void testInPlaceComposites() {
+        Matrix4d m = createRandomly(new Random(4321));
+
+        Matrix4d actual = new Matrix4d(m);
+        Matrix4d expected = new Matrix4d(m);
+        actual.translate(1, -2, 3);
+        expected.mul(new Matrix4d(1, 0, 0, 1, 0, 1, 0, -2, 0, 0, 1, 3, 0, 0, 0, 1));
+        assertTrue(expected.epsilonEquals(actual, 1e-8));
+
+        actual.scale(2, -3, 0.5);
+        expected.mul(new Matrix4d(2, 0, 0, 0, 0, -3, 0, 0, 0, 0, 0.5, 0, 0, 0, 0, 1));
+        assertTrue(expected.epsilonEquals(actual, 1e-8));
+
+        double c = Math.cos(0.7);
+        double s = Math.sin(0.7);
+        actual.rotateX(0.7);
+        expected.mul(new Matrix4d(1, 0, 0, 0, 0, c, -s, 0, 0, s, c, 0, 0, 0, 0, 1));
+        assertTrue(expected.epsilonEquals(actual, 1e-8));
+
+        actual.rotateY(0.7);
+        expected.mul(new Matrix4d(c, 0, s, 0, 0, 1, 0, 0, -s, 0, c, 0, 0, 0, 0, 1));
+        assertTrue(expected.epsilonEquals(actual, 1e-8));
+
+        actual.rotateZ(0.7);
+        expected.mul(new Matrix4d(c, -s, 0, 0, s, c, 0, 0, 0, 0, 1, 0, 0, 0, 0, 1));
+        assertTrue(expected.epsilonEquals(actual, 1e-8));
+
+        Quat4d q = new Quat4d(0.3, 0.4, 0.5);
+        q.normalize();
+        actual.rotate(q);
+        expected.mul(new Matrix4d(q, new Vector3d(), 1));
+        assertTrue(expected.epsilonEquals(actual, 1e-8));
+
+        // mulAffine requires both matrices to be affine
+        Matrix4d affine = new Matrix4d(q, new Vector3d(4, 5, 6), 2);
+        actual.set(affine);
+        actual.translate(-1, 2, 7);
+        expected.set(actual);
+        actual.mulAffine(affine);
+        expected.mul(affine);
+        assertTrue(expected.epsilonEquals(actual, 1e-8));
+    }
+
+    @Test
+    public void testProjections() {
+        double near = 1;
+        double far = 100;
+        Matrix4d actual = new Matrix4d(BaseMatrix4d.IDENTITY);
+        actual.perspective(Math.PI / 2, 2, near, far);
+        Matrix4d expected = new Matrix4d(
+                0.5, 0, 0, 0,
+                0, 1, 0, 0,
+                0, 0, -(far + near) / (far - near), -2 * far * near / (far - near),
+                0, 0, -1, 0);
+        assertTrue(expected.epsilonEquals(actual, EPSILON));
+
+        actual.setIdentity();
+        actual.ortho(-2, 6, -1, 3, 1, 11);
+        expected = new Matrix4d(
+                0.25, 0, 0, -0.5,
+                0, 0.5, 0, -0.5,
+                0, 0, -0.2, -1.2,
+                0, 0, 0, 1);
+        assertTrue(expected.epsilonEquals(actual, EPSILON));
+    }
+
+    @Test
+    public void testLookAt() {
+        Vector3d eye = new Vector3d(1, 2, 3);
+        Vector3d center = new Vector3d(4, 2, -1);
+        Matrix4d view = new Matrix4d(BaseMatrix4d.IDENTITY);
+        view.lookAt(eye, center, new Vector3d(0, 1, 0));
+
+        Vector3d p = new Vector3d(eye);
+        view.transformPoint(p);
+        assertEquals(0, p.length(), EPSILON);
+
+        p.set(center);
+        view.transformPoint(p);
+        assertEquals(0, p.distance(new Vector3d(0, 0, -5)), EPSILON);
+
+        p.set(1, 3, 3);
+        view.transformPoint(p);
+        assertEquals(0, p.distance(new Vector3d(0, 1, 0)), EPSILON);
+    }
+
     private double[] plainInts() {
         return new double[] { 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16 };
     }
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2015 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.terasology.math.geom;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Iterator;
+import java.util.Set;
+
+import org.junit.Test;
+import org.terasology.math.TeraMath;
+
+import com.google.common.collect.Sets;
+
+/**
+ * Tests the {@link MortonCurve} class.
+ */
+public class MortonCurveTest {
+
+    @Test
+    public void testSquareOrder() {
+        Iterator<BaseVector2i> it = Rect2i.createFromMinAndSize(10, -4, 4, 4).contentsMorton().iterator();
+        for (int code = 0; code < 16; code++) {
+            BaseVector2i pos = it.next();
+            assertEquals(10 + TeraMath.decodeMorton2DX(code), pos.getX());
+            assertEquals(-4 + TeraMath.decodeMorton2DY(code), pos.getY());
+        }
+        assertFalse(it.hasNext());
+    }
+
+    @Test
+    public void testRect() {
+        Rect2i rect = Rect2i.createFromMinAndSize(-3, 5, 7, 11);
+        Set<Vector2i> visited = Sets.newHashSet();
+        long lastCode = -1;
+        for (BaseVector2i pos : rect.contentsMorton()) {
+            assertTrue(rect.contains(pos));
+            assertTrue("visited twice", visited.add(new Vector2i(pos)));
+            long code = TeraMath.encodeMorton2D(pos.getX() - rect.minX(), pos.getY() - rect.minY());
+            assertTrue("not in Z-order", code > lastCode);
+            lastCode = code;
+        }
+        assertEquals(rect.area(), visited.size());
+        assertFalse(Rect2i.EMPTY.contentsMorton().iterator().hasNext());
+    }
+
+    @Test
+    public void testBox() {
+        Set<Vector3i> visited = Sets.newHashSet();
+        long lastCode = -1;
+        for (BaseVector3i pos : MortonCurve.contents(1, -2, 3, 5, 4, 4)) {
+            assertTrue(pos.getX() >= 1 && pos.getX() <= 5);
+            assertTrue(pos.getY() >= -2 && pos.getY() <= 4);
+            assertTrue(pos.getZ() >= 3 && pos.getZ() <= 4);
+            assertTrue("visited twice", visited.add(new Vector3i(pos)));
+            long code = TeraMath.encodeMorton3D(pos.getX() - 1, pos.getY() + 2, pos.getZ() - 3);
+            assertTrue("not in Z-order", code > lastCode);
+            lastCode = code;
+        }
+        assertEquals(5 * 7 * 2, visited.size());
+        assertFalse(MortonCurve.contents(0, 0, 0, -1, 0, 0).iterator().hasNext());
+    }
+}
@@ -0,0 +1,223 @@
+/*
+ * Copyright 2015 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.terasology.math.geom;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Tests the {@link Octree3i} class.
+ */
+public class Octree3iTest {
+
+    private final Random rng = new Random(2015);
+
+    @Test
+    public void testSetGetCollapse() {
+        Octree3i<Integer> tree = new Octree3i<Integer>(-8, -8, -8, 13, null);
+        assertEquals(16, tree.getSize());
+        assertEquals(4, tree.getMaxDepth());
+        assertEquals(1, tree.getNodeCount());
+
+        tree.set(-8, 7, 0, 5);
+        assertEquals(Integer.valueOf(5), tree.get(-8, 7, 0));
+        assertNull(tree.get(-7, 7, 0));
+        assertEquals(1 + 4 * 8, tree.getNodeCount());
+
+        tree.set(-8, 7, 0, null);
+        assertEquals(1, tree.getNodeCount());
+
+        // filling a 2x2x2 cube aligned to the grid and then all of it must collapse
+        for (int i = 0; i < 8; i++) {
+            tree.set((i & 1), (i >> 1) & 1, (i >> 2) & 1, 3);
+        }
+        assertEquals(1 + 3 * 8, tree.getNodeCount());
+        tree.fill(-8, -8, -8, 7, 7, 7, 3);
+        assertEquals(1, tree.getNodeCount());
+        assertEquals(Integer.valueOf(3), tree.get(new Vector3i(1, 2, 3)));
+    }
+
+    @Test
+    public void testFill() {
+        Octree3i<Integer> tree = new Octree3i<Integer>(0, 0, 0, 16, 0);
+        tree.fill(2, 3, 4, 9, 10, 15, 1);
+        for (int z = 0; z < 16; z++) {
+            for (int y = 0; y < 16; y++) {
+                for (int x = 0; x < 16; x++) {
+                    boolean inside = x >= 2 && x <= 9 && y >= 3 && y <= 10 && z >= 4;
+                    assertEquals(inside ? 1 : 0, tree.get(x, y, z).intValue());
+                }
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testOutside() {
+        new Octree3i<Integer>(0, 0, 0, 8, 0).get(8, 0, 0);
+    }
+
+    private Octree3i<Integer> randomTree() {
+        Octree3i<Integer> tree = new Octree3i<Integer>(-16, 0, 16, 32, 0);
+        for (int i = 0; i < 200; i++) {
+            int x = rng.nextInt(32) - 16;
+            int y = rng.nextInt(32);
+            int z = rng.nextInt(32) + 16;
+            tree.set(x, y, z, rng.nextInt(3));
+        }
+        return tree;
+    }
+
+    @Test
+    public void testBoxAndSphere() {
+        final Octree3i<Integer> tree = randomTree();
+        final int[] volume = new int[1];
+        tree.queryBox(-10, 5, 20, -3, 12, 30, new Octree3i.Visitor<Integer>() {
+            @Override
+            public boolean visit(int x, int y, int z, int size, Integer value) {
+                for (int i = 0; i < size * size * size; i++) {
+                    int px = x + i % size;
+                    int py = y + (i / size) % size;
+                    int pz = z + i / (size * size);
+                    assertEquals(value, tree.get(px, py, pz));
+                    if (px >= -10 && px <= -3 && py >= 5 && py <= 12 && pz >= 20 && pz <= 30) {
+                        volume[0]++;
+                    }
+                }
+                return true;
+            }
+        });
+        assertEquals(8 * 8 * 11, volume[0]);
+
+        final int[] found = new int[1];
+        tree.querySphere(0, 16, 32, 3, new Octree3i.Visitor<Integer>() {
+            @Override
+            public boolean visit(int x, int y, int z, int size, Integer value) {
+                for (int i = 0; i < size * size * size; i++) {
+                    int dx = x + i % size;
+                    int dy = y + (i / size) % size - 16;
+                    int dz = z + i / (size * size) - 32;
+                    if (dx * dx + dy * dy + dz * dz <= 9) {
+                        found[0]++;
+                    }
+                }
+                return true;
+            }
+        });
+        int expected = 0;
+        for (int dz = -3; dz <= 3; dz++) {
+            for (int dy = -3; dy <= 3; dy++) {
+                for (int dx = -3; dx <= 3; dx++) {
+                    if (dx * dx + dy * dy + dz * dz <= 9) {
+                        expected++;
+                    }
+                }
+            }
+        }
+        assertEquals(expected, found[0]);
+    }
+
+    @Test
+    public void testRay() {
+        Octree3i<Integer> tree = randomTree();
+        for (int r = 0; r < 200; r++) {
+            final Vector3f origin = new Vector3f(rng.nextFloat() * 48 - 24, rng.nextFloat() * 48 - 8, rng.nextFloat() * 48 + 8);
+            final Vector3f dir = new Vector3f(rng.nextFloat() - 0.5f, rng.nextFloat() - 0.5f, rng.nextFloat() - 0.5f);
+            if (r % 4 == 0) {
+                dir.y = 0;
+            }
+            final float maxDist = 100;
+
+            final List<float[]> hits = Lists.newArrayList();
+            tree.queryRay(origin, dir, maxDist, new Octree3i.Visitor<Integer>() {
+                @Override
+                public boolean visit(int x, int y, int z, int size, Integer value) {
+                    float[] t = slab(origin, dir, x, y, z, size);
+                    assertTrue("leaf not hit", t[0] <= t[1] + 0.001f && t[1] >= -0.001f);
+                    hits.add(t);
+                    return true;
+                }
+            });
+
+            // front-to-back order
+            for (int i = 1; i < hits.size(); i++) {
+                assertTrue(hits.get(i - 1)[0] <= hits.get(i)[0] + 0.001f);
+            }
+
+            // compare against all leaves
+            final int[] expected = new int[1];
+            tree.queryBox(-16, 0, 16, 15, 31, 47, new Octree3i.Visitor<Integer>() {
+                @Override
+                public boolean visit(int x, int y, int z, int size, Integer value) {
+                    float[] t = slab(origin, dir, x, y, z, size);
+                    // skip grazing hits, which are ambiguous
+                    if (t[0] < t[1] - 0.001f && t[1] > 0.001f && t[0] < maxDist) {
+                        expected[0]++;
+                    }
+                    return true;
+                }
+            });
+            assertTrue(hits.size() >= expected[0]);
+        }
+    }
+
+    @Test
+    public void testRayEarlyExit() {
+        Octree3i<Integer> tree = new Octree3i<Integer>(0, 0, 0, 8, 0);
+        tree.set(3, 0, 0, 1);
+        final List<Integer> values = Lists.newArrayList();
+        boolean completed = tree.queryRay(new Vector3f(0.5f, 0.5f, 0.5f), new Vector3f(1, 0, 0), 100, new Octree3i.Visitor<Integer>() {
+            @Override
+            public boolean visit(int x, int y, int z, int size, Integer value) {
+                values.add(x);
+                return value == 0;
+            }
+        });
+        assertFalse(completed);
+        // x = 0 is a uniform 2x2x2 leaf
+        assertEquals(Lists.newArrayList(0, 2, 3), values);
+    }
+
+    private static float[] slab(Vector3f o, Vector3f d, int x, int y, int z, int size) {
+        float[] min = {x, y, z};
+        float[] org = {o.x, o.y, o.z};
+        float[] dir = {d.x, d.y, d.z};
+        float t0 = Float.NEGATIVE_INFINITY;
+        float t1 = Float.POSITIVE_INFINITY;
+        for (int a = 0; a < 3; a++) {
+            if (dir[a] == 0) {
+                if (org[a] < min[a] || org[a] > min[a] + size) {
+                    return new float[] {1, 0};
+                }
+            } else {
+                float ta = (min[a] - org[a]) / dir[a];
+                float tb = (min[a] + size - org[a]) / dir[a];
+                t0 = Math.max(t0, Math.min(ta, tb));
+                t1 = Math.min(t1, Math.max(ta, tb));
+            }
+        }
+        return new float[] {t0, t1};
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright 2015 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.terasology.math.geom;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+/**
+ * Tests the {@link PackedRTree} class against a brute-force search.
+ */
+public class PackedRTreeTest {
+
+    private final Random rng = new Random(4711);
+
+    private List<Rect2f> createRects(int count) {
+        List<Rect2f> rects = Lists.newArrayList();
+        for (int i = 0; i < count; i++) {
+            float x = rng.nextFloat() * 1000;
+            float y = rng.nextFloat() * 1000;
+            rects.add(Rect2f.createFromMinAndSize(x, y, rng.nextFloat() * 20 + 1, rng.nextFloat() * 20 + 1));
+        }
+        return rects;
+    }
+
+    private static IndexVisitor collector(final Set<Integer> target) {
+        return new IndexVisitor() {
+            @Override
+            public boolean visit(int index) {
+                target.add(index);
+                return true;
+            }
+        };
+    }
+
+    @Test
+    public void testQueries() {
+        List<Rect2f> rects = createRects(2000);
+        PackedRTree tree = new PackedRTree(rects, 8);
+        assertEquals(2000, tree.size());
+
+        for (int q = 0; q < 100; q++) {
+            Rect2f area = Rect2f.createFromMinAndSize(rng.nextFloat() * 1000, rng.nextFloat() * 1000, 50, 30);
+            float px = rng.nextFloat() * 1000;
+            float py = rng.nextFloat() * 1000;
+
+            Set<Integer> intersecting = Sets.newHashSet();
+            Set<Integer> contained = Sets.newHashSet();
+            Set<Integer> containing = Sets.newHashSet();
+            for (int i = 0; i < rects.size(); i++) {
+                Rect2f rc = rects.get(i);
+                if (rc.intersects(area)) {
+                    intersecting.add(i);
+                }
+                if (area.contains(rc)) {
+                    contained.add(i);
+                }
+                if (rc.contains(px, py)) {
+                    containing.add(i);
+                }
+            }
+
+            Set<Integer> actual = Sets.newHashSet();
+            tree.queryIntersecting(area, collector(actual));
+            assertEquals(intersecting, actual);
+
+            actual.clear();
+            tree.queryContainedIn(area, collector(actual));
+            assertEquals(contained, actual);
+
+            actual.clear();
+            tree.queryContaining(px, py, collector(actual));
+            assertEquals(containing, actual);
+        }
+    }
+
+    @Test
+    public void testNearest() {
+        List<Rect2f> rects = createRects(1000);
+
+        PackedRTree tree = new PackedRTree(rects);
+        checkNearest(rects, tree);
+
+        // small nodes give a deep tree with many pruning decisions - results must be the same
+        PackedRTree deepTree = new PackedRTree(rects, 2);
+        int k = 5;
+        int[] indices = new int[k];
+        float[] distances = new float[k];
+        int[] deepIndices = new int[k];
+        float[] deepDistances = new float[k];
+        for (int q = 0; q < 50; q++) {
+            float px = rng.nextFloat() * 1200 - 100;
+            float py = rng.nextFloat() * 1200 - 100;
+            assertEquals(k, tree.kNearest(px, py, k, indices, distances));
+            assertEquals(k, deepTree.kNearest(px, py, k, deepIndices, deepDistances));
+            assertArrayEquals(distances, deepDistances, 0f);
+
+            int nearest = deepTree.nearest(px, py);
+            assertEquals(rects.get(indices[0]).distanceSquared(px, py), rects.get(nearest).distanceSquared(px, py), 0f);
+        }
+    }
+
+    private void checkNearest(List<Rect2f> rects, PackedRTree tree) {
+        int k = 5;
+        int[] indices = new int[k];
+        float[] distances = new float[k];
+        List<Float> all = Lists.newArrayList();
+        for (int q = 0; q < 50; q++) {
+            float px = rng.nextFloat() * 1200 - 100;
+            float py = rng.nextFloat() * 1200 - 100;
+
+            all.clear();
+            for (Rect2f rc : rects) {
+                all.add(rc.distanceSquared(px, py));
+            }
+
+            int nearest = tree.nearest(px, py);
+            assertEquals(Collections.min(all), rects.get(nearest).distanceSquared(px, py), 0.01f);
+
+            Collections.sort(all);
+            assertEquals(k, tree.kNearest(px, py, k, indices, distances));
+            for (int i = 0; i < k; i++) {
+                assertEquals(all.get(i), distances[i], 0.01f);
+                assertEquals(distances[i], rects.get(indices[i]).distanceSquared(px, py), 0.01f);
+            }
+        }
+    }
+
+    @Test
+    public void testSmallAndEmpty() {
+        PackedRTree empty = new PackedRTree(Collections.<Rect2f>emptyList());
+        assertEquals(-1, empty.nearest(0, 0));
+        assertEquals(Rect2f.EMPTY, empty.getBounds());
+
+        Rect2f rc = Rect2f.createFromMinAndSize(1, 2, 3, 4);
+        PackedRTree single = new PackedRTree(Lists.newArrayList(rc, Rect2f.EMPTY));
+        assertEquals(0, single.nearest(10, 10));
+        assertEquals(rc, single.getBounds());
+
+        int[] indices = new int[3];
+        float[] distances = new float[3];
+        assertEquals(1, single.kNearest(0, 0, 3, indices, distances));
+    }
+
+    @Test
+    public void testEarlyExit() {
+        PackedRTree tree = new PackedRTree(createRects(500));
+        final int[] count = new int[1];
+        boolean completed = tree.queryIntersecting(tree.getBounds(), new IndexVisitor() {
+            @Override
+            public boolean visit(int index) {
+                count[0]++;
+                return count[0] < 3;
+            }
+        });
+        assertFalse(completed);
+        assertEquals(3, count[0]);
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2015 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.terasology.math.geom;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the {@link ParallelIteration} class.
+ */
+public class ParallelIterationTest {
+
+    private ExecutorService executor;
+
+    @Before
+    public void setup() {
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @After
+    public void teardown() {
+        executor.shutdown();
+    }
+
+    @Test
+    public void testRect() throws InterruptedException {
+        final Rect2i rect = Rect2i.createFromMinAndSize(-7, 3, 45, 31);
+        final AtomicIntegerArray visits = new AtomicIntegerArray(rect.area());
+        assertTrue(ParallelIteration.forEach(rect, 8, executor, new IntPairVisitor() {
+            @Override
+            public boolean visit(int x, int y) {
+                visits.incrementAndGet((y - rect.minY()) * rect.width() + x - rect.minX());
+                return true;
+            }
+        }));
+        for (int i = 0; i < visits.length(); i++) {
+            assertEquals(1, visits.get(i));
+        }
+    }
+
+    @Test
+    public void testRegion() throws InterruptedException {
+        final Region3i region = Region3i.createFromMinAndSize(2, -3, 5, 9, 13, 4);
+        final AtomicIntegerArray visits = new AtomicIntegerArray(region.volume());
+        assertTrue(ParallelIteration.forEach(region, 5, executor, new IntTripleVisitor() {
+            @Override
+            public boolean visit(int x, int y, int z) {
+                int index = ((y - region.minY()) * region.sizeZ() + z - region.minZ()) * region.sizeX() + x - region.minX();
+                visits.incrementAndGet(index);
+                return true;
+            }
+        }));
+        for (int i = 0; i < visits.length(); i++) {
+            assertEquals(1, visits.get(i));
+        }
+    }
+
+    @Test
+    public void testStop() throws InterruptedException {
+        Rect2i rect = Rect2i.createFromMinAndSize(0, 0, 100, 1000);
+        final AtomicInteger count = new AtomicInteger();
+        assertFalse(ParallelIteration.forEach(rect, 4, executor, new IntPairVisitor() {
+            @Override
+            public boolean visit(int x, int y) {
+                return count.incrementAndGet() != 50;
+            }
+        }));
+        assertTrue(count.get() < rect.area());
+    }
+
+    @Test
+    public void testEmpty() throws InterruptedException {
+        assertTrue(ParallelIteration.forEach(Rect2i.EMPTY, 4, executor, null));
+        assertTrue(ParallelIteration.forEach(Region3i.EMPTY, 4, executor, null));
+    }
+}
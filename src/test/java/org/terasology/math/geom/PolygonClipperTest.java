@@ -0,0 +1,144 @@
+/*
+ * Copyright 2015 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.terasology.math.geom;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests the {@link PolygonClipper} class.
+ */
+public class PolygonClipperTest {
+
+    private final PolygonClipper clipper = new PolygonClipper();
+
+    @Test
+    public void testRectOverlap() {
+        Polygon square = square(0, 0, 4);
+        assertEquals(4, clipper.clip(square, Rect2f.createFromMinAndSize(2, 1, 10, 2)));
+        Polygon clipped = clipper.toPolygon();
+        assertEquals(4, clipped.area(), 0.0001);
+        Rect2f bounds = clipped.getBounds();
+        assertEquals(2, bounds.minX(), 0);
+        assertEquals(1, bounds.minY(), 0);
+        assertEquals(4, bounds.maxX(), 0);
+        assertEquals(3, bounds.maxY(), 0);
+    }
+
+    @Test
+    public void testRectInsideAndOutside() {
+        Polygon square = square(1, 1, 2);
+        assertEquals(4, clipper.clip(square, Rect2f.createFromMinAndSize(0, 0, 10, 10)));
+        assertEquals(4, clipper.toPolygon().area(), 0.0001);
+
+        assertEquals(0, clipper.clip(square, Rect2f.createFromMinAndSize(5, 5, 1, 1)));
+        assertNull(clipper.toPolygon());
+
+        assertEquals(0, clipper.clip(square, Rect2f.EMPTY));
+    }
+
+    @Test
+    public void testRect2i() {
+        // the rect covers the cells [0..1] x [0..1], i.e. the area [0..2] x [0..2]
+        Polygon square = square(-1, -1, 5);
+        assertEquals(4, clipper.clip(square, Rect2i.createFromMinAndMax(0, 0, 1, 1)));
+        assertEquals(4, clipper.toPolygon().area(), 0.0001);
+    }
+
+    @Test
+    public void testTriangleCorner() {
+        // a triangle that cuts three corners of the clip rect gives a heptagon
+        float[] coords = {-1, 2, 2, -1, 4, 4};
+        int count = clipper.clip(coords, 3, Rect2f.createFromMinAndSize(0, 0, 3, 3));
+        assertEquals(7, count);
+        for (int i = 0; i < count; i++) {
+            assertTrue(clipper.getX(i) >= 0 && clipper.getX(i) <= 3);
+            assertTrue(clipper.getY(i) >= 0 && clipper.getY(i) <= 3);
+        }
+        assertEquals(9 - 0.5f - 0.45f - 0.45f, clipper.toPolygon().area(), 0.0001);
+    }
+
+    @Test
+    public void testConvex() {
+        Polygon square = square(0, 0, 2);
+
+        // the clip diamond cuts off all four corners of the square
+        Polygon diamond = Polygon.createCopy(Arrays.asList(
+                new Vector2f(1, -0.5f), new Vector2f(2.5f, 1), new Vector2f(1, 2.5f), new Vector2f(-0.5f, 1)));
+        assertEquals(8, clipper.clip(square, diamond));
+        assertEquals(4 - 4 * 0.125f, clipper.toPolygon().area(), 0.0001);
+
+        // clockwise clip polygons work as well
+        Polygon reversed = Polygon.createCopy(Arrays.asList(
+                new Vector2f(-0.5f, 1), new Vector2f(1, 2.5f), new Vector2f(2.5f, 1), new Vector2f(1, -0.5f)));
+        assertEquals(8, clipper.clip(square, reversed));
+        assertEquals(3.5f, clipper.toPolygon().area(), 0.0001);
+    }
+
+    @Test
+    public void testRandomConvex() {
+        Random rng = new Random(1234);
+        for (int run = 0; run < 50; run++) {
+            float[] subject = new float[20];
+            for (int i = 0; i < subject.length; i++) {
+                subject[i] = rng.nextFloat() * 10;
+            }
+            Polygon clip = ConvexHull.compute(subject, 10);
+            Polygon hull = ConvexHull.compute(randomCoords(rng, 16), 8);
+
+            float[] coords = new float[hull.vertexCount() * 2];
+            for (int i = 0; i < hull.vertexCount(); i++) {
+                coords[i * 2] = hull.getX(i);
+                coords[i * 2 + 1] = hull.getY(i);
+            }
+
+            float[] clipCoords = new float[clip.vertexCount() * 2];
+            for (int i = 0; i < clip.vertexCount(); i++) {
+                clipCoords[i * 2] = clip.getX(i);
+                clipCoords[i * 2 + 1] = clip.getY(i);
+            }
+
+            // clipping is symmetric for convex polygons
+            int count = clipper.clip(coords, hull.vertexCount(), clipCoords, clip.vertexCount());
+            float area = count >= 3 ? clipper.toPolygon().area() : 0;
+            count = clipper.clip(clipCoords, clip.vertexCount(), coords, hull.vertexCount());
+            float reverseArea = count >= 3 ? clipper.toPolygon().area() : 0;
+            assertEquals(area, reverseArea, 0.001);
+            assertTrue(area <= Math.min(clip.area(), hull.area()) + 0.001);
+        }
+    }
+
+    private static float[] randomCoords(Random rng, int length) {
+        float[] coords = new float[length];
+        for (int i = 0; i < length; i++) {
+            coords[i] = rng.nextFloat() * 10;
+        }
+        return coords;
+    }
+
+    private static Polygon square(float x, float y, float size) {
+        return Polygon.createCopy(Arrays.asList(
+                new Vector2f(x, y), new Vector2f(x + size, y),
+                new Vector2f(x + size, y + size), new Vector2f(x, y + size)));
+    }
+}
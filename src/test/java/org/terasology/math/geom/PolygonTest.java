@@ -35,4 +35,40 @@ public void testBoundingBox() {
                 new Vector2f(2, 1)));
         Assert.assertEquals(Rect2f.createFromMinAndMax(0, 0, 2, 2), poly.getBounds());
     }
+
+    @Test
+    public void testVertexAccess() {
+        Polygon poly = Polygon.createCopy(Arrays.asList(
+                new Vector2f(1, 0),
+                new Vector2f(0, 1),
+                new Vector2f(1, 2)));
+        Assert.assertEquals(3, poly.vertexCount());
+        Assert.assertEquals(0f, poly.getX(1), 0f);
+        Assert.assertEquals(2f, poly.getY(2), 0f);
+    }
+
+    @Test
+    public void testPackedCoords() {
+        float[] coords = {1, 0, 0, 1, 1, 2, 2, 1, 99, 99};
+        Polygon poly = Polygon.createCopy(coords, 4);
+
+        // the array is copied
+        coords[0] = 42;
+
+        Assert.assertEquals(4, poly.vertexCount());
+        Assert.assertEquals(1f, poly.getX(0), 0f);
+        Assert.assertEquals(Rect2f.createFromMinAndMax(0, 0, 2, 2), poly.getBounds());
+        Assert.assertEquals(2f, poly.area(), 0.0001f);
+        Assert.assertEquals(Winding.CLOCKWISE, poly.winding());
+        Assert.assertTrue(poly.contains(1, 1));
+        Assert.assertFalse(poly.contains(1.9f, 1.9f));
+
+        float[] target = poly.getCoords(new float[8]);
+        Assert.assertArrayEquals(new float[] {1, 0, 0, 1, 1, 2, 2, 1}, target, 0f);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testVertexIndexOutOfBounds() {
+        Polygon.createCopy(new float[] {1, 0, 0, 1, 1, 2}, 3).getX(3);
+    }
 }
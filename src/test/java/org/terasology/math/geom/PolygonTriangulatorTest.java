@@ -0,0 +1,229 @@
+/*
+ * Copyright 2015 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.terasology.math.geom;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Tests the {@link PolygonTriangulator} class.
+ */
+public class PolygonTriangulatorTest {
+
+    @Test
+    public void testSquare() {
+        Polygon square = Polygon.createCopy(Arrays.asList(
+                new Vector2f(0, 0), new Vector2f(1, 0), new Vector2f(1, 1), new Vector2f(0, 1)));
+        int[] result = new int[PolygonTriangulator.maxIndexCount(4, 0)];
+        assertEquals(6, PolygonTriangulator.triangulate(square, result));
+        assertEquals(1, triangleArea(toCoords(square), result, 6), 0.0001);
+    }
+
+    @Test
+    public void testClockwiseConcave() {
+        // an L-shape in clockwise order
+        Polygon poly = Polygon.createCopy(Arrays.asList(
+                new Vector2f(0, 0), new Vector2f(0, 3), new Vector2f(1, 3),
+                new Vector2f(1, 1), new Vector2f(3, 1), new Vector2f(3, 0)));
+        int[] result = new int[PolygonTriangulator.maxIndexCount(6, 0)];
+        int count = PolygonTriangulator.triangulate(poly, result);
+        assertEquals(12, count);
+        assertEquals(poly.area(), triangleArea(toCoords(poly), result, count), 0.0001);
+        checkInside(poly, toCoords(poly), result, count);
+    }
+
+    @Test
+    public void testStars() {
+        Random rng = new Random(1234);
+        for (int i = 0; i < 50; i++) {
+            int n = 3 + rng.nextInt(200);
+            Polygon star = createStar(rng, n, 0, 0, 10, 50);
+            float[] coords = toCoords(star);
+            int[] result = new int[PolygonTriangulator.maxIndexCount(n, 0)];
+            int count = PolygonTriangulator.triangulate(star, result);
+            assertEquals(3 * (n - 2), count);
+            assertEquals(star.area(), triangleArea(coords, result, count), star.area() * 0.0001);
+            checkInside(star, coords, result, count);
+        }
+    }
+
+    @Test
+    public void testHoles() {
+        Polygon outline = Polygon.createCopy(Arrays.asList(
+                new Vector2f(0, 0), new Vector2f(10, 0), new Vector2f(10, 10), new Vector2f(0, 10)));
+        Polygon hole1 = Polygon.createCopy(Arrays.asList(
+                new Vector2f(2, 2), new Vector2f(4, 2), new Vector2f(4, 4), new Vector2f(2, 4)));
+        Polygon hole2 = Polygon.createCopy(Arrays.asList(
+                new Vector2f(6, 6), new Vector2f(8, 6), new Vector2f(7, 8)));
+        List<Polygon> holes = Lists.newArrayList(hole1, hole2);
+
+        int[] result = new int[PolygonTriangulator.maxIndexCount(11, 2)];
+        int count = PolygonTriangulator.triangulate(outline, holes, result);
+        assertEquals(3 * (11 + 2 * 2 - 2), count);
+
+        float[] coords = new float[22];
+        System.arraycopy(toCoords(outline), 0, coords, 0, 8);
+        System.arraycopy(toCoords(hole1), 0, coords, 8, 8);
+        System.arraycopy(toCoords(hole2), 0, coords, 16, 6);
+        assertEquals(100 - 4 - 2, triangleArea(coords, result, count), 0.0001);
+
+        // no triangle covers a hole
+        for (int t = 0; t < count; t += 3) {
+            float cx = (coords[result[t] * 2] + coords[result[t + 1] * 2] + coords[result[t + 2] * 2]) / 3;
+            float cy = (coords[result[t] * 2 + 1] + coords[result[t + 1] * 2 + 1] + coords[result[t + 2] * 2 + 1]) / 3;
+            assertTrue(!hole1.contains(cx, cy) && !hole2.contains(cx, cy));
+        }
+    }
+
+    @Test
+    public void testHolesOnRay() {
+        // the ray from the leftmost point of the second hole passes through the bridge end of the first
+        Polygon hole1 = Polygon.createCopy(Arrays.asList(
+                new Vector2f(-1, 0), new Vector2f(-4, 1.7320508f), new Vector2f(-4, -1.7320508f)));
+        Polygon hole2 = Polygon.createCopy(Arrays.asList(
+                new Vector2f(5, 0), new Vector2f(2, 1.7320508f), new Vector2f(2, -1.7320508f)));
+        List<Polygon> holes = Lists.newArrayList(hole1, hole2);
+
+        Random rng = new Random(1);
+        for (int i = 0; i < 200; i++) {
+            Polygon outline = createStar(rng, 12, 0, 0, 12, 18);
+            checkHoles(outline, holes);
+        }
+    }
+
+    @Test
+    public void testCollinearHoles() {
+        // all leftmost hole points are on the same horizontal line
+        List<Polygon> holes = Lists.newArrayList();
+        for (int i = 0; i < 8; i++) {
+            float x = -40 + i * 10;
+            holes.add(Polygon.createCopy(Arrays.asList(
+                    new Vector2f(x + 3, 0), new Vector2f(x, 2), new Vector2f(x, -2))));
+            holes.add(Polygon.createCopy(Arrays.asList(
+                    new Vector2f(x + 2, 5), new Vector2f(x + 4, 5), new Vector2f(x + 4, 8), new Vector2f(x + 2, 8))));
+        }
+
+        Random rng = new Random(5678);
+        for (int i = 0; i < 50; i++) {
+            Polygon outline = createStar(rng, 4 + rng.nextInt(40), 0, 0, 60, 80);
+            checkHoles(outline, holes);
+        }
+    }
+
+    @Test
+    public void testLarge() {
+        Random rng = new Random(42);
+        int n = 20000;
+        Polygon star = createStar(rng, n, 0, 0, 100, 200);
+        int[] result = new int[PolygonTriangulator.maxIndexCount(n, 0)];
+        int count = PolygonTriangulator.triangulate(star, result);
+        assertEquals(3 * (n - 2), count);
+        assertEquals(star.area(), triangleArea(toCoords(star), result, count), star.area() * 0.0001);
+    }
+
+    @Test
+    public void testDegenerate() {
+        int[] result = new int[PolygonTriangulator.maxIndexCount(5, 0)];
+        // collinear vertices produce no triangles at all
+        Polygon line = Polygon.createCopy(Arrays.asList(new Vector2f(0, 0), new Vector2f(1, 1), new Vector2f(2, 2)));
+        assertEquals(0, PolygonTriangulator.triangulate(line, result));
+
+        // duplicate vertices are ignored
+        Polygon dup = Polygon.createCopy(Arrays.asList(
+                new Vector2f(0, 0), new Vector2f(0, 0), new Vector2f(4, 0), new Vector2f(4, 4), new Vector2f(0, 4)));
+        int count = PolygonTriangulator.triangulate(dup, Collections.<Polygon>emptyList(), result);
+        assertEquals(16, triangleArea(toCoords(dup), result, count), 0.0001);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testResultTooSmall() {
+        Polygon square = Polygon.createCopy(Arrays.asList(
+                new Vector2f(0, 0), new Vector2f(1, 0), new Vector2f(1, 1), new Vector2f(0, 1)));
+        PolygonTriangulator.triangulate(square, new int[5]);
+    }
+
+    private static void checkHoles(Polygon outline, List<Polygon> holes) {
+        int n = outline.vertexCount();
+        double expected = outline.area();
+        for (Polygon hole : holes) {
+            n += hole.vertexCount();
+            expected -= hole.area();
+        }
+
+        float[] coords = new float[n * 2];
+        System.arraycopy(toCoords(outline), 0, coords, 0, outline.vertexCount() * 2);
+        int offset = outline.vertexCount() * 2;
+        for (Polygon hole : holes) {
+            System.arraycopy(toCoords(hole), 0, coords, offset, hole.vertexCount() * 2);
+            offset += hole.vertexCount() * 2;
+        }
+
+        int[] result = new int[PolygonTriangulator.maxIndexCount(n, holes.size())];
+        int count = PolygonTriangulator.triangulate(outline, holes, result);
+        // overlapping triangles would cover more than the actual area
+        assertEquals(expected, triangleArea(coords, result, count), expected * 0.0001);
+    }
+
+    private static Polygon createStar(Random rng, int n, float cx, float cy, float minRad, float maxRad) {
+        List<Vector2f> vertices = Lists.newArrayList();
+        for (int k = 0; k < n; k++) {
+            double angle = 2 * Math.PI * k / n;
+            double rad = minRad + rng.nextDouble() * (maxRad - minRad);
+            vertices.add(new Vector2f((float) (cx + Math.cos(angle) * rad), (float) (cy + Math.sin(angle) * rad)));
+        }
+        return Polygon.createCopy(vertices);
+    }
+
+    private static float[] toCoords(Polygon poly) {
+        float[] coords = new float[poly.vertexCount() * 2];
+        for (int i = 0; i < poly.vertexCount(); i++) {
+            coords[i * 2] = poly.getX(i);
+            coords[i * 2 + 1] = poly.getY(i);
+        }
+        return coords;
+    }
+
+    private static double triangleArea(float[] coords, int[] indices, int count) {
+        double sum = 0;
+        for (int t = 0; t < count; t += 3) {
+            int a = indices[t] * 2;
+            int b = indices[t + 1] * 2;
+            int c = indices[t + 2] * 2;
+            double cross = (coords[b] - coords[a]) * (coords[c + 1] - coords[a + 1])
+                         - (coords[b + 1] - coords[a + 1]) * (coords[c] - coords[a]);
+            sum += Math.abs(cross) * 0.5;
+        }
+        return sum;
+    }
+
+    private static void checkInside(Polygon poly, float[] coords, int[] indices, int count) {
+        for (int t = 0; t < count; t += 3) {
+            float cx = (coords[indices[t] * 2] + coords[indices[t + 1] * 2] + coords[indices[t + 2] * 2]) / 3;
+            float cy = (coords[indices[t] * 2 + 1] + coords[indices[t + 1] * 2 + 1] + coords[indices[t + 2] * 2 + 1]) / 3;
+            assertTrue(poly.contains(cx, cy));
+        }
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2015 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.terasology.math.geom;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Tests the {@link PreparedPolygon} class.
+ */
+public class PreparedPolygonTest {
+
+    @Test
+    public void testSquare() {
+        Polygon square = Polygon.createCopy(Arrays.asList(
+                new Vector2f(0, 0), new Vector2f(2, 0), new Vector2f(2, 2), new Vector2f(0, 2)));
+        PreparedPolygon prepared = new PreparedPolygon(square);
+        assertEquals(square.getBounds(), prepared.getBounds());
+
+        assertTrue(prepared.contains(0, 0));
+        assertTrue(prepared.contains(1, 1));
+        assertTrue(prepared.contains(new Vector2i(1, 1)));
+        assertFalse(prepared.contains(2, 1));
+        assertFalse(prepared.contains(1, 2));
+        assertFalse(prepared.contains(-1, 1));
+        assertFalse(prepared.contains(Float.NaN, 1));
+    }
+
+    @Test
+    public void testDegenerate() {
+        Polygon line = Polygon.createCopy(Arrays.asList(new Vector2f(0, 0), new Vector2f(2, 2)));
+        assertFalse(new PreparedPolygon(line).contains(1, 1));
+
+        Polygon flat = Polygon.createCopy(Arrays.asList(new Vector2f(0, 1), new Vector2f(2, 1), new Vector2f(1, 1)));
+        assertFalse(new PreparedPolygon(flat).contains(1, 1));
+    }
+
+    @Test
+    public void testStarsMatchPolygon() {
+        Random rng = new Random(1234);
+        for (int run = 0; run < 20; run++) {
+            int n = 3 + rng.nextInt(500);
+            Polygon star = createStar(rng, n, 10, 50);
+            checkSame(rng, star);
+        }
+    }
+
+    @Test
+    public void testGridPolygonMatchesPolygon() {
+        // vertices on integer coordinates test the boundary rules
+        Random rng = new Random(4321);
+        for (int run = 0; run < 20; run++) {
+            List<Vector2f> vertices = Lists.newArrayList();
+            int n = 3 + rng.nextInt(30);
+            for (int i = 0; i < n; i++) {
+                vertices.add(new Vector2f(rng.nextInt(10), rng.nextInt(10)));
+            }
+            Polygon poly = Polygon.createCopy(vertices);
+            PreparedPolygon prepared = new PreparedPolygon(poly);
+            for (int y = -1; y <= 11; y++) {
+                for (int x = -1; x <= 11; x++) {
+                    assertEquals(poly.contains(x, y), prepared.contains(x, y));
+                    assertEquals(poly.contains(x + 0.5f, y + 0.5f), prepared.contains(x + 0.5f, y + 0.5f));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testLargeSpikyStar() {
+        // alternating inner and outer vertices give long edges that span a large part of the height
+        Random rng = new Random(42);
+        int n = 20000;
+        List<Vector2f> vertices = Lists.newArrayList();
+        for (int k = 0; k < n; k++) {
+            double angle = 2 * Math.PI * k / n;
+            double rad = (k % 2 == 0) ? 1 : 50;
+            vertices.add(new Vector2f((float) (Math.cos(angle) * rad), (float) (Math.sin(angle) * rad)));
+        }
+        Polygon star = Polygon.createCopy(vertices);
+        PreparedPolygon prepared = new PreparedPolygon(star);
+        assertTrue(prepared.indexSize() <= 5 * n);
+        checkSame(rng, star);
+    }
+
+    private static void checkSame(Random rng, Polygon poly) {
+        PreparedPolygon prepared = new PreparedPolygon(poly);
+        for (int i = 0; i < 2000; i++) {
+            float x = rng.nextFloat() * 120 - 60;
+            float y = rng.nextFloat() * 120 - 60;
+            assertEquals(poly.contains(x, y), prepared.contains(x, y));
+        }
+        for (int i = 0; i < poly.vertexCount(); i++) {
+            assertEquals(poly.contains(poly.getX(i), poly.getY(i)), prepared.contains(poly.getX(i), poly.getY(i)));
+        }
+    }
+
+    private static Polygon createStar(Random rng, int n, double minRad, double maxRad) {
+        List<Vector2f> vertices = Lists.newArrayList();
+        for (int k = 0; k < n; k++) {
+            double angle = 2 * Math.PI * k / n;
+            double rad = minRad + rng.nextDouble() * (maxRad - minRad);
+            vertices.add(new Vector2f((float) (Math.cos(angle) * rad), (float) (Math.sin(angle) * rad)));
+        }
+        return Polygon.createCopy(vertices);
+    }
+}
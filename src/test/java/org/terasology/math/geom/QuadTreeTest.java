@@ -0,0 +1,183 @@
+/*
+ * Copyright 2015 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.terasology.math.geom;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+/**
+ * Tests the {@link QuadTree} class against a brute-force search.
+ */
+public class QuadTreeTest {
+
+    private final Random rng = new Random(1234);
+    private final List<Rect2f> rects = Lists.newArrayList();
+    private final QuadTree<Integer> tree = new QuadTree<Integer>(Rect2f.createFromMinAndMax(0, 0, 100, 100), 4, 6);
+
+    private void fill(int count) {
+        for (int i = 0; i < count; i++) {
+            Rect2f rc = randomRect();
+            rects.add(rc);
+            tree.insert(i, rc);
+        }
+    }
+
+    private Rect2f randomRect() {
+        float x = rng.nextFloat() * 100;
+        float y = rng.nextFloat() * 100;
+        return Rect2f.createFromMinAndSize(x, y, rng.nextFloat() * 5 + 0.1f, rng.nextFloat() * 5 + 0.1f);
+    }
+
+    private Set<Integer> collect(Rect2f area) {
+        final Set<Integer> result = Sets.newHashSet();
+        tree.query(area, new QuadTree.Visitor<Integer>() {
+            @Override
+            public boolean visit(Integer item) {
+                assertTrue("reported twice", result.add(item));
+                return true;
+            }
+        });
+        return result;
+    }
+
+    private Set<Integer> bruteForce(Rect2f area) {
+        Set<Integer> result = Sets.newHashSet();
+        for (int i = 0; i < rects.size(); i++) {
+            Rect2f rc = rects.get(i);
+            if (rc != null && rc.minX() <= area.maxX() && rc.maxX() >= area.minX()
+                    && rc.minY() <= area.maxY() && rc.maxY() >= area.minY()) {
+                result.add(i);
+            }
+        }
+        return result;
+    }
+
+    @Test
+    public void testRectQuery() {
+        fill(500);
+        assertEquals(500, tree.size());
+        for (int i = 0; i < 100; i++) {
+            Rect2f area = Rect2f.createFromMinAndSize(rng.nextFloat() * 120 - 10, rng.nextFloat() * 120 - 10, 15, 15);
+            assertEquals(bruteForce(area), collect(area));
+        }
+    }
+
+    @Test
+    public void testRemoveAndMove() {
+        fill(300);
+        for (int i = 0; i < 300; i += 3) {
+            assertTrue(tree.remove(i));
+            rects.set(i, null);
+        }
+        assertFalse(tree.remove(0));
+        for (int i = 1; i < 300; i += 3) {
+            Rect2f rc = randomRect();
+            assertTrue(tree.move(i, rc));
+            rects.set(i, rc);
+        }
+        assertEquals(200, tree.size());
+
+        for (int i = 0; i < 100; i++) {
+            Rect2f area = Rect2f.createFromMinAndSize(rng.nextFloat() * 100, rng.nextFloat() * 100, 20, 20);
+            assertEquals(bruteForce(area), collect(area));
+        }
+    }
+
+    @Test
+    public void testOutsideBounds() {
+        tree.insert(1, Rect2f.createFromMinAndSize(-50, -50, 10, 10));
+        tree.insert(2, Rect2f.createFromMinAndSize(40, 40, 30, 30));
+        assertEquals(Sets.newHashSet(1), collect(Rect2f.createFromMinAndSize(-45, -45, 1, 1)));
+        assertEquals(Sets.newHashSet(2), collect(Rect2f.createFromMinAndSize(60, 60, 1, 1)));
+    }
+
+    @Test
+    public void testCircleAndPoint() {
+        tree.insert(1, 10, 10, 20, 20);
+        tree.insert(2, 30, 30, 30, 30);
+        tree.insert(3, 22, 22, 25, 25);
+
+        final List<Integer> found = Lists.newArrayList();
+        QuadTree.Visitor<Integer> collector = new QuadTree.Visitor<Integer>() {
+            @Override
+            public boolean visit(Integer item) {
+                found.add(item);
+                return true;
+            }
+        };
+
+        // the corner (20, 20) is ~2.83 away from the center, (22, 22) is exactly 0
+        tree.query(new Circle(22, 22, 2), collector);
+        assertEquals(Lists.newArrayList(3), found);
+
+        found.clear();
+        tree.queryCircle(22, 22, 3, collector);
+        assertEquals(Sets.newHashSet(1, 3), Sets.newHashSet(found));
+
+        found.clear();
+        tree.queryPoint(30, 30, collector);
+        assertEquals(Lists.newArrayList(2), found);
+    }
+
+    @Test
+    public void testSegment() {
+        tree.insert(1, 10, 10, 20, 20);
+        tree.insert(2, 30, 0, 35, 5);
+        tree.insert(3, 50, 50, 60, 60);
+
+        final Set<Integer> found = Sets.newHashSet();
+        tree.query(new LineSegment(0, 0, 40, 40), new QuadTree.Visitor<Integer>() {
+            @Override
+            public boolean visit(Integer item) {
+                found.add(item);
+                return true;
+            }
+        });
+        assertEquals(Sets.newHashSet(1), found);
+    }
+
+    @Test
+    public void testEarlyExit() {
+        fill(100);
+        final int[] count = new int[1];
+        boolean completed = tree.query(Rect2f.createFromMinAndSize(0, 0, 100, 100), new QuadTree.Visitor<Integer>() {
+            @Override
+            public boolean visit(Integer item) {
+                count[0]++;
+                return count[0] < 5;
+            }
+        });
+        assertFalse(completed);
+        assertEquals(5, count[0]);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDuplicateInsert() {
+        tree.insert(1, 0, 0, 1, 1);
+        tree.insert(1, 2, 2, 3, 3);
+    }
+}
@@ -190,4 +190,82 @@ public void testIteratorOverflow() {
             return;
         }
     }
+
+    @Test
+    public void testForEach() {
+        Rect2i a = Rect2i.createFromMinAndMax(-2, 3, 4, 5);
+        final List<Vector2i> visited = Lists.newArrayList();
+        assertTrue(a.forEach(new IntPairVisitor() {
+            @Override
+            public boolean visit(int x, int y) {
+                visited.add(new Vector2i(x, y));
+                return true;
+            }
+        }));
+
+        List<Vector2i> expected = Lists.newArrayList();
+        for (BaseVector2i pos : a.contents()) {
+            expected.add(new Vector2i(pos));
+        }
+        assertEquals(expected, visited);
+
+        final int[] count = new int[1];
+        assertFalse(a.forEach(new IntPairVisitor() {
+            @Override
+            public boolean visit(int x, int y) {
+                return ++count[0] < 4;
+            }
+        }));
+        assertEquals(4, count[0]);
+        assertTrue(Rect2i.EMPTY.forEach(null));
+    }
+
+    @Test
+    public void testSplitRows() {
+        Rect2i a = Rect2i.createFromMinAndSize(-2, 3, 5, 11);
+        List<Rect2i> bands = a.splitRows(4);
+        assertEquals(4, bands.size());
+        int y = a.minY();
+        for (Rect2i band : bands) {
+            assertEquals(a.minX(), band.minX());
+            assertEquals(a.width(), band.width());
+            assertEquals(y, band.minY());
+            assertTrue(band.height() == 2 || band.height() == 3);
+            y = band.maxY() + 1;
+        }
+        assertEquals(a.maxY() + 1, y);
+
+        assertEquals(11, a.splitRows(20).size());
+        assertTrue(Rect2i.EMPTY.splitRows(3).isEmpty());
+    }
+
+    @Test
+    public void testTiles() {
+        Rect2i a = Rect2i.createFromMinAndMax(-17, -3, 20, 4);
+        List<Tile2i> tiles = a.tiles(16, 8);
+        // x tiles -2..1, y tiles -1..0
+        assertEquals(8, tiles.size());
+        assertEquals(new Tile2i(-2, -1, Rect2i.createFromMinAndMax(-17, -3, -17, -1)), tiles.get(0));
+        assertEquals(new Tile2i(-1, -1, Rect2i.createFromMinAndMax(-16, -3, -1, -1)), tiles.get(1));
+        assertEquals(new Tile2i(1, 0, Rect2i.createFromMinAndMax(16, 0, 20, 4)), tiles.get(7));
+
+        int area = 0;
+        for (Tile2i tile : tiles) {
+            assertTrue(a.contains(tile.getRegion()));
+            assertEquals(tile.getTileX(), Math.floor(tile.getRegion().minX() / 16.0), 0.0);
+            assertEquals(tile.getTileY(), Math.floor(tile.getRegion().maxY() / 8.0), 0.0);
+            area += tile.getRegion().area();
+        }
+        assertEquals(a.area(), area);
+
+        final int[] count = new int[1];
+        assertFalse(a.forEachTile(16, 8, new Tile2i.Visitor() {
+            @Override
+            public boolean visit(int tileX, int tileY, int minX, int minY, int maxX, int maxY) {
+                return ++count[0] < 3;
+            }
+        }));
+        assertEquals(3, count[0]);
+        assertTrue(Rect2i.EMPTY.tiles(4, 4).isEmpty());
+    }
 }
@@ -0,0 +1,176 @@
+/*
+ * Copyright 2015 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.terasology.math.geom;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+import org.terasology.math.TeraMath;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+/**
+ * Tests the {@link Region3i} class.
+ */
+public class Region3iTest {
+
+    @Test
+    public void testCreate() {
+        Region3i a = Region3i.createFromMinAndSize(1, 2, 3, 4, 5, 6);
+        Region3i b = Region3i.createFromMinAndMax(1, 2, 3, 4, 6, 8);
+        assertEquals(a, b);
+        assertEquals(new Vector3i(4, 6, 8), a.max());
+        assertEquals(120, a.volume());
+        assertTrue(Region3i.createFromMinAndSize(0, 0, 0, 0, 1, 1).isEmpty());
+        assertTrue(Region3i.createFromMinAndMax(0, 0, 0, 1, -1, 1).isEmpty());
+        assertEquals(1, Region3i.createFromMinAndMax(0, 0, 0, 0, 0, 0).volume());
+        assertEquals(a, Region3i.createEncompassing(new Vector3i(4, 2, 8), new Vector3i(1, 6, 3)));
+    }
+
+    @Test
+    public void testContainsAndOverlaps() {
+        Region3i a = Region3i.createFromMinAndMax(0, 0, 0, 3, 3, 3);
+        assertTrue(a.contains(0, 0, 0));
+        assertTrue(a.contains(3, 3, 3));
+        assertFalse(a.contains(4, 3, 3));
+        assertTrue(a.contains(Region3i.createFromMinAndMax(1, 1, 1, 3, 3, 3)));
+        assertFalse(a.contains(Region3i.createFromMinAndMax(1, 1, 1, 4, 3, 3)));
+        assertTrue(a.overlaps(Region3i.createFromMinAndMax(3, 3, 3, 5, 5, 5)));
+        assertFalse(a.overlaps(Region3i.createFromMinAndMax(4, 0, 0, 5, 5, 5)));
+        assertFalse(a.overlaps(Region3i.EMPTY));
+    }
+
+    @Test
+    public void testIntersectAndExpand() {
+        Region3i a = Region3i.createFromMinAndMax(0, 0, 0, 3, 3, 3);
+        Region3i b = Region3i.createFromMinAndMax(2, -1, 1, 5, 1, 2);
+        assertEquals(Region3i.createFromMinAndMax(2, 0, 1, 3, 1, 2), a.intersect(b));
+        assertEquals(Region3i.EMPTY, a.intersect(Region3i.createFromMinAndMax(5, 5, 5, 6, 6, 6)));
+        assertEquals(Region3i.createFromMinAndMax(-1, -2, 0, 4, 5, 3), a.expand(1, 2, 0));
+        assertEquals(Region3i.EMPTY, a.expand(-2, 0, 0));
+    }
+
+    @Test
+    public void testDifference() {
+        Region3i a = Region3i.createFromMinAndMax(0, 0, 0, 4, 4, 4);
+        Region3i b = Region3i.createFromMinAndMax(1, 1, 1, 2, 2, 2);
+        checkDifference(a, b);
+        assertEquals(6, Region3i.difference(a, b).size());
+        checkDifference(a, Region3i.createFromMinAndMax(-2, 3, 2, 1, 7, 8));
+        checkDifference(a, Region3i.createFromMinAndMax(-2, -2, -2, 7, 7, 7));
+        checkDifference(a, Region3i.createFromMinAndMax(6, 6, 6, 7, 7, 7));
+    }
+
+    private void checkDifference(Region3i a, Region3i b) {
+        List<Region3i> diff = Region3i.difference(a, b);
+        for (BaseVector3i pos : a) {
+            int count = 0;
+            for (Region3i r : diff) {
+                if (r.contains(pos)) {
+                    count++;
+                }
+            }
+            assertEquals(pos.toString(), b.contains(pos) ? 0 : 1, count);
+        }
+        for (Region3i r : diff) {
+            assertTrue(a.contains(r));
+        }
+    }
+
+    @Test
+    public void testIteration() {
+        Region3i region = Region3i.createFromMinAndSize(-1, 2, 5, 3, 4, 2);
+        final Vector3i size = region.size();
+        final Vector3i min = region.min();
+
+        int index = 0;
+        final List<Vector3i> fromIterator = Lists.newArrayList();
+        for (BaseVector3i pos : region) {
+            assertEquals(index++, TeraMath.calculate3DArrayIndex(pos.getX() - min.x, pos.getY() - min.y, pos.getZ() - min.z, size));
+            fromIterator.add(new Vector3i(pos));
+        }
+        assertEquals(region.volume(), index);
+
+        final List<Vector3i> fromVisitor = Lists.newArrayList();
+        assertTrue(region.forEach(new IntTripleVisitor() {
+            @Override
+            public boolean visit(int x, int y, int z) {
+                fromVisitor.add(new Vector3i(x, y, z));
+                return true;
+            }
+        }));
+        assertEquals(fromIterator, fromVisitor);
+
+        final int[] count = new int[1];
+        assertFalse(region.forEach(new IntTripleVisitor() {
+            @Override
+            public boolean visit(int x, int y, int z) {
+                return ++count[0] < 5;
+            }
+        }));
+        assertEquals(5, count[0]);
+
+        Set<Vector3i> morton = Sets.newHashSet();
+        for (BaseVector3i pos : region.contentsMorton()) {
+            morton.add(new Vector3i(pos));
+        }
+        assertEquals(Sets.newHashSet(fromIterator), morton);
+
+        assertFalse(Region3i.EMPTY.iterator().hasNext());
+    }
+
+    @Test
+    public void testSplitY() {
+        Region3i region = Region3i.createFromMinAndSize(1, -4, 2, 3, 10, 5);
+        List<Region3i> slabs = region.splitY(3);
+        assertEquals(3, slabs.size());
+        int volume = 0;
+        int y = region.minY();
+        for (Region3i slab : slabs) {
+            assertEquals(y, slab.minY());
+            assertTrue(region.contains(slab));
+            volume += slab.volume();
+            y = slab.maxY() + 1;
+        }
+        assertEquals(region.volume(), volume);
+        assertEquals(Collections.singletonList(region), region.splitY(1));
+    }
+
+    @Test
+    public void testTiles() {
+        Region3i region = Region3i.createFromMinAndMax(-5, 0, -33, 4, 63, -1);
+        List<Tile3i> tiles = region.tiles(4, 64, 32);
+        // x tiles -2..1, y tile 0, z tiles -2..-1
+        assertEquals(8, tiles.size());
+        assertEquals(new Tile3i(-2, 0, -2, Region3i.createFromMinAndMax(-5, 0, -33, -5, 63, -33)), tiles.get(0));
+        assertEquals(new Tile3i(1, 0, -1, Region3i.createFromMinAndMax(4, 0, -32, 4, 63, -1)), tiles.get(7));
+
+        int volume = 0;
+        for (Tile3i tile : tiles) {
+            assertTrue(region.contains(tile.getRegion()));
+            volume += tile.getRegion().volume();
+        }
+        assertEquals(region.volume(), volume);
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2015 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.terasology.math.geom;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+/**
+ * Tests the {@link ScanlineRasterizer} class.
+ */
+public class ScanlineRasterizerTest {
+
+    @Test
+    public void testRect() {
+        Rect2i rect = Rect2i.createFromMinAndSize(-3, 2, 5, 4);
+        SpanCollector spans = new SpanCollector();
+        assertTrue(ScanlineRasterizer.rasterize(rect, spans));
+        assertEquals(4, spans.count);
+        assertEquals(rect.area(), spans.points.size());
+        for (Vector2i p : spans.points) {
+            assertTrue(rect.contains(p));
+        }
+        assertTrue(ScanlineRasterizer.rasterize(Rect2i.EMPTY, null));
+    }
+
+    @Test
+    public void testCircles() {
+        Random rng = new Random(42);
+        for (int i = 0; i < 100; i++) {
+            Circle circle = new Circle(rng.nextFloat() * 20 - 10, rng.nextFloat() * 20 - 10, rng.nextFloat() * 8);
+            SpanCollector spans = new SpanCollector();
+            assertTrue(ScanlineRasterizer.rasterize(circle, spans));
+            assertEquals(bruteForce(circle), spans.points);
+        }
+
+        // integer radius and center touch the grid points exactly
+        SpanCollector spans = new SpanCollector();
+        ScanlineRasterizer.rasterize(new Circle(0, 0, 2), spans);
+        assertEquals(bruteForce(new Circle(0, 0, 2)), spans.points);
+        assertEquals(13, spans.points.size());
+    }
+
+    @Test
+    public void testPolygons() {
+        Random rng = new Random(1234);
+        for (int i = 0; i < 200; i++) {
+            int n = 3 + rng.nextInt(8);
+            List<Vector2f> vertices = Lists.newArrayList();
+            for (int k = 0; k < n; k++) {
+                // mix of integer and fractional coordinates to hit vertices and edges exactly
+                float x = rng.nextBoolean() ? rng.nextInt(20) - 10 : rng.nextFloat() * 20 - 10;
+                float y = rng.nextBoolean() ? rng.nextInt(20) - 10 : rng.nextFloat() * 20 - 10;
+                vertices.add(new Vector2f(x, y));
+            }
+            Polygon poly = Polygon.createCopy(vertices);
+            SpanCollector spans = new SpanCollector();
+            assertTrue(ScanlineRasterizer.rasterize(poly, spans));
+            assertEquals(bruteForce(poly), spans.points);
+        }
+    }
+
+    @Test
+    public void testPolygonSpansOrdered() {
+        // a U-shape has two spans in the upper rows
+        Polygon poly = Polygon.createCopy(Arrays.asList(
+                new Vector2f(0, 0), new Vector2f(10, 0), new Vector2f(10, 10), new Vector2f(7, 10),
+                new Vector2f(7, 3), new Vector2f(3, 3), new Vector2f(3, 10), new Vector2f(0, 10)));
+        final List<int[]> spans = Lists.newArrayList();
+        ScanlineRasterizer.rasterize(poly, new SpanVisitor() {
+            @Override
+            public boolean visit(int y, int xStart, int xEnd) {
+                spans.add(new int[] {y, xStart, xEnd});
+                return true;
+            }
+        });
+        assertEquals(3 + 2 * 7, spans.size());
+        assertTrue(Arrays.equals(new int[] {0, 0, 9}, spans.get(0)));
+        assertTrue(Arrays.equals(new int[] {5, 0, 2}, spans.get(7)));
+        assertTrue(Arrays.equals(new int[] {5, 7, 9}, spans.get(8)));
+
+        final int[] count = new int[1];
+        assertFalse(ScanlineRasterizer.rasterize(poly, new SpanVisitor() {
+            @Override
+            public boolean visit(int y, int xStart, int xEnd) {
+                return ++count[0] < 2;
+            }
+        }));
+        assertEquals(2, count[0]);
+    }
+
+    private static Set<Vector2i> bruteForce(Shape shape) {
+        Rect2f bounds = shape.getBounds();
+        Set<Vector2i> result = Sets.newHashSet();
+        for (int y = (int) Math.floor(bounds.minY()) - 1; y <= Math.ceil(bounds.maxY()) + 1; y++) {
+            for (int x = (int) Math.floor(bounds.minX()) - 1; x <= Math.ceil(bounds.maxX()) + 1; x++) {
+                if (shape.contains(x, y)) {
+                    result.add(new Vector2i(x, y));
+                }
+            }
+        }
+        return result;
+    }
+
+    private static class SpanCollector implements SpanVisitor {
+        private final Set<Vector2i> points = Sets.newHashSet();
+        private int count;
+        private int lastY = Integer.MIN_VALUE;
+        private int lastX = Integer.MIN_VALUE;
+
+        @Override
+        public boolean visit(int y, int xStart, int xEnd) {
+            assertTrue(xStart <= xEnd);
+            assertTrue(y > lastY || (y == lastY && xStart > lastX + 1));
+            for (int x = xStart; x <= xEnd; x++) {
+                assertTrue(points.add(new Vector2i(x, y)));
+            }
+            lastY = y;
+            lastX = xEnd;
+            count++;
+            return true;
+        }
+    }
+}
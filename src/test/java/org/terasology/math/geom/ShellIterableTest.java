@@ -0,0 +1,197 @@
+/*
+ * Copyright 2015 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.terasology.math.geom;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+/**
+ * Tests the {@link ShellIterable} class.
+ */
+public class ShellIterableTest {
+
+    @Test
+    public void testChebyshev() {
+        Vector3i center = new Vector3i(3, -2, 7);
+        ShellIterable shells = ShellIterable.chebyshev(center).maxRadius(4).build();
+        assertEquals(9 * 9 * 9, shells.size());
+        assertEquals(5, shells.shellCount());
+
+        Set<Vector3i> visited = Sets.newHashSet();
+        int index = 0;
+        int lastShell = 0;
+        int lastDistSq = 0;
+        for (BaseVector3i pos : shells) {
+            assertTrue(visited.add(new Vector3i(pos)));
+            int dx = pos.getX() - center.x;
+            int dy = pos.getY() - center.y;
+            int dz = pos.getZ() - center.z;
+            int shell = Math.max(Math.abs(dx), Math.max(Math.abs(dy), Math.abs(dz)));
+            int distSq = dx * dx + dy * dy + dz * dz;
+            assertTrue(shell >= lastShell);
+            assertTrue(shell > lastShell || distSq >= lastDistSq);
+            assertTrue(index >= shells.shellStart(shell) && index < shells.shellStart(shell + 1));
+            lastShell = shell;
+            lastDistSq = distSq;
+            index++;
+        }
+        assertEquals(shells.size(), visited.size());
+        assertEquals(0, shells.shellStart(0));
+        assertEquals(1, shells.shellStart(1));
+        assertEquals(27, shells.shellStart(2));
+        assertEquals(shells.size(), shells.shellStart(5));
+    }
+
+    @Test
+    public void testEuclidean() {
+        ShellIterable shells = ShellIterable.euclidean(new Vector3i()).maxRadius(5).scale(2).build();
+        int count = 0;
+        for (int x = -5; x <= 5; x++) {
+            for (int y = -5; y <= 5; y++) {
+                for (int z = -5; z <= 5; z++) {
+                    if (x * x + y * y + z * z <= 25) {
+                        count++;
+                    }
+                }
+            }
+        }
+        assertEquals(count, shells.size());
+        assertEquals(7, shells.shellStart(2));
+
+        Vector3i pos = new Vector3i();
+        for (int shell = 0; shell < shells.shellCount(); shell++) {
+            for (int i = shells.shellStart(shell); i < shells.shellStart(shell + 1); i++) {
+                shells.positionAt(i, pos);
+                assertEquals(0, pos.x % 2);
+                double dist = pos.length() / 2;
+                assertTrue(dist <= shell);
+                assertTrue(shell == 0 || dist > shell - 1);
+            }
+        }
+    }
+
+    @Test
+    public void testVisitorAndIterator() {
+        ShellIterable shells = ShellIterable.euclidean(new Vector3i(1, 2, 3)).maxRadius(3).build();
+        final List<Vector3i> fromVisitor = Lists.newArrayList();
+        assertTrue(shells.forEach(new IntTripleVisitor() {
+            @Override
+            public boolean visit(int x, int y, int z) {
+                fromVisitor.add(new Vector3i(x, y, z));
+                return true;
+            }
+        }));
+
+        List<Vector3i> fromIterator = Lists.newArrayList();
+        for (BaseVector3i pos : shells) {
+            fromIterator.add(new Vector3i(pos));
+        }
+        assertEquals(fromIterator, fromVisitor);
+
+        final List<Vector3i> shell2 = Lists.newArrayList();
+        assertTrue(shells.forEachInShell(2, new IntTripleVisitor() {
+            @Override
+            public boolean visit(int x, int y, int z) {
+                shell2.add(new Vector3i(x, y, z));
+                return true;
+            }
+        }));
+        assertEquals(fromIterator.subList(shells.shellStart(2), shells.shellStart(3)), shell2);
+
+        Iterator<BaseVector3i> it = shells.iterator(shells.shellStart(3));
+        int index = shells.shellStart(3);
+        while (it.hasNext()) {
+            assertEquals(fromIterator.get(index++), it.next());
+        }
+        assertEquals(shells.size(), index);
+
+        final int[] count = new int[1];
+        assertFalse(shells.forEach(new IntTripleVisitor() {
+            @Override
+            public boolean visit(int x, int y, int z) {
+                return ++count[0] < 8;
+            }
+        }));
+        assertEquals(8, count[0]);
+    }
+
+    @Test
+    public void testWithCenter() {
+        ShellIterable shells = ShellIterable.chebyshev(new Vector3i(0, 0, 0)).maxRadius(4).scale(2).build();
+        ShellIterable moved = shells.withCenter(new Vector3i(10, -5, 3));
+        assertEquals(shells.size(), moved.size());
+        assertEquals(shells.shellCount(), moved.shellCount());
+
+        Vector3i pos = new Vector3i();
+        Vector3i movedPos = new Vector3i();
+        for (int i = 0; i < shells.size(); i++) {
+            shells.positionAt(i, pos);
+            moved.positionAt(i, movedPos);
+            assertEquals(new Vector3i(pos.x + 10, pos.y - 5, pos.z + 3), movedPos);
+        }
+
+        // a second instance with the same radius visits the same sequence
+        ShellIterable other = ShellIterable.chebyshev(new Vector3i(10, -5, 3)).maxRadius(4).scale(2).build();
+        for (int i = 0; i < other.size(); i++) {
+            moved.positionAt(i, pos);
+            other.positionAt(i, movedPos);
+            assertEquals(pos, movedPos);
+        }
+    }
+
+    @Test
+    public void testMaxRadius() {
+        ShellIterable shells = ShellIterable.euclidean(new Vector3i()).maxRadius(127).build();
+        assertEquals(128, shells.shellCount());
+        assertEquals(1, shells.shellStart(1));
+    }
+
+    @Test
+    public void testSharedPrefix() {
+        Vector3i center = new Vector3i(1, 2, 3);
+        ShellIterable large = ShellIterable.chebyshev(center).maxRadius(10).build();
+        ShellIterable small = ShellIterable.chebyshev(center).maxRadius(3).build();
+        assertEquals(7 * 7 * 7, small.size());
+        assertEquals(4, small.shellCount());
+        assertEquals(small.size(), small.shellStart(4));
+
+        // the smaller radius uses the beginning of the same sequence
+        Iterator<BaseVector3i> it = large.iterator();
+        int count = 0;
+        for (BaseVector3i pos : small) {
+            assertEquals(it.next(), pos);
+            count++;
+        }
+        assertEquals(small.size(), count);
+        assertEquals(large.size(), large.shellStart(11));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidRadius() {
+        ShellIterable.chebyshev(new Vector3i()).maxRadius(128).build();
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2015 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.terasology.math.geom;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+import com.google.common.collect.Sets;
+
+/**
+ * Tests the {@link SpatialHashGrid2f} class against a brute-force search.
+ */
+public class SpatialHashGrid2fTest {
+
+    private final Random rng = new Random(99);
+
+    private float[] randomPositions(int count, float range) {
+        float[] pos = new float[count * 2];
+        for (int i = 0; i < pos.length; i++) {
+            pos[i] = rng.nextFloat() * range * 2 - range;
+        }
+        return pos;
+    }
+
+    private static IndexVisitor collector(final Set<Integer> target) {
+        return new IndexVisitor() {
+            @Override
+            public boolean visit(int index) {
+                assertTrue("reported twice", target.add(index));
+                return true;
+            }
+        };
+    }
+
+    @Test
+    public void testRadiusAndRect() {
+        SpatialHashGrid2f grid = new SpatialHashGrid2f(4f);
+        // the hash table is reused with a smaller mask when the count shrinks
+        int[] counts = {800, 200, 500};
+        for (int count : counts) {
+            float[] pos = randomPositions(count, 50);
+            grid.rebuild(pos, count);
+            assertEquals(count, grid.size());
+
+            for (int q = 0; q < 50; q++) {
+                float x = rng.nextFloat() * 100 - 50;
+                float y = rng.nextFloat() * 100 - 50;
+                float radius = rng.nextFloat() * (q % 10 == 0 ? 80 : 10);
+                Rect2f area = Rect2f.createFromMinAndSize(x, y, radius, radius * 0.5f);
+
+                Set<Integer> expectedRadius = Sets.newHashSet();
+                Set<Integer> expectedRect = Sets.newHashSet();
+                for (int i = 0; i < count; i++) {
+                    float dx = pos[i * 2] - x;
+                    float dy = pos[i * 2 + 1] - y;
+                    if (dx * dx + dy * dy <= radius * radius) {
+                        expectedRadius.add(i);
+                    }
+                    if (area.contains(pos[i * 2], pos[i * 2 + 1])) {
+                        expectedRect.add(i);
+                    }
+                }
+
+                Set<Integer> actual = Sets.newHashSet();
+                grid.queryRadius(x, y, radius, collector(actual));
+                assertEquals(expectedRadius, actual);
+
+                actual.clear();
+                grid.queryRect(area, collector(actual));
+                assertEquals(expectedRect, actual);
+            }
+        }
+    }
+
+    @Test
+    public void testCells() {
+        SpatialHashGrid2f grid = new SpatialHashGrid2f(2f);
+        float[] pos = new float[] {0.5f, 0.5f, -0.5f, 1.5f, 2.5f, -1.5f, 7f, 7f, -2.5f, 0};
+        grid.rebuild(pos, 5);
+
+        assertEquals(-1, grid.cellX(-0.5f));
+        assertEquals(-2, grid.cellX(-2.5f));
+
+        Set<Integer> actual = Sets.newHashSet();
+        grid.forEachInCell(0, 0, collector(actual));
+        assertEquals(Sets.newHashSet(0), actual);
+
+        actual.clear();
+        grid.forEachInNeighbourhood(0.5f, 0.5f, collector(actual));
+        assertEquals(Sets.newHashSet(0, 1, 2), actual);
+
+        actual.clear();
+        grid.forEachInNeighbourhood(-1, 0, collector(actual));
+        assertEquals(Sets.newHashSet(0, 1, 4), actual);
+
+        grid.rebuild(pos, 0);
+        actual.clear();
+        grid.forEachInNeighbourhood(0.5f, 0.5f, collector(actual));
+        assertTrue(actual.isEmpty());
+    }
+
+    @Test(timeout = 10000)
+    public void testHugeQueries() {
+        SpatialHashGrid2f grid = new SpatialHashGrid2f(1f);
+        float[] pos = randomPositions(100, 50);
+        grid.rebuild(pos, 100);
+
+        // the cell bounds saturate at the int range
+        Set<Integer> actual = Sets.newHashSet();
+        grid.queryRadius(0, 0, 1e10f, collector(actual));
+        assertEquals(100, actual.size());
+
+        actual.clear();
+        grid.queryRect(Rect2f.createFromMinAndMax(-1e10f, -1e10f, 1e10f, 1e10f), collector(actual));
+        assertEquals(100, actual.size());
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2015 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.terasology.math.geom;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+import com.google.common.collect.Sets;
+
+/**
+ * Tests the {@link SpatialHashGrid3f} class against a brute-force search.
+ */
+public class SpatialHashGrid3fTest {
+
+    private final Random rng = new Random(77);
+
+    private static IndexVisitor collector(final Set<Integer> target) {
+        return new IndexVisitor() {
+            @Override
+            public boolean visit(int index) {
+                assertTrue("reported twice", target.add(index));
+                return true;
+            }
+        };
+    }
+
+    @Test
+    public void testRadius() {
+        int count = 1000;
+        float[] pos = new float[count * 3];
+        for (int i = 0; i < pos.length; i++) {
+            pos[i] = rng.nextFloat() * 60 - 30;
+        }
+
+        SpatialHashGrid3f grid = new SpatialHashGrid3f(3f);
+        grid.rebuild(pos, count);
+
+        for (int q = 0; q < 50; q++) {
+            float x = rng.nextFloat() * 60 - 30;
+            float y = rng.nextFloat() * 60 - 30;
+            float z = rng.nextFloat() * 60 - 30;
+            float radius = rng.nextFloat() * (q % 10 == 0 ? 50 : 8);
+
+            Set<Integer> expected = Sets.newHashSet();
+            for (int i = 0; i < count; i++) {
+                float dx = pos[i * 3] - x;
+                float dy = pos[i * 3 + 1] - y;
+                float dz = pos[i * 3 + 2] - z;
+                if (dx * dx + dy * dy + dz * dz <= radius * radius) {
+                    expected.add(i);
+                }
+            }
+
+            Set<Integer> actual = Sets.newHashSet();
+            grid.queryRadius(x, y, z, radius, collector(actual));
+            assertEquals(expected, actual);
+        }
+    }
+
+    @Test
+    public void testNeighbourhood() {
+        float[] pos = new float[] {0.5f, 0.5f, 0.5f, -0.5f, 1.5f, 0.5f, 0.5f, 0.5f, -1.5f, 0.5f, 0.5f, 2.5f};
+        SpatialHashGrid3f grid = new SpatialHashGrid3f(1f);
+        grid.rebuild(pos, 4);
+
+        Set<Integer> actual = Sets.newHashSet();
+        grid.forEachInNeighbourhood(0.2f, 0.2f, 0.2f, collector(actual));
+        assertEquals(Sets.newHashSet(0, 1), actual);
+
+        actual.clear();
+        grid.forEachInCell(0, 0, -2, collector(actual));
+        assertEquals(Sets.newHashSet(2), actual);
+
+        assertFalse(grid.forEachInCell(0, 0, 0, new IndexVisitor() {
+            @Override
+            public boolean visit(int index) {
+                return false;
+            }
+        }));
+    }
+
+    @Test(timeout = 10000)
+    public void testHugeRadius() {
+        float[] pos = new float[300];
+        for (int i = 0; i < pos.length; i++) {
+            pos[i] = rng.nextFloat() * 60 - 30;
+        }
+        SpatialHashGrid3f grid = new SpatialHashGrid3f(1f);
+        grid.rebuild(pos, 100);
+
+        // the cell bounds saturate at the int range
+        Set<Integer> actual = Sets.newHashSet();
+        grid.queryRadius(0, 0, 0, 1e10f, collector(actual));
+        assertEquals(100, actual.size());
+    }
+}
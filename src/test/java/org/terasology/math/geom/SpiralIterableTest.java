@@ -24,6 +24,8 @@
 import org.junit.Assert;
 import org.junit.Test;
 
+import com.google.common.collect.Lists;
+
 /**
  * Tests the {@link SpiralIterable} class.
  * @author Martin Steiger
@@ -156,4 +158,89 @@ public void testInfiniteCounterCw() {
             Assert.assertEquals(pt, iterator.next());
         }
     }
+
+    @Test
+    public void testForEach() {
+        for (int rad = 0; rad < 6; rad++) {
+            for (boolean cw : new boolean[] {true, false}) {
+                SpiralIterable.Builder builder = cw ? SpiralIterable.clockwise(new Vector2i(3, 1)) : SpiralIterable.counterClockwise(new Vector2i(3, 1));
+                SpiralIterable spiral = builder.maxRadius(rad).scale(3).build();
+
+                final List<Vector2i> visited = Lists.newArrayList();
+                Assert.assertTrue(spiral.forEach(new IntPairVisitor() {
+                    @Override
+                    public boolean visit(int x, int y) {
+                        visited.add(new Vector2i(x, y));
+                        return true;
+                    }
+                }));
+
+                List<Vector2i> expected = Lists.newArrayList();
+                for (BaseVector2i pos : spiral) {
+                    expected.add(new Vector2i(pos));
+                }
+                Assert.assertEquals(expected, visited);
+            }
+        }
+    }
+
+    @Test
+    public void testForEachStop() {
+        SpiralIterable spiral = SpiralIterable.clockwise(new Vector2i(3, 1)).build();
+        final int[] count = new int[1];
+        Assert.assertFalse(spiral.forEach(new IntPairVisitor() {
+            @Override
+            public boolean visit(int x, int y) {
+                return ++count[0] < 100;
+            }
+        }));
+        Assert.assertEquals(100, count[0]);
+    }
+
+    @Test
+    public void testRandomAccess() {
+        for (boolean cw : new boolean[] {true, false}) {
+            SpiralIterable.Builder builder = cw ? SpiralIterable.clockwise(new Vector2i(3, 1)) : SpiralIterable.counterClockwise(new Vector2i(3, 1));
+            SpiralIterable spiral = builder.maxRadius(7).scale(2).build();
+            Assert.assertEquals(15 * 15, spiral.size());
+
+            Vector2i target = new Vector2i();
+            int index = 0;
+            for (BaseVector2i pos : spiral) {
+                Assert.assertEquals(pos, spiral.positionAt(index, target));
+                Assert.assertEquals(index, spiral.indexOf(pos));
+                index++;
+            }
+
+            Assert.assertEquals(-1, spiral.indexOf(4, 1));
+            Assert.assertEquals(-1, spiral.indexOf(3 + 16, 1));
+            Assert.assertEquals(-1, spiral.indexOf(Integer.MIN_VALUE + 1, 1));
+        }
+    }
+
+    @Test
+    public void testResume() {
+        SpiralIterable spiral = SpiralIterable.counterClockwise(new Vector2i(-5, 2)).maxRadius(6).build();
+        List<Vector2i> all = Lists.newArrayList();
+        for (BaseVector2i pos : spiral) {
+            all.add(new Vector2i(pos));
+        }
+
+        for (int start = 0; start <= spiral.size(); start += 7) {
+            Iterator<BaseVector2i> it = spiral.iterator(start);
+            for (int i = start; i < spiral.size(); i++) {
+                Assert.assertEquals(all.get(i), it.next());
+            }
+            Assert.assertFalse(it.hasNext());
+        }
+    }
+
+    @Test
+    public void testLargeIndex() {
+        SpiralIterable spiral = SpiralIterable.clockwise(new Vector2i(0, 0)).build();
+        int last = spiral.size() - 1;
+        Vector2i pos = spiral.positionAt(last, new Vector2i());
+        Assert.assertEquals(new Vector2i(23169, -23169), pos);
+        Assert.assertEquals(last, spiral.indexOf(pos));
+    }
 }
@@ -0,0 +1,178 @@
+/*
+ * Copyright 2015 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.terasology.math.geom;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+import com.google.common.collect.Sets;
+
+/**
+ * Tests the {@link TriangleBvh} class against brute-force tests of all triangles.
+ */
+public class TriangleBvhTest {
+
+    private final Random rng = new Random(8080);
+
+    private final int triCount = 500;
+    private final float[] vertices = new float[triCount * 9];
+    private final int[] indices = new int[triCount * 3];
+
+    public TriangleBvhTest() {
+        // small random triangles in a 100^3 cube
+        for (int t = 0; t < triCount; t++) {
+            float cx = rng.nextFloat() * 100;
+            float cy = rng.nextFloat() * 100;
+            float cz = rng.nextFloat() * 100;
+            for (int v = 0; v < 3; v++) {
+                vertices[t * 9 + v * 3] = cx + rng.nextFloat() * 10 - 5;
+                vertices[t * 9 + v * 3 + 1] = cy + rng.nextFloat() * 10 - 5;
+                vertices[t * 9 + v * 3 + 2] = cz + rng.nextFloat() * 10 - 5;
+                indices[t * 3 + v] = t * 3 + v;
+            }
+        }
+    }
+
+    @Test
+    public void testRaycast() {
+        TriangleBvh bvh = new TriangleBvh(vertices, indices);
+        assertEquals(triCount, bvh.getTriangleCount());
+        assertTrue(bvh.getNodeCount() > 1);
+
+        TriangleBvh.Hit hit = new TriangleBvh.Hit();
+        TriangleBvh single = new TriangleBvh(vertices, new int[] {0, 1, 2});
+        TriangleBvh.Hit singleHit = new TriangleBvh.Hit();
+
+        int hits = 0;
+        for (int r = 0; r < 300; r++) {
+            Vector3f origin = new Vector3f(rng.nextFloat() * 100, rng.nextFloat() * 100, -10);
+            Vector3f dir = new Vector3f(rng.nextFloat() - 0.5f, rng.nextFloat() - 0.5f, 1);
+            if (r % 10 == 0) {
+                dir.x = 0;
+            }
+            float maxDist = (r % 3 == 0) ? 60 : Float.POSITIVE_INFINITY;
+
+            // brute force: one triangle at a time
+            float best = maxDist;
+            int bestTri = -1;
+            for (int t = 0; t < triCount; t++) {
+                TriangleBvh tri = new TriangleBvh(vertices, new int[] {t * 3, t * 3 + 1, t * 3 + 2});
+                if (tri.raycast(origin, dir, best, singleHit)) {
+                    best = singleHit.getDistance();
+                    bestTri = t;
+                }
+            }
+
+            assertEquals(bestTri >= 0, bvh.raycast(origin, dir, maxDist, hit));
+            assertEquals(bestTri >= 0, bvh.raycastAny(origin, dir, maxDist));
+            if (bestTri >= 0) {
+                hits++;
+                assertEquals(bestTri, hit.getTriangle());
+                assertEquals(best, hit.getDistance(), 0f);
+            }
+        }
+        assertTrue("too few hits to be meaningful", hits > 20);
+        assertFalse(single.raycastAny(new Vector3f(0, 0, 0), new Vector3f(-1, -1, -1), 10));
+    }
+
+    @Test
+    public void testBarycentric() {
+        float[] verts = {0, 0, 0, 1, 0, 0, 0, 1, 0};
+        TriangleBvh bvh = new TriangleBvh(verts, new int[] {0, 1, 2});
+        TriangleBvh.Hit hit = new TriangleBvh.Hit();
+        assertTrue(bvh.raycast(new Vector3f(0.25f, 0.5f, 2), new Vector3f(0, 0, -2), 10, hit));
+        assertEquals(1f, hit.getDistance(), 1e-6f);
+        assertEquals(0.25f, hit.getU(), 1e-6f);
+        assertEquals(0.5f, hit.getV(), 1e-6f);
+
+        // behind the origin
+        assertFalse(bvh.raycast(new Vector3f(0.25f, 0.5f, 2), new Vector3f(0, 0, 1), 10, hit));
+        assertFalse(hit.isHit());
+    }
+
+    @Test
+    public void testBatch() {
+        TriangleBvh bvh = new TriangleBvh(vertices, indices);
+        int count = 50;
+        float[] origins = new float[count * 3];
+        float[] dirs = new float[count * 3];
+        TriangleBvh.Hit[] hits = new TriangleBvh.Hit[count];
+        for (int i = 0; i < count; i++) {
+            origins[i * 3] = rng.nextFloat() * 100;
+            origins[i * 3 + 1] = rng.nextFloat() * 100;
+            origins[i * 3 + 2] = 110;
+            dirs[i * 3 + 2] = -1;
+            hits[i] = new TriangleBvh.Hit();
+        }
+
+        int hitCount = bvh.raycast(origins, dirs, count, 1000, hits);
+        int expected = 0;
+        TriangleBvh.Hit hit = new TriangleBvh.Hit();
+        for (int i = 0; i < count; i++) {
+            boolean isHit = bvh.raycast(origins[i * 3], origins[i * 3 + 1], origins[i * 3 + 2], 0, 0, -1, 1000, hit);
+            assertEquals(isHit, hits[i].isHit());
+            assertEquals(hit.getTriangle(), hits[i].getTriangle());
+            expected += isHit ? 1 : 0;
+        }
+        assertEquals(expected, hitCount);
+    }
+
+    @Test
+    public void testBox() {
+        TriangleBvh bvh = new TriangleBvh(vertices, indices);
+        for (int q = 0; q < 20; q++) {
+            float x = rng.nextFloat() * 100;
+            float y = rng.nextFloat() * 100;
+            float z = rng.nextFloat() * 100;
+            float size = rng.nextFloat() * 20;
+
+            Set<Integer> expected = Sets.newHashSet();
+            for (int t = 0; t < triCount; t++) {
+                boolean overlaps = true;
+                for (int a = 0; a < 3; a++) {
+                    float min = Float.POSITIVE_INFINITY;
+                    float max = Float.NEGATIVE_INFINITY;
+                    for (int v = 0; v < 3; v++) {
+                        min = Math.min(min, vertices[t * 9 + v * 3 + a]);
+                        max = Math.max(max, vertices[t * 9 + v * 3 + a]);
+                    }
+                    float lo = (a == 0 ? x : a == 1 ? y : z);
+                    overlaps &= min <= lo + size && max >= lo;
+                }
+                if (overlaps) {
+                    expected.add(t);
+                }
+            }
+
+            final Set<Integer> actual = Sets.newHashSet();
+            bvh.queryBox(x, y, z, x + size, y + size, z + size, new IndexVisitor() {
+                @Override
+                public boolean visit(int index) {
+                    actual.add(index);
+                    return true;
+                }
+            });
+            assertEquals(expected, actual);
+        }
+    }
+}